@@ -0,0 +1,98 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.repository.AccountRepository;
+import com.yucel.withdrawal.repository.InMemoryAccountRepository;
+import com.yucel.withdrawal.repository.OffHeapAccountRepository;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Heap and direct memory retained per account by {@link InMemoryAccountRepository} and {@link OffHeapAccountRepository},
+ * and the garbage collection work with the accounts live: a full collection, and the collections and allocations
+ * of random transfers between them. Retained sizes are not a JMH metric, so this runs on its own, one store per JVM
+ * so the heap of one does not skew the other:
+ *
+ * {@code java -Xmx16g -XX:MaxDirectMemorySize=4g -cp target/benchmarks.jar com.yucel.withdrawal.benchmark.AccountMemoryBenchmark OFF_HEAP 20000000}
+ */
+public class AccountMemoryBenchmark {
+
+  private static final int TRANSFERS = 10_000_000;
+
+  public static void main(String[] args) {
+    String store = args.length > 0 ? args[0] : "OFF_HEAP";
+    int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+    IntFunction<AccountRepository> repositories = switch (store) {
+      case "HEAP" -> capacity -> new InMemoryAccountRepository();
+      case "OFF_HEAP" -> capacity -> new OffHeapAccountRepository(Set.of(), capacity, OffHeapAccountRepository.DEFAULT_MAX_ADDRESS_BYTES);
+      default -> throw new IllegalArgumentException("store must be HEAP or OFF_HEAP");
+    };
+
+    String[] addresses = new String[accounts];
+    for (int i = 0; i < accounts; i++) {
+      addresses[i] = "DE%020d".formatted(i);
+    }
+    long heapBefore = usedHeapAfterFullCollection();
+    long directBefore = directBytes();
+
+    AccountRepository accountRepository = repositories.apply(accounts);
+    // the repository gets its own address strings, as it does from the requests
+    for (int i = 0; i < accounts; i++) {
+      accountRepository.save(new Account("DE%020d".formatted(i), AccountRepositoryBenchmark.INITIAL_BALANCE));
+    }
+    long heapBytes = usedHeapAfterFullCollection() - heapBefore;
+    long directBytes = directBytes() - directBefore;
+
+    long fullCollectionStart = System.nanoTime();
+    System.gc();
+    long fullCollectionMillis = (System.nanoTime() - fullCollectionStart) / 1_000_000;
+
+    long collectionsBefore = collections();
+    long collectionMillisBefore = collectionMillis();
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+    SplittableRandom random = new SplittableRandom(42);
+    long transfersStart = System.nanoTime();
+    for (int i = 0; i < TRANSFERS; i++) {
+      accountRepository.withdraw(addresses[random.nextInt(accounts)], 1L);
+      accountRepository.deposit(addresses[random.nextInt(accounts)], 1L);
+    }
+    long transfersNanos = System.nanoTime() - transfersStart;
+    long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+    System.out.printf("store %s, %d accounts%n", store, accountRepository.count());
+    System.out.printf("retained heap: %d MB, %.1f bytes per account%n", heapBytes >> 20, (double) heapBytes / accounts);
+    System.out.printf("retained direct memory: %d MB, %.1f bytes per account%n", directBytes >> 20, (double) directBytes / accounts);
+    System.out.printf("full collection with the accounts live: %d ms%n", fullCollectionMillis);
+    System.out.printf("%d transfers: %d ns per transfer, %.1f bytes allocated per transfer, %d collections taking %d ms%n",
+      TRANSFERS, transfersNanos / TRANSFERS, (double) allocated / TRANSFERS,
+      collections() - collectionsBefore, collectionMillis() - collectionMillisBefore);
+  }
+
+  private static long usedHeapAfterFullCollection() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long directBytes() {
+    return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+      .filter(pool -> "direct".equals(pool.getName()))
+      .mapToLong(BufferPoolMXBean::getMemoryUsed)
+      .sum();
+  }
+
+  private static long collections() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+  }
+
+  private static long collectionMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+  }
+}
@@ -0,0 +1,111 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.repository.AccountRepository;
+import com.yucel.withdrawal.repository.InMemoryAccountRepository;
+import com.yucel.withdrawal.repository.OffHeapAccountRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance updates of {@link InMemoryAccountRepository} and {@link OffHeapAccountRepository} under contention. All threads share one repository, the
+ * accounts they touch are drawn uniformly or skewed towards a few hot ones. Run at growing thread counts with
+ * {@link ThreadScalingRunner}, or a single one with {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class AccountRepositoryBenchmark {
+
+  /**
+   * balance no benchmark run can exhaust one unit at a time
+   */
+  public static final long INITIAL_BALANCE = Long.MAX_VALUE / 4;
+
+  @Param({"1024"})
+  public int accounts;
+
+  @Param({"UNIFORM", "ZIPF"})
+  public KeyDistribution distribution;
+
+  /**
+   * number of the hottest accounts kept as striped hot accounts
+   */
+  @Param({"0", "8"})
+  public int hotAccounts;
+
+  @Param({"HEAP", "OFF_HEAP"})
+  public String store;
+
+  private AccountRepository accountRepository;
+  private String[] addresses;
+
+  @Setup
+  public void setUp() {
+    addresses = new String[accounts];
+    Set<String> hotAccountAddresses = new HashSet<>();
+    for (int i = 0; i < accounts; i++) {
+      addresses[i] = "DE%020d".formatted(i);
+      if (i < hotAccounts) {
+        hotAccountAddresses.add(addresses[i]);
+      }
+    }
+    accountRepository = "HEAP".equals(store)
+      ? new InMemoryAccountRepository(hotAccountAddresses)
+      : new OffHeapAccountRepository(hotAccountAddresses, accounts, OffHeapAccountRepository.DEFAULT_MAX_ADDRESS_BYTES);
+    for (String address : addresses) {
+      accountRepository.save(new Account(address, INITIAL_BALANCE));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Keys {
+    private int[] indexes;
+    private int next;
+
+    @Setup
+    public void setUp(AccountRepositoryBenchmark benchmark, ThreadParams threadParams) {
+      indexes = benchmark.distribution.sample(benchmark.accounts, KeyDistribution.SAMPLES, threadParams.getThreadIndex());
+    }
+
+    int next() {
+      return indexes[next++ & (KeyDistribution.SAMPLES - 1)];
+    }
+  }
+
+  @Benchmark
+  public Account deposit(Keys keys) {
+    return accountRepository.deposit(addresses[keys.next()], 1L);
+  }
+
+  @Benchmark
+  public Account withdraw(Keys keys) {
+    return accountRepository.withdraw(addresses[keys.next()], 1L);
+  }
+
+  /**
+   * the balance moves of an internal withdrawal between two drawn accounts
+   */
+  @Benchmark
+  public Account transfer(Keys keys) {
+    accountRepository.withdraw(addresses[keys.next()], 1L);
+    return accountRepository.deposit(addresses[keys.next()], 1L);
+  }
+}
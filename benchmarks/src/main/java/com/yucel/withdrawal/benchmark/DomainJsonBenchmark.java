@@ -0,0 +1,99 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.AccountRequest;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalRequest;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.mapper.WithdrawalRequestMapper;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request parsing and mapping at the http edge, and json of the domain records in both directions.
+ * The single resource responses are compared in {@link ResponseEncodingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DomainJsonBenchmark {
+
+  public static final int PAGE_SIZE = 100;
+
+  private final WithdrawalRequestMapper withdrawalRequestMapper = new WithdrawalRequestMapper();
+  private WithdrawalRequest withdrawalRequest;
+  private Buffer withdrawalRequestJson;
+  private Buffer accountRequestJson;
+  private Buffer withdrawalTransactionJson;
+  private List<WithdrawalTransaction> withdrawalPage;
+
+  @Setup
+  public void setUp() {
+    withdrawalRequest = new WithdrawalRequest("DE89370400440532013000", "DE89370400440532013001", new BigDecimal("50.25"));
+    withdrawalRequestJson = Json.encodeToBuffer(withdrawalRequest);
+    accountRequestJson = Json.encodeToBuffer(new AccountRequest("DE89370400440532013000", new BigDecimal("1000")));
+    withdrawalPage = new ArrayList<>(PAGE_SIZE);
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      withdrawalPage.add(new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress("DE89370400440532013000"),
+        new TransferAddress("DE89370400440532013001"), new TransferAmount(5_025L + i), WithdrawalStatus.PROCESSING, false));
+    }
+    withdrawalTransactionJson = Json.encodeToBuffer(withdrawalPage.getFirst());
+  }
+
+  /**
+   * the way the http server reads a withdrawal request body
+   */
+  @Benchmark
+  public WithdrawalRequest decodeWithdrawalRequestThroughJsonObject() {
+    return new JsonObject(withdrawalRequestJson).mapTo(WithdrawalRequest.class);
+  }
+
+  @Benchmark
+  public WithdrawalRequest decodeWithdrawalRequest() {
+    return Json.decodeValue(withdrawalRequestJson, WithdrawalRequest.class);
+  }
+
+  @Benchmark
+  public AccountRequest decodeAccountRequestThroughJsonObject() {
+    return new JsonObject(accountRequestJson).mapTo(AccountRequest.class);
+  }
+
+  @Benchmark
+  public WithdrawalTransaction decodeWithdrawalTransaction() {
+    return Json.decodeValue(withdrawalTransactionJson, WithdrawalTransaction.class);
+  }
+
+  @Benchmark
+  public WithdrawalTransaction mapWithdrawalRequest() {
+    return withdrawalRequestMapper.mapToWithdrawalTransaction(withdrawalRequest, false);
+  }
+
+  /**
+   * the way a page of a list endpoint is encoded
+   */
+  @Benchmark
+  public String encodeWithdrawalPage() {
+    return Json.encode(withdrawalPage);
+  }
+}
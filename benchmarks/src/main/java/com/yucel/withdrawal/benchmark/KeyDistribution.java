@@ -0,0 +1,60 @@
+package com.yucel.withdrawal.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How the accounts touched by a benchmark are picked. Keys are drawn up front, so the measured loop
+ * only reads the next one from an array.
+ */
+public enum KeyDistribution {
+
+  /**
+   * every account equally likely
+   */
+  UNIFORM {
+    @Override
+    int[] sample(int keys, int samples, long seed) {
+      SplittableRandom random = new SplittableRandom(seed);
+      int[] indexes = new int[samples];
+      for (int i = 0; i < samples; i++) {
+        indexes[i] = random.nextInt(keys);
+      }
+      return indexes;
+    }
+  },
+  /**
+   * the account of rank k is picked with a probability proportional to 1 / (k + 1), a few accounts take most of the load
+   */
+  ZIPF {
+    @Override
+    int[] sample(int keys, int samples, long seed) {
+      double[] cumulative = new double[keys];
+      double sum = 0;
+      for (int rank = 0; rank < keys; rank++) {
+        sum += 1.0 / (rank + 1);
+        cumulative[rank] = sum;
+      }
+      SplittableRandom random = new SplittableRandom(seed);
+      int[] indexes = new int[samples];
+      for (int i = 0; i < samples; i++) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        indexes[i] = Math.min(rank < 0 ? -rank - 1 : rank, keys - 1);
+      }
+      return indexes;
+    }
+  };
+
+  /**
+   * number of keys drawn per thread, a power of two so the next key is a mask away
+   */
+  public static final int SAMPLES = 1 << 16;
+
+  /**
+   * @param keys number of keys, indexes are between 0 and keys - 1
+   * @param samples number of indexes drawn
+   * @param seed seed of the draw, each thread uses its own
+   * @return drawn key indexes
+   */
+  abstract int[] sample(int keys, int samples, long seed);
+}
@@ -0,0 +1,96 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.AccountSnapshot;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import com.yucel.withdrawal.mapper.ResponseJsonWriter;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of the single resource responses: the object mapper through a JsonObject, the object mapper straight
+ * to a buffer, and the hand written writers. Run with {@code java -jar target/benchmarks.jar ResponseEncoding -prof gc}
+ * to see the allocation per response as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ResponseEncodingBenchmark {
+
+  private WithdrawalTransaction withdrawalTransaction;
+  private WithdrawalStatusResponse withdrawalStatusResponse;
+  private AccountSnapshot accountSnapshot;
+
+  @Setup
+  public void setUp() {
+    withdrawalTransaction = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress("DE89370400440532013000"),
+      new TransferAddress("DE89370400440532013001"), new TransferAmount(5_025L), WithdrawalStatus.PROCESSING, false);
+    withdrawalStatusResponse = new WithdrawalStatusResponse(withdrawalTransaction.id(), WithdrawalStatus.COMPLETED);
+    accountSnapshot = new AccountSnapshot("DE89370400440532013000", 1_234_567L);
+  }
+
+  @Benchmark
+  public Buffer withdrawalMapFrom() {
+    return JsonObject.mapFrom(withdrawalTransaction).toBuffer();
+  }
+
+  @Benchmark
+  public Buffer withdrawalObjectMapper() {
+    return Json.encodeToBuffer(withdrawalTransaction);
+  }
+
+  @Benchmark
+  public Buffer withdrawalWriter() {
+    return ResponseJsonWriter.write(withdrawalTransaction);
+  }
+
+  @Benchmark
+  public Buffer statusMapFrom() {
+    return JsonObject.mapFrom(withdrawalStatusResponse).toBuffer();
+  }
+
+  @Benchmark
+  public Buffer statusObjectMapper() {
+    return Json.encodeToBuffer(withdrawalStatusResponse);
+  }
+
+  @Benchmark
+  public Buffer statusWriter() {
+    return ResponseJsonWriter.write(withdrawalStatusResponse);
+  }
+
+  @Benchmark
+  public Buffer accountMapFrom() {
+    return JsonObject.mapFrom(accountSnapshot).toBuffer();
+  }
+
+  @Benchmark
+  public Buffer accountObjectMapper() {
+    return Json.encodeToBuffer(accountSnapshot);
+  }
+
+  @Benchmark
+  public Buffer accountWriter() {
+    return ResponseJsonWriter.write(accountSnapshot);
+  }
+}
@@ -0,0 +1,29 @@
+package com.yucel.withdrawal.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the matching benchmarks at 1, 2, 4 ... threads up to the number of cores, to see how they scale under contention
+ *
+ * {@code java -cp target/benchmarks.jar com.yucel.withdrawal.benchmark.ThreadScalingRunner AccountRepositoryBenchmark}
+ */
+public class ThreadScalingRunner {
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : AccountRepositoryBenchmark.class.getSimpleName();
+    int maxThreads = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+      Options options = new OptionsBuilder()
+        .include(include)
+        .threads(threads)
+        .build();
+      new Runner(options).run();
+      if (threads == maxThreads) {
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.WithdrawalRequest;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.mapper.WithdrawalRequestMapper;
+import com.yucel.withdrawal.repository.InMemoryAccountRepository;
+import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.service.AccountService;
+import com.yucel.withdrawal.service.NeverlessAccountService;
+import com.yucel.withdrawal.service.NeverlessWithdrawalStoreService;
+import com.yucel.withdrawal.service.WithdrawalStoreService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The synchronous part of an internal withdrawal as the operations verticle runs it on its event loop:
+ * mapping the request, saving the withdrawal, moving the balance and saving it completed.
+ * The event bus hops and the journal flush are not included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TransferPathBenchmark {
+
+  public static final int TRANSFERS_PER_INVOCATION = 10_000;
+
+  @Param({"1024"})
+  public int accounts;
+
+  @Param({"UNIFORM", "ZIPF"})
+  public KeyDistribution distribution;
+
+  private final WithdrawalRequestMapper withdrawalRequestMapper = new WithdrawalRequestMapper();
+  private AccountService accountService;
+  private WithdrawalRequest[] withdrawalRequests;
+
+  @Setup
+  public void setUp() {
+    InMemoryAccountRepository accountRepository = new InMemoryAccountRepository();
+    String[] addresses = new String[accounts];
+    for (int i = 0; i < accounts; i++) {
+      addresses[i] = "DE%020d".formatted(i);
+      accountRepository.save(new Account(addresses[i], AccountRepositoryBenchmark.INITIAL_BALANCE));
+    }
+    accountService = new NeverlessAccountService(accountRepository);
+
+    int[] fromIndexes = distribution.sample(accounts, TRANSFERS_PER_INVOCATION, 1L);
+    int[] toIndexes = distribution.sample(accounts, TRANSFERS_PER_INVOCATION, 2L);
+    withdrawalRequests = new WithdrawalRequest[TRANSFERS_PER_INVOCATION];
+    for (int i = 0; i < TRANSFERS_PER_INVOCATION; i++) {
+      withdrawalRequests[i] = new WithdrawalRequest(addresses[fromIndexes[i]], addresses[toIndexes[i]], new BigDecimal("0.01"));
+    }
+  }
+
+  /**
+   * withdrawals are saved into a fresh repository each invocation, so the repository does not grow over the run
+   */
+  @Benchmark
+  @OperationsPerInvocation(TRANSFERS_PER_INVOCATION)
+  public WithdrawalStoreService internalTransfer() {
+    WithdrawalStoreService withdrawalStoreService = new NeverlessWithdrawalStoreService(new InMemoryWithdrawalRepository());
+    for (WithdrawalRequest withdrawalRequest : withdrawalRequests) {
+      WithdrawalTransaction withdrawalTransaction = withdrawalRequestMapper.mapToWithdrawalTransaction(withdrawalRequest, false);
+      withdrawalStoreService.saveWithdrawal(withdrawalTransaction);
+      accountService.withdrawFromAccount(withdrawalRequest.fromAccountAddress(), withdrawalTransaction.amount().amount());
+      accountService.depositToAccount(withdrawalRequest.toAccountAddress(), withdrawalTransaction.amount().amount());
+      withdrawalStoreService.saveWithdrawal(withdrawalTransaction.changeStatus(WithdrawalStatus.COMPLETED));
+    }
+    return withdrawalStoreService;
+  }
+}
@@ -0,0 +1,79 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.ColumnarWithdrawalRepository;
+import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.repository.WithdrawalRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Heap retained per withdrawal by {@link InMemoryWithdrawalRepository} and {@link ColumnarWithdrawalRepository}
+ * with their indexes, the time of a full collection with the withdrawals live, and the time of paging through
+ * all of them in id order. Run one store per JVM like {@link AccountMemoryBenchmark}:
+ *
+ * {@code java -Xmx16g -cp target/benchmarks.jar com.yucel.withdrawal.benchmark.WithdrawalMemoryBenchmark COLUMNAR 10000000}
+ */
+public class WithdrawalMemoryBenchmark {
+
+  private static final int ACCOUNTS = 100_000;
+  private static final int PAGE_SIZE = 1000;
+
+  public static void main(String[] args) {
+    String store = args.length > 0 ? args[0] : "COLUMNAR";
+    int withdrawals = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+    WithdrawalRepository withdrawalRepository = switch (store) {
+      case "MAP" -> new InMemoryWithdrawalRepository();
+      case "COLUMNAR" -> new ColumnarWithdrawalRepository();
+      default -> throw new IllegalArgumentException("store must be MAP or COLUMNAR");
+    };
+    long heapBefore = usedHeapAfterFullCollection();
+
+    // every withdrawal gets its own address strings, as it does from the requests, and most of them complete
+    SplittableRandom random = new SplittableRandom(42);
+    for (int i = 0; i < withdrawals; i++) {
+      WithdrawalTransaction withdrawal = new WithdrawalTransaction(new UUID(random.nextLong(), random.nextLong()),
+        new TransferAddress("DE%020d".formatted(random.nextInt(ACCOUNTS))), new TransferAddress("DE%020d".formatted(random.nextInt(ACCOUNTS))),
+        new TransferAmount(random.nextLong(1, 100_000)), WithdrawalStatus.PROCESSING, false);
+      withdrawalRepository.save(withdrawal);
+      if (random.nextInt(10) != 0) {
+        withdrawalRepository.save(withdrawal.changeStatus(WithdrawalStatus.COMPLETED));
+      }
+    }
+    long heapBytes = usedHeapAfterFullCollection() - heapBefore;
+
+    long fullCollectionStart = System.nanoTime();
+    System.gc();
+    long fullCollectionMillis = (System.nanoTime() - fullCollectionStart) / 1_000_000;
+
+    long scanStart = System.nanoTime();
+    long amounts = 0;
+    UUID afterId = null;
+    List<WithdrawalTransaction> page;
+    while (!(page = withdrawalRepository.getPage(afterId, PAGE_SIZE)).isEmpty()) {
+      for (WithdrawalTransaction withdrawal : page) {
+        amounts += withdrawal.amount().amount();
+      }
+      afterId = page.get(page.size() - 1).id();
+    }
+    long scanMillis = (System.nanoTime() - scanStart) / 1_000_000;
+
+    System.out.printf("store %s, %d withdrawals%n", store, withdrawalRepository.count());
+    System.out.printf("retained heap: %d MB, %.1f bytes per withdrawal%n", heapBytes >> 20, (double) heapBytes / withdrawals);
+    System.out.printf("full collection with the withdrawals live: %d ms%n", fullCollectionMillis);
+    System.out.printf("paging through all in id order: %d ms (amounts %d)%n", scanMillis, amounts);
+  }
+
+  private static long usedHeapAfterFullCollection() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,127 @@
+package com.yucel.withdrawal.benchmark;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.ColumnarWithdrawalRepository;
+import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.repository.WithdrawalRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and lookups of {@link InMemoryWithdrawalRepository} and {@link ColumnarWithdrawalRepository},
+ * with their id, account and status indexes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class WithdrawalRepositoryBenchmark {
+
+  public static final int INSERTS_PER_INVOCATION = 10_000;
+
+  @Param({"100000"})
+  public int withdrawals;
+
+  @Param({"1024"})
+  public int accounts;
+
+  @Param({"MAP", "COLUMNAR"})
+  public String store;
+
+  private WithdrawalRepository withdrawalRepository;
+  private WithdrawalTransaction[] processingWithdrawals;
+  private WithdrawalTransaction[] completedWithdrawals;
+  private WithdrawalTransaction[] newWithdrawals;
+
+  @Setup
+  public void setUp() {
+    withdrawalRepository = newRepository();
+    processingWithdrawals = withdrawals(withdrawals, 1L);
+    completedWithdrawals = new WithdrawalTransaction[withdrawals];
+    for (int i = 0; i < withdrawals; i++) {
+      withdrawalRepository.save(processingWithdrawals[i]);
+      completedWithdrawals[i] = processingWithdrawals[i].changeStatus(WithdrawalStatus.COMPLETED);
+    }
+    newWithdrawals = withdrawals(INSERTS_PER_INVOCATION, 2L);
+  }
+
+  private WithdrawalRepository newRepository() {
+    return "MAP".equals(store) ? new InMemoryWithdrawalRepository() : new ColumnarWithdrawalRepository();
+  }
+
+  private WithdrawalTransaction[] withdrawals(int count, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    WithdrawalTransaction[] withdrawalTransactions = new WithdrawalTransaction[count];
+    for (int i = 0; i < count; i++) {
+      withdrawalTransactions[i] = new WithdrawalTransaction(new UUID(random.nextLong(), random.nextLong()),
+        new TransferAddress("DE%020d".formatted(random.nextInt(accounts))), new TransferAddress("DE%020d".formatted(random.nextInt(accounts))),
+        new TransferAmount(random.nextLong(1, 100_000)), WithdrawalStatus.PROCESSING, false);
+    }
+    return withdrawalTransactions;
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next;
+
+    @Setup
+    public void setUp(ThreadParams threadParams) {
+      next = threadParams.getThreadIndex() * 7919;
+    }
+
+    int next(int bound) {
+      next = next + 1 == bound ? 0 : next + 1;
+      return next;
+    }
+  }
+
+  @Benchmark
+  public Optional<WithdrawalTransaction> get(Cursor cursor) {
+    return withdrawalRepository.get(processingWithdrawals[cursor.next(withdrawals)].id());
+  }
+
+  /**
+   * every save moves a known withdrawal between the status indexes, like a status poll result does
+   */
+  @Benchmark
+  public WithdrawalTransaction saveStatusChange(Cursor cursor) {
+    int index = cursor.next(withdrawals * 2);
+    return index < withdrawals
+      ? withdrawalRepository.save(completedWithdrawals[index])
+      : withdrawalRepository.save(processingWithdrawals[index - withdrawals]);
+  }
+
+  /**
+   * new withdrawals go into a fresh repository each invocation, so the repository does not grow over the run
+   */
+  @Benchmark
+  @OperationsPerInvocation(INSERTS_PER_INVOCATION)
+  public WithdrawalRepository saveNew() {
+    WithdrawalRepository repository = newRepository();
+    for (WithdrawalTransaction withdrawalTransaction : newWithdrawals) {
+      repository.save(withdrawalTransaction);
+    }
+    return repository;
+  }
+}
@@ -0,0 +1,222 @@
+package com.yucel.withdrawal.benchmark.load;
+
+import com.yucel.withdrawal.MainVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the service in-process and offers it an open-loop load: requests are started at a constant rate by a schedule,
+ * not when earlier ones are answered. Prints the throughput and latency percentiles of each route as json.
+ *
+ * {@code java -cp target/benchmarks.jar com.yucel.withdrawal.benchmark.load.LoadGenerator load.json}
+ */
+public class LoadGenerator {
+
+  private static final String HOST = "localhost";
+  private static final int PORT = 8888;
+  private static final String SEED_BALANCE = "1000000000";
+  private static final String NEW_ACCOUNT_BALANCE = "100";
+  private static final String TRANSFER_AMOUNT = "0.01";
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final Vertx vertx;
+  private final LoadProfile profile;
+  private final WebClient client;
+  private final SplittableRandom random = new SplittableRandom(1L);
+  private final Map<LoadRoute, RouteStats> statsByRoute = new EnumMap<>(LoadRoute.class);
+  private final LoadRoute[] routeByWeight;
+  private final List<String> accountAddresses = new ArrayList<>();
+  private final List<String> withdrawalIds = new ArrayList<>();
+  private long createdAccounts;
+  private long startNanos;
+  private long measureFromNanos;
+  private long endNanos;
+  private long nextRequest;
+  private int inFlight;
+
+  LoadGenerator(Vertx vertx, LoadProfile profile) {
+    this.vertx = vertx;
+    this.profile = profile;
+    this.client = WebClient.create(vertx, new WebClientOptions()
+      .setDefaultHost(HOST)
+      .setDefaultPort(PORT)
+      .setMaxPoolSize(profile.maxConnections()));
+    List<LoadRoute> routes = new ArrayList<>();
+    profile.mix().forEach((route, weight) -> {
+      statsByRoute.put(route, new RouteStats());
+      for (int i = 0; i < weight; i++) {
+        routes.add(route);
+      }
+    });
+    this.routeByWeight = routes.toArray(LoadRoute[]::new);
+  }
+
+  public static void main(String[] args) {
+    Vertx vertx = Vertx.vertx();
+    LoadProfile profile = LoadProfile.fromJson(args.length > 0
+      ? new JsonObject(vertx.fileSystem().readFileBlocking(args[0]))
+      : new JsonObject());
+    LoadGenerator loadGenerator = new LoadGenerator(vertx, profile);
+
+    vertx.deployVerticle(new MainVerticle(), new DeploymentOptions().setConfig(profile.serviceConfig()))
+      .compose(deploymentId -> loadGenerator.seed())
+      .compose(seeded -> loadGenerator.run())
+      .compose(results -> loadGenerator.writeResults(results))
+      .onComplete(done -> {
+        if (done.failed()) {
+          System.out.println("Load test failed: " + done.cause().getMessage());
+        }
+        vertx.close();
+      });
+  }
+
+  /**
+   * Creates the accounts the transfers are made between, and the external withdrawals whose statuses are polled
+   */
+  Future<Void> seed() {
+    List<Future<?>> accountCreations = new ArrayList<>(profile.accounts());
+    for (int i = 0; i < profile.accounts(); i++) {
+      String address = "LOAD%016d".formatted(i);
+      accountAddresses.add(address);
+      accountCreations.add(client.post("/accounts")
+        .sendJsonObject(new JsonObject().put("address", address).put("balance", SEED_BALANCE))
+        .compose(response -> expectStatus(response, 201)));
+    }
+    Future<Void> accountsSeeded = Future.all(accountCreations).mapEmpty();
+    if (profile.mix().get(LoadRoute.STATUS_POLL) == 0) {
+      return accountsSeeded;
+    }
+    return accountsSeeded.compose(ignored -> seedWithdrawals());
+  }
+
+  private Future<Void> seedWithdrawals() {
+    JsonArray withdrawalRequests = new JsonArray();
+    for (int i = 0; i < profile.statusPollWithdrawals(); i++) {
+      withdrawalRequests.add(externalWithdrawalRequest());
+    }
+    return client.post("/withdrawals/batch")
+      .sendJson(withdrawalRequests)
+      .compose(response -> expectStatus(response, 200))
+      .map(response -> {
+        for (Object result : response.bodyAsJsonArray()) {
+          String withdrawalId = ((JsonObject) result).getString("withdrawalId");
+          if (withdrawalId != null) {
+            withdrawalIds.add(withdrawalId);
+          }
+        }
+        if (withdrawalIds.isEmpty()) {
+          throw new IllegalStateException("no withdrawal was created to poll the status of");
+        }
+        return null;
+      });
+  }
+
+  /**
+   * Starts the requests due by the schedule every millisecond, records the ones due after the warmup
+   * @return results once the requests started before the end are answered, or the drain timeout passed
+   */
+  Future<JsonObject> run() {
+    Promise<JsonObject> results = Promise.promise();
+    startNanos = System.nanoTime();
+    measureFromNanos = startNanos + profile.warmupSeconds() * NANOS_PER_SECOND;
+    endNanos = measureFromNanos + profile.durationSeconds() * NANOS_PER_SECOND;
+    vertx.setPeriodic(1, timerId -> {
+      long now = System.nanoTime();
+      // a late tick starts every request it missed with its original due time, the delay is charged to the service
+      long dueNanos;
+      while ((dueNanos = dueNanos(nextRequest)) <= now && dueNanos < endNanos) {
+        send(routeByWeight[random.nextInt(routeByWeight.length)], dueNanos);
+        nextRequest++;
+      }
+      if (now >= endNanos && (inFlight == 0 || now - endNanos >= DRAIN_TIMEOUT_NANOS)) {
+        vertx.cancelTimer(timerId);
+        results.complete(results());
+      }
+    });
+    return results.future();
+  }
+
+  private long dueNanos(long request) {
+    return startNanos + request * NANOS_PER_SECOND / profile.ratePerSecond();
+  }
+
+  private void send(LoadRoute route, long dueNanos) {
+    long sentNanos = System.nanoTime();
+    inFlight++;
+    request(route).onComplete(response -> {
+      long completedNanos = System.nanoTime();
+      inFlight--;
+      if (dueNanos >= measureFromNanos) {
+        boolean succeeded = response.succeeded() && response.result().statusCode() / 100 == 2;
+        statsByRoute.get(route).record(dueNanos, sentNanos, completedNanos, succeeded);
+      }
+    });
+  }
+
+  private Future<HttpResponse<Buffer>> request(LoadRoute route) {
+    return switch (route) {
+      case CREATE_ACCOUNT -> client.post("/accounts")
+        .sendJsonObject(new JsonObject().put("address", "LOADNEW%016d".formatted(createdAccounts++)).put("balance", NEW_ACCOUNT_BALANCE));
+      case INTERNAL_TRANSFER -> client.post("/withdrawals").sendJsonObject(internalTransferRequest());
+      case EXTERNAL_WITHDRAWAL -> client.post("/withdrawals").sendJsonObject(externalWithdrawalRequest());
+      case STATUS_POLL -> client.get("/withdrawals/" + withdrawalIds.get(random.nextInt(withdrawalIds.size())) + "/status").send();
+    };
+  }
+
+  private JsonObject internalTransferRequest() {
+    int from = random.nextInt(accountAddresses.size());
+    int to = (from + 1 + random.nextInt(accountAddresses.size() - 1)) % accountAddresses.size();
+    return new JsonObject()
+      .put("fromAccountAddress", accountAddresses.get(from))
+      .put("toAccountAddress", accountAddresses.get(to))
+      .put("amount", TRANSFER_AMOUNT);
+  }
+
+  private JsonObject externalWithdrawalRequest() {
+    return new JsonObject()
+      .put("fromAccountAddress", accountAddresses.get(random.nextInt(accountAddresses.size())))
+      .put("toAccountAddress", "EXTERNAL%016d".formatted(random.nextInt(Integer.MAX_VALUE)))
+      .put("amount", TRANSFER_AMOUNT);
+  }
+
+  private JsonObject results() {
+    JsonObject routes = new JsonObject();
+    statsByRoute.forEach((route, stats) -> routes.put(route.name(), stats.toJson(profile.durationSeconds())));
+    return new JsonObject()
+      .put("profile", profile.toJson())
+      .put("unansweredRequests", inFlight)
+      .put("routes", routes);
+  }
+
+  private Future<Void> writeResults(JsonObject results) {
+    String json = results.encodePrettily();
+    System.out.println(json);
+    if (profile.resultFile() == null) {
+      return Future.succeededFuture();
+    }
+    return vertx.fileSystem().writeFile(profile.resultFile(), Buffer.buffer(json));
+  }
+
+  private static Future<HttpResponse<Buffer>> expectStatus(HttpResponse<Buffer> response, int statusCode) {
+    if (response.statusCode() != statusCode) {
+      return Future.failedFuture("seeding answered %d: %s".formatted(response.statusCode(), response.bodyAsString()));
+    }
+    return Future.succeededFuture(response);
+  }
+}
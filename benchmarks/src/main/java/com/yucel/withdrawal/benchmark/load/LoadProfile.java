@@ -0,0 +1,74 @@
+package com.yucel.withdrawal.benchmark.load;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * What the load generator offers to the service, read from a json file
+ *
+ * @param ratePerSecond requests started per second regardless of how fast the service answers
+ * @param warmupSeconds time the load is offered before latencies are recorded
+ * @param durationSeconds time latencies are recorded
+ * @param accounts number of accounts created before the run, transfers and withdrawals are made between them
+ * @param statusPollWithdrawals number of external withdrawals created before the run, their statuses are polled
+ * @param maxConnections size of the http connection pool, requests beyond it wait for a connection
+ * @param mix relative weight of each route
+ * @param serviceConfig configuration the service is deployed with
+ * @param resultFile file the results are written to as json, only printed when it is not set
+ */
+public record LoadProfile(int ratePerSecond, int warmupSeconds, int durationSeconds, int accounts, int statusPollWithdrawals,
+                          int maxConnections, Map<LoadRoute, Integer> mix, JsonObject serviceConfig, String resultFile) {
+
+  public static LoadProfile fromJson(JsonObject json) {
+    JsonObject mixJson = json.getJsonObject("mix", new JsonObject());
+    Map<LoadRoute, Integer> mix = new EnumMap<>(LoadRoute.class);
+    mix.put(LoadRoute.CREATE_ACCOUNT, mixJson.getInteger(LoadRoute.CREATE_ACCOUNT.mixKey(), 1));
+    mix.put(LoadRoute.INTERNAL_TRANSFER, mixJson.getInteger(LoadRoute.INTERNAL_TRANSFER.mixKey(), 6));
+    mix.put(LoadRoute.EXTERNAL_WITHDRAWAL, mixJson.getInteger(LoadRoute.EXTERNAL_WITHDRAWAL.mixKey(), 1));
+    mix.put(LoadRoute.STATUS_POLL, mixJson.getInteger(LoadRoute.STATUS_POLL.mixKey(), 2));
+
+    LoadProfile profile = new LoadProfile(
+      json.getInteger("ratePerSecond", 1000),
+      json.getInteger("warmupSeconds", 10),
+      json.getInteger("durationSeconds", 60),
+      json.getInteger("accounts", 1000),
+      json.getInteger("statusPollWithdrawals", 1000),
+      json.getInteger("maxConnections", 256),
+      mix,
+      json.getJsonObject("serviceConfig", new JsonObject()),
+      json.getString("resultFile"));
+    profile.validate();
+    return profile;
+  }
+
+  public JsonObject toJson() {
+    JsonObject mixJson = new JsonObject();
+    mix.forEach((route, weight) -> mixJson.put(route.mixKey(), weight));
+    return new JsonObject()
+      .put("ratePerSecond", ratePerSecond)
+      .put("warmupSeconds", warmupSeconds)
+      .put("durationSeconds", durationSeconds)
+      .put("accounts", accounts)
+      .put("statusPollWithdrawals", statusPollWithdrawals)
+      .put("maxConnections", maxConnections)
+      .put("mix", mixJson)
+      .put("serviceConfig", serviceConfig);
+  }
+
+  private void validate() {
+    if (ratePerSecond < 1 || durationSeconds < 1 || warmupSeconds < 0 || maxConnections < 1) {
+      throw new IllegalArgumentException("ratePerSecond, durationSeconds and maxConnections must be positive, warmupSeconds cannot be negative");
+    }
+    if (accounts < 2) {
+      throw new IllegalArgumentException("at least 2 accounts are needed for transfers");
+    }
+    if (mix.values().stream().anyMatch(weight -> weight < 0) || mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+      throw new IllegalArgumentException("mix weights cannot be negative and at least one must be positive");
+    }
+    if (mix.get(LoadRoute.STATUS_POLL) > 0 && statusPollWithdrawals < 1) {
+      throw new IllegalArgumentException("statusPollWithdrawals must be positive to poll statuses");
+    }
+  }
+}
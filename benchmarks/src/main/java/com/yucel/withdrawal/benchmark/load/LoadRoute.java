@@ -0,0 +1,24 @@
+package com.yucel.withdrawal.benchmark.load;
+
+/**
+ * Requests the load generator mixes, each with its own latency histogram
+ */
+public enum LoadRoute {
+  CREATE_ACCOUNT("createAccount"),
+  INTERNAL_TRANSFER("internalTransfer"),
+  EXTERNAL_WITHDRAWAL("externalWithdrawal"),
+  STATUS_POLL("statusPoll");
+
+  private final String mixKey;
+
+  LoadRoute(String mixKey) {
+    this.mixKey = mixKey;
+  }
+
+  /**
+   * @return key of the route weight in the {@code mix} of the load profile
+   */
+  public String mixKey() {
+    return mixKey;
+  }
+}
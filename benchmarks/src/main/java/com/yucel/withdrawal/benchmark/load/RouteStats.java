@@ -0,0 +1,63 @@
+package com.yucel.withdrawal.benchmark.load;
+
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of one route. Not thread safe, it is confined to the load generator context.
+ *
+ * Response time is measured from when the request was due by the schedule, so a stalled service is charged for
+ * the requests it kept waiting as well (no coordinated omission). Service time is measured from when it was sent.
+ */
+class RouteStats {
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private final Histogram responseTimes = new Histogram(SIGNIFICANT_DIGITS);
+  private final Histogram serviceTimes = new Histogram(SIGNIFICANT_DIGITS);
+  private long errors;
+
+  void record(long dueNanos, long sentNanos, long completedNanos, boolean succeeded) {
+    responseTimes.recordValue(completedNanos - dueNanos);
+    serviceTimes.recordValue(completedNanos - sentNanos);
+    if (!succeeded) {
+      errors++;
+    }
+  }
+
+  JsonObject toJson(int durationSeconds) {
+    return new JsonObject()
+      .put("requests", responseTimes.getTotalCount())
+      .put("errors", errors)
+      .put("throughputPerSecond", (double) responseTimes.getTotalCount() / durationSeconds)
+      .put("responseTimeMicros", percentiles(responseTimes))
+      .put("serviceTimeMicros", percentiles(serviceTimes))
+      .put("responseTimeHistogram", encode(responseTimes));
+  }
+
+  private static JsonObject percentiles(Histogram histogram) {
+    return new JsonObject()
+      .put("p50", micros(histogram.getValueAtPercentile(50)))
+      .put("p99", micros(histogram.getValueAtPercentile(99)))
+      .put("p99.9", micros(histogram.getValueAtPercentile(99.9)))
+      .put("max", micros(histogram.getMaxValue()));
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  /**
+   * @return nanosecond histogram in the compressed HdrHistogram encoding, so runs can be merged or plotted later
+   */
+  private static String encode(Histogram histogram) {
+    ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+    int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+    return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+  }
+}
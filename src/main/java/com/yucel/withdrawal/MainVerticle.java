@@ -1,17 +1,51 @@
 package com.yucel.withdrawal;
 
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.AccountRequest;
+import com.yucel.withdrawal.domain.model.AccountSnapshot;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.WithdrawalBatch;
+import com.yucel.withdrawal.domain.model.WithdrawalBatchResults;
+import com.yucel.withdrawal.domain.model.WithdrawalRequest;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
 import com.yucel.withdrawal.service.verticle.HttpServerVerticle;
 import com.yucel.withdrawal.service.verticle.WithdrawalAndAccountOperationsVerticle;
+import com.yucel.withdrawal.service.verticle.codec.LocalRecordCodec;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.EventBus;
 
 public class MainVerticle extends AbstractVerticle {
 
+  /**
+   * Deploys the operations verticle before the http server so that event bus consumers exist
+   * once requests are accepted. Completes when both are deployed.
+   */
   @Override
   public void start(Promise<Void> startPromise) throws Exception {
-    vertx.deployVerticle(WithdrawalAndAccountOperationsVerticle.class.getName());
-    vertx.deployVerticle(HttpServerVerticle.class.getName());
-    startPromise.complete();
+    registerLocalCodecs(vertx.eventBus());
+    DeploymentOptions deploymentOptions = new DeploymentOptions().setConfig(config());
+
+    vertx.deployVerticle(WithdrawalAndAccountOperationsVerticle.class.getName(), deploymentOptions)
+      .compose(operationsDeploymentId -> vertx.deployVerticle(HttpServerVerticle.class.getName(), deploymentOptions))
+      .<Void>mapEmpty()
+      .onComplete(startPromise);
+  }
+
+  /**
+   * Requests and replies between the verticles are records passed by reference,
+   * json is only parsed and written by the http server
+   */
+  private static void registerLocalCodecs(EventBus eventBus) {
+    LocalRecordCodec.register(eventBus, AccountRequest.class);
+    LocalRecordCodec.register(eventBus, AccountSnapshot.class);
+    LocalRecordCodec.register(eventBus, TransferAddress.class);
+    LocalRecordCodec.register(eventBus, WithdrawalRequest.class);
+    LocalRecordCodec.register(eventBus, WithdrawalBatch.class);
+    LocalRecordCodec.register(eventBus, WithdrawalBatchResults.class);
+    LocalRecordCodec.register(eventBus, WithdrawalTransaction.class);
+    LocalRecordCodec.register(eventBus, WithdrawalStatusResponse.class);
   }
 
 }
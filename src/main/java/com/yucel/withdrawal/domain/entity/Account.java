@@ -1,22 +1,32 @@
 package com.yucel.withdrawal.domain.entity;
 
-import java.math.BigDecimal;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.yucel.withdrawal.mapper.MinorUnitsJsonSerializer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 public class Account {
   /**
-   * this was added to add thread safety in case the balance is read while there is a write operation
+   * balance is updated with CAS loops instead of a lock, reads are plain volatile loads
    */
-  private final ReadWriteLock lock = new ReentrantReadWriteLock();
-
-  private String address;
-  private BigDecimal balance;
+  private static final VarHandle BALANCE;
 
-  public Account() {
+  static {
+    try {
+      BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
   }
 
-  public Account(String address, BigDecimal balance) {
+  private final String address;
+  /**
+   * balance in minor units of {@link com.yucel.withdrawal.domain.model.CurrencyUnit#DEFAULT}
+   */
+  private volatile long balance;
+
+  public Account(String address, long balance) {
     this.address = address;
     this.balance = balance;
   }
@@ -25,33 +35,51 @@ public class Account {
     return address;
   }
 
-  public void setAddress(String address) {
-    this.address = address;
+  @JsonSerialize(using = MinorUnitsJsonSerializer.class)
+  public long getBalance() {
+    return balance;
   }
 
-  public BigDecimal getBalance() {
-    lock.readLock().lock();
-    try {
-      return balance;
-    } finally {
-      lock.readLock().unlock();
-    }
+  /**
+   * Atomically adds the amount to the balance
+   * @param amount amount in minor units
+   * @throws ArithmeticException if the balance would overflow
+   */
+  public void deposit(long amount) {
+    addToBalance(amount);
   }
 
-  public void setBalance(BigDecimal balance) {
-    lock.writeLock().lock();
-    try {
-      this.balance = balance;
-    } finally {
-      lock.writeLock().unlock();
-    }
+  /**
+   * Atomically subtracts the amount if the balance is sufficient for it
+   * @param amount amount in minor units
+   * @return false if the balance is not sufficient, the balance is left untouched then
+   */
+  public boolean tryWithdraw(long amount) {
+    long current;
+    do {
+      current = balance;
+      if (current < amount) {
+        return false;
+      }
+    } while (!BALANCE.weakCompareAndSet(this, current, current - amount));
+    return true;
+  }
+
+  protected final long addToBalance(long amount) {
+    long current;
+    long updated;
+    do {
+      current = balance;
+      updated = Math.addExact(current, amount);
+    } while (!BALANCE.weakCompareAndSet(this, current, updated));
+    return updated;
   }
 
   @Override
   public String toString() {
     return "Account{" +
       "address='" + address + '\'' +
-      ", balance=" + balance +
+      ", balance=" + getBalance() +
       '}';
   }
 }
@@ -0,0 +1,88 @@
+package com.yucel.withdrawal.domain.entity;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Account receiving a large share of deposits, e.g. treasury or omnibus accounts.
+ * Deposits land in striped cells and scale with cores instead of contending on a single CAS,
+ * they are folded into the balance lazily when a withdrawal cannot be covered by the folded part alone.
+ * The sufficient-funds check stays linearizable: a failing fast path always folds, under a lock, before giving up.
+ *
+ * The balance is capped at {@link #MAX_BALANCE}, half the range of a long: deposits are checked against the cap
+ * without the lock, the other half absorbs the deposits racing the check, so the balance never overflows.
+ */
+public class HotAccount extends Account {
+
+  /**
+   * deposits taking the balance over it are rejected with ArithmeticException
+   */
+  public static final long MAX_BALANCE = Long.MAX_VALUE / 2;
+  /**
+   * larger deposits, and deposits close to the cap, are checked and added under the lock
+   */
+  private static final long MAX_STRIPED_DEPOSIT = 1L << 31;
+
+  private final LongAdder pendingDeposits = new LongAdder();
+
+  public HotAccount(String address, long balance) {
+    super(address, balance);
+  }
+
+  /**
+   * Read under the fold lock, so a fold in progress is never seen half done
+   * @return folded balance plus deposits not folded yet
+   */
+  @Override
+  public long getBalance() {
+    synchronized (pendingDeposits) {
+      return super.getBalance() + pendingDeposits.sum();
+    }
+  }
+
+  /**
+   * A negative amount, such as a withdrawal replayed from the journal, goes to the folded balance under the lock:
+   * in the cells it would be missed by the fast path of {@link #tryWithdraw(long)}.
+   * @throws ArithmeticException if the balance would exceed {@link #MAX_BALANCE}
+   */
+  @Override
+  public void deposit(long amount) {
+    if (amount < 0) {
+      synchronized (pendingDeposits) {
+        addToBalance(amount);
+      }
+      return;
+    }
+    // the cells are read before the balance and a fold adds to the balance before it drains the cells,
+    // so this estimate is never short of the balance
+    if (amount <= MAX_STRIPED_DEPOSIT && pendingDeposits.sum() + super.getBalance() <= MAX_BALANCE - MAX_STRIPED_DEPOSIT) {
+      pendingDeposits.add(amount);
+      return;
+    }
+    synchronized (pendingDeposits) {
+      if (amount > MAX_BALANCE - (super.getBalance() + pendingDeposits.sum())) {
+        throw new ArithmeticException("hot account %s balance cannot exceed %d".formatted(getAddress(), MAX_BALANCE));
+      }
+      pendingDeposits.add(amount);
+    }
+  }
+
+  @Override
+  public boolean tryWithdraw(long amount) {
+    if (super.tryWithdraw(amount)) {
+      return true;
+    }
+    // a concurrent fold may have added cells to the balance it did not drain yet, so folds are serialized
+    synchronized (pendingDeposits) {
+      foldPendingDeposits();
+      return super.tryWithdraw(amount);
+    }
+  }
+
+  private void foldPendingDeposits() {
+    long pending = pendingDeposits.sum();
+    if (pending != 0) {
+      addToBalance(pending);
+      pendingDeposits.add(-pending);
+    }
+  }
+}
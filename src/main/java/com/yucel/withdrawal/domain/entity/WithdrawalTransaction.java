@@ -6,9 +6,13 @@ import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 
 import java.util.UUID;
 
-public record WithdrawalTransaction(UUID id, TransferAddress fromAccountAddress, TransferAddress toAccountAddress, TransferAmount amount, WithdrawalStatus status) {
+/**
+ * @param external whether the amount is paid out by the external provider, decided once when the withdrawal is created
+ */
+public record WithdrawalTransaction(UUID id, TransferAddress fromAccountAddress, TransferAddress toAccountAddress, TransferAmount amount, WithdrawalStatus status,
+                                    boolean external) {
 
   public WithdrawalTransaction changeStatus(WithdrawalStatus newStatus) {
-    return new WithdrawalTransaction(this.id, this.fromAccountAddress, this.toAccountAddress, this.amount, newStatus);
+    return new WithdrawalTransaction(this.id, this.fromAccountAddress, this.toAccountAddress, this.amount, newStatus, this.external);
   }
 }
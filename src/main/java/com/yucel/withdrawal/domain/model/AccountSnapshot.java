@@ -0,0 +1,23 @@
+package com.yucel.withdrawal.domain.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.mapper.MinorUnitsJsonDeserializer;
+import com.yucel.withdrawal.mapper.MinorUnitsJsonSerializer;
+
+/**
+ * Immutable copy of an account at one point, the account itself keeps changing and cannot be handed to another verticle
+ * @param address account address
+ * @param balance balance in minor units of {@link CurrencyUnit#DEFAULT}
+ */
+public record AccountSnapshot(
+  String address,
+  @JsonSerialize(using = MinorUnitsJsonSerializer.class)
+  @JsonDeserialize(using = MinorUnitsJsonDeserializer.class)
+  long balance) {
+
+  public static AccountSnapshot of(Account account) {
+    return new AccountSnapshot(account.getAddress(), account.getBalance());
+  }
+}
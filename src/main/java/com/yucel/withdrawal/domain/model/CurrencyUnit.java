@@ -0,0 +1,102 @@
+package com.yucel.withdrawal.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Currencies with the number of fraction digits of their minor unit.
+ * Amounts are carried internally as a long count of minor units (e.g. cents) and are only
+ * converted from/to decimals at the HTTP edge.
+ */
+public enum CurrencyUnit {
+
+  EUR(2), USD(2), JPY(0), BTC(8);
+
+  /**
+   * the currency all accounts of the service are kept in
+   */
+  public static final CurrencyUnit DEFAULT = EUR;
+
+  private final int scale;
+  private final long minorUnitsPerMajor;
+
+  CurrencyUnit(int scale) {
+    this.scale = scale;
+    this.minorUnitsPerMajor = BigDecimal.ONE.movePointRight(scale).longValueExact();
+  }
+
+  public int scale() {
+    return scale;
+  }
+
+  /**
+   * @param amount decimal amount
+   * @return true if the amount has no more fraction digits than the minor unit and fits into a long
+   */
+  public boolean isRepresentable(BigDecimal amount) {
+    try {
+      toMinorUnits(amount);
+      return true;
+    } catch (ArithmeticException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Converts a decimal amount to minor units
+   * @param amount decimal amount
+   * @return amount in minor units
+   * @throws ArithmeticException if the amount has more fraction digits than the minor unit or overflows a long
+   */
+  public long toMinorUnits(BigDecimal amount) {
+    return amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Converts minor units to a decimal without trailing zeros, e.g. 1050 EUR cents to 10.5
+   * @param minorUnits amount in minor units
+   * @return decimal amount
+   */
+  public BigDecimal toDecimal(long minorUnits) {
+    BigDecimal decimal = BigDecimal.valueOf(minorUnits, scale).stripTrailingZeros();
+    return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+  }
+
+  /**
+   * Appends the plain decimal representation of the amount without allocating a BigDecimal
+   * @param builder target
+   * @param minorUnits amount in minor units
+   * @return the given builder
+   */
+  public StringBuilder appendDecimal(StringBuilder builder, long minorUnits) {
+    if (minorUnits == Long.MIN_VALUE) {
+      return builder.append(toDecimal(minorUnits).toPlainString());
+    }
+    if (minorUnits < 0) {
+      builder.append('-');
+      minorUnits = -minorUnits;
+    }
+    builder.append(minorUnits / minorUnitsPerMajor);
+    long fraction = minorUnits % minorUnitsPerMajor;
+    if (fraction != 0) {
+      builder.append('.');
+      for (long divisor = minorUnitsPerMajor / 10; divisor > 0; divisor /= 10) {
+        builder.append((char) ('0' + fraction / divisor % 10));
+      }
+      int end = builder.length();
+      while (builder.charAt(end - 1) == '0') {
+        end--;
+      }
+      builder.setLength(end);
+    }
+    return builder;
+  }
+
+  /**
+   * @param minorUnits amount in minor units
+   * @return plain decimal representation, e.g. "10.5"
+   */
+  public String format(long minorUnits) {
+    return appendDecimal(new StringBuilder(24), minorUnits).toString();
+  }
+}
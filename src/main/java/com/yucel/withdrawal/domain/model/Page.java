@@ -0,0 +1,25 @@
+package com.yucel.withdrawal.domain.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a listing ordered by key
+ * @param items items of the page
+ * @param nextCursor opaque cursor of the following page, null if this is the last page
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+
+  /**
+   * @param itemsAndOneMore up to limit + 1 items, the extra item only tells there is a following page
+   * @param limit page size
+   * @param cursorKey key of an item, the following page starts after it
+   */
+  public static <T> Page<T> of(List<T> itemsAndOneMore, int limit, Function<T, String> cursorKey) {
+    if (itemsAndOneMore.size() <= limit) {
+      return new Page<>(itemsAndOneMore, null);
+    }
+    List<T> items = itemsAndOneMore.subList(0, limit);
+    return new Page<>(items, PageCursor.encode(cursorKey.apply(items.get(limit - 1))));
+  }
+}
@@ -0,0 +1,33 @@
+package com.yucel.withdrawal.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursors are the url safe base64 of the last key of a page, clients should not rely on their content
+ */
+public final class PageCursor {
+
+  private PageCursor() {
+  }
+
+  public static String encode(String key) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param cursor cursor of a page, may be null for the first page
+   * @return the key the page starts after, null for the first page
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public static String decode(String cursor) {
+    if (cursor == null) {
+      return null;
+    }
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("invalid cursor: %s".formatted(cursor));
+    }
+  }
+}
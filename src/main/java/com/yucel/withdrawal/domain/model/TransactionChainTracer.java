@@ -1,22 +1,92 @@
 package com.yucel.withdrawal.domain.model;
 
+/**
+ * Trace of a withdrawal chain: the monotonic time each stage was reached at.
+ * What was reached also tells what has to be rolled back if the chain breaks.
+ *
+ * Not thread safe, a withdrawal chain runs on the operations verticle context.
+ */
 public class TransactionChainTracer {
-  private boolean isWithdrawalPersisted;
-  private boolean isBalanceCorrected;
 
-  public boolean isWithdrawalPersisted() {
-    return isWithdrawalPersisted;
+  public enum Stage {
+    /**
+     * the request arrived at the http server
+     */
+    RECEIVED,
+    /**
+     * the sender account was found
+     */
+    VALIDATED,
+    PERSISTED,
+    BALANCE_DEBITED,
+    /**
+     * internal withdrawals only, the amount reached the recipient account
+     */
+    BALANCE_CREDITED,
+    /**
+     * external withdrawals only, the provider accepted the withdrawal
+     */
+    EXTERNAL_REQUESTED,
+    /**
+     * the final status is durable, for external withdrawals once the status poller saw it
+     */
+    TERMINAL
   }
 
-  public void setWithdrawalPersisted(boolean withdrawalPersisted) {
-    isWithdrawalPersisted = withdrawalPersisted;
+  private static final Stage[] STAGES = Stage.values();
+
+  private final boolean external;
+  private final long[] stageNanos = new long[STAGES.length];
+  private int reachedStages;
+
+  /**
+   * @param external whether the recipient is an external address
+   * @param receivedNanos {@link System#nanoTime()} the request arrived at
+   */
+  public TransactionChainTracer(boolean external, long receivedNanos) {
+    this.external = external;
+    mark(Stage.RECEIVED, receivedNanos);
   }
 
-  public boolean isBalanceCorrected() {
-    return isBalanceCorrected;
+  public void mark(Stage stage) {
+    mark(stage, System.nanoTime());
+  }
+
+  public void mark(Stage stage, long nanos) {
+    stageNanos[stage.ordinal()] = nanos;
+    reachedStages |= 1 << stage.ordinal();
+  }
+
+  public boolean hasReached(Stage stage) {
+    return (reachedStages & 1 << stage.ordinal()) != 0;
+  }
+
+  /**
+   * @return {@link System#nanoTime()} the stage was reached at, only meaningful if it was reached
+   */
+  public long nanosAt(Stage stage) {
+    return stageNanos[stage.ordinal()];
+  }
+
+  public boolean isExternal() {
+    return external;
   }
 
-  public void setBalanceCorrected(boolean balanceCorrected) {
-    isBalanceCorrected = balanceCorrected;
+  public boolean isWithdrawalPersisted() {
+    return hasReached(Stage.PERSISTED);
+  }
+
+  /**
+   * @return true once the amount is withdrawn from the sender account
+   */
+  public boolean isBalanceDebited() {
+    return hasReached(Stage.BALANCE_DEBITED);
+  }
+
+  /**
+   * @return true once the debited amount reached its destination, the recipient account or the external provider
+   */
+  public boolean isBalanceCorrected() {
+    return hasReached(Stage.BALANCE_CREDITED) || hasReached(Stage.EXTERNAL_REQUESTED);
   }
 }
@@ -1,6 +1,15 @@
 package com.yucel.withdrawal.domain.model;
 
-import java.math.BigDecimal;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.yucel.withdrawal.mapper.MinorUnitsJsonDeserializer;
+import com.yucel.withdrawal.mapper.MinorUnitsJsonSerializer;
 
-public record TransferAmount(BigDecimal amount) {
+/**
+ * @param amount amount in minor units of {@link CurrencyUnit#DEFAULT}
+ */
+public record TransferAmount(
+  @JsonSerialize(using = MinorUnitsJsonSerializer.class)
+  @JsonDeserialize(using = MinorUnitsJsonDeserializer.class)
+  long amount) {
 }
@@ -0,0 +1,13 @@
+package com.yucel.withdrawal.domain.model;
+
+import java.util.List;
+
+/**
+ * The validated requests of a withdrawal batch, sent to the operations verticle as one message
+ */
+public record WithdrawalBatch(List<WithdrawalBatchItem> items) {
+
+  public WithdrawalBatch {
+    items = List.copyOf(items);
+  }
+}
@@ -0,0 +1,7 @@
+package com.yucel.withdrawal.domain.model;
+
+/**
+ * A validated request of a withdrawal batch along with its position in the batch
+ */
+public record WithdrawalBatchItem(int index, WithdrawalRequest request) {
+}
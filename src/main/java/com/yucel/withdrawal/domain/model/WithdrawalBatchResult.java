@@ -0,0 +1,12 @@
+package com.yucel.withdrawal.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one request of a withdrawal batch, the id is only present if the withdrawal was created
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WithdrawalBatchResult(int index, int httpCode, UUID withdrawalId, String message) {
+}
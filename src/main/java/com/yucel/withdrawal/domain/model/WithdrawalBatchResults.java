@@ -0,0 +1,13 @@
+package com.yucel.withdrawal.domain.model;
+
+import java.util.List;
+
+/**
+ * Results of the withdrawals of a batch which were sent to the operations verticle
+ */
+public record WithdrawalBatchResults(List<WithdrawalBatchResult> results) {
+
+  public WithdrawalBatchResults {
+    results = List.copyOf(results);
+  }
+}
@@ -4,4 +4,10 @@ public enum WithdrawalStatus {
 
   PROCESSING, COMPLETED, FAILED;
 
+  /**
+   * @return whether the withdrawal cannot change its status anymore
+   */
+  public boolean isFinal() {
+    return this != PROCESSING;
+  }
 }
@@ -0,0 +1,17 @@
+package com.yucel.withdrawal.domain.model;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A finished withdrawal trace
+ *
+ * @param withdrawalId withdrawal id
+ * @param external whether the recipient was an external address
+ * @param status final status
+ * @param totalMillis time from receiving the request to the durable final status
+ * @param stageMillis time each reached stage was reached at, relative to receiving the request
+ */
+public record WithdrawalTrace(UUID withdrawalId, boolean external, WithdrawalStatus status, double totalMillis,
+                              Map<TransactionChainTracer.Stage, Double> stageMillis) {
+}
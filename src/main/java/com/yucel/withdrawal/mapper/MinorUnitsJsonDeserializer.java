@@ -0,0 +1,40 @@
+package com.yucel.withdrawal.mapper;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a decimal json number (or numeric string) into minor units of the default currency
+ */
+public class MinorUnitsJsonDeserializer extends StdDeserializer<Long> {
+
+  public MinorUnitsJsonDeserializer() {
+    super(Long.class);
+  }
+
+  @Override
+  public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+    BigDecimal decimal;
+    if (parser.currentToken() == JsonToken.VALUE_STRING) {
+      try {
+        decimal = new BigDecimal(parser.getText().trim());
+      } catch (NumberFormatException e) {
+        return (Long) context.handleWeirdStringValue(Long.class, parser.getText(), "amount is not a decimal number");
+      }
+    } else {
+      decimal = parser.getDecimalValue();
+    }
+    try {
+      return CurrencyUnit.DEFAULT.toMinorUnits(decimal);
+    } catch (ArithmeticException e) {
+      return (Long) context.handleWeirdNumberValue(Long.class, decimal,
+        "amount is not representable in minor units of %s".formatted(CurrencyUnit.DEFAULT));
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.yucel.withdrawal.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
+
+import java.io.IOException;
+
+/**
+ * Writes an amount kept in minor units of the default currency as a decimal json number
+ */
+public class MinorUnitsJsonSerializer extends StdSerializer<Long> {
+
+  public MinorUnitsJsonSerializer() {
+    super(Long.class);
+  }
+
+  @Override
+  public void serialize(Long minorUnits, JsonGenerator generator, SerializerProvider provider) throws IOException {
+    generator.writeNumber(CurrencyUnit.DEFAULT.toDecimal(minorUnits));
+  }
+}
@@ -0,0 +1,188 @@
+package com.yucel.withdrawal.mapper;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.AccountSnapshot;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Hand written json writers of the single resource responses, they write straight into a buffer without going through
+ * the object mapper. The output is byte for byte what Jackson writes for the same records, field names and order included.
+ */
+public final class ResponseJsonWriter {
+
+  private static final byte[] WITHDRAWAL_ID = ascii("{\"id\":\"");
+  private static final byte[] WITHDRAWAL_FROM_ACCOUNT_ADDRESS = ascii("\",\"fromAccountAddress\":{\"address\":");
+  private static final byte[] WITHDRAWAL_TO_ACCOUNT_ADDRESS = ascii("},\"toAccountAddress\":{\"address\":");
+  private static final byte[] WITHDRAWAL_AMOUNT = ascii("},\"amount\":{\"amount\":");
+  private static final byte[] WITHDRAWAL_STATUS = ascii("},\"status\":");
+  private static final byte[] WITHDRAWAL_EXTERNAL = ascii(",\"external\":");
+  private static final byte[] STATUS_WITHDRAWAL_ID = ascii("{\"withdrawalId\":\"");
+  private static final byte[] STATUS_STATUS = ascii("\",\"status\":");
+  private static final byte[] ACCOUNT_ADDRESS = ascii("{\"address\":");
+  private static final byte[] ACCOUNT_BALANCE = ascii(",\"balance\":");
+  private static final byte[] NULL = ascii("null");
+  private static final byte[] TRUE = ascii("true");
+  private static final byte[] FALSE = ascii("false");
+  private static final byte[] HEX_DIGITS = ascii("0123456789abcdef");
+  private static final byte[] ESCAPE_HEX_DIGITS = ascii("0123456789ABCDEF");
+  private static final byte[][] STATUS_NAMES = new byte[WithdrawalStatus.values().length][];
+
+  static {
+    for (WithdrawalStatus status : WithdrawalStatus.values()) {
+      STATUS_NAMES[status.ordinal()] = ascii("\"" + status.name() + "\"");
+    }
+  }
+
+  private ResponseJsonWriter() {
+  }
+
+  public static Buffer write(WithdrawalTransaction withdrawalTransaction) {
+    Buffer buffer = Buffer.buffer(192);
+    buffer.appendBytes(WITHDRAWAL_ID);
+    appendUuid(buffer, withdrawalTransaction.id());
+    buffer.appendBytes(WITHDRAWAL_FROM_ACCOUNT_ADDRESS);
+    appendString(buffer, withdrawalTransaction.fromAccountAddress().address());
+    buffer.appendBytes(WITHDRAWAL_TO_ACCOUNT_ADDRESS);
+    appendString(buffer, withdrawalTransaction.toAccountAddress().address());
+    buffer.appendBytes(WITHDRAWAL_AMOUNT);
+    appendDecimal(buffer, withdrawalTransaction.amount().amount(), CurrencyUnit.DEFAULT);
+    buffer.appendBytes(WITHDRAWAL_STATUS);
+    appendStatus(buffer, withdrawalTransaction.status());
+    buffer.appendBytes(WITHDRAWAL_EXTERNAL);
+    buffer.appendBytes(withdrawalTransaction.external() ? TRUE : FALSE);
+    return buffer.appendByte((byte) '}');
+  }
+
+  public static Buffer write(WithdrawalStatusResponse withdrawalStatusResponse) {
+    Buffer buffer = Buffer.buffer(80);
+    buffer.appendBytes(STATUS_WITHDRAWAL_ID);
+    appendUuid(buffer, withdrawalStatusResponse.withdrawalId());
+    buffer.appendBytes(STATUS_STATUS);
+    appendStatus(buffer, withdrawalStatusResponse.status());
+    return buffer.appendByte((byte) '}');
+  }
+
+  public static Buffer write(AccountSnapshot accountSnapshot) {
+    Buffer buffer = Buffer.buffer(64);
+    buffer.appendBytes(ACCOUNT_ADDRESS);
+    appendString(buffer, accountSnapshot.address());
+    buffer.appendBytes(ACCOUNT_BALANCE);
+    appendDecimal(buffer, accountSnapshot.balance(), CurrencyUnit.DEFAULT);
+    return buffer.appendByte((byte) '}');
+  }
+
+  /**
+   * Writes the 36 characters of the canonical form, like {@link UUID#toString()} without creating the string
+   */
+  static void appendUuid(Buffer buffer, UUID uuid) {
+    long mostSignificantBits = uuid.getMostSignificantBits();
+    long leastSignificantBits = uuid.getLeastSignificantBits();
+    appendHex(buffer, mostSignificantBits >>> 32, 8);
+    buffer.appendByte((byte) '-');
+    appendHex(buffer, mostSignificantBits >>> 16, 4);
+    buffer.appendByte((byte) '-');
+    appendHex(buffer, mostSignificantBits, 4);
+    buffer.appendByte((byte) '-');
+    appendHex(buffer, leastSignificantBits >>> 48, 4);
+    buffer.appendByte((byte) '-');
+    appendHex(buffer, leastSignificantBits, 12);
+  }
+
+  private static void appendHex(Buffer buffer, long value, int digits) {
+    for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+      buffer.appendByte(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+    }
+  }
+
+  /**
+   * Writes the amount like {@link CurrencyUnit#toDecimal(long)} is written by Jackson: plain, without trailing fraction zeros
+   */
+  static void appendDecimal(Buffer buffer, long minorUnits, CurrencyUnit currencyUnit) {
+    if (minorUnits == Long.MIN_VALUE) {
+      buffer.appendString(currencyUnit.format(minorUnits));
+      return;
+    }
+    byte[] digits = new byte[24];
+    int position = digits.length;
+    long value = Math.abs(minorUnits);
+    boolean fraction = false;
+    for (int i = 0; i < currencyUnit.scale(); i++) {
+      int digit = (int) (value % 10);
+      value /= 10;
+      if (fraction || digit != 0) {
+        fraction = true;
+        digits[--position] = (byte) ('0' + digit);
+      }
+    }
+    if (fraction) {
+      digits[--position] = '.';
+    }
+    do {
+      digits[--position] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value > 0);
+    if (minorUnits < 0) {
+      digits[--position] = '-';
+    }
+    buffer.appendBytes(digits, position, digits.length - position);
+  }
+
+  /**
+   * Escapes quotes, backslashes and control characters like Jackson does, everything else is written as utf-8
+   */
+  static void appendString(Buffer buffer, String value) {
+    if (value == null) {
+      buffer.appendBytes(NULL);
+      return;
+    }
+    buffer.appendByte((byte) '"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char character = value.charAt(i);
+      if (character >= 0x20 && character != '"' && character != '\\') {
+        continue;
+      }
+      if (i > start) {
+        buffer.appendString(value.substring(start, i));
+      }
+      appendEscaped(buffer, character);
+      start = i + 1;
+    }
+    if (start == 0) {
+      buffer.appendString(value);
+    } else if (start < value.length()) {
+      buffer.appendString(value.substring(start));
+    }
+    buffer.appendByte((byte) '"');
+  }
+
+  private static void appendEscaped(Buffer buffer, char character) {
+    buffer.appendByte((byte) '\\');
+    switch (character) {
+      case '"', '\\' -> buffer.appendByte((byte) character);
+      case '\b' -> buffer.appendByte((byte) 'b');
+      case '\t' -> buffer.appendByte((byte) 't');
+      case '\n' -> buffer.appendByte((byte) 'n');
+      case '\f' -> buffer.appendByte((byte) 'f');
+      case '\r' -> buffer.appendByte((byte) 'r');
+      default -> {
+        buffer.appendByte((byte) 'u').appendByte((byte) '0').appendByte((byte) '0');
+        buffer.appendByte(ESCAPE_HEX_DIGITS[character >>> 4]).appendByte(ESCAPE_HEX_DIGITS[character & 0xF]);
+      }
+    }
+  }
+
+  private static void appendStatus(Buffer buffer, WithdrawalStatus status) {
+    buffer.appendBytes(status == null ? NULL : STATUS_NAMES[status.ordinal()]);
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+}
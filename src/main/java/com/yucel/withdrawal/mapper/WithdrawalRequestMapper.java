@@ -1,6 +1,7 @@
 package com.yucel.withdrawal.mapper;
 
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
 import com.yucel.withdrawal.domain.model.TransferAddress;
 import com.yucel.withdrawal.domain.model.TransferAmount;
 import com.yucel.withdrawal.domain.model.WithdrawalRequest;
@@ -10,13 +11,21 @@ import java.util.UUID;
 
 public class WithdrawalRequestMapper {
 
-  public WithdrawalTransaction mapToWithdrawalTransaction(WithdrawalRequest withdrawalRequest) {
+  /**
+   * Maps the request to a PROCESSING withdrawal, converting the decimal amount to minor units
+   * @param withdrawalRequest validated request
+   * @param external whether the recipient is not one of our accounts
+   * @return new withdrawal with a random id
+   * @throws ArithmeticException if the amount is not representable in minor units
+   */
+  public WithdrawalTransaction mapToWithdrawalTransaction(WithdrawalRequest withdrawalRequest, boolean external) {
     return new WithdrawalTransaction(
       UUID.randomUUID(),
       new TransferAddress(withdrawalRequest.fromAccountAddress()),
       new TransferAddress(withdrawalRequest.toAccountAddress()),
-      new TransferAmount(withdrawalRequest.amount()),
-      WithdrawalStatus.PROCESSING
+      new TransferAmount(CurrencyUnit.DEFAULT.toMinorUnits(withdrawalRequest.amount())),
+      WithdrawalStatus.PROCESSING,
+      external
     );
   }
 }
@@ -0,0 +1,28 @@
+package com.yucel.withdrawal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count, increments from many threads do not contend on a single cache line
+ */
+public class Counter implements Metric {
+
+  private final LongAdder count = new LongAdder();
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void add(long amount) {
+    count.add(amount);
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  @Override
+  public void write(StringBuilder out, String name, String labels) {
+    MetricsRegistry.appendSample(out, name, labels, count.sum());
+  }
+}
@@ -0,0 +1,22 @@
+package com.yucel.withdrawal.metrics;
+
+/**
+ * Last value set by its owner, e.g. a size read on the context the measured structure is confined to
+ */
+public class Gauge implements Metric {
+
+  private volatile long value;
+
+  public void set(long value) {
+    this.value = value;
+  }
+
+  public long value() {
+    return value;
+  }
+
+  @Override
+  public void write(StringBuilder out, String name, String labels) {
+    MetricsRegistry.appendSample(out, name, labels, value);
+  }
+}
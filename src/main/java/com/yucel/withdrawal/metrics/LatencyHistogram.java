@@ -0,0 +1,79 @@
+package com.yucel.withdrawal.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution in fixed buckets from 100µs to 10s. Recording is a scan of the bucket bounds
+ * and two striped increments, no lock and no allocation.
+ */
+public class LatencyHistogram implements Metric {
+
+  private static final double[] BOUNDS_SECONDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+  private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+  private static final String[] BOUND_LABELS = new String[BOUNDS_SECONDS.length];
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  static {
+    for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+      BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * NANOS_PER_SECOND);
+      BOUND_LABELS[i] = "le=\"" + BigDecimal.valueOf(BOUNDS_SECONDS[i]).stripTrailingZeros().toPlainString() + "\"";
+    }
+  }
+
+  /**
+   * the last bucket counts the latencies above the highest bound
+   */
+  private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+  private final LongAdder sumNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    int bucket = 0;
+    while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+      bucket++;
+    }
+    buckets[bucket].increment();
+    sumNanos.add(nanos);
+  }
+
+  /**
+   * Records the time passed since the start
+   * @param startNanos {@link System#nanoTime()} at the start
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  public long count() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Buckets are read one by one while recording goes on, a scrape may see a latency in the count but not in the sum
+   */
+  @Override
+  public void write(StringBuilder out, String name, String labels) {
+    String bucketName = name + "_bucket";
+    String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+    long cumulativeCount = 0;
+    for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+      cumulativeCount += buckets[i].sum();
+      MetricsRegistry.appendSample(out, bucketName, labelPrefix + BOUND_LABELS[i], cumulativeCount);
+    }
+    cumulativeCount += buckets[BOUNDS_NANOS.length].sum();
+    MetricsRegistry.appendSample(out, bucketName, labelPrefix + "le=\"+Inf\"", cumulativeCount);
+    MetricsRegistry.appendSample(out, name + "_sum", labels, sumNanos.sum() / NANOS_PER_SECOND);
+    MetricsRegistry.appendSample(out, name + "_count", labels, cumulativeCount);
+  }
+}
@@ -0,0 +1,14 @@
+package com.yucel.withdrawal.metrics;
+
+/**
+ * A single labelled time series, or a group of them for histograms
+ */
+interface Metric {
+
+  /**
+   * Appends the samples in the prometheus text format
+   * @param name metric family name
+   * @param labels rendered labels without braces, empty when there are none
+   */
+  void write(StringBuilder out, String name, String labels);
+}
@@ -0,0 +1,125 @@
+package com.yucel.withdrawal.metrics;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the service by name and labels, written in the prometheus text format.
+ *
+ * Registering is meant to happen once per metric at startup, the returned metric is kept and recorded to directly.
+ * Registering the same name and labels again returns the same metric, so verticle instances share it.
+ */
+public class MetricsRegistry implements Shareable {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String SHARED_MAP_NAME = "withdrawal.metrics";
+
+  private final ConcurrentMap<String, MetricFamily> families = new ConcurrentSkipListMap<>();
+
+  private enum Type {
+    COUNTER, GAUGE, HISTOGRAM;
+
+    String prometheusName() {
+      return name().toLowerCase();
+    }
+  }
+
+  private record MetricFamily(String name, String help, Type type, ConcurrentMap<String, Metric> metricsByLabels) {
+  }
+
+  /**
+   * @return the registry of the vertx instance, shared by all of its verticles
+   */
+  public static MetricsRegistry shared(Vertx vertx) {
+    return vertx.sharedData().<String, MetricsRegistry>getLocalMap(SHARED_MAP_NAME)
+      .computeIfAbsent(SHARED_MAP_NAME, ignored -> new MetricsRegistry());
+  }
+
+  /**
+   * @param name metric name, counters end with {@code _total}
+   * @param labels label names and values in pairs
+   */
+  public Counter counter(String name, String help, String... labels) {
+    return register(name, help, Type.COUNTER, labels, Counter::new);
+  }
+
+  public Gauge gauge(String name, String help, String... labels) {
+    return register(name, help, Type.GAUGE, labels, Gauge::new);
+  }
+
+  /**
+   * @param name metric name, latencies are written in seconds so it ends with {@code _seconds}
+   */
+  public LatencyHistogram histogram(String name, String help, String... labels) {
+    return register(name, help, Type.HISTOGRAM, labels, LatencyHistogram::new);
+  }
+
+  /**
+   * @return every metric in the prometheus text exposition format, families and series ordered by name
+   */
+  public String scrape() {
+    StringBuilder out = new StringBuilder(4096);
+    for (MetricFamily family : families.values()) {
+      out.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+      out.append("# TYPE ").append(family.name()).append(' ').append(family.type().prometheusName()).append('\n');
+      for (Map.Entry<String, Metric> metric : family.metricsByLabels().entrySet()) {
+        metric.getValue().write(out, family.name(), metric.getKey());
+      }
+    }
+    return out.toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Metric> T register(String name, String help, Type type, String[] labels, Supplier<T> metricFactory) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("labels must be given as name and value pairs");
+    }
+    MetricFamily family = families.computeIfAbsent(name, ignored -> new MetricFamily(name, help, type, new ConcurrentSkipListMap<>()));
+    if (family.type() != type) {
+      throw new IllegalArgumentException("metric %s is already registered as a %s".formatted(name, family.type().prometheusName()));
+    }
+    return (T) family.metricsByLabels().computeIfAbsent(renderLabels(labels), ignored -> metricFactory.get());
+  }
+
+  private static String renderLabels(String[] labels) {
+    StringBuilder rendered = new StringBuilder();
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        rendered.append(',');
+      }
+      rendered.append(labels[i]).append("=\"");
+      for (int c = 0; c < labels[i + 1].length(); c++) {
+        char character = labels[i + 1].charAt(c);
+        switch (character) {
+          case '\\' -> rendered.append("\\\\");
+          case '"' -> rendered.append("\\\"");
+          case '\n' -> rendered.append("\\n");
+          default -> rendered.append(character);
+        }
+      }
+      rendered.append('"');
+    }
+    return rendered.toString();
+  }
+
+  static void appendSample(StringBuilder out, String name, String labels, long value) {
+    appendName(out, name, labels).append(value).append('\n');
+  }
+
+  static void appendSample(StringBuilder out, String name, String labels, double value) {
+    appendName(out, name, labels).append(value).append('\n');
+  }
+
+  private static StringBuilder appendName(StringBuilder out, String name, String labels) {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    return out.append(' ');
+  }
+}
@@ -2,9 +2,10 @@ package com.yucel.withdrawal.repository;
 
 import com.yucel.withdrawal.domain.entity.Account;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public interface AccountRepository {
 
@@ -14,26 +15,47 @@ public interface AccountRepository {
   /**
    * Verifies the account and deposits the amount to the given address
    * @param address address of the account
-   * @param amount amount to be deposited
+   * @param amount amount to be deposited in minor units
    * @return updated account
    * @throws IllegalStateException if the account does not exist
    */
-  Account deposit(String address, BigDecimal amount);
+  Account deposit(String address, long amount);
 
   /**
    * Verifies if the balance is enough for the amount to be subtracted.
    * Also verifies the account, and withdraws the amount
    * @param address address of the account
-   * @param amount amount to be withdrawn
+   * @param amount amount to be withdrawn in minor units
    * @return updated account
    * @throws IllegalArgumentException if the balance is not sufficient
    * @throws IllegalStateException if the account does not exist
    */
-  Account withdraw(String address, BigDecimal amount);
+  Account withdraw(String address, long amount);
 
   /**
    * Gets all the accounts
    * @return list of Account
    */
   List<Account> getAll();
+
+  /**
+   * @return number of accounts
+   */
+  int count();
+
+  /**
+   * Gets accounts in address order, without copying the whole repository
+   * @param afterAddress the page starts after this address, null for the first page
+   * @param limit maximum number of accounts
+   * @return list of Account
+   */
+  List<Account> getPage(String afterAddress, int limit);
+
+  /**
+   * Completes once every change made so far is durable
+   * @return completes right away for repositories which are not persistent
+   */
+  default CompletionStage<Void> flush() {
+    return CompletableFuture.completedFuture(null);
+  }
 }
@@ -0,0 +1,419 @@
+package com.yucel.withdrawal.repository;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Withdrawals kept as columns of primitive arrays instead of one object graph each: the id as two longs,
+ * the interned ids of the addresses, the amount in minor units and the status with the external flag as a byte. With its indexes it takes
+ * about a fifth of the heap of {@link InMemoryWithdrawalRepository}. Columns grow in chunks, a row never moves.
+ *
+ * A saved id only changes its status, written in place, the other fields are fixed by the first save.
+ * Records are built only when read. Ids are found through an open-addressing table of rows, the pages
+ * read sorted arrays of rows, see {@link RowIndex}.
+ *
+ * Saves are serialized, reads are lock free.
+ */
+public class ColumnarWithdrawalRepository implements WithdrawalRepository {
+
+  /**
+   * the id table is kept at most half full and its size is bound by the largest array
+   */
+  public static final int MAX_WITHDRAWALS = 1 << 29;
+
+  private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+  private static final WithdrawalStatus[] STATUSES = WithdrawalStatus.values();
+  /**
+   * set in the status byte of an external withdrawal
+   */
+  private static final int EXTERNAL_BIT = 0x40;
+  private static final int CHUNK_SHIFT = 14;
+  private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+  private static final int MIN_UNMERGED_ROWS = 8;
+
+  private long[][] mostSigBits = new long[0][];
+  private long[][] leastSigBits = new long[0][];
+  private long[][] amounts = new long[0][];
+  private int[][] fromAddressIds = new int[0][];
+  private int[][] toAddressIds = new int[0][];
+  private byte[][] statuses = new byte[0][];
+  private volatile int count;
+  /**
+   * row + 1 of each id, 0 for a free entry
+   */
+  private volatile int[] idTable = new int[16];
+
+  private final Map<String, Integer> addressIds = new ConcurrentHashMap<>();
+  private volatile InternedAddress[] addresses = new InternedAddress[16];
+  private int addressCount;
+
+  private final RowIndex sortedRows = new RowIndex(null);
+  private final RowIndex[] rowsByStatus = new RowIndex[STATUSES.length];
+
+  /**
+   * The address shared by the records of its withdrawals, and the index of them
+   */
+  private record InternedAddress(TransferAddress address, RowIndex rows) {
+  }
+
+  public ColumnarWithdrawalRepository() {
+    for (WithdrawalStatus status : STATUSES) {
+      rowsByStatus[status.ordinal()] = new RowIndex(status);
+    }
+  }
+
+  @Override
+  public synchronized WithdrawalTransaction save(WithdrawalTransaction withdrawalTransaction) {
+    int row = rowOf(withdrawalTransaction.id());
+    if (row >= 0) {
+      WithdrawalTransaction previous = withdrawalAt(row);
+      if (previous.status() != withdrawalTransaction.status()) {
+        BYTES.setVolatile(statuses[row >>> CHUNK_SHIFT], row & (CHUNK_ROWS - 1), statusByte(withdrawalTransaction.status(), previous.external()));
+        rowsByStatus[previous.status().ordinal()].removed();
+        rowsByStatus[withdrawalTransaction.status().ordinal()].add(row, withdrawalTransaction.id());
+      }
+      return previous;
+    }
+    insert(withdrawalTransaction);
+    return null;
+  }
+
+  /**
+   * The columns are written before the row is published in the id table, and the table before the indexes,
+   * so whoever finds the row reads it complete
+   */
+  private void insert(WithdrawalTransaction withdrawalTransaction) {
+    int row = count;
+    if (row == MAX_WITHDRAWALS) {
+      throw new IllegalStateException("columnar withdrawal repository is full with %d withdrawals".formatted(MAX_WITHDRAWALS));
+    }
+    int chunk = row >>> CHUNK_SHIFT;
+    int offset = row & (CHUNK_ROWS - 1);
+    if (chunk == statuses.length) {
+      growColumns();
+    }
+    UUID id = withdrawalTransaction.id();
+    int fromAddressId = intern(withdrawalTransaction.fromAccountAddress());
+    int toAddressId = intern(withdrawalTransaction.toAccountAddress());
+    mostSigBits[chunk][offset] = id.getMostSignificantBits();
+    leastSigBits[chunk][offset] = id.getLeastSignificantBits();
+    amounts[chunk][offset] = withdrawalTransaction.amount().amount();
+    fromAddressIds[chunk][offset] = fromAddressId;
+    toAddressIds[chunk][offset] = toAddressId;
+    BYTES.setVolatile(statuses[chunk], offset, statusByte(withdrawalTransaction.status(), withdrawalTransaction.external()));
+
+    int[] table = idTable;
+    if ((row + 1) * 2L > table.length) {
+      table = grow(table);
+    }
+    putRow(table, hash(id), row);
+    idTable = table;
+    count = row + 1;
+
+    sortedRows.add(row, id);
+    addresses[fromAddressId].rows().add(row, id);
+    if (toAddressId != fromAddressId) {
+      addresses[toAddressId].rows().add(row, id);
+    }
+    rowsByStatus[withdrawalTransaction.status().ordinal()].add(row, id);
+  }
+
+  private void growColumns() {
+    int chunks = statuses.length + 1;
+    mostSigBits = Arrays.copyOf(mostSigBits, chunks);
+    mostSigBits[chunks - 1] = new long[CHUNK_ROWS];
+    leastSigBits = Arrays.copyOf(leastSigBits, chunks);
+    leastSigBits[chunks - 1] = new long[CHUNK_ROWS];
+    amounts = Arrays.copyOf(amounts, chunks);
+    amounts[chunks - 1] = new long[CHUNK_ROWS];
+    fromAddressIds = Arrays.copyOf(fromAddressIds, chunks);
+    fromAddressIds[chunks - 1] = new int[CHUNK_ROWS];
+    toAddressIds = Arrays.copyOf(toAddressIds, chunks);
+    toAddressIds[chunks - 1] = new int[CHUNK_ROWS];
+    statuses = Arrays.copyOf(statuses, chunks);
+    statuses[chunks - 1] = new byte[CHUNK_ROWS];
+  }
+
+  private int intern(TransferAddress address) {
+    Integer addressId = addressIds.get(address.address());
+    if (addressId != null) {
+      return addressId;
+    }
+    if (addressCount == addresses.length) {
+      addresses = Arrays.copyOf(addresses, addressCount * 2);
+    }
+    addresses[addressCount] = new InternedAddress(address, new RowIndex(null));
+    addressIds.put(address.address(), addressCount);
+    return addressCount++;
+  }
+
+  private int[] grow(int[] table) {
+    int[] grown = new int[table.length * 2];
+    for (int entry : table) {
+      if (entry != 0) {
+        putRow(grown, hash(mostSigBits(entry - 1), leastSigBits(entry - 1)), entry - 1);
+      }
+    }
+    return grown;
+  }
+
+  private static void putRow(int[] table, int hash, int row) {
+    int mask = table.length - 1;
+    int entryIndex = hash & mask;
+    while ((int) INTS.getAcquire(table, entryIndex) != 0) {
+      entryIndex = (entryIndex + 1) & mask;
+    }
+    INTS.setRelease(table, entryIndex, row + 1);
+  }
+
+  private int rowOf(UUID id) {
+    int[] table = idTable;
+    int mask = table.length - 1;
+    long idMostSigBits = id.getMostSignificantBits();
+    long idLeastSigBits = id.getLeastSignificantBits();
+    for (int entryIndex = hash(idMostSigBits, idLeastSigBits) & mask; ; entryIndex = (entryIndex + 1) & mask) {
+      int entry = (int) INTS.getAcquire(table, entryIndex);
+      if (entry == 0) {
+        return -1;
+      }
+      if (mostSigBits(entry - 1) == idMostSigBits && leastSigBits(entry - 1) == idLeastSigBits) {
+        return entry - 1;
+      }
+    }
+  }
+
+  @Override
+  public Optional<WithdrawalTransaction> get(UUID id) {
+    int row = rowOf(id);
+    return row < 0 ? Optional.empty() : Optional.of(withdrawalAt(row));
+  }
+
+  @Override
+  public boolean checkIfWithdrawalTransactionExists(UUID id) {
+    return rowOf(id) >= 0;
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getAll() {
+    int rows = count;
+    List<WithdrawalTransaction> withdrawals = new ArrayList<>(rows);
+    for (int row = 0; row < rows; row++) {
+      withdrawals.add(withdrawalAt(row));
+    }
+    return withdrawals;
+  }
+
+  @Override
+  public int count() {
+    return count;
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPage(UUID afterId, int limit) {
+    return sortedRows.page(afterId, limit);
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPageByAccountAddress(String address, UUID afterId, int limit) {
+    Integer addressId = addressIds.get(address);
+    return addressId == null ? List.of() : addresses[addressId].rows().page(afterId, limit);
+  }
+
+  /**
+   * A withdrawal whose status changed after the page started is skipped
+   */
+  @Override
+  public List<WithdrawalTransaction> getPageByStatus(WithdrawalStatus status, UUID afterId, int limit) {
+    return rowsByStatus[status.ordinal()].page(afterId, limit);
+  }
+
+  private WithdrawalTransaction withdrawalAt(int row) {
+    int chunk = row >>> CHUNK_SHIFT;
+    int offset = row & (CHUNK_ROWS - 1);
+    InternedAddress[] interned = addresses;
+    return new WithdrawalTransaction(new UUID(mostSigBits[chunk][offset], leastSigBits[chunk][offset]),
+      interned[fromAddressIds[chunk][offset]].address(), interned[toAddressIds[chunk][offset]].address(),
+      new TransferAmount(amounts[chunk][offset]), status(row), (statusByte(row) & EXTERNAL_BIT) != 0);
+  }
+
+  private WithdrawalStatus status(int row) {
+    return STATUSES[statusByte(row) & ~EXTERNAL_BIT];
+  }
+
+  private byte statusByte(int row) {
+    return (byte) BYTES.getVolatile(statuses[row >>> CHUNK_SHIFT], row & (CHUNK_ROWS - 1));
+  }
+
+  private static byte statusByte(WithdrawalStatus status, boolean external) {
+    return (byte) (status.ordinal() | (external ? EXTERNAL_BIT : 0));
+  }
+
+  private long mostSigBits(int row) {
+    return mostSigBits[row >>> CHUNK_SHIFT][row & (CHUNK_ROWS - 1)];
+  }
+
+  private long leastSigBits(int row) {
+    return leastSigBits[row >>> CHUNK_SHIFT][row & (CHUNK_ROWS - 1)];
+  }
+
+  /**
+   * in the order of {@link UUID#compareTo}
+   */
+  private int compareRow(int row, UUID id) {
+    int comparison = Long.compare(mostSigBits(row), id.getMostSignificantBits());
+    return comparison != 0 ? comparison : Long.compare(leastSigBits(row), id.getLeastSignificantBits());
+  }
+
+  private static int hash(UUID id) {
+    return hash(id.getMostSignificantBits(), id.getLeastSignificantBits());
+  }
+
+  /**
+   * finalizer of murmur3, the version bits of random uuids are not spread over the table otherwise
+   */
+  private static int hash(long mostSigBits, long leastSigBits) {
+    long hash = mostSigBits ^ Long.rotateLeft(leastSigBits, 32);
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return (int) hash;
+  }
+
+  /**
+   * Rows in id order: a sorted array, and the rows added since it was sorted in a small skip list until the next merge,
+   * at most a sixteenth of the array. The index of a status keeps the rows which left it until the next merge,
+   * reads skip them by their status.
+   */
+  private final class RowIndex {
+
+    private final WithdrawalStatus status;
+    private volatile SortedRows sorted = new SortedRows(new int[0], new ConcurrentSkipListMap<>());
+    /**
+     * rows added or removed since the last merge, only touched by saves
+     */
+    private int changes;
+
+    private record SortedRows(int[] rows, ConcurrentNavigableMap<UUID, Integer> unmerged) {
+    }
+
+    /**
+     * @param status status of the rows kept by the index, null for an index rows never leave
+     */
+    RowIndex(WithdrawalStatus status) {
+      this.status = status;
+    }
+
+    void add(int row, UUID id) {
+      sorted.unmerged().put(id, row);
+      changed();
+    }
+
+    /**
+     * counts a row which left the status of the index
+     */
+    void removed() {
+      changed();
+    }
+
+    private void changed() {
+      if (++changes > Math.max(MIN_UNMERGED_ROWS, sorted.rows().length / 16)) {
+        merge();
+      }
+    }
+
+    /**
+     * Merges the unmerged rows into a new sorted array in one pass, dropping the rows not in the status anymore.
+     * Readers keep paging the pair they started with, the unmerged rows of the old pair are never cleared.
+     */
+    private void merge() {
+      SortedRows current = sorted;
+      int[] currentRows = current.rows();
+      int[] rows = new int[currentRows.length + current.unmerged().size()];
+      int merged = 0;
+      int next = 0;
+      for (Map.Entry<UUID, Integer> unmerged : current.unmerged().entrySet()) {
+        while (next < currentRows.length && compareRow(currentRows[next], unmerged.getKey()) < 0) {
+          merged = keep(rows, merged, currentRows[next++]);
+        }
+        if (next < currentRows.length && currentRows[next] == unmerged.getValue()) {
+          next++;
+        }
+        merged = keep(rows, merged, unmerged.getValue());
+      }
+      while (next < currentRows.length) {
+        merged = keep(rows, merged, currentRows[next++]);
+      }
+      sorted = new SortedRows(Arrays.copyOf(rows, merged), new ConcurrentSkipListMap<>());
+      changes = 0;
+    }
+
+    private int keep(int[] rows, int merged, int row) {
+      if (status == null || status(row) == status) {
+        rows[merged++] = row;
+      }
+      return merged;
+    }
+
+    List<WithdrawalTransaction> page(UUID afterId, int limit) {
+      SortedRows current = sorted;
+      int[] rows = current.rows();
+      int next = afterId == null ? 0 : firstAfter(rows, afterId);
+      Iterator<Map.Entry<UUID, Integer>> unmerged = (afterId == null ? current.unmerged() : current.unmerged().tailMap(afterId, false))
+        .entrySet().iterator();
+      Map.Entry<UUID, Integer> nextUnmerged = unmerged.hasNext() ? unmerged.next() : null;
+
+      List<WithdrawalTransaction> page = new ArrayList<>(Math.min(limit, 1024));
+      int previousRow = -1;
+      while (page.size() < limit && (next < rows.length || nextUnmerged != null)) {
+        int row;
+        if (nextUnmerged == null || next < rows.length && compareRow(rows[next], nextUnmerged.getKey()) < 0) {
+          row = rows[next++];
+        } else {
+          row = nextUnmerged.getValue();
+          nextUnmerged = unmerged.hasNext() ? unmerged.next() : null;
+        }
+        // a row which left the status and came back is in both parts
+        if (row != previousRow) {
+          WithdrawalTransaction withdrawal = withdrawalAt(row);
+          if (status == null || withdrawal.status() == status) {
+            page.add(withdrawal);
+          }
+        }
+        previousRow = row;
+      }
+      return page;
+    }
+
+    private int firstAfter(int[] rows, UUID id) {
+      int low = 0;
+      int high = rows.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (compareRow(rows[middle], id) <= 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
@@ -1,24 +1,49 @@
 package com.yucel.withdrawal.repository;
 
 import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.HotAccount;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 public class InMemoryAccountRepository implements AccountRepository {
   private final ConcurrentMap<String, Account> accountMap;
+  /**
+   * ordered index of the addresses for paging, lookups stay on the hash map
+   */
+  private final NavigableSet<String> sortedAddresses = new ConcurrentSkipListSet<>();
+  private final Set<String> hotAccountAddresses;
 
   public InMemoryAccountRepository() {
+    this(Set.of());
+  }
+
+  /**
+   * @param hotAccountAddresses addresses of accounts receiving a large share of deposits,
+   *                            they are kept as {@link HotAccount} with striped deposit cells
+   */
+  public InMemoryAccountRepository(Set<String> hotAccountAddresses) {
     this.accountMap = new ConcurrentHashMap<>();
+    this.hotAccountAddresses = Set.copyOf(hotAccountAddresses);
   }
 
   @Override
   public Account save(Account account) {
-    return accountMap.put(account.getAddress(), account);
+    if (hotAccountAddresses.contains(account.getAddress()) && !(account instanceof HotAccount)) {
+      account = new HotAccount(account.getAddress(), account.getBalance());
+    }
+    Account previous = accountMap.put(account.getAddress(), account);
+    if (previous == null) {
+      sortedAddresses.add(account.getAddress());
+    }
+    return previous;
   }
 
   @Override
@@ -26,34 +51,28 @@ public class InMemoryAccountRepository implements AccountRepository {
     return Optional.ofNullable(accountMap.get(address));
   }
 
+  /**
+   * Balance updates are CAS loops on the account itself, so the map is only read
+   * and concurrent updates of accounts in the same map bin do not contend
+   */
   @Override
-  public Account deposit(String address, BigDecimal amount) {
-    Account updatedAccount = accountMap.computeIfPresent(address, (addressKey, account) -> {
-
-      account.setBalance(account.getBalance().add(amount));
-      return account;
-    });
+  public Account deposit(String address, long amount) {
+    Account account = accountMap.get(address);
+    validateAccountExistence(address, account);
 
-    validateAccountExistence(address, updatedAccount);
-
-    return updatedAccount;
+    account.deposit(amount);
+    return account;
   }
 
-
-
   @Override
-  public Account withdraw(String address, BigDecimal amount) {
-    Account updatedAccount = accountMap.computeIfPresent(address, (addressKey, account) -> {
-      if (account.getBalance().compareTo(amount) < 0) {
-        throw new IllegalArgumentException("account %s balance is not sufficient for the amount %,.2f".formatted(address, amount));
-      }
-      account.setBalance(account.getBalance().subtract(amount));
-      return account;
-    });
-
-    validateAccountExistence(address, updatedAccount);
+  public Account withdraw(String address, long amount) {
+    Account account = accountMap.get(address);
+    validateAccountExistence(address, account);
 
-    return updatedAccount;
+    if (!account.tryWithdraw(amount)) {
+      throw new IllegalArgumentException("account %s balance is not sufficient for the amount %s".formatted(address, CurrencyUnit.DEFAULT.format(amount)));
+    }
+    return account;
   }
 
   @Override
@@ -61,8 +80,29 @@ public class InMemoryAccountRepository implements AccountRepository {
     return new ArrayList<>(accountMap.values());
   }
 
-  private static void validateAccountExistence(String address, Account updatedAccount) {
-    if(updatedAccount == null) {
+  @Override
+  public int count() {
+    return accountMap.size();
+  }
+
+  @Override
+  public List<Account> getPage(String afterAddress, int limit) {
+    NavigableSet<String> addresses = afterAddress == null ? sortedAddresses : sortedAddresses.tailSet(afterAddress, false);
+    List<Account> page = new ArrayList<>(Math.min(limit, 1024));
+    for (String address : addresses) {
+      if (page.size() == limit) {
+        break;
+      }
+      Account account = accountMap.get(address);
+      if (account != null) {
+        page.add(account);
+      }
+    }
+    return page;
+  }
+
+  private static void validateAccountExistence(String address, Account account) {
+    if(account == null) {
       throw new IllegalStateException("account with id: %s does not exist".formatted(address));
     }
   }
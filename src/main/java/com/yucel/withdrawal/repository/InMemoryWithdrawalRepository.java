@@ -1,38 +1,249 @@
 package com.yucel.withdrawal.repository;
 
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.cold.ColdWithdrawalStore;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
+/**
+ * With a cold store, withdrawals final for long enough are moved out of the map into it by {@link #migrateToColdStore(long)},
+ * so the map only holds the recent ones. Reads fall through to the cold store, the indexes keep the ids of all withdrawals.
+ */
 public class InMemoryWithdrawalRepository implements WithdrawalRepository {
+  /**
+   * maximum number of withdrawals moved into one cold segment
+   */
+  private static final int MAX_MIGRATION_BATCH = 1 << 20;
+
   private final ConcurrentMap<UUID, WithdrawalTransaction> withdrawalTransactionMap;
+  private final ColdWithdrawalStore coldStore;
+  /**
+   * withdrawals in the order they became final, only kept with a cold store
+   */
+  private final Queue<FinalWithdrawal> finalWithdrawals = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger count = new AtomicInteger();
+  /**
+   * ordered index of the ids for paging, status updates of a known id do not touch it
+   */
+  private final NavigableSet<UUID> sortedIds = new ConcurrentSkipListSet<>();
+  /**
+   * ids of the withdrawals an address sends or receives
+   */
+  private final ConcurrentMap<String, NavigableSet<UUID>> idsByAccountAddress = new ConcurrentHashMap<>();
+  private final Map<WithdrawalStatus, NavigableSet<UUID>> idsByStatus = new EnumMap<>(WithdrawalStatus.class);
+
+  private record FinalWithdrawal(UUID id, long finalAtMillis) {
+  }
 
   public InMemoryWithdrawalRepository() {
+    this(null);
+  }
+
+  /**
+   * @param coldStore store of the withdrawals final for long enough, null to keep all of them in memory
+   */
+  public InMemoryWithdrawalRepository(ColdWithdrawalStore coldStore) {
     this.withdrawalTransactionMap = new ConcurrentHashMap<>();
+    this.coldStore = coldStore;
+    for (WithdrawalStatus status : WithdrawalStatus.values()) {
+      idsByStatus.put(status, new ConcurrentSkipListSet<>());
+    }
   }
 
+  /**
+   * The indexes are updated while the map entry is locked, so concurrent saves of the same withdrawal
+   * cannot leave it indexed under a stale status
+   */
   @Override
   public WithdrawalTransaction save(WithdrawalTransaction withdrawalTransaction) {
-    return withdrawalTransactionMap.put(withdrawalTransaction.id(), withdrawalTransaction);
+    UUID id = withdrawalTransaction.id();
+    WithdrawalTransaction[] previous = new WithdrawalTransaction[1];
+    withdrawalTransactionMap.compute(id, (key, hot) -> {
+      // a known id missing from the map was moved to the cold store
+      WithdrawalTransaction saved = hot == null && coldStore != null && sortedIds.contains(id) ? coldStore.get(id).orElse(null) : hot;
+      previous[0] = saved;
+      if (saved == null) {
+        if (sortedIds.add(id)) {
+          count.incrementAndGet();
+        }
+        indexByAccountAddress(withdrawalTransaction.fromAccountAddress().address(), id);
+        indexByAccountAddress(withdrawalTransaction.toAccountAddress().address(), id);
+      } else if (saved.status() != withdrawalTransaction.status()) {
+        idsByStatus.get(saved.status()).remove(id);
+      }
+      idsByStatus.get(withdrawalTransaction.status()).add(id);
+      if (coldStore != null && withdrawalTransaction.status().isFinal() && (saved == null || !saved.status().isFinal())) {
+        finalWithdrawals.add(new FinalWithdrawal(id, currentTimeMillis()));
+      }
+      return withdrawalTransaction;
+    });
+    return previous[0];
+  }
+
+  private void indexByAccountAddress(String address, UUID id) {
+    idsByAccountAddress.computeIfAbsent(address, ignored -> new ConcurrentSkipListSet<>()).add(id);
+  }
+
+  /**
+   * Moves the withdrawals final since before the given time to the cold store. The cold copy is readable
+   * before the withdrawal leaves the map, so reads never miss it. Blocks on file IO, called from a single thread at a time.
+   * @return number of withdrawals moved
+   */
+  public int migrateToColdStore(long finalBeforeMillis) throws IOException {
+    if (coldStore == null) {
+      return 0;
+    }
+    int migrated = 0;
+    while (true) {
+      Map<UUID, WithdrawalTransaction> batch = new LinkedHashMap<>();
+      FinalWithdrawal head;
+      while (batch.size() < MAX_MIGRATION_BATCH && (head = finalWithdrawals.peek()) != null && head.finalAtMillis() <= finalBeforeMillis) {
+        finalWithdrawals.poll();
+        WithdrawalTransaction withdrawal = withdrawalTransactionMap.get(head.id());
+        if (withdrawal != null && withdrawal.status().isFinal()) {
+          batch.put(withdrawal.id(), withdrawal);
+        }
+      }
+      if (batch.isEmpty()) {
+        return migrated;
+      }
+      coldStore.append(batch.values());
+      for (WithdrawalTransaction withdrawal : batch.values()) {
+        // a withdrawal saved again meanwhile stays, the map is read first
+        withdrawalTransactionMap.remove(withdrawal.id(), withdrawal);
+      }
+      migrated += batch.size();
+    }
+  }
+
+  /**
+   * Writes final withdrawals, such as those loaded from a snapshot, straight to the cold store and only indexes them.
+   * Without a cold store they are saved into the map. Blocks on file IO.
+   * @param withdrawals final withdrawals without repeated ids, none of them saved before
+   */
+  public void restoreToColdStore(Collection<WithdrawalTransaction> withdrawals) throws IOException {
+    if (coldStore == null) {
+      withdrawals.forEach(this::save);
+      return;
+    }
+    if (withdrawals.isEmpty()) {
+      return;
+    }
+    coldStore.append(withdrawals);
+    for (WithdrawalTransaction withdrawal : withdrawals) {
+      if (sortedIds.add(withdrawal.id())) {
+        count.incrementAndGet();
+      }
+      indexByAccountAddress(withdrawal.fromAccountAddress().address(), withdrawal.id());
+      indexByAccountAddress(withdrawal.toAccountAddress().address(), withdrawal.id());
+      idsByStatus.get(withdrawal.status()).add(withdrawal.id());
+    }
+  }
+
+  public boolean hasColdStore() {
+    return coldStore != null;
+  }
+
+  /**
+   * @return number of withdrawals held in memory
+   */
+  public int hotCount() {
+    return withdrawalTransactionMap.size();
   }
 
   @Override
   public Optional<WithdrawalTransaction> get(UUID id) {
-    return Optional.ofNullable(withdrawalTransactionMap.get(id));
+    WithdrawalTransaction withdrawalTransaction = withdrawalTransactionMap.get(id);
+    if (withdrawalTransaction != null || coldStore == null) {
+      return Optional.ofNullable(withdrawalTransaction);
+    }
+    return coldStore.get(id);
   }
 
   @Override
   public boolean checkIfWithdrawalTransactionExists(UUID id) {
-    return withdrawalTransactionMap.containsKey(id);
+    return withdrawalTransactionMap.containsKey(id) || coldStore != null && get(id).isPresent();
   }
 
+  /**
+   * The map is copied before the cold store is read, a withdrawal moved in between is found in the cold store
+   * and one in both is not repeated
+   */
   @Override
   public List<WithdrawalTransaction> getAll() {
-    return new ArrayList<>(withdrawalTransactionMap.values());
+    if (coldStore == null) {
+      return new ArrayList<>(withdrawalTransactionMap.values());
+    }
+    Map<UUID, WithdrawalTransaction> hotWithdrawals = new HashMap<>(withdrawalTransactionMap);
+    List<WithdrawalTransaction> withdrawals = new ArrayList<>(count.get());
+    coldStore.forEach(withdrawal -> {
+      if (!hotWithdrawals.containsKey(withdrawal.id())) {
+        withdrawals.add(withdrawal);
+      }
+    });
+    withdrawals.addAll(hotWithdrawals.values());
+    return withdrawals;
+  }
+
+  @Override
+  public int count() {
+    return count.get();
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPage(UUID afterId, int limit) {
+    return page(sortedIds, afterId, limit, withdrawal -> true);
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPageByAccountAddress(String address, UUID afterId, int limit) {
+    NavigableSet<UUID> ids = idsByAccountAddress.get(address);
+    return ids == null ? List.of() : page(ids, afterId, limit, withdrawal -> true);
+  }
+
+  /**
+   * A withdrawal whose status changed right after its id was read from the index is skipped
+   */
+  @Override
+  public List<WithdrawalTransaction> getPageByStatus(WithdrawalStatus status, UUID afterId, int limit) {
+    return page(idsByStatus.get(status), afterId, limit, withdrawal -> withdrawal.status() == status);
+  }
+
+  private List<WithdrawalTransaction> page(NavigableSet<UUID> index, UUID afterId, int limit, Predicate<WithdrawalTransaction> filter) {
+    NavigableSet<UUID> ids = afterId == null ? index : index.tailSet(afterId, false);
+    List<WithdrawalTransaction> page = new ArrayList<>(Math.min(limit, 1024));
+    for (UUID id : ids) {
+      if (page.size() == limit) {
+        break;
+      }
+      Optional<WithdrawalTransaction> withdrawalTransaction = get(id);
+      if (withdrawalTransaction.isPresent() && filter.test(withdrawalTransaction.get())) {
+        page.add(withdrawalTransaction.get());
+      }
+    }
+    return page;
+  }
+
+  private static long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
   }
 }
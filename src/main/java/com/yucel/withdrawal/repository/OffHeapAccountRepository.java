@@ -0,0 +1,413 @@
+package com.yucel.withdrawal.repository;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.HotAccount;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Accounts kept in direct memory instead of one object graph per account, for tens of millions of accounts.
+ *
+ * Each account is a fixed size slot in an append-only arena of chunks: the balance in minor units followed by
+ * the length and the UTF-8 bytes of the address. Slots never move, so balance updates are CAS loops on the slot
+ * like {@link Account}, without a lock. An open-addressing table of {@code address hash << 32 | slot + 1} longs,
+ * also off-heap, finds the slot; probes compare the hash before touching the arena. Paging reads a sorted array
+ * of slots, the addresses added since it was last rebuilt are kept in a small sorted set until the next rebuild.
+ *
+ * The returned accounts are copies of the balance at the time of the call, hot accounts excepted:
+ * they stay {@link HotAccount} objects on the heap, their slot only takes part in paging.
+ * Saves are serialized, lookups and balance updates are lock free.
+ */
+public class OffHeapAccountRepository implements AccountRepository {
+
+  /**
+   * the longest IBAN
+   */
+  public static final int DEFAULT_MAX_ADDRESS_BYTES = 34;
+  /**
+   * the table is kept at most half full and its size is bound by the largest direct buffer
+   */
+  public static final int MAX_ACCOUNTS = 1 << 26;
+  /**
+   * keeps a chunk within a direct buffer
+   */
+  public static final int MAX_ADDRESS_BYTES_LIMIT = 4096;
+
+  private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+  private static final int BALANCE_OFFSET = 0;
+  private static final int LENGTH_OFFSET = Long.BYTES;
+  private static final int ADDRESS_OFFSET = LENGTH_OFFSET + Short.BYTES;
+  private static final int MIN_UNMERGED_ADDRESSES = 1024;
+
+  private final int maxAddressBytes;
+  private final int slotBytes;
+  private final Set<String> hotAccountAddresses;
+  private final Map<String, HotAccount> hotAccounts = new ConcurrentHashMap<>();
+
+  private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+  private volatile ByteBuffer index;
+  private volatile int count;
+  private volatile SortedSlots sortedSlots = new SortedSlots(allocate(0), 0, new ConcurrentSkipListSet<>());
+  /**
+   * size of the unmerged set of the current sorted slots, only touched by saves
+   */
+  private int unmergedCount;
+
+  /**
+   * Slots in address order, and the addresses saved after they were sorted
+   */
+  private record SortedSlots(ByteBuffer slots, int size, NavigableSet<String> unmerged) {
+
+    int slot(int position) {
+      return slots.getInt(position * Integer.BYTES);
+    }
+  }
+
+  public OffHeapAccountRepository() {
+    this(Set.of(), 1024, DEFAULT_MAX_ADDRESS_BYTES);
+  }
+
+  /**
+   * @param hotAccountAddresses addresses of accounts receiving a large share of deposits,
+   *                            they are kept as {@link HotAccount} with striped deposit cells
+   * @param initialCapacity number of accounts the index is sized for up front
+   * @param maxAddressBytes length of the longest UTF-8 encoded address, every slot reserves it
+   */
+  public OffHeapAccountRepository(Set<String> hotAccountAddresses, int initialCapacity, int maxAddressBytes) {
+    if (maxAddressBytes < 1 || maxAddressBytes > MAX_ADDRESS_BYTES_LIMIT) {
+      throw new IllegalArgumentException("max address bytes must be between 1 and %d".formatted(MAX_ADDRESS_BYTES_LIMIT));
+    }
+    this.maxAddressBytes = maxAddressBytes;
+    this.slotBytes = (ADDRESS_OFFSET + maxAddressBytes + Long.BYTES - 1) & -Long.BYTES;
+    this.hotAccountAddresses = Set.copyOf(hotAccountAddresses);
+    int entries = Integer.highestOneBit(Math.max(8, Math.min(initialCapacity, MAX_ACCOUNTS)) * 2 - 1) * 2;
+    this.index = allocate(entries * Long.BYTES);
+  }
+
+  /**
+   * @return bytes of direct memory reserved for the accounts
+   */
+  public long offHeapBytes() {
+    return (long) chunks.length * CHUNK_SLOTS * slotBytes + index.capacity() + sortedSlots.slots().capacity();
+  }
+
+  @Override
+  public synchronized Account save(Account account) {
+    String address = account.getAddress();
+    int slot = slotOf(address);
+    byte[] addressBytes = slot < 0 ? encode(address) : null;
+    if (hotAccountAddresses.contains(address)) {
+      HotAccount hotAccount = account instanceof HotAccount hot ? hot : new HotAccount(address, account.getBalance());
+      Account previous = hotAccounts.put(address, hotAccount);
+      if (slot < 0) {
+        insert(address, addressBytes, 0);
+      }
+      return previous;
+    }
+    if (slot >= 0) {
+      long previousBalance = (long) LONGS.getAndSet(chunk(slot), offset(slot) + BALANCE_OFFSET, account.getBalance());
+      return new Account(address, previousBalance);
+    }
+    insert(address, addressBytes, account.getBalance());
+    return null;
+  }
+
+  private byte[] encode(String address) {
+    byte[] addressBytes = address.getBytes(StandardCharsets.UTF_8);
+    if (addressBytes.length > maxAddressBytes) {
+      throw new IllegalArgumentException("account address %s is longer than %d bytes".formatted(address, maxAddressBytes));
+    }
+    return addressBytes;
+  }
+
+  /**
+   * The slot is written before it is published in the index, and the index before the sorted set,
+   * so whoever finds the address reads a complete slot
+   */
+  private void insert(String address, byte[] addressBytes, long balance) {
+    int slot = count;
+    if (slot == MAX_ACCOUNTS) {
+      throw new IllegalStateException("off-heap account repository is full with %d accounts".formatted(MAX_ACCOUNTS));
+    }
+    if (slot >>> CHUNK_SHIFT == chunks.length) {
+      ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+      grown[chunks.length] = allocate(CHUNK_SLOTS * slotBytes);
+      chunks = grown;
+    }
+    ByteBuffer chunk = chunk(slot);
+    int offset = offset(slot);
+    chunk.putShort(offset + LENGTH_OFFSET, (short) addressBytes.length);
+    chunk.put(offset + ADDRESS_OFFSET, addressBytes);
+    LONGS.setVolatile(chunk, offset + BALANCE_OFFSET, balance);
+
+    ByteBuffer currentIndex = index;
+    if ((slot + 1) * 2L > currentIndex.capacity() / Long.BYTES) {
+      currentIndex = grow(currentIndex);
+      index = currentIndex;
+    }
+    putIndexEntry(currentIndex, (long) address.hashCode() << 32 | slot + 1);
+    count = slot + 1;
+
+    sortedSlots.unmerged().add(address);
+    if (++unmergedCount > Math.max(MIN_UNMERGED_ADDRESSES, sortedSlots.size() / 16)) {
+      mergeUnmergedAddresses();
+    }
+  }
+
+  private static ByteBuffer grow(ByteBuffer index) {
+    ByteBuffer grown = allocate(index.capacity() * 2);
+    for (int position = 0; position < index.capacity(); position += Long.BYTES) {
+      long entry = (long) LONGS.get(index, position);
+      if (entry != 0) {
+        putIndexEntry(grown, entry);
+      }
+    }
+    return grown;
+  }
+
+  private static void putIndexEntry(ByteBuffer index, long entry) {
+    int mask = index.capacity() / Long.BYTES - 1;
+    int entryIndex = mix((int) (entry >>> 32)) & mask;
+    while ((long) LONGS.getAcquire(index, entryIndex * Long.BYTES) != 0) {
+      entryIndex = (entryIndex + 1) & mask;
+    }
+    LONGS.setRelease(index, entryIndex * Long.BYTES, entry);
+  }
+
+  /**
+   * Rebuilds the sorted slots from the previous ones and the unmerged addresses in a single merge pass.
+   * Readers keep paging the pair they started with, the unmerged set of the old pair is never cleared.
+   */
+  private void mergeUnmergedAddresses() {
+    SortedSlots current = sortedSlots;
+    int size = current.size() + unmergedCount;
+    ByteBuffer slots = allocate(size * Integer.BYTES);
+    int merged = 0;
+    int next = 0;
+    for (String address : current.unmerged()) {
+      while (next < current.size() && compareAddress(current.slot(next), address) < 0) {
+        slots.putInt(merged++ * Integer.BYTES, current.slot(next++));
+      }
+      slots.putInt(merged++ * Integer.BYTES, slotOf(address));
+    }
+    while (next < current.size()) {
+      slots.putInt(merged++ * Integer.BYTES, current.slot(next++));
+    }
+    sortedSlots = new SortedSlots(slots, size, new ConcurrentSkipListSet<>());
+    unmergedCount = 0;
+  }
+
+  @Override
+  public Optional<Account> get(String address) {
+    HotAccount hotAccount = hotAccount(address);
+    if (hotAccount != null) {
+      return Optional.of(hotAccount);
+    }
+    int slot = slotOf(address);
+    return slot < 0 ? Optional.empty() : Optional.of(new Account(address, balance(slot)));
+  }
+
+  @Override
+  public Account deposit(String address, long amount) {
+    HotAccount hotAccount = hotAccount(address);
+    if (hotAccount != null) {
+      hotAccount.deposit(amount);
+      return hotAccount;
+    }
+    int slot = existingSlotOf(address);
+    ByteBuffer chunk = chunk(slot);
+    int offset = offset(slot) + BALANCE_OFFSET;
+    long current;
+    long updated;
+    do {
+      current = (long) LONGS.getVolatile(chunk, offset);
+      updated = Math.addExact(current, amount);
+    } while (!LONGS.weakCompareAndSet(chunk, offset, current, updated));
+    return new Account(address, updated);
+  }
+
+  @Override
+  public Account withdraw(String address, long amount) {
+    HotAccount hotAccount = hotAccount(address);
+    if (hotAccount != null) {
+      if (!hotAccount.tryWithdraw(amount)) {
+        throw insufficientBalance(address, amount);
+      }
+      return hotAccount;
+    }
+    int slot = existingSlotOf(address);
+    ByteBuffer chunk = chunk(slot);
+    int offset = offset(slot) + BALANCE_OFFSET;
+    long current;
+    do {
+      current = (long) LONGS.getVolatile(chunk, offset);
+      if (current < amount) {
+        throw insufficientBalance(address, amount);
+      }
+    } while (!LONGS.weakCompareAndSet(chunk, offset, current, current - amount));
+    return new Account(address, current - amount);
+  }
+
+  @Override
+  public List<Account> getAll() {
+    int accountCount = count;
+    List<Account> accounts = new ArrayList<>(accountCount);
+    for (int slot = 0; slot < accountCount; slot++) {
+      accounts.add(accountAt(slot));
+    }
+    return accounts;
+  }
+
+  @Override
+  public int count() {
+    return count;
+  }
+
+  @Override
+  public List<Account> getPage(String afterAddress, int limit) {
+    SortedSlots sorted = sortedSlots;
+    int next = afterAddress == null ? 0 : firstSortedAfter(sorted, afterAddress);
+    Iterator<String> unmerged = (afterAddress == null ? sorted.unmerged() : sorted.unmerged().tailSet(afterAddress, false)).iterator();
+    String nextUnmerged = unmerged.hasNext() ? unmerged.next() : null;
+
+    List<Account> page = new ArrayList<>(Math.min(limit, 1024));
+    while (page.size() < limit && (next < sorted.size() || nextUnmerged != null)) {
+      if (nextUnmerged == null || next < sorted.size() && compareAddress(sorted.slot(next), nextUnmerged) < 0) {
+        page.add(accountAt(sorted.slot(next++)));
+      } else {
+        page.add(accountAt(slotOf(nextUnmerged)));
+        nextUnmerged = unmerged.hasNext() ? unmerged.next() : null;
+      }
+    }
+    return page;
+  }
+
+  private int firstSortedAfter(SortedSlots sorted, String address) {
+    int low = 0;
+    int high = sorted.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compareAddress(sorted.slot(middle), address) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private HotAccount hotAccount(String address) {
+    return hotAccounts.isEmpty() ? null : hotAccounts.get(address);
+  }
+
+  private int slotOf(String address) {
+    ByteBuffer currentIndex = index;
+    int mask = currentIndex.capacity() / Long.BYTES - 1;
+    int hash = address.hashCode();
+    for (int entryIndex = mix(hash) & mask; ; entryIndex = (entryIndex + 1) & mask) {
+      long entry = (long) LONGS.getAcquire(currentIndex, entryIndex * Long.BYTES);
+      if (entry == 0) {
+        return -1;
+      }
+      int slot = (int) entry - 1;
+      if ((int) (entry >>> 32) == hash && compareAddress(slot, address) == 0) {
+        return slot;
+      }
+    }
+  }
+
+  private int existingSlotOf(String address) {
+    int slot = slotOf(address);
+    if (slot < 0) {
+      throw new IllegalStateException("account with id: %s does not exist".formatted(address));
+    }
+    return slot;
+  }
+
+  private Account accountAt(int slot) {
+    String address = addressAt(slot);
+    HotAccount hotAccount = hotAccount(address);
+    return hotAccount != null ? hotAccount : new Account(address, balance(slot));
+  }
+
+  private long balance(int slot) {
+    return (long) LONGS.getVolatile(chunk(slot), offset(slot) + BALANCE_OFFSET);
+  }
+
+  private String addressAt(int slot) {
+    ByteBuffer chunk = chunk(slot);
+    int offset = offset(slot);
+    byte[] addressBytes = new byte[chunk.getShort(offset + LENGTH_OFFSET)];
+    chunk.get(offset + ADDRESS_OFFSET, addressBytes);
+    return new String(addressBytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Compares in the order of {@link String#compareTo}, ASCII addresses without decoding the slot
+   */
+  private int compareAddress(int slot, String address) {
+    ByteBuffer chunk = chunk(slot);
+    int offset = offset(slot);
+    int length = chunk.getShort(offset + LENGTH_OFFSET);
+    int common = Math.min(length, address.length());
+    for (int i = 0; i < common; i++) {
+      byte stored = chunk.get(offset + ADDRESS_OFFSET + i);
+      char given = address.charAt(i);
+      if (stored < 0 || given >= 0x80) {
+        return addressAt(slot).compareTo(address);
+      }
+      if (stored != given) {
+        return stored - given;
+      }
+    }
+    return length - address.length();
+  }
+
+  private ByteBuffer chunk(int slot) {
+    return chunks[slot >>> CHUNK_SHIFT];
+  }
+
+  private int offset(int slot) {
+    return (slot & (CHUNK_SLOTS - 1)) * slotBytes;
+  }
+
+  /**
+   * aligned to longs, the atomic accesses of the var handle require it
+   */
+  private static ByteBuffer allocate(int bytes) {
+    return ByteBuffer.allocateDirect(bytes + Long.BYTES - 1).alignedSlice(Long.BYTES).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * finalizer of murmur3, spreads the string hash over the low bits used as the table position
+   */
+  private static int mix(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  private static IllegalArgumentException insufficientBalance(String address, long amount) {
+    return new IllegalArgumentException("account %s balance is not sufficient for the amount %s".formatted(address, CurrencyUnit.DEFAULT.format(amount)));
+  }
+}
@@ -1,10 +1,13 @@
 package com.yucel.withdrawal.repository;
 
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public interface WithdrawalRepository {
 
@@ -16,4 +19,43 @@ public interface WithdrawalRepository {
 
   List<WithdrawalTransaction> getAll();
 
+  /**
+   * @return number of withdrawals
+   */
+  int count();
+
+  /**
+   * Gets withdrawals in id order, without copying the whole repository
+   * @param afterId the page starts after this id, null for the first page
+   * @param limit maximum number of withdrawals
+   * @return list of WithdrawalTransaction
+   */
+  List<WithdrawalTransaction> getPage(UUID afterId, int limit);
+
+  /**
+   * Gets the withdrawals sent or received by the address in id order, using an index kept up to date by save
+   * @param address sender or recipient address
+   * @param afterId the page starts after this id, null for the first page
+   * @param limit maximum number of withdrawals
+   * @return list of WithdrawalTransaction
+   */
+  List<WithdrawalTransaction> getPageByAccountAddress(String address, UUID afterId, int limit);
+
+  /**
+   * Gets the withdrawals in the status in id order, using an index kept up to date by save
+   * @param status withdrawal status
+   * @param afterId the page starts after this id, null for the first page
+   * @param limit maximum number of withdrawals
+   * @return list of WithdrawalTransaction
+   */
+  List<WithdrawalTransaction> getPageByStatus(WithdrawalStatus status, UUID afterId, int limit);
+
+  /**
+   * Completes once every change made so far is durable
+   * @return completes right away for repositories which are not persistent
+   */
+  default CompletionStage<Void> flush() {
+    return CompletableFuture.completedFuture(null);
+  }
+
 }
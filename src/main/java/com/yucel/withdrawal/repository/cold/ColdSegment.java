@@ -0,0 +1,318 @@
+package com.yucel.withdrawal.repository.cold;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.repository.journal.JournalRecord;
+import com.yucel.withdrawal.repository.journal.JournalRecordCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable file of withdrawals sorted by id, in deflate compressed blocks of {@value #BLOCK_WITHDRAWALS}
+ * journal encoded withdrawals. Only the first id and the position of each block and a bloom filter of the ids
+ * are kept in memory, so a lookup inflates a single block and a miss usually reads nothing.
+ *
+ * Thread safe, reads are positional.
+ */
+final class ColdSegment implements AutoCloseable {
+
+  static final int BLOCK_WITHDRAWALS = 128;
+  private static final int BLOOM_BITS_PER_WITHDRAWAL = 10;
+  private static final int BLOOM_HASHES = 7;
+
+  private final Path file;
+  private final FileChannel channel;
+  private final int count;
+  private final long[] blockFirstMostSigBits;
+  private final long[] blockFirstLeastSigBits;
+  /**
+   * start of each block in the file, followed by the end of the last one
+   */
+  private final long[] blockOffsets;
+  private final int[] blockRawLengths;
+  private final long[] bloomBits;
+  /**
+   * the block read last, consecutive ids of a page mostly fall into the same block
+   */
+  private volatile DecodedBlock lastBlock;
+
+  private record DecodedBlock(int index, WithdrawalTransaction[] withdrawals) {
+  }
+
+  private ColdSegment(Path file, FileChannel channel, int count, long[] blockFirstMostSigBits, long[] blockFirstLeastSigBits,
+                      long[] blockOffsets, int[] blockRawLengths, long[] bloomBits) {
+    this.file = file;
+    this.channel = channel;
+    this.count = count;
+    this.blockFirstMostSigBits = blockFirstMostSigBits;
+    this.blockFirstLeastSigBits = blockFirstLeastSigBits;
+    this.blockOffsets = blockOffsets;
+    this.blockRawLengths = blockRawLengths;
+    this.bloomBits = bloomBits;
+  }
+
+  /**
+   * Writes a new segment file and opens it for reading
+   * @param sortedWithdrawals withdrawals in id order without repeated ids
+   * @param maxCount upper bound of the number of withdrawals, sizes the bloom filter
+   */
+  static ColdSegment write(Path file, Iterator<WithdrawalTransaction> sortedWithdrawals, int maxCount) throws IOException {
+    int maxBlocks = (maxCount + BLOCK_WITHDRAWALS - 1) / BLOCK_WITHDRAWALS;
+    long[] blockFirstMostSigBits = new long[maxBlocks];
+    long[] blockFirstLeastSigBits = new long[maxBlocks];
+    long[] blockOffsets = new long[maxBlocks + 1];
+    int[] blockRawLengths = new int[maxBlocks];
+    long[] bloomBits = new long[Math.max(1, (int) (((long) maxCount * BLOOM_BITS_PER_WITHDRAWAL + 63) / 64))];
+
+    ByteBuffer raw = ByteBuffer.allocate(64 * 1024);
+    ByteBuffer compressed = ByteBuffer.allocate(64 * 1024);
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    int count = 0;
+    int blocks = 0;
+    long offset = 0;
+    try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      WithdrawalTransaction[] block = new WithdrawalTransaction[BLOCK_WITHDRAWALS];
+      while (sortedWithdrawals.hasNext()) {
+        int blockSize = 0;
+        while (blockSize < BLOCK_WITHDRAWALS && sortedWithdrawals.hasNext()) {
+          block[blockSize++] = sortedWithdrawals.next();
+        }
+        if (count + blockSize > maxCount) {
+          throw new IllegalArgumentException("segment has more than %d withdrawals".formatted(maxCount));
+        }
+        raw = encode(block, blockSize, raw);
+        for (int i = 0; i < blockSize; i++) {
+          addToBloomFilter(bloomBits, block[i].id());
+        }
+        blockFirstMostSigBits[blocks] = block[0].id().getMostSignificantBits();
+        blockFirstLeastSigBits[blocks] = block[0].id().getLeastSignificantBits();
+        blockRawLengths[blocks] = raw.remaining();
+        blockOffsets[blocks] = offset;
+
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        while (!deflater.finished()) {
+          compressed.clear();
+          deflater.deflate(compressed);
+          compressed.flip();
+          while (compressed.hasRemaining()) {
+            offset += out.write(compressed);
+          }
+        }
+        count += blockSize;
+        blocks++;
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    } finally {
+      deflater.end();
+    }
+    blockOffsets[blocks] = offset;
+
+    return new ColdSegment(file, FileChannel.open(file, StandardOpenOption.READ), count,
+      Arrays.copyOf(blockFirstMostSigBits, blocks), Arrays.copyOf(blockFirstLeastSigBits, blocks),
+      Arrays.copyOf(blockOffsets, blocks + 1), Arrays.copyOf(blockRawLengths, blocks), bloomBits);
+  }
+
+  /**
+   * @return the buffer holding the encoded block ready to be read, grown if the block did not fit the given one
+   */
+  private static ByteBuffer encode(WithdrawalTransaction[] block, int blockSize, ByteBuffer buffer) {
+    while (true) {
+      buffer.clear();
+      try {
+        for (int i = 0; i < blockSize; i++) {
+          JournalRecordCodec.encode(new JournalRecord.WithdrawalSaved(block[i]), buffer);
+        }
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+      }
+    }
+  }
+
+  int count() {
+    return count;
+  }
+
+  Optional<WithdrawalTransaction> get(UUID id) throws IOException {
+    if (!mightContain(id)) {
+      return Optional.empty();
+    }
+    int block = blockOf(id);
+    if (block < 0) {
+      return Optional.empty();
+    }
+    for (WithdrawalTransaction withdrawal : readBlock(block)) {
+      if (withdrawal.id().equals(id)) {
+        return Optional.of(withdrawal);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @return the withdrawals in id order, read block by block
+   */
+  Iterator<WithdrawalTransaction> iterator() {
+    return new Iterator<>() {
+      private int block;
+      private WithdrawalTransaction[] withdrawals = new WithdrawalTransaction[0];
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < withdrawals.length || block < blockRawLengths.length;
+      }
+
+      @Override
+      public WithdrawalTransaction next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        if (next == withdrawals.length) {
+          try {
+            withdrawals = decodeBlock(block++);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          next = 0;
+        }
+        return withdrawals[next++];
+      }
+    };
+  }
+
+  /**
+   * @return the last block whose first id is not greater than the id, -1 if the id precedes the segment
+   */
+  private int blockOf(UUID id) {
+    long mostSigBits = id.getMostSignificantBits();
+    long leastSigBits = id.getLeastSignificantBits();
+    int low = 0;
+    int high = blockFirstMostSigBits.length - 1;
+    int found = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      // the order of UUID#compareTo, signed comparison of the most then the least significant bits
+      int comparison = blockFirstMostSigBits[middle] != mostSigBits
+        ? Long.compare(blockFirstMostSigBits[middle], mostSigBits)
+        : Long.compare(blockFirstLeastSigBits[middle], leastSigBits);
+      if (comparison <= 0) {
+        found = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return found;
+  }
+
+  private WithdrawalTransaction[] readBlock(int block) throws IOException {
+    DecodedBlock cached = lastBlock;
+    if (cached != null && cached.index() == block) {
+      return cached.withdrawals();
+    }
+    WithdrawalTransaction[] withdrawals = decodeBlock(block);
+    lastBlock = new DecodedBlock(block, withdrawals);
+    return withdrawals;
+  }
+
+  private WithdrawalTransaction[] decodeBlock(int block) throws IOException {
+    ByteBuffer compressed = ByteBuffer.allocate((int) (blockOffsets[block + 1] - blockOffsets[block]));
+    while (compressed.hasRemaining()) {
+      if (channel.read(compressed, blockOffsets[block] + compressed.position()) < 0) {
+        throw new EOFException("cold segment %s is truncated".formatted(file));
+      }
+    }
+    compressed.flip();
+
+    ByteBuffer raw = ByteBuffer.allocate(blockRawLengths[block]);
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      while (raw.hasRemaining() && !inflater.finished()) {
+        if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+          throw new EOFException("block %d of cold segment %s is truncated".formatted(block, file));
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("block %d of cold segment %s is corrupt".formatted(block, file), e);
+    } finally {
+      inflater.end();
+    }
+    raw.flip();
+
+    int blockSize = block == blockRawLengths.length - 1 ? count - block * BLOCK_WITHDRAWALS : BLOCK_WITHDRAWALS;
+    WithdrawalTransaction[] withdrawals = new WithdrawalTransaction[blockSize];
+    for (int i = 0; i < blockSize; i++) {
+      withdrawals[i] = ((JournalRecord.WithdrawalSaved) JournalRecordCodec.decode(raw)).withdrawalTransaction();
+    }
+    return withdrawals;
+  }
+
+  private boolean mightContain(UUID id) {
+    long bitCount = bloomBits.length * 64L;
+    long hash = mix(id.getMostSignificantBits());
+    long step = mix(id.getLeastSignificantBits()) | 1;
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      long bit = Math.floorMod(hash + i * step, bitCount);
+      if ((bloomBits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void addToBloomFilter(long[] bloomBits, UUID id) {
+    long bitCount = bloomBits.length * 64L;
+    long hash = mix(id.getMostSignificantBits());
+    long step = mix(id.getLeastSignificantBits()) | 1;
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      long bit = Math.floorMod(hash + i * step, bitCount);
+      bloomBits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * finalizer of murmur3, the version bits of random uuids are not spread over the filter otherwise
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /**
+   * Closes and deletes the file, lookups running on it fail with a ClosedChannelException
+   */
+  void delete() throws IOException {
+    close();
+    Files.deleteIfExists(file);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
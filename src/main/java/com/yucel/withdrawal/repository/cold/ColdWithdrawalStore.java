@@ -0,0 +1,211 @@
+package com.yucel.withdrawal.repository.cold;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier of the withdrawals which will not change anymore, in append-only compressed segment files, see {@link ColdSegment}.
+ *
+ * Each append writes a new segment. A segment is merged with the older one next to it once it is at least half its size,
+ * so there are only logarithmically many segments to look an id up in, and every withdrawal is rewritten
+ * a logarithmic number of times. Merging streams both segments, it never holds them in memory.
+ *
+ * The tier only moves withdrawals off the heap, it is not durable storage: the journal is. Segments left by a previous run
+ * are deleted when it is opened.
+ *
+ * Reads are thread safe. Appends are meant to come from a single background thread.
+ */
+public class ColdWithdrawalStore implements AutoCloseable {
+
+  private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("cold-\\d{20}\\.segment");
+
+  private final Path directory;
+  /**
+   * newest first, replaced as a whole on every change
+   */
+  private volatile List<ColdSegment> segments = List.of();
+  private long nextSegmentNumber = 1;
+
+  private ColdWithdrawalStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates the directory or deletes the segments left in it. Blocks on file IO.
+   */
+  public static ColdWithdrawalStore open(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (SEGMENT_FILE_NAME.matcher(file.getFileName().toString()).matches()) {
+          Files.delete(file);
+        }
+      }
+    }
+    return new ColdWithdrawalStore(directory);
+  }
+
+  /**
+   * Writes the withdrawals as the newest segment, a withdrawal in it replaces the same one in older segments.
+   * Blocks on file IO.
+   * @param withdrawals withdrawals without repeated ids
+   */
+  public synchronized void append(Collection<WithdrawalTransaction> withdrawals) throws IOException {
+    if (withdrawals.isEmpty()) {
+      return;
+    }
+    List<WithdrawalTransaction> sortedWithdrawals = new ArrayList<>(withdrawals);
+    sortedWithdrawals.sort(Comparator.comparing(WithdrawalTransaction::id));
+    ColdSegment appended = ColdSegment.write(nextSegmentFile(), sortedWithdrawals.iterator(), sortedWithdrawals.size());
+
+    List<ColdSegment> newSegments = new ArrayList<>(segments.size() + 1);
+    newSegments.add(appended);
+    newSegments.addAll(segments);
+    segments = List.copyOf(newSegments);
+
+    while (segments.size() > 1 && segments.get(0).count() * 2L >= segments.get(1).count()) {
+      mergeNewestTwo();
+    }
+  }
+
+  private void mergeNewestTwo() throws IOException {
+    ColdSegment newer = segments.get(0);
+    ColdSegment older = segments.get(1);
+    ColdSegment merged = ColdSegment.write(nextSegmentFile(), new MergingIterator(newer.iterator(), older.iterator()),
+      newer.count() + older.count());
+
+    List<ColdSegment> newSegments = new ArrayList<>(segments.size() - 1);
+    newSegments.add(merged);
+    newSegments.addAll(segments.subList(2, segments.size()));
+    segments = List.copyOf(newSegments);
+    // lookups still running on the merged segments retry on the new list
+    newer.delete();
+    older.delete();
+  }
+
+  private Path nextSegmentFile() {
+    return directory.resolve("cold-%020d.segment".formatted(nextSegmentNumber++));
+  }
+
+  /**
+   * Looks the id up in the newest segment having it, inflating at most one block per segment
+   * whose bloom filter matches
+   */
+  public Optional<WithdrawalTransaction> get(UUID id) {
+    while (true) {
+      List<ColdSegment> current = segments;
+      try {
+        for (ColdSegment segment : current) {
+          Optional<WithdrawalTransaction> withdrawal = segment.get(id);
+          if (withdrawal.isPresent()) {
+            return withdrawal;
+          }
+        }
+        return Optional.empty();
+      } catch (ClosedChannelException e) {
+        if (current == segments) {
+          throw new UncheckedIOException(e);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Visits the latest version of every withdrawal, newest segment first
+   * @throws UncheckedIOException if a segment is read concurrently with an append merging it
+   */
+  public void forEach(Consumer<WithdrawalTransaction> consumer) {
+    List<ColdSegment> current = segments;
+    Set<UUID> visited = current.size() > 1 ? new HashSet<>() : null;
+    for (ColdSegment segment : current) {
+      Iterator<WithdrawalTransaction> withdrawals = segment.iterator();
+      while (withdrawals.hasNext()) {
+        WithdrawalTransaction withdrawal = withdrawals.next();
+        if (visited == null || visited.add(withdrawal.id())) {
+          consumer.accept(withdrawal);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return number of withdrawals in the segments, a withdrawal appended again counts once per segment it is in
+   */
+  public int count() {
+    int count = 0;
+    for (ColdSegment segment : segments) {
+      count += segment.count();
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (ColdSegment segment : segments) {
+      segment.close();
+    }
+  }
+
+  /**
+   * Merges two id ordered streams, the withdrawal of the newer one wins on the same id
+   */
+  private static final class MergingIterator implements Iterator<WithdrawalTransaction> {
+
+    private final Iterator<WithdrawalTransaction> newer;
+    private final Iterator<WithdrawalTransaction> older;
+    private WithdrawalTransaction nextNewer;
+    private WithdrawalTransaction nextOlder;
+
+    MergingIterator(Iterator<WithdrawalTransaction> newer, Iterator<WithdrawalTransaction> older) {
+      this.newer = newer;
+      this.older = older;
+      this.nextNewer = newer.hasNext() ? newer.next() : null;
+      this.nextOlder = older.hasNext() ? older.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextNewer != null || nextOlder != null;
+    }
+
+    @Override
+    public WithdrawalTransaction next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int comparison = nextNewer == null ? 1 : nextOlder == null ? -1 : nextNewer.id().compareTo(nextOlder.id());
+      WithdrawalTransaction next;
+      if (comparison <= 0) {
+        next = nextNewer;
+        nextNewer = newer.hasNext() ? newer.next() : null;
+        if (comparison == 0) {
+          nextOlder = older.hasNext() ? older.next() : null;
+        }
+      } else {
+        next = nextOlder;
+        nextOlder = older.hasNext() ? older.next() : null;
+      }
+      return next;
+    }
+  }
+}
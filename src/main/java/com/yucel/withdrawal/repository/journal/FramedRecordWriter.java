@@ -0,0 +1,103 @@
+package com.yucel.withdrawal.repository.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes records to a new file framed as {@code int length, int crc32c, body}, buffering them until {@link #writeOut()}.
+ * Used by a single thread.
+ */
+class FramedRecordWriter implements Closeable {
+
+  static final int HEADER_BYTES = Integer.BYTES * 2;
+  static final int MAX_RECORD_BYTES = 1 << 20;
+
+  private final FileChannel channel;
+  private final CRC32C crc = new CRC32C();
+  private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+  private long size;
+  private boolean unforcedWrites;
+
+  private FramedRecordWriter(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * @throws java.nio.file.FileAlreadyExistsException if the file exists
+   */
+  static FramedRecordWriter create(Path file) throws IOException {
+    return new FramedRecordWriter(FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+  }
+
+  void write(JournalRecord record) throws IOException {
+    while (true) {
+      int start = buffer.position();
+      try {
+        if (buffer.remaining() < HEADER_BYTES) {
+          throw new BufferOverflowException();
+        }
+        buffer.position(start + HEADER_BYTES);
+        JournalRecordCodec.encode(record, buffer);
+        int length = buffer.position() - start - HEADER_BYTES;
+        crc.reset();
+        crc.update(buffer.array(), start + HEADER_BYTES, length);
+        buffer.putInt(start, length);
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        size += HEADER_BYTES + length;
+        return;
+      } catch (BufferOverflowException full) {
+        buffer.position(start);
+        if (start > 0) {
+          writeOut();
+        } else {
+          buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return bytes written so far, including the buffered ones
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * Hands the buffered records to the file system without forcing them
+   */
+  void writeOut() throws IOException {
+    buffer.flip();
+    unforcedWrites |= buffer.hasRemaining();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes out the buffered records and forces them to disk if anything was written since the last force
+   */
+  void force() throws IOException {
+    writeOut();
+    if (unforcedWrites) {
+      channel.force(false);
+      unforcedWrites = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      force();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,356 @@
+package com.yucel.withdrawal.repository.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal split into numbered segment files. Each record is framed as
+ * {@code int length, int crc32c, body} so a torn write at the tail is detected and cut off on open.
+ *
+ * Appending only enqueues the record; a single writer thread drains everything queued so far,
+ * writes it in one go and forces it to disk once for all the flushes waiting on that batch (group commit).
+ * Once the active segment reaches the segment size it is forced, sealed and never written again,
+ * so sealed segments can be compacted into a snapshot while appending goes on.
+ * The records appended by one {@link #atomically(Supplier)} operation are framed together and replayed whole or not at all.
+ */
+public class Journal implements AutoCloseable {
+
+  private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("journal-(\\d{20})\\.log");
+  private static final Object CLOSE = new Object();
+
+  private final Path directory;
+  private final long segmentBytes;
+  private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+  private final Thread writerThread;
+  private final CompletableFuture<Void> closed = new CompletableFuture<>();
+  private final ThreadLocal<OpenGroup> openGroup = new ThreadLocal<>();
+  private FramedRecordWriter writer;
+  private volatile long activeSegment;
+  private volatile IOException failure;
+  // guarded by the queue, nothing is queued behind CLOSE
+  private boolean closing;
+
+  /**
+   * Records and flushes of the atomic operation running on a thread, queued once it ends
+   */
+  private static final class OpenGroup {
+    private final List<JournalRecord> records = new ArrayList<>();
+    private final List<CompletableFuture<Void>> flushes = new ArrayList<>();
+  }
+
+  private Journal(Path directory, long segmentBytes, long activeSegment) throws IOException {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.activeSegment = activeSegment;
+    this.writer = FramedRecordWriter.create(segmentFile(directory, activeSegment));
+    this.writerThread = new Thread(this::writeLoop, "withdrawal-journal-writer");
+    this.writerThread.setDaemon(true);
+    this.writerThread.start();
+  }
+
+  /**
+   * Replays the segments from the given one on, cuts off a torn tail and opens a new segment for appending.
+   * Older segments are already covered by a snapshot and are deleted.
+   * @param directory directory of the journal, created if missing
+   * @param segmentBytes size after which the active segment is sealed
+   * @param firstSegment first segment not covered by a snapshot
+   * @param replayConsumer receives the valid records in append order
+   * @return the journal ready for appending
+   */
+  public static Journal open(Path directory, long segmentBytes, long firstSegment, Consumer<JournalRecord> replayConsumer) throws IOException {
+    Files.createDirectories(directory);
+    List<Long> segments = segments(directory);
+    long nextSegment = firstSegment;
+    for (int i = 0; i < segments.size(); i++) {
+      long segment = segments.get(i);
+      Path file = segmentFile(directory, segment);
+      if (segment < firstSegment) {
+        Files.delete(file);
+        continue;
+      }
+      // only the last segment can have a torn tail, the others were forced when they were sealed
+      if (i == segments.size() - 1) {
+        long validLength = replay(file, replayConsumer);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+          channel.truncate(validLength);
+          channel.force(true);
+        }
+      } else {
+        replayComplete(file, replayConsumer);
+      }
+      nextSegment = segment + 1;
+    }
+    return new Journal(directory, segmentBytes, nextSegment);
+  }
+
+  static Path segmentFile(Path directory, long segment) {
+    return directory.resolve("journal-%020d.log".formatted(segment));
+  }
+
+  /**
+   * @return sequence numbers of the segment files in the directory, ascending
+   */
+  static List<Long> segments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> SEGMENT_FILE_NAME.matcher(file.getFileName().toString()))
+        .filter(Matcher::matches)
+        .map(matcher -> Long.parseLong(matcher.group(1)))
+        .sorted()
+        .toList();
+    }
+  }
+
+  /**
+   * Reads the records of a journal file until its end or the first incomplete or corrupt record
+   * @return length of the valid part of the file
+   */
+  static long replay(Path file, Consumer<JournalRecord> replayConsumer) throws IOException {
+    try (InputStream fileStream = Files.newInputStream(file);
+         DataInputStream input = new DataInputStream(new BufferedInputStream(fileStream, 1 << 16))) {
+      CRC32C crc = new CRC32C();
+      byte[] body = new byte[256];
+      long validLength = 0L;
+      while (true) {
+        int length;
+        int checksum;
+        try {
+          length = input.readInt();
+          checksum = input.readInt();
+          if (length <= 0 || length > FramedRecordWriter.MAX_RECORD_BYTES) {
+            return validLength;
+          }
+          if (body.length < length) {
+            body = new byte[Math.max(length, body.length * 2)];
+          }
+          input.readFully(body, 0, length);
+        } catch (EOFException tornTail) {
+          return validLength;
+        }
+        crc.reset();
+        crc.update(body, 0, length);
+        if ((int) crc.getValue() != checksum) {
+          return validLength;
+        }
+        replayConsumer.accept(JournalRecordCodec.decode(ByteBuffer.wrap(body, 0, length)));
+        validLength += FramedRecordWriter.HEADER_BYTES + length;
+      }
+    }
+  }
+
+  /**
+   * Replays a file which was forced before it was closed, so it has to be valid up to its end
+   * @throws IOException if the file is corrupt
+   */
+  static void replayComplete(Path file, Consumer<JournalRecord> replayConsumer) throws IOException {
+    long validLength = replay(file, replayConsumer);
+    if (validLength != Files.size(file)) {
+      throw new IOException("%s is corrupt after %d bytes".formatted(file, validLength));
+    }
+  }
+
+  /**
+   * @return the newest segment which is not written anymore, 0 if there is none
+   */
+  public long lastSealedSegment() {
+    return activeSegment - 1;
+  }
+
+  /**
+   * Queues the record for writing, it is durable once a later {@link #flush()} completes
+   */
+  public void append(JournalRecord record) {
+    JournalRecordCodec.checkEncodable(record);
+    OpenGroup group = openGroup.get();
+    if (group != null) {
+      if (group.records.size() == JournalRecordCodec.MAX_GROUP_RECORDS) {
+        throw new IllegalStateException("journal group cannot have more than %d records".formatted(JournalRecordCodec.MAX_GROUP_RECORDS));
+      }
+      group.records.add(record);
+      return;
+    }
+    synchronized (queue) {
+      if (closing) {
+        throw new IllegalStateException("journal is closed");
+      }
+      queue.add(record);
+    }
+  }
+
+  /**
+   * @return completes once every record appended before is written and forced to disk
+   */
+  public CompletableFuture<Void> flush() {
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    IOException writeFailure = failure;
+    if (writeFailure != null) {
+      flushed.completeExceptionally(writeFailure);
+      return flushed;
+    }
+    OpenGroup group = openGroup.get();
+    if (group != null) {
+      // the records of the group are only queued once it ends
+      group.flushes.add(flushed);
+      return flushed;
+    }
+    synchronized (queue) {
+      if (closing) {
+        flushed.completeExceptionally(new IllegalStateException("journal is closed"));
+      } else {
+        queue.add(flushed);
+      }
+    }
+    return flushed;
+  }
+
+  /**
+   * Runs the operation and queues the records it appends on this thread as a single record once it ends,
+   * so replay applies all of its changes or none. Flushes requested by the operation complete after that record.
+   * The records are queued even if the operation throws, they describe changes already made in memory.
+   * An operation started within another one joins the outer group.
+   * @param operation synchronous operation appending at most {@link JournalRecordCodec#MAX_GROUP_RECORDS} records
+   * @return result of the operation
+   */
+  public <T> T atomically(Supplier<T> operation) {
+    if (openGroup.get() != null) {
+      return operation.get();
+    }
+    OpenGroup group = new OpenGroup();
+    openGroup.set(group);
+    try {
+      return operation.get();
+    } finally {
+      openGroup.remove();
+      queueGroup(group);
+    }
+  }
+
+  private void queueGroup(OpenGroup group) {
+    synchronized (queue) {
+      if (closing) {
+        IllegalStateException journalClosed = new IllegalStateException("journal is closed");
+        group.flushes.forEach(flush -> flush.completeExceptionally(journalClosed));
+        if (!group.records.isEmpty()) {
+          throw journalClosed;
+        }
+        return;
+      }
+      if (group.records.size() == 1) {
+        queue.add(group.records.get(0));
+      } else if (!group.records.isEmpty()) {
+        queue.add(new JournalRecord.Group(List.copyOf(group.records)));
+      }
+      queue.addAll(group.flushes);
+    }
+  }
+
+  /**
+   * Writes and forces the queued records, then closes the active segment
+   */
+  @Override
+  public void close() {
+    synchronized (queue) {
+      if (!closing) {
+        closing = true;
+        queue.add(CLOSE);
+      }
+    }
+    closed.join();
+  }
+
+  private void writeLoop() {
+    List<Object> batch = new ArrayList<>();
+    List<CompletableFuture<Void>> flushes = new ArrayList<>();
+    boolean running = true;
+    try {
+      while (running) {
+        batch.add(queue.take());
+        queue.drainTo(batch);
+
+        try {
+          for (Object item : batch) {
+            if (item instanceof JournalRecord record) {
+              // after a failed write nothing is written anymore, a gap would corrupt the journal
+              if (failure == null) {
+                writer.write(record);
+                if (writer.size() >= segmentBytes) {
+                  sealActiveSegment();
+                }
+              }
+            } else if (item == CLOSE) {
+              running = false;
+            } else {
+              @SuppressWarnings("unchecked")
+              CompletableFuture<Void> flush = (CompletableFuture<Void>) item;
+              flushes.add(flush);
+            }
+          }
+          if (failure != null) {
+            throw failure;
+          }
+          // one force for every flush waiting on this batch
+          if (flushes.isEmpty()) {
+            writer.writeOut();
+          } else {
+            writer.force();
+          }
+          flushes.forEach(flush -> flush.complete(null));
+        } catch (IOException e) {
+          failure = e;
+          flushes.forEach(flush -> flush.completeExceptionally(e));
+        }
+        batch.clear();
+        flushes.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      // only reached early when the writer is interrupted, the flushes still queued would otherwise wait forever
+      synchronized (queue) {
+        closing = true;
+        queue.drainTo(batch);
+      }
+      IllegalStateException notWritten = new IllegalStateException("journal is closed");
+      for (Object item : batch) {
+        if (item instanceof CompletableFuture<?> flush) {
+          flush.completeExceptionally(notWritten);
+        }
+      }
+      flushes.forEach(flush -> flush.completeExceptionally(notWritten));
+      try {
+        writer.close();
+        closed.complete(null);
+      } catch (IOException e) {
+        closed.completeExceptionally(new UncheckedIOException(e));
+      }
+    }
+  }
+
+  /**
+   * The segment is forced before the next one is opened, so a segment is complete once it is seen as sealed
+   */
+  private void sealActiveSegment() throws IOException {
+    writer.close();
+    writer = FramedRecordWriter.create(segmentFile(directory, activeSegment + 1));
+    activeSegment++;
+  }
+}
@@ -0,0 +1,39 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+
+import java.util.List;
+
+/**
+ * Changes appended to the journal. Balance changes are kept as deltas so that records
+ * of concurrent updates can be replayed in any order.
+ */
+public sealed interface JournalRecord {
+
+  /**
+   * @param address account address
+   * @param balance initial balance in minor units
+   */
+  record AccountSaved(String address, long balance) implements JournalRecord {
+  }
+
+  /**
+   * @param address account address
+   * @param amount deposited amount in minor units, negative for withdrawals
+   */
+  record BalanceChanged(String address, long amount) implements JournalRecord {
+  }
+
+  /**
+   * @param withdrawalTransaction saved state of the withdrawal
+   */
+  record WithdrawalSaved(WithdrawalTransaction withdrawalTransaction) implements JournalRecord {
+  }
+
+  /**
+   * Changes of one operation, framed as a single record so a crash never leaves part of them replayed
+   * @param records the changes in the order they were made, none of them a group
+   */
+  record Group(List<JournalRecord> records) implements JournalRecord {
+  }
+}
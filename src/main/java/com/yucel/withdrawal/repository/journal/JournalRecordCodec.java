@@ -0,0 +1,154 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of journal records: a type byte followed by the fields,
+ * strings as unsigned short length prefixed UTF-8
+ */
+public class JournalRecordCodec {
+
+  private static final byte ACCOUNT_SAVED = 1;
+  private static final byte BALANCE_CHANGED = 2;
+  private static final byte WITHDRAWAL_SAVED = 3;
+  private static final byte GROUP = 4;
+  private static final WithdrawalStatus[] STATUSES = WithdrawalStatus.values();
+  /**
+   * set in the status byte of an external withdrawal
+   */
+  private static final int EXTERNAL_BIT = 0x40;
+  /**
+   * strings up to this many chars always fit the unsigned short length prefix, whatever their UTF-8 encoding
+   */
+  private static final int MAX_STRING_CHARS = 0xFFFF / 3;
+  /**
+   * a group of at most this many records always fits the framed record size limit, even with the longest strings
+   */
+  public static final int MAX_GROUP_RECORDS = 6;
+
+  private JournalRecordCodec() {
+  }
+
+  /**
+   * Checked when the record is appended, so the writer thread never gets a record it cannot encode
+   * @throws IllegalArgumentException if a string of the record is too long, or a group is nested or too large
+   */
+  public static void checkEncodable(JournalRecord record) {
+    switch (record) {
+      case JournalRecord.Group group -> {
+        if (group.records().size() > MAX_GROUP_RECORDS) {
+          throw new IllegalArgumentException("journal group cannot have more than %d records".formatted(MAX_GROUP_RECORDS));
+        }
+        for (JournalRecord groupedRecord : group.records()) {
+          if (groupedRecord instanceof JournalRecord.Group) {
+            throw new IllegalArgumentException("journal groups cannot be nested");
+          }
+          checkEncodable(groupedRecord);
+        }
+      }
+      case JournalRecord.AccountSaved accountSaved -> checkString(accountSaved.address());
+      case JournalRecord.BalanceChanged balanceChanged -> checkString(balanceChanged.address());
+      case JournalRecord.WithdrawalSaved withdrawalSaved -> {
+        checkString(withdrawalSaved.withdrawalTransaction().fromAccountAddress().address());
+        checkString(withdrawalSaved.withdrawalTransaction().toAccountAddress().address());
+      }
+    }
+  }
+
+  /**
+   * @throws java.nio.BufferOverflowException if the record does not fit the remaining buffer
+   */
+  public static void encode(JournalRecord record, ByteBuffer buffer) {
+    switch (record) {
+      case JournalRecord.AccountSaved accountSaved -> {
+        buffer.put(ACCOUNT_SAVED);
+        putString(buffer, accountSaved.address());
+        buffer.putLong(accountSaved.balance());
+      }
+      case JournalRecord.BalanceChanged balanceChanged -> {
+        buffer.put(BALANCE_CHANGED);
+        putString(buffer, balanceChanged.address());
+        buffer.putLong(balanceChanged.amount());
+      }
+      case JournalRecord.WithdrawalSaved withdrawalSaved -> {
+        WithdrawalTransaction withdrawalTransaction = withdrawalSaved.withdrawalTransaction();
+        buffer.put(WITHDRAWAL_SAVED);
+        buffer.putLong(withdrawalTransaction.id().getMostSignificantBits());
+        buffer.putLong(withdrawalTransaction.id().getLeastSignificantBits());
+        putString(buffer, withdrawalTransaction.fromAccountAddress().address());
+        putString(buffer, withdrawalTransaction.toAccountAddress().address());
+        buffer.putLong(withdrawalTransaction.amount().amount());
+        buffer.put((byte) (withdrawalTransaction.status().ordinal() | (withdrawalTransaction.external() ? EXTERNAL_BIT : 0)));
+      }
+      case JournalRecord.Group group -> {
+        buffer.put(GROUP);
+        buffer.put((byte) group.records().size());
+        for (JournalRecord groupedRecord : group.records()) {
+          encode(groupedRecord, buffer);
+        }
+      }
+    }
+  }
+
+  /**
+   * @throws IllegalArgumentException if the buffer does not hold a known record
+   */
+  public static JournalRecord decode(ByteBuffer buffer) {
+    byte type = buffer.get();
+    return switch (type) {
+      case ACCOUNT_SAVED -> new JournalRecord.AccountSaved(getString(buffer), buffer.getLong());
+      case BALANCE_CHANGED -> new JournalRecord.BalanceChanged(getString(buffer), buffer.getLong());
+      case WITHDRAWAL_SAVED -> {
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        TransferAddress fromAccountAddress = new TransferAddress(getString(buffer));
+        TransferAddress toAccountAddress = new TransferAddress(getString(buffer));
+        TransferAmount amount = new TransferAmount(buffer.getLong());
+        byte status = buffer.get();
+        yield new JournalRecord.WithdrawalSaved(new WithdrawalTransaction(id, fromAccountAddress, toAccountAddress, amount,
+          STATUSES[status & ~EXTERNAL_BIT], (status & EXTERNAL_BIT) != 0));
+      }
+      case GROUP -> {
+        int size = buffer.get();
+        List<JournalRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          records.add(decode(buffer));
+        }
+        yield new JournalRecord.Group(records);
+      }
+      default -> throw new IllegalArgumentException("unknown journal record type %d".formatted(type));
+    };
+  }
+
+  private static void checkString(String value) {
+    if (value.length() > MAX_STRING_CHARS) {
+      throw new IllegalArgumentException("value is too long for the journal: %d chars".formatted(value.length()));
+    }
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = Short.toUnsignedInt(buffer.getShort());
+    if (!buffer.hasArray()) {
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+    String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+}
@@ -0,0 +1,221 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A snapshot is a directory holding the state after all the journal segments up to its sequence number.
+ * Accounts and withdrawals are hash partitioned over several files of journal records, so a snapshot is
+ * loaded by all cores at once. It is written to a temporary directory and renamed when complete.
+ */
+final class JournalSnapshot {
+
+  private static final Pattern SNAPSHOT_DIRECTORY_NAME = Pattern.compile("snapshot-(\\d{20})");
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final String ACCOUNTS = "accounts";
+  private static final String WITHDRAWALS = "withdrawals";
+
+  private JournalSnapshot() {
+  }
+
+  static Path snapshotDirectory(Path directory, long segment) {
+    return directory.resolve("snapshot-%020d".formatted(segment));
+  }
+
+  /**
+   * @return the last segment covered by the newest complete snapshot, 0 if there is none
+   */
+  static long latest(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return 0L;
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> SNAPSHOT_DIRECTORY_NAME.matcher(file.getFileName().toString()))
+        .filter(Matcher::matches)
+        .mapToLong(matcher -> Long.parseLong(matcher.group(1)))
+        .max()
+        .orElse(0L);
+    }
+  }
+
+  /**
+   * Writes the snapshot covering the segments up to the given one. The withdrawals of the previous snapshot are
+   * streamed through partition by partition, so only the accounts and the withdrawals changed since are held in memory.
+   * A withdrawal final in the previous snapshot is kept, the replay never overwrites a terminal status.
+   * @param previousSegment segment of the previous snapshot, 0 if there is none
+   * @param changedWithdrawals withdrawals saved in the segments after the previous snapshot, emptied while written
+   * @param partitions number of files accounts and withdrawals are each spread over
+   */
+  static void write(Path directory, long segment, Collection<Account> accounts, long previousSegment,
+                    Map<UUID, WithdrawalTransaction> changedWithdrawals, int partitions) throws IOException {
+    Path snapshot = snapshotDirectory(directory, segment);
+    Path temporary = snapshot.resolveSibling(snapshot.getFileName() + TEMPORARY_SUFFIX);
+    deleteRecursively(temporary);
+    Files.createDirectories(temporary);
+
+    List<FramedRecordWriter> accountWriters = createWriters(temporary, ACCOUNTS, partitions);
+    List<FramedRecordWriter> withdrawalWriters = createWriters(temporary, WITHDRAWALS, partitions);
+    try {
+      for (Account account : accounts) {
+        accountWriters.get(partition(account.getAddress(), partitions))
+          .write(new JournalRecord.AccountSaved(account.getAddress(), account.getBalance()));
+      }
+      if (previousSegment > 0) {
+        forEachWithdrawal(directory, previousSegment, withdrawal -> {
+          WithdrawalTransaction changed = changedWithdrawals.remove(withdrawal.id());
+          write(withdrawalWriters, changed == null || withdrawal.status().isFinal() ? withdrawal : changed, partitions);
+        });
+      }
+      for (WithdrawalTransaction withdrawal : changedWithdrawals.values()) {
+        write(withdrawalWriters, withdrawal, partitions);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      closeAll(accountWriters, withdrawalWriters);
+    }
+    Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void write(List<FramedRecordWriter> withdrawalWriters, WithdrawalTransaction withdrawal, int partitions) {
+    try {
+      withdrawalWriters.get(partition(withdrawal.id(), partitions)).write(new JournalRecord.WithdrawalSaved(withdrawal));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Replays the partition files in parallel, so the consumer has to be thread safe
+   */
+  static void load(Path directory, long segment, Consumer<JournalRecord> replayConsumer) throws IOException {
+    load(partitionFiles(directory, segment, ""), replayConsumer);
+  }
+
+  /**
+   * Replays the account partition files in parallel, so the consumer has to be thread safe
+   */
+  static void loadAccounts(Path directory, long segment, Consumer<JournalRecord> replayConsumer) throws IOException {
+    load(partitionFiles(directory, segment, ACCOUNTS), replayConsumer);
+  }
+
+  /**
+   * Visits the withdrawals one partition file after the other on the calling thread, without holding them in memory
+   */
+  static void forEachWithdrawal(Path directory, long segment, Consumer<WithdrawalTransaction> consumer) throws IOException {
+    for (Path partitionFile : partitionFiles(directory, segment, WITHDRAWALS)) {
+      Journal.replayComplete(partitionFile, record -> consumer.accept(((JournalRecord.WithdrawalSaved) record).withdrawalTransaction()));
+    }
+  }
+
+  private static List<Path> partitionFiles(Path directory, long segment, String name) throws IOException {
+    try (Stream<Path> files = Files.list(snapshotDirectory(directory, segment))) {
+      return files.filter(file -> file.getFileName().toString().startsWith(name)).sorted().toList();
+    }
+  }
+
+  private static void load(List<Path> partitionFiles, Consumer<JournalRecord> replayConsumer) throws IOException {
+    int threads = Math.max(1, Math.min(partitionFiles.size(), Runtime.getRuntime().availableProcessors()));
+    try (ExecutorService loaders = Executors.newFixedThreadPool(threads)) {
+      List<Future<Void>> loaded = new ArrayList<>(partitionFiles.size());
+      for (Path partitionFile : partitionFiles) {
+        loaded.add(loaders.submit(() -> {
+          Journal.replayComplete(partitionFile, replayConsumer);
+          return null;
+        }));
+      }
+      for (Future<Void> partition : loaded) {
+        partition.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("loading the snapshot was interrupted", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw new IOException("loading the snapshot failed", e.getCause());
+    }
+  }
+
+  /**
+   * Deletes the snapshots older than the given one along with the leftovers of interrupted snapshots
+   */
+  static void deleteOlderThan(Path directory, long segment) throws IOException {
+    List<Path> obsolete;
+    try (Stream<Path> files = Files.list(directory)) {
+      obsolete = files.filter(file -> {
+        String name = file.getFileName().toString();
+        Matcher matcher = SNAPSHOT_DIRECTORY_NAME.matcher(name);
+        return name.endsWith(TEMPORARY_SUFFIX) || (matcher.matches() && Long.parseLong(matcher.group(1)) < segment);
+      }).toList();
+    }
+    for (Path snapshot : obsolete) {
+      deleteRecursively(snapshot);
+    }
+  }
+
+  private static int partition(Object key, int partitions) {
+    return (key.hashCode() & Integer.MAX_VALUE) % partitions;
+  }
+
+  private static List<FramedRecordWriter> createWriters(Path snapshot, String name, int partitions) throws IOException {
+    List<FramedRecordWriter> writers = new ArrayList<>(partitions);
+    for (int partition = 0; partition < partitions; partition++) {
+      writers.add(FramedRecordWriter.create(snapshot.resolve("%s-%d.bin".formatted(name, partition))));
+    }
+    return writers;
+  }
+
+  @SafeVarargs
+  private static void closeAll(List<FramedRecordWriter>... writerLists) throws IOException {
+    IOException failure = null;
+    for (List<FramedRecordWriter> writers : writerLists) {
+      for (FramedRecordWriter writer : writers) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+}
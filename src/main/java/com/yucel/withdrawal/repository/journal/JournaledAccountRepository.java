@@ -0,0 +1,70 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.repository.AccountRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Appends every account change to the journal, reads are served by the in-memory delegate
+ */
+public class JournaledAccountRepository implements AccountRepository {
+
+  private final AccountRepository delegate;
+  private final Journal journal;
+
+  public JournaledAccountRepository(AccountRepository delegate, Journal journal) {
+    this.delegate = delegate;
+    this.journal = journal;
+  }
+
+  /**
+   * The record is appended before the account becomes visible, so it precedes the balance changes of the account
+   */
+  @Override
+  public Account save(Account account) {
+    journal.append(new JournalRecord.AccountSaved(account.getAddress(), account.getBalance()));
+    return delegate.save(account);
+  }
+
+  @Override
+  public Optional<Account> get(String address) {
+    return delegate.get(address);
+  }
+
+  @Override
+  public Account deposit(String address, long amount) {
+    Account account = delegate.deposit(address, amount);
+    journal.append(new JournalRecord.BalanceChanged(address, amount));
+    return account;
+  }
+
+  @Override
+  public Account withdraw(String address, long amount) {
+    Account account = delegate.withdraw(address, amount);
+    journal.append(new JournalRecord.BalanceChanged(address, -amount));
+    return account;
+  }
+
+  @Override
+  public List<Account> getAll() {
+    return delegate.getAll();
+  }
+
+  @Override
+  public int count() {
+    return delegate.count();
+  }
+
+  @Override
+  public List<Account> getPage(String afterAddress, int limit) {
+    return delegate.getPage(afterAddress, limit);
+  }
+
+  @Override
+  public CompletionStage<Void> flush() {
+    return journal.flush();
+  }
+}
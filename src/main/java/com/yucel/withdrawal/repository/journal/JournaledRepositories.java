@@ -0,0 +1,153 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.AccountRepository;
+import com.yucel.withdrawal.repository.InMemoryAccountRepository;
+import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.repository.WithdrawalRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Account and withdrawal repositories sharing one journal, so a transfer touching both costs a single fsync
+ *
+ * @param accountRepository journaled account repository
+ * @param withdrawalRepository journaled withdrawal repository
+ * @param journal the shared journal
+ * @param directory directory of the journal segments and snapshots
+ */
+public record JournaledRepositories(AccountRepository accountRepository, WithdrawalRepository withdrawalRepository, Journal journal, Path directory) implements AutoCloseable {
+  /**
+   * maximum number of snapshot withdrawals written into one cold segment on start
+   */
+  private static final int MAX_COLD_RESTORE_BATCH = 1 << 20;
+
+  /**
+   * Loads the newest snapshot into the given in-memory repositories, replays the journal segments written after it
+   * and wraps the repositories. Blocks on file IO.
+   * Given a withdrawal repository with a cold store, the withdrawals already final in the snapshot are written
+   * straight to the cold store instead of filling the map until the first migration.
+   * @param directory journal directory
+   * @param segmentBytes size after which a journal segment is sealed and can be snapshotted
+   * @param accounts empty in-memory account repository
+   * @param withdrawals empty in-memory withdrawal repository
+   * @return repositories appending their changes to the journal
+   */
+  public static JournaledRepositories open(Path directory, long segmentBytes, AccountRepository accounts, WithdrawalRepository withdrawals) throws IOException {
+    long snapshotSegment = JournalSnapshot.latest(directory);
+    if (snapshotSegment > 0 && withdrawals instanceof InMemoryWithdrawalRepository tiered && tiered.hasColdStore()) {
+      JournalSnapshot.loadAccounts(directory, snapshotSegment, record -> replay(record, accounts, withdrawals));
+      restoreWithdrawals(directory, snapshotSegment, tiered);
+    } else if (snapshotSegment > 0) {
+      JournalSnapshot.load(directory, snapshotSegment, record -> replay(record, accounts, withdrawals));
+    }
+    Journal journal = Journal.open(directory, segmentBytes, snapshotSegment + 1, record -> replay(record, accounts, withdrawals));
+    return new JournaledRepositories(new JournaledAccountRepository(accounts, journal), new JournaledWithdrawalRepository(withdrawals, journal), journal, directory);
+  }
+
+  private static void restoreWithdrawals(Path directory, long snapshotSegment, InMemoryWithdrawalRepository withdrawals) throws IOException {
+    List<WithdrawalTransaction> finalWithdrawals = new ArrayList<>();
+    try {
+      JournalSnapshot.forEachWithdrawal(directory, snapshotSegment, withdrawal -> {
+        if (!withdrawal.status().isFinal()) {
+          withdrawals.save(withdrawal);
+          return;
+        }
+        finalWithdrawals.add(withdrawal);
+        if (finalWithdrawals.size() == MAX_COLD_RESTORE_BATCH) {
+          restoreToColdStore(withdrawals, finalWithdrawals);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    restoreToColdStore(withdrawals, finalWithdrawals);
+  }
+
+  private static void restoreToColdStore(InMemoryWithdrawalRepository withdrawals, List<WithdrawalTransaction> finalWithdrawals) {
+    try {
+      withdrawals.restoreToColdStore(finalWithdrawals);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    finalWithdrawals.clear();
+  }
+
+  /**
+   * Runs an operation changing both repositories, its changes are journaled as one record
+   * @see Journal#atomically(Supplier)
+   */
+  public <T> T atomically(Supplier<T> operation) {
+    return journal.atomically(operation);
+  }
+
+  /**
+   * Balance changes are applied without the sufficient funds check since their order in the journal
+   * may differ from the order they were applied in. A terminal withdrawal status is never overwritten by PROCESSING.
+   * The records of a group are applied in order, a group is only ever replayed whole.
+   */
+  static void replay(JournalRecord record, AccountRepository accounts, WithdrawalRepository withdrawals) {
+    switch (record) {
+      case JournalRecord.AccountSaved accountSaved -> accounts.save(new Account(accountSaved.address(), accountSaved.balance()));
+      case JournalRecord.BalanceChanged balanceChanged -> accounts.deposit(balanceChanged.address(), balanceChanged.amount());
+      case JournalRecord.WithdrawalSaved withdrawalSaved -> {
+        Optional<WithdrawalStatus> savedStatus = withdrawals.get(withdrawalSaved.withdrawalTransaction().id()).map(saved -> saved.status());
+        if (savedStatus.isEmpty() || WithdrawalStatus.PROCESSING.equals(savedStatus.get())) {
+          withdrawals.save(withdrawalSaved.withdrawalTransaction());
+        }
+      }
+      case JournalRecord.Group group -> group.records().forEach(groupedRecord -> replay(groupedRecord, accounts, withdrawals));
+    }
+  }
+
+  /**
+   * Folds the sealed journal segments into a new snapshot and deletes what it replaces. The live repositories
+   * are never read: the previous snapshot's accounts and the sealed segments are replayed into a separate copy,
+   * which gives a consistent point without pausing the writers. Only the withdrawals saved in the sealed segments
+   * are copied, the older ones are streamed from the previous snapshot into the new one. Blocks on file IO.
+   * @param partitions number of files accounts and withdrawals are each spread over
+   * @return whether a snapshot was written, there is nothing to do until a new segment is sealed
+   */
+  public boolean snapshot(int partitions) throws IOException {
+    long previousSegment = JournalSnapshot.latest(directory);
+    long sealedSegment = journal.lastSealedSegment();
+    if (sealedSegment <= previousSegment) {
+      return false;
+    }
+
+    InMemoryAccountRepository accounts = new InMemoryAccountRepository();
+    InMemoryWithdrawalRepository changedWithdrawals = new InMemoryWithdrawalRepository();
+    if (previousSegment > 0) {
+      JournalSnapshot.loadAccounts(directory, previousSegment, record -> replay(record, accounts, changedWithdrawals));
+    }
+    for (long segment = previousSegment + 1; segment <= sealedSegment; segment++) {
+      Journal.replayComplete(Journal.segmentFile(directory, segment), record -> replay(record, accounts, changedWithdrawals));
+    }
+    Map<UUID, WithdrawalTransaction> changed = new HashMap<>();
+    changedWithdrawals.getAll().forEach(withdrawal -> changed.put(withdrawal.id(), withdrawal));
+    JournalSnapshot.write(directory, sealedSegment, accounts.getAll(), previousSegment, changed, partitions);
+
+    JournalSnapshot.deleteOlderThan(directory, sealedSegment);
+    for (long segment = previousSegment + 1; segment <= sealedSegment; segment++) {
+      Files.deleteIfExists(Journal.segmentFile(directory, segment));
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    journal.close();
+  }
+}
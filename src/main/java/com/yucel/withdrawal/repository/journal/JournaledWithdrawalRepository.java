@@ -0,0 +1,71 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.WithdrawalRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Appends every saved withdrawal to the journal, reads are served by the in-memory delegate
+ */
+public class JournaledWithdrawalRepository implements WithdrawalRepository {
+
+  private final WithdrawalRepository delegate;
+  private final Journal journal;
+
+  public JournaledWithdrawalRepository(WithdrawalRepository delegate, Journal journal) {
+    this.delegate = delegate;
+    this.journal = journal;
+  }
+
+  @Override
+  public WithdrawalTransaction save(WithdrawalTransaction withdrawalTransaction) {
+    WithdrawalTransaction previous = delegate.save(withdrawalTransaction);
+    journal.append(new JournalRecord.WithdrawalSaved(withdrawalTransaction));
+    return previous;
+  }
+
+  @Override
+  public Optional<WithdrawalTransaction> get(UUID id) {
+    return delegate.get(id);
+  }
+
+  @Override
+  public boolean checkIfWithdrawalTransactionExists(UUID id) {
+    return delegate.checkIfWithdrawalTransactionExists(id);
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getAll() {
+    return delegate.getAll();
+  }
+
+  @Override
+  public int count() {
+    return delegate.count();
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPage(UUID afterId, int limit) {
+    return delegate.getPage(afterId, limit);
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPageByAccountAddress(String address, UUID afterId, int limit) {
+    return delegate.getPageByAccountAddress(address, afterId, limit);
+  }
+
+  @Override
+  public List<WithdrawalTransaction> getPageByStatus(WithdrawalStatus status, UUID afterId, int limit) {
+    return delegate.getPageByStatus(status, afterId, limit);
+  }
+
+  @Override
+  public CompletionStage<Void> flush() {
+    return journal.flush();
+  }
+}
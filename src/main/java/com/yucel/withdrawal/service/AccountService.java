@@ -1,10 +1,11 @@
 package com.yucel.withdrawal.service;
 
 import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.model.Page;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 public interface AccountService {
 
@@ -24,18 +25,18 @@ public interface AccountService {
   /**
    * Deposits given amount to the balance of the Account
    * @param address account address
-   * @param amount amount to be deposited
+   * @param amount amount to be deposited in minor units
    * @return updated Account
    */
-  Account depositToAccount(String address, BigDecimal amount);
+  Account depositToAccount(String address, long amount);
 
   /**
    * Withdraws given amount to the balance of the Account
    * @param address account address
-   * @param amount amount to be withdrawn
+   * @param amount amount to be withdrawn in minor units
    * @return updated Account
    */
-  Account withdrawFromAccount(String address, BigDecimal amount);
+  Account withdrawFromAccount(String address, long amount);
 
   /**
    * Gets all accounts
@@ -43,10 +44,30 @@ public interface AccountService {
    */
   List<Account> getAllAccounts();
 
+  /**
+   * @return number of accounts
+   */
+  int countAccounts();
+
+  /**
+   * Gets a page of accounts in address order
+   * @param cursor cursor of the page, null for the first page
+   * @param limit page size
+   * @return page of Account
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  Page<Account> getAccountPage(String cursor, int limit);
+
   /**
    * Gets the account and provides an Optional Account object
    * @param address address of the account
    * @return an optional Account
    */
   Optional<Account> getAccountByAddress(String address);
+
+  /**
+   * Completes once every account change made so far is durable
+   * @return a completion stage
+   */
+  CompletionStage<Void> flush();
 }
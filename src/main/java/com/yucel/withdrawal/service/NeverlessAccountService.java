@@ -1,11 +1,13 @@
 package com.yucel.withdrawal.service;
 
 import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.model.Page;
+import com.yucel.withdrawal.domain.model.PageCursor;
 import com.yucel.withdrawal.repository.AccountRepository;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 public class NeverlessAccountService implements AccountService {
 
@@ -27,12 +29,12 @@ public class NeverlessAccountService implements AccountService {
   }
 
   @Override
-  public Account depositToAccount(String address, BigDecimal amount) {
+  public Account depositToAccount(String address, long amount) {
     return accountRepository.deposit(address, amount);
   }
 
   @Override
-  public Account withdrawFromAccount(String address, BigDecimal amount) {
+  public Account withdrawFromAccount(String address, long amount) {
     return accountRepository.withdraw(address, amount);
   }
 
@@ -41,8 +43,24 @@ public class NeverlessAccountService implements AccountService {
     return accountRepository.getAll();
   }
 
+  @Override
+  public int countAccounts() {
+    return accountRepository.count();
+  }
+
+  @Override
+  public Page<Account> getAccountPage(String cursor, int limit) {
+    List<Account> accounts = accountRepository.getPage(PageCursor.decode(cursor), limit + 1);
+    return Page.of(accounts, limit, Account::getAddress);
+  }
+
   @Override
   public Optional<Account> getAccountByAddress(String address) {
     return accountRepository.get(address);
   }
+
+  @Override
+  public CompletionStage<Void> flush() {
+    return accountRepository.flush();
+  }
 }
@@ -1,12 +1,15 @@
 package com.yucel.withdrawal.service;
 
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.Page;
+import com.yucel.withdrawal.domain.model.PageCursor;
 import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 import com.yucel.withdrawal.repository.WithdrawalRepository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 public class NeverlessWithdrawalStoreService implements WithdrawalStoreService {
 
@@ -44,4 +47,38 @@ public class NeverlessWithdrawalStoreService implements WithdrawalStoreService {
   public List<WithdrawalTransaction> getAllWithdrawals() {
     return withdrawalRepository.getAll();
   }
+
+  @Override
+  public int countWithdrawals() {
+    return withdrawalRepository.count();
+  }
+
+  @Override
+  public Page<WithdrawalTransaction> getWithdrawalPage(String cursor, int limit) {
+    return toPage(withdrawalRepository.getPage(decodeCursor(cursor), limit + 1), limit);
+  }
+
+  @Override
+  public Page<WithdrawalTransaction> getWithdrawalPageByAccountAddress(String address, String cursor, int limit) {
+    return toPage(withdrawalRepository.getPageByAccountAddress(address, decodeCursor(cursor), limit + 1), limit);
+  }
+
+  @Override
+  public Page<WithdrawalTransaction> getWithdrawalPageByStatus(WithdrawalStatus status, String cursor, int limit) {
+    return toPage(withdrawalRepository.getPageByStatus(status, decodeCursor(cursor), limit + 1), limit);
+  }
+
+  private static UUID decodeCursor(String cursor) {
+    String afterId = PageCursor.decode(cursor);
+    return afterId == null ? null : UUID.fromString(afterId);
+  }
+
+  private static Page<WithdrawalTransaction> toPage(List<WithdrawalTransaction> withdrawalsAndOneMore, int limit) {
+    return Page.of(withdrawalsAndOneMore, limit, withdrawal -> withdrawal.id().toString());
+  }
+
+  @Override
+  public CompletionStage<Void> flush() {
+    return withdrawalRepository.flush();
+  }
 }
@@ -1,11 +1,13 @@
 package com.yucel.withdrawal.service;
 
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.Page;
 import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 public interface WithdrawalStoreService {
 
@@ -41,4 +43,44 @@ public interface WithdrawalStoreService {
    * @return a list of WithdrawalTransaction
    */
   List<WithdrawalTransaction> getAllWithdrawals();
+
+  /**
+   * @return number of withdrawals
+   */
+  int countWithdrawals();
+
+  /**
+   * Gets a page of withdrawals in id order
+   * @param cursor cursor of the page, null for the first page
+   * @param limit page size
+   * @return page of WithdrawalTransaction
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  Page<WithdrawalTransaction> getWithdrawalPage(String cursor, int limit);
+
+  /**
+   * Gets a page of the withdrawals sent or received by the address in id order
+   * @param address sender or recipient address
+   * @param cursor cursor of the page, null for the first page
+   * @param limit page size
+   * @return page of WithdrawalTransaction
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  Page<WithdrawalTransaction> getWithdrawalPageByAccountAddress(String address, String cursor, int limit);
+
+  /**
+   * Gets a page of the withdrawals in the status in id order
+   * @param status withdrawal status
+   * @param cursor cursor of the page, null for the first page
+   * @param limit page size
+   * @return page of WithdrawalTransaction
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  Page<WithdrawalTransaction> getWithdrawalPageByStatus(WithdrawalStatus status, String cursor, int limit);
+
+  /**
+   * Completes once every withdrawal change made so far is durable
+   * @return a completion stage
+   */
+  CompletionStage<Void> flush();
 }
@@ -0,0 +1,124 @@
+package com.yucel.withdrawal.service.admission;
+
+import com.yucel.withdrawal.metrics.Counter;
+import com.yucel.withdrawal.metrics.Gauge;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.yucel.withdrawal.service.verticle.util.VerticleConfigUtil.*;
+
+/**
+ * Rejects work the service cannot finish in time instead of queueing it without a bound,
+ * so the accepted requests keep a predictable latency under overload.
+ *
+ * Two kinds of work are bounded: external withdrawals from the provider request to the final status,
+ * and the event bus requests waiting for the reply of each address. A rejection comes with the seconds to retry after,
+ * the time the work over the limit takes to drain at the rate it drained recently.
+ */
+public class AdmissionController implements Shareable {
+
+  private static final String SHARED_MAP_NAME = "withdrawal.admission";
+  public static final String EXTERNAL_WITHDRAWALS_QUEUE = "external_withdrawals";
+
+  private final MetricsRegistry metricsRegistry;
+  private final InFlightLimit pendingExternalWithdrawals;
+  private final Gauge pendingExternalWithdrawalsGauge;
+  private final int maxInFlightRequestsPerAddress;
+  private final Map<String, Integer> maxInFlightRequestsByAddress;
+  private final long maxRetryAfterSeconds;
+  private final ConcurrentMap<String, InFlightLimit> inFlightRequestsByAddress = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxInFlightRequestsPerAddress limit of the addresses not in {@code maxInFlightRequestsByAddress}
+   * @param maxRetryAfterSeconds retry after answered when nothing drained recently, also the upper bound of it
+   */
+  public AdmissionController(MetricsRegistry metricsRegistry, int maxPendingExternalWithdrawals, int maxInFlightRequestsPerAddress,
+                             Map<String, Integer> maxInFlightRequestsByAddress, long maxRetryAfterSeconds) {
+    this.metricsRegistry = metricsRegistry;
+    this.pendingExternalWithdrawals = new InFlightLimit(maxPendingExternalWithdrawals, rejections(EXTERNAL_WITHDRAWALS_QUEUE));
+    this.pendingExternalWithdrawalsGauge = metricsRegistry.gauge("external_withdrawals_pending", "external withdrawals requested from the provider and not final yet");
+    this.maxInFlightRequestsPerAddress = maxInFlightRequestsPerAddress;
+    this.maxInFlightRequestsByAddress = Map.copyOf(maxInFlightRequestsByAddress);
+    this.maxRetryAfterSeconds = maxRetryAfterSeconds;
+  }
+
+  /**
+   * @return the controller of the vertx instance configured by the first verticle asking for it, shared by all of its verticles
+   */
+  public static AdmissionController shared(Vertx vertx, JsonObject config) {
+    return vertx.sharedData().<String, AdmissionController>getLocalMap(SHARED_MAP_NAME)
+      .computeIfAbsent(SHARED_MAP_NAME, ignored -> {
+        Map<String, Integer> maxInFlightRequestsByAddress = new HashMap<>();
+        config.getJsonObject(EVENT_BUS_IN_FLIGHT_LIMITS, new JsonObject())
+          .forEach(limit -> maxInFlightRequestsByAddress.put(limit.getKey(), ((Number) limit.getValue()).intValue()));
+        return new AdmissionController(MetricsRegistry.shared(vertx),
+          config.getInteger(MAX_PENDING_EXTERNAL_WITHDRAWALS, DEFAULT_MAX_PENDING_EXTERNAL_WITHDRAWALS),
+          config.getInteger(MAX_EVENT_BUS_IN_FLIGHT_REQUESTS, DEFAULT_MAX_EVENT_BUS_IN_FLIGHT_REQUESTS),
+          maxInFlightRequestsByAddress,
+          config.getLong(MAX_RETRY_AFTER_SECONDS, DEFAULT_MAX_RETRY_AFTER_SECONDS));
+      });
+  }
+
+  /**
+   * @return false if the limit of external withdrawals not final yet is reached, the withdrawal must not be started then
+   */
+  public boolean tryAcquireExternalWithdrawal() {
+    boolean acquired = pendingExternalWithdrawals.tryAcquire();
+    pendingExternalWithdrawalsGauge.set(pendingExternalWithdrawals.inFlight());
+    return acquired;
+  }
+
+  /**
+   * Counts an external withdrawal started before regardless of the limit, e.g. one still processing after a restart
+   */
+  public void acquireExternalWithdrawal() {
+    pendingExternalWithdrawals.acquire();
+    pendingExternalWithdrawalsGauge.set(pendingExternalWithdrawals.inFlight());
+  }
+
+  /**
+   * Called once per acquired external withdrawal when it is final
+   */
+  public void releaseExternalWithdrawal(long nowMillis) {
+    pendingExternalWithdrawals.release(nowMillis);
+    pendingExternalWithdrawalsGauge.set(pendingExternalWithdrawals.inFlight());
+  }
+
+  public long externalWithdrawalRetryAfterSeconds(long nowMillis) {
+    return pendingExternalWithdrawals.retryAfterSeconds(nowMillis, maxRetryAfterSeconds);
+  }
+
+  /**
+   * @return false if the limit of requests waiting for the reply of the address is reached, the request must not be sent then
+   */
+  public boolean tryAcquireRequest(String address) {
+    return inFlightRequests(address).tryAcquire();
+  }
+
+  /**
+   * Called once per acquired request when its reply or failure arrives
+   */
+  public void releaseRequest(String address, long nowMillis) {
+    inFlightRequests(address).release(nowMillis);
+  }
+
+  public long requestRetryAfterSeconds(String address, long nowMillis) {
+    return inFlightRequests(address).retryAfterSeconds(nowMillis, maxRetryAfterSeconds);
+  }
+
+  private InFlightLimit inFlightRequests(String address) {
+    return inFlightRequestsByAddress.computeIfAbsent(address, ignored ->
+      new InFlightLimit(maxInFlightRequestsByAddress.getOrDefault(address, maxInFlightRequestsPerAddress), rejections(address)));
+  }
+
+  private Counter rejections(String queue) {
+    return metricsRegistry.counter("admission_rejections_total", "requests rejected because the queue was full", "queue", queue);
+  }
+}
@@ -0,0 +1,24 @@
+package com.yucel.withdrawal.service.admission;
+
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+
+/**
+ * Failure of a request rejected by the {@link AdmissionController}, answered with a {@code Retry-After} header
+ */
+public class AdmissionRejectedException extends ReplyException {
+
+  private final long retryAfterSeconds;
+
+  /**
+   * @param failureCode 429 or 503 http status
+   */
+  public AdmissionRejectedException(int failureCode, String message, long retryAfterSeconds) {
+    super(ReplyFailure.RECIPIENT_FAILURE, failureCode, message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long retryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,42 @@
+package com.yucel.withdrawal.service.admission;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Completions per second over the last {@value #WINDOW_SECONDS} seconds, counted in one slot per second.
+ *
+ * Thread safe. A slot reused for a new second may lose an increment racing with its reset, the estimate tolerates that.
+ */
+class DrainRateMeter {
+
+  static final int WINDOW_SECONDS = 10;
+
+  private final AtomicLongArray slotSeconds = new AtomicLongArray(WINDOW_SECONDS);
+  private final AtomicLongArray slotCounts = new AtomicLongArray(WINDOW_SECONDS);
+
+  void record(long nowMillis) {
+    long second = nowMillis / 1000;
+    int slot = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+    long slotSecond = slotSeconds.get(slot);
+    if (slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second)) {
+      slotCounts.set(slot, 0);
+    }
+    slotCounts.incrementAndGet(slot);
+  }
+
+  /**
+   * @return completions per second in the window ending now, the current second counted for the part of it passed
+   */
+  double perSecond(long nowMillis) {
+    long second = nowMillis / 1000;
+    long completions = 0;
+    for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+      long slotSecond = slotSeconds.get(slot);
+      if (slotSecond <= second && slotSecond > second - WINDOW_SECONDS) {
+        completions += slotCounts.get(slot);
+      }
+    }
+    long windowMillis = (WINDOW_SECONDS - 1) * 1000L + nowMillis % 1000 + 1;
+    return completions * 1000.0 / windowMillis;
+  }
+}
@@ -0,0 +1,69 @@
+package com.yucel.withdrawal.service.admission;
+
+import com.yucel.withdrawal.metrics.Counter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bound of the work admitted but not finished yet, with the rate it finishes at
+ */
+class InFlightLimit {
+
+  private final int limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final DrainRateMeter drainRate = new DrainRateMeter();
+  private final Counter rejections;
+
+  InFlightLimit(int limit, Counter rejections) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    this.limit = limit;
+    this.rejections = rejections;
+  }
+
+  /**
+   * @return false without admitting if the limit is reached
+   */
+  boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        rejections.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Admits regardless of the limit, for work accepted before, e.g. recovered after a restart
+   */
+  void acquire() {
+    inFlight.incrementAndGet();
+  }
+
+  void release(long nowMillis) {
+    inFlight.decrementAndGet();
+    drainRate.record(nowMillis);
+  }
+
+  int inFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * @return seconds until enough work drains at the current rate for one more to be admitted,
+   * the upper bound if nothing drained recently
+   */
+  long retryAfterSeconds(long nowMillis, long maxRetryAfterSeconds) {
+    double perSecond = drainRate.perSecond(nowMillis);
+    if (perSecond <= 0) {
+      return maxRetryAfterSeconds;
+    }
+    long toDrain = Math.max(1, inFlight.get() - limit + 1);
+    return Math.max(1, Math.min(maxRetryAfterSeconds, (long) Math.ceil(toDrain / perSecond)));
+  }
+}
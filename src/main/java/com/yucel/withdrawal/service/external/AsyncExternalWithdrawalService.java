@@ -0,0 +1,36 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import io.vertx.core.Future;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link ExternalWithdrawalService}, provider calls never run on the caller thread.
+ * Returned futures complete on the context of the caller.
+ */
+public interface AsyncExternalWithdrawalService {
+
+  /**
+   * @param id withdrawal id, used for idempotency
+   * @param address external address to withdraw to
+   * @param amount amount in minor units of {@link com.yucel.withdrawal.domain.model.CurrencyUnit#DEFAULT}
+   * @return completes once the provider accepted the withdrawal
+   */
+  Future<Void> requestExternalWithdrawal(UUID id, String address, long amount);
+
+  /**
+   * @param id withdrawal id
+   * @return current status, fails with IllegalArgumentException if the provider does not know the withdrawal
+   */
+  Future<WithdrawalStatus> getRequestState(UUID id);
+
+  /**
+   * @param ids withdrawal ids
+   * @return statuses by id from one provider round trip, ids unknown to the provider are left out
+   */
+  Future<Map<UUID, WithdrawalStatus>> getRequestStates(Collection<UUID> ids);
+
+}
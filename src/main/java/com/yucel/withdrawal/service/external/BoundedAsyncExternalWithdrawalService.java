@@ -0,0 +1,109 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs the blocking provider calls on a dedicated worker pool and caps the calls in flight with a permit pool.
+ * Calls beyond the cap wait in a queue without holding any thread until a permit is released.
+ */
+public class BoundedAsyncExternalWithdrawalService implements AsyncExternalWithdrawalService {
+
+  public static final String WORKER_POOL_NAME = "external-withdrawal-provider";
+
+  private final Vertx vertx;
+  private final ExternalWithdrawalService externalWithdrawalService;
+  private final WorkerExecutor workerExecutor;
+  private final int maxInFlightCalls;
+  private final Queue<Runnable> waitingCalls = new ArrayDeque<>();
+  private int inFlightCalls;
+
+  /**
+   * @param vertx vertx instance
+   * @param externalWithdrawalService blocking provider client
+   * @param maxInFlightCalls maximum number of provider calls running at the same time
+   */
+  public BoundedAsyncExternalWithdrawalService(Vertx vertx, ExternalWithdrawalService externalWithdrawalService, int maxInFlightCalls) {
+    if (maxInFlightCalls <= 0) {
+      throw new IllegalArgumentException("max in flight calls must be positive");
+    }
+    this.vertx = vertx;
+    this.externalWithdrawalService = externalWithdrawalService;
+    this.maxInFlightCalls = maxInFlightCalls;
+    this.workerExecutor = vertx.createSharedWorkerExecutor(WORKER_POOL_NAME, maxInFlightCalls);
+  }
+
+  @Override
+  public Future<Void> requestExternalWithdrawal(UUID id, String address, long amount) {
+    return submit(() -> {
+      externalWithdrawalService.requestExternalWithdrawal(id, address, amount);
+      return null;
+    });
+  }
+
+  @Override
+  public Future<WithdrawalStatus> getRequestState(UUID id) {
+    return submit(() -> externalWithdrawalService.getRequestState(id));
+  }
+
+  @Override
+  public Future<Map<UUID, WithdrawalStatus>> getRequestStates(Collection<UUID> ids) {
+    return submit(() -> externalWithdrawalService.getRequestStates(ids));
+  }
+
+  /**
+   * @return number of provider calls currently running
+   */
+  public synchronized int inFlightCalls() {
+    return inFlightCalls;
+  }
+
+  private <T> Future<T> submit(Callable<T> call) {
+    Context context = vertx.getOrCreateContext();
+    Promise<T> promise = Promise.promise();
+    Runnable start = () -> context.runOnContext(v -> workerExecutor.executeBlocking(call, false)
+      .onComplete(result -> {
+        releasePermit();
+        promise.handle(result);
+      }));
+
+    boolean acquired;
+    synchronized (this) {
+      acquired = inFlightCalls < maxInFlightCalls;
+      if (acquired) {
+        inFlightCalls++;
+      } else {
+        waitingCalls.add(start);
+      }
+    }
+    if (acquired) {
+      start.run();
+    }
+    return promise.future();
+  }
+
+  private void releasePermit() {
+    Runnable next;
+    synchronized (this) {
+      next = waitingCalls.poll();
+      if (next == null) {
+        inFlightCalls--;
+      }
+    }
+    // the permit is handed over to the next waiting call
+    if (next != null) {
+      next.run();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.yucel.withdrawal.service.external;
+
+/**
+ * Stops calling a provider which keeps failing. After {@code failureThreshold} consecutive failures the circuit opens
+ * and calls are rejected without reaching the provider. Once {@code openMillis} passed a single probe call is let through,
+ * its success closes the circuit and its failure opens it again.
+ *
+ * Not thread safe, it is meant to be confined to the context of its caller.
+ */
+public class CircuitBreaker {
+
+  /**
+   * ordinal is the value of the state gauge
+   */
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtMillis;
+  private boolean probeInFlight;
+
+  public CircuitBreaker(int failureThreshold, long openMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * @return whether the call may reach the provider, its outcome must be reported then
+   */
+  public boolean tryAcquire(long nowMillis) {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (nowMillis - openedAtMillis < openMillis) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        probeInFlight = true;
+        return true;
+      default:
+        if (probeInFlight) {
+          return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+  }
+
+  /**
+   * The provider answered, also with a permanent error
+   */
+  public void onSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    probeInFlight = false;
+  }
+
+  /**
+   * The call failed with a transient error. Late failures of calls let through before the circuit opened are ignored.
+   */
+  public void onFailure(long nowMillis) {
+    if (state == State.OPEN) {
+      return;
+    }
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAtMillis = nowMillis;
+      consecutiveFailures = 0;
+      probeInFlight = false;
+    }
+  }
+
+  public State state() {
+    return state;
+  }
+}
@@ -0,0 +1,27 @@
+package com.yucel.withdrawal.service.external;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Each delay is drawn uniformly between the base delay and three times the previous delay, capped at the max delay.
+ * The delays still grow, but the retries of many callers failed at once spread out instead of arriving in waves.
+ *
+ * @param baseDelayMillis lower bound of every delay, also the previous delay of the first retry
+ * @param maxDelayMillis upper bound of every delay
+ */
+public record DecorrelatedJitterBackoff(long baseDelayMillis, long maxDelayMillis) {
+
+  public DecorrelatedJitterBackoff {
+    if (baseDelayMillis < 1 || maxDelayMillis < baseDelayMillis) {
+      throw new IllegalArgumentException("invalid backoff %d-%d ms".formatted(baseDelayMillis, maxDelayMillis));
+    }
+  }
+
+  /**
+   * @param previousDelayMillis delay before the previous retry, the base delay before the first one
+   */
+  public long nextDelayMillis(long previousDelayMillis) {
+    long upperBound = Math.min(maxDelayMillis, Math.max(baseDelayMillis, previousDelayMillis * 3));
+    return ThreadLocalRandom.current().nextLong(baseDelayMillis, upperBound + 1);
+  }
+}
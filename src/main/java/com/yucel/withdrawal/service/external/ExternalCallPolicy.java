@@ -0,0 +1,39 @@
+package com.yucel.withdrawal.service.external;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Retry and circuit breaker policy of one external provider operation
+ *
+ * @param maxRetries retries of a call failed with a transient error, 0 disables retrying
+ * @param retryBaseDelayMillis lower bound of the delay before a retry
+ * @param retryMaxDelayMillis upper bound of the delay before a retry
+ * @param failureThreshold consecutive transient failures opening the circuit
+ * @param openMillis time the circuit stays open before a probe call is let through
+ */
+public record ExternalCallPolicy(int maxRetries, long retryBaseDelayMillis, long retryMaxDelayMillis, int failureThreshold, long openMillis) {
+
+  public static final ExternalCallPolicy DEFAULT = new ExternalCallPolicy(2, 50L, 1000L, 5, 5000L);
+
+  public ExternalCallPolicy {
+    if (maxRetries < 0 || retryBaseDelayMillis < 1 || retryMaxDelayMillis < retryBaseDelayMillis || failureThreshold < 1 || openMillis < 1) {
+      throw new IllegalArgumentException("invalid external call policy: %d retries %d-%d ms, open after %d failures for %d ms"
+        .formatted(maxRetries, retryBaseDelayMillis, retryMaxDelayMillis, failureThreshold, openMillis));
+    }
+  }
+
+  /**
+   * @param json policy fields, null or missing fields take the defaults
+   */
+  public static ExternalCallPolicy fromJson(JsonObject json) {
+    if (json == null) {
+      return DEFAULT;
+    }
+    return new ExternalCallPolicy(
+      json.getInteger("maxRetries", DEFAULT.maxRetries()),
+      json.getLong("retryBaseDelayMillis", DEFAULT.retryBaseDelayMillis()),
+      json.getLong("retryMaxDelayMillis", DEFAULT.retryMaxDelayMillis()),
+      json.getInteger("failureThreshold", DEFAULT.failureThreshold()),
+      json.getLong("openMillis", DEFAULT.openMillis()));
+  }
+}
@@ -0,0 +1,11 @@
+package com.yucel.withdrawal.service.external;
+
+/**
+ * The provider call was not made because the circuit of the operation is open
+ */
+public class ExternalServiceUnavailableException extends RuntimeException {
+
+  public ExternalServiceUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -2,13 +2,26 @@ package com.yucel.withdrawal.service.external;
 
 import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 public interface ExternalWithdrawalService {
 
-  void requestExternalWithdrawal(UUID id, String address, BigDecimal amount);
+  /**
+   * @param id withdrawal id, used for idempotency
+   * @param address external address to withdraw to
+   * @param amount amount in minor units of {@link com.yucel.withdrawal.domain.model.CurrencyUnit#DEFAULT}
+   */
+  void requestExternalWithdrawal(UUID id, String address, long amount);
 
   WithdrawalStatus getRequestState(UUID id);
 
+  /**
+   * Gets the statuses of several withdrawals in one provider round trip
+   * @param ids withdrawal ids
+   * @return statuses by id, ids unknown to the provider are left out
+   */
+  Map<UUID, WithdrawalStatus> getRequestStates(Collection<UUID> ids);
+
 }
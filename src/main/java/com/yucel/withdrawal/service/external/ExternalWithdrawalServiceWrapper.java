@@ -1,9 +1,14 @@
 package com.yucel.withdrawal.service.external;
 
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
 import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 import com.yucel.withdrawal.service.external.model.Amount;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class ExternalWithdrawalServiceWrapper implements ExternalWithdrawalService{
@@ -14,16 +19,37 @@ public class ExternalWithdrawalServiceWrapper implements ExternalWithdrawalServi
   }
 
   @Override
-  public void requestExternalWithdrawal(UUID id, String address, BigDecimal amount) {
+  public void requestExternalWithdrawal(UUID id, String address, long amount) {
     WithdrawalService.WithdrawalId withdrawalId = new WithdrawalService.WithdrawalId(id);
     WithdrawalService.Address addressRecord = new WithdrawalService.Address(address);
-    Amount amountRecord = new Amount(amount);
+    Amount amountRecord = new Amount(amount, CurrencyUnit.DEFAULT.scale());
     withdrawalService.requestWithdrawal(withdrawalId, addressRecord, amountRecord);
   }
 
   @Override
   public WithdrawalStatus getRequestState(UUID id) {
     WithdrawalService.WithdrawalId withdrawalId = new WithdrawalService.WithdrawalId(id);
-    return WithdrawalStatus.valueOf(withdrawalService.getRequestState(withdrawalId).name());
+    return toWithdrawalStatus(withdrawalService.getRequestState(withdrawalId));
+  }
+
+  @Override
+  public Map<UUID, WithdrawalStatus> getRequestStates(Collection<UUID> ids) {
+    List<WithdrawalService.WithdrawalId> withdrawalIds = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      withdrawalIds.add(new WithdrawalService.WithdrawalId(id));
+    }
+    Map<WithdrawalService.WithdrawalId, WithdrawalService.WithdrawalState> states = withdrawalService.getRequestStates(withdrawalIds);
+
+    Map<UUID, WithdrawalStatus> statuses = new HashMap<>(states.size() * 2);
+    states.forEach((withdrawalId, state) -> statuses.put(withdrawalId.value(), toWithdrawalStatus(state)));
+    return statuses;
+  }
+
+  private static WithdrawalStatus toWithdrawalStatus(WithdrawalService.WithdrawalState state) {
+    return switch (state) {
+      case PROCESSING -> WithdrawalStatus.PROCESSING;
+      case COMPLETED -> WithdrawalStatus.COMPLETED;
+      case FAILED -> WithdrawalStatus.FAILED;
+    };
   }
 }
@@ -0,0 +1,66 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.metrics.Counter;
+import com.yucel.withdrawal.metrics.LatencyHistogram;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import io.vertx.core.Future;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records the latency and the errors of each provider operation, as the caller sees them,
+ * including the time a call waits for a free permit. Every attempt of a retried call is recorded.
+ */
+public class MeteredAsyncExternalWithdrawalService implements AsyncExternalWithdrawalService {
+
+  private final AsyncExternalWithdrawalService delegate;
+  private final OperationMetrics requestWithdrawalMetrics;
+  private final OperationMetrics getRequestStateMetrics;
+  private final OperationMetrics getRequestStatesMetrics;
+
+  private record OperationMetrics(LatencyHistogram latency, Counter errors) {
+
+    static OperationMetrics register(MetricsRegistry metricsRegistry, String operation) {
+      return new OperationMetrics(
+        metricsRegistry.histogram("external_withdrawal_call_duration_seconds", "latency of the external withdrawal provider calls", "operation", operation),
+        metricsRegistry.counter("external_withdrawal_call_errors_total", "failed external withdrawal provider calls", "operation", operation));
+    }
+
+    <T> Future<T> measure(Future<T> call, long startNanos) {
+      return call.onComplete(result -> {
+        latency.recordSince(startNanos);
+        if (result.failed()) {
+          errors.increment();
+        }
+      });
+    }
+  }
+
+  public MeteredAsyncExternalWithdrawalService(AsyncExternalWithdrawalService delegate, MetricsRegistry metricsRegistry) {
+    this.delegate = delegate;
+    this.requestWithdrawalMetrics = OperationMetrics.register(metricsRegistry, "requestWithdrawal");
+    this.getRequestStateMetrics = OperationMetrics.register(metricsRegistry, "getRequestState");
+    this.getRequestStatesMetrics = OperationMetrics.register(metricsRegistry, "getRequestStates");
+  }
+
+  @Override
+  public Future<Void> requestExternalWithdrawal(UUID id, String address, long amount) {
+    long startNanos = System.nanoTime();
+    return requestWithdrawalMetrics.measure(delegate.requestExternalWithdrawal(id, address, amount), startNanos);
+  }
+
+  @Override
+  public Future<WithdrawalStatus> getRequestState(UUID id) {
+    long startNanos = System.nanoTime();
+    return getRequestStateMetrics.measure(delegate.getRequestState(id), startNanos);
+  }
+
+  @Override
+  public Future<Map<UUID, WithdrawalStatus>> getRequestStates(Collection<UUID> ids) {
+    long startNanos = System.nanoTime();
+    return getRequestStatesMetrics.measure(delegate.getRequestStates(ids), startNanos);
+  }
+}
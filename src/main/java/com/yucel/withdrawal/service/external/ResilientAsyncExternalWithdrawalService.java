@@ -0,0 +1,132 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.metrics.Counter;
+import com.yucel.withdrawal.metrics.Gauge;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retries provider calls failed with a transient error after a decorrelated jitter delay,
+ * and stops calling an operation of the provider while its circuit is open, see {@link CircuitBreaker}.
+ *
+ * IllegalArgumentException and IllegalStateException are answers of the provider, e.g. an unknown withdrawal,
+ * they are neither retried nor counted as failures. Retrying a withdrawal request is safe, the provider is idempotent by id.
+ * A call rejected before its first attempt fails with {@link ExternalServiceUnavailableException}, it never reached the provider.
+ * A retry rejected by the circuit fails with the error of the attempt before it, whose outcome is unknown.
+ *
+ * Not thread safe, it is meant to be confined to the operations verticle context, retries run on the context of the caller.
+ */
+public class ResilientAsyncExternalWithdrawalService implements AsyncExternalWithdrawalService {
+
+  private final Vertx vertx;
+  private final AsyncExternalWithdrawalService delegate;
+  private final Operation requestWithdrawal;
+  private final Operation getRequestState;
+  private final Operation getRequestStates;
+
+  /**
+   * @param policiesByOperation policies by operation name, the default policy for the operations not in it
+   */
+  public ResilientAsyncExternalWithdrawalService(Vertx vertx, AsyncExternalWithdrawalService delegate,
+                                                 Map<String, ExternalCallPolicy> policiesByOperation, MetricsRegistry metricsRegistry) {
+    this.vertx = vertx;
+    this.delegate = delegate;
+    this.requestWithdrawal = new Operation("requestWithdrawal", policiesByOperation, metricsRegistry);
+    this.getRequestState = new Operation("getRequestState", policiesByOperation, metricsRegistry);
+    this.getRequestStates = new Operation("getRequestStates", policiesByOperation, metricsRegistry);
+  }
+
+  @Override
+  public Future<Void> requestExternalWithdrawal(UUID id, String address, long amount) {
+    return requestWithdrawal.call(() -> delegate.requestExternalWithdrawal(id, address, amount));
+  }
+
+  @Override
+  public Future<WithdrawalStatus> getRequestState(UUID id) {
+    return getRequestState.call(() -> delegate.getRequestState(id));
+  }
+
+  @Override
+  public Future<Map<UUID, WithdrawalStatus>> getRequestStates(Collection<UUID> ids) {
+    return getRequestStates.call(() -> delegate.getRequestStates(ids));
+  }
+
+  private static boolean isTransient(Throwable throwable) {
+    return !(throwable instanceof IllegalArgumentException || throwable instanceof IllegalStateException);
+  }
+
+  private static long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  private final class Operation {
+
+    private final String name;
+    private final ExternalCallPolicy policy;
+    private final CircuitBreaker circuitBreaker;
+    private final DecorrelatedJitterBackoff backoff;
+    private final Gauge circuitState;
+    private final Counter retries;
+    private final Counter rejections;
+
+    Operation(String name, Map<String, ExternalCallPolicy> policiesByOperation, MetricsRegistry metricsRegistry) {
+      this.name = name;
+      this.policy = policiesByOperation.getOrDefault(name, ExternalCallPolicy.DEFAULT);
+      this.circuitBreaker = new CircuitBreaker(policy.failureThreshold(), policy.openMillis());
+      this.backoff = new DecorrelatedJitterBackoff(policy.retryBaseDelayMillis(), policy.retryMaxDelayMillis());
+      this.circuitState = metricsRegistry.gauge("external_withdrawal_circuit_state", "circuit of the provider operation, 0 closed, 1 open, 2 half open", "operation", name);
+      this.retries = metricsRegistry.counter("external_withdrawal_call_retries_total", "provider calls retried after a transient error", "operation", name);
+      this.rejections = metricsRegistry.counter("external_withdrawal_circuit_rejections_total", "provider calls rejected while the circuit was open", "operation", name);
+    }
+
+    <T> Future<T> call(Supplier<Future<T>> call) {
+      Promise<T> promise = Promise.promise();
+      attempt(call, 0, policy.retryBaseDelayMillis(), null, promise);
+      return promise.future();
+    }
+
+    /**
+     * @param previousFailure transient failure of the previous attempt, null for the first one
+     */
+    private <T> void attempt(Supplier<Future<T>> call, int retry, long previousDelayMillis, Throwable previousFailure, Promise<T> promise) {
+      boolean acquired = circuitBreaker.tryAcquire(currentTimeMillis());
+      circuitState.set(circuitBreaker.state().ordinal());
+      if (!acquired) {
+        rejections.increment();
+        // a rejected retry must not look like a call that never reached the provider, the previous attempt may have
+        promise.fail(previousFailure != null
+          ? previousFailure
+          : new ExternalServiceUnavailableException("external withdrawal provider is unavailable for %s".formatted(name)));
+        return;
+      }
+
+      call.get().onComplete(result -> {
+        if (result.succeeded() || !isTransient(result.cause())) {
+          circuitBreaker.onSuccess();
+        } else {
+          circuitBreaker.onFailure(currentTimeMillis());
+        }
+        circuitState.set(circuitBreaker.state().ordinal());
+
+        // a call failing into an open circuit is not retried, the retry would be rejected anyway
+        if (result.succeeded() || !isTransient(result.cause()) || retry >= policy.maxRetries()
+          || circuitBreaker.state() != CircuitBreaker.State.CLOSED) {
+          promise.handle(result);
+          return;
+        }
+        long delayMillis = backoff.nextDelayMillis(previousDelayMillis);
+        retries.increment();
+        vertx.setTimer(delayMillis, timerId -> attempt(call, retry + 1, delayMillis, result.cause(), promise));
+      });
+    }
+  }
+}
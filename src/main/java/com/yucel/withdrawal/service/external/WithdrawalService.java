@@ -2,6 +2,8 @@ package com.yucel.withdrawal.service.external;
 
 import com.yucel.withdrawal.service.external.model.Amount;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 interface WithdrawalService {
@@ -22,6 +24,13 @@ interface WithdrawalService {
    */
   WithdrawalState getRequestState(WithdrawalId id);
 
+  /**
+   * Return current states of several withdrawals in one round trip
+   * @param ids - withdrawal ids
+   * @return current states by id, ids there is no withdrawal for are left out
+   */
+  Map<WithdrawalId, WithdrawalState> getRequestStates(Collection<WithdrawalId> ids);
+
   enum WithdrawalState {
     PROCESSING, COMPLETED, FAILED
   }
@@ -2,6 +2,9 @@ package com.yucel.withdrawal.service.external;
 
 import com.yucel.withdrawal.service.external.model.Amount;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -35,9 +38,25 @@ class WithdrawalServiceStub implements WithdrawalService {
     return request.finalState();
   }
 
+  @Override
+  public Map<WithdrawalId, WithdrawalState> getRequestStates(Collection<WithdrawalId> ids) {
+    final long now = System.currentTimeMillis();
+    final Map<WithdrawalId, WithdrawalState> states = new HashMap<>(ids.size() * 2);
+    for (WithdrawalId id : ids) {
+      final var request = requests.get(id);
+      if (request != null)
+        states.put(id, request.stateAt(now));
+    }
+    return states;
+  }
+
   record Withdrawal(WithdrawalState state, long finaliseAt, Address address, Amount amount) {
     public WithdrawalState finalState() {
-      return finaliseAt <= System.currentTimeMillis() ? state : PROCESSING;
+      return stateAt(System.currentTimeMillis());
+    }
+
+    public WithdrawalState stateAt(long now) {
+      return finaliseAt <= now ? state : PROCESSING;
     }
   }
 }
@@ -1,6 +1,8 @@
 package com.yucel.withdrawal.service.external.model;
 
-import java.math.BigDecimal;
-
-public record Amount(BigDecimal amount) {
+/**
+ * @param minorUnits amount in minor units of the currency
+ * @param scale number of fraction digits of the currency minor unit
+ */
+public record Amount(long minorUnits, int scale) {
 }
@@ -0,0 +1,109 @@
+package com.yucel.withdrawal.service.idempotency;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded cache of the results of idempotent requests, each kept for the same time to live.
+ *
+ * Since every entry lives equally long, insertion order is expiry order: entries are queued as they are inserted
+ * and evicted from the head of the queue once expired or once the cache is over capacity.
+ * Every entry is queued and dequeued once, so eviction is amortized O(1) per insertion.
+ * Both the map and the queue hold at most {@code capacity} entries.
+ *
+ * @param <K> key of a request, e.g. account and idempotency key
+ * @param <V> result of the first request with the key
+ */
+public class IdempotencyCache<K, V> {
+
+  private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+  private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final int capacity;
+  private final long timeToLiveMillis;
+
+  /**
+   * @param capacity maximum number of results kept
+   * @param timeToLiveMillis time a result is returned for repeated requests
+   */
+  public IdempotencyCache(int capacity, long timeToLiveMillis) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  /**
+   * Keeps the value unless a live value is kept for the key already
+   * @return the value kept for the key before, null if the given value is kept now
+   */
+  public V putIfAbsent(K key, V value, long nowMillis) {
+    evict(nowMillis);
+    Entry<K, V> candidate = new Entry<>(key, value, nowMillis + timeToLiveMillis);
+    Entry<K, V> kept = entries.compute(key, (ignored, existing) ->
+      existing == null || existing.isExpired(nowMillis) ? candidate : existing);
+    if (kept != candidate) {
+      return kept.value();
+    }
+    insertionOrder.add(candidate);
+    queued.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * @return live value kept for the key, null if there is none
+   */
+  public V get(K key, long nowMillis) {
+    Entry<K, V> entry = entries.get(key);
+    return entry == null || entry.isExpired(nowMillis) ? null : entry.value();
+  }
+
+  /**
+   * Forgets the value, e.g. a failure the request should be retried after. A newer value of the key is kept.
+   */
+  public void remove(K key, V value) {
+    entries.computeIfPresent(key, (ignored, existing) -> existing.value() == value ? null : existing);
+  }
+
+  /**
+   * @return number of kept values, expired ones not evicted yet included
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Removed and replaced entries stay queued until their turn, they only count against the capacity
+   */
+  private void evict(long nowMillis) {
+    Entry<K, V> head;
+    while ((head = insertionOrder.peek()) != null && (head.isExpired(nowMillis) || queued.get() >= capacity)) {
+      if (insertionOrder.remove(head)) {
+        queued.decrementAndGet();
+        entries.remove(head.key(), head);
+      }
+    }
+  }
+
+  private record Entry<K, V>(K key, V value, long expiresAtMillis) {
+
+    boolean isExpired(long nowMillis) {
+      return nowMillis >= expiresAtMillis;
+    }
+
+    // entries are compared by identity, a replaced entry must not evict its replacement
+    @Override
+    public boolean equals(Object other) {
+      return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+  }
+}
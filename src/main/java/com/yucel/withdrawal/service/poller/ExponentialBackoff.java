@@ -0,0 +1,24 @@
+package com.yucel.withdrawal.service.poller;
+
+/**
+ * @param initialDelayMillis delay before the first attempt
+ * @param multiplier growth of the delay per attempt
+ * @param maxDelayMillis upper bound of the delay
+ */
+public record ExponentialBackoff(long initialDelayMillis, double multiplier, long maxDelayMillis) {
+
+  public ExponentialBackoff {
+    if (initialDelayMillis < 0 || multiplier < 1 || maxDelayMillis < initialDelayMillis) {
+      throw new IllegalArgumentException("invalid backoff %d ms x%s up to %d ms".formatted(initialDelayMillis, multiplier, maxDelayMillis));
+    }
+  }
+
+  /**
+   * @param attempt zero based attempt number
+   * @return delay before the given attempt
+   */
+  public long delayMillis(int attempt) {
+    double delay = initialDelayMillis * Math.pow(multiplier, attempt);
+    return delay >= maxDelayMillis ? maxDelayMillis : (long) delay;
+  }
+}
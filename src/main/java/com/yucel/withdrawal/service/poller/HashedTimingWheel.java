@@ -0,0 +1,91 @@
+package com.yucel.withdrawal.service.poller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: items are put in the bucket of their deadline tick and a tick only visits
+ * the buckets it passed, so the cost of advancing is proportional to the items due, not to all items.
+ * Items scheduled further than one revolution ahead stay in their bucket until their round comes.
+ *
+ * Not thread safe, it is meant to be confined to a verticle context.
+ *
+ * @param <T> type of the scheduled items
+ */
+public class HashedTimingWheel<T> {
+
+  private final long tickMillis;
+  private final long startMillis;
+  private final int mask;
+  private final List<ArrayDeque<Entry<T>>> buckets;
+  private long currentTick;
+  private int size;
+
+  /**
+   * @param tickMillis resolution of the wheel
+   * @param wheelSize number of buckets, rounded up to a power of two
+   * @param startMillis time of tick zero
+   */
+  public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+    if (tickMillis <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("tick and wheel size must be positive");
+    }
+    int bucketCount = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+    this.tickMillis = tickMillis;
+    this.startMillis = startMillis;
+    this.mask = bucketCount - 1;
+    this.buckets = new ArrayList<>(bucketCount);
+    for (int i = 0; i < bucketCount; i++) {
+      buckets.add(new ArrayDeque<>());
+    }
+  }
+
+  /**
+   * @param item item to schedule
+   * @param deadlineMillis time the item is due, deadlines in the past are due on the next tick
+   */
+  public void schedule(T item, long deadlineMillis) {
+    long deadlineTick = Math.max(Math.ceilDiv(deadlineMillis - startMillis, tickMillis), currentTick + 1);
+    buckets.get((int) (deadlineTick & mask)).add(new Entry<>(item, deadlineTick));
+    size++;
+  }
+
+  /**
+   * Advances the wheel to the given time and removes the items that are due
+   * @param nowMillis current time
+   * @return due items in deadline tick order
+   */
+  public List<T> advance(long nowMillis) {
+    long nowTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+    if (nowTick <= currentTick) {
+      return List.of();
+    }
+    List<T> dueItems = new ArrayList<>();
+    long ticksToVisit = Math.min(nowTick - currentTick, buckets.size());
+    for (long tick = currentTick + 1; tick <= currentTick + ticksToVisit; tick++) {
+      Iterator<Entry<T>> iterator = buckets.get((int) (tick & mask)).iterator();
+      while (iterator.hasNext()) {
+        Entry<T> entry = iterator.next();
+        if (entry.deadlineTick() <= nowTick) {
+          iterator.remove();
+          dueItems.add(entry.item());
+        }
+      }
+    }
+    currentTick = nowTick;
+    size -= dueItems.size();
+    return dueItems;
+  }
+
+  /**
+   * @return number of scheduled items
+   */
+  public int size() {
+    return size;
+  }
+
+  private record Entry<T>(T item, long deadlineTick) {
+  }
+}
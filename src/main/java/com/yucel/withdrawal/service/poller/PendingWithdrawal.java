@@ -0,0 +1,15 @@
+package com.yucel.withdrawal.service.poller;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+
+/**
+ * External withdrawal waiting for a terminal status
+ * @param withdrawalTransaction the withdrawal
+ * @param attempt number of status checks done so far
+ */
+public record PendingWithdrawal(WithdrawalTransaction withdrawalTransaction, int attempt) {
+
+  public PendingWithdrawal nextAttempt() {
+    return new PendingWithdrawal(withdrawalTransaction, attempt + 1);
+  }
+}
@@ -0,0 +1,61 @@
+package com.yucel.withdrawal.service.poller;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+
+import java.util.List;
+
+/**
+ * Schedules status checks of pending external withdrawals, each at its own next due time
+ * following an exponential backoff.
+ *
+ * Not thread safe, it is meant to be confined to the operations verticle context.
+ */
+public class WithdrawalStatusPollScheduler {
+
+  private final HashedTimingWheel<PendingWithdrawal> timingWheel;
+  private final ExponentialBackoff backoff;
+
+  /**
+   * @param tickMillis resolution of the status checks
+   * @param backoff delays between status checks of a withdrawal
+   * @param nowMillis current time
+   */
+  public WithdrawalStatusPollScheduler(long tickMillis, ExponentialBackoff backoff, long nowMillis) {
+    this.backoff = backoff;
+    // one revolution covers the longest delay, so due buckets hold no entries of later rounds
+    int wheelSize = (int) Math.min(1 << 20, backoff.maxDelayMillis() / tickMillis + 1);
+    this.timingWheel = new HashedTimingWheel<>(tickMillis, wheelSize, nowMillis);
+  }
+
+  /**
+   * Schedules the first status check of a withdrawal
+   */
+  public void schedule(WithdrawalTransaction withdrawalTransaction, long nowMillis) {
+    schedule(new PendingWithdrawal(withdrawalTransaction, 0), nowMillis);
+  }
+
+  /**
+   * Schedules the next status check of a withdrawal which is still processing
+   */
+  public void reschedule(PendingWithdrawal pendingWithdrawal, long nowMillis) {
+    schedule(pendingWithdrawal.nextAttempt(), nowMillis);
+  }
+
+  /**
+   * @return withdrawals whose status check is due, they are removed from the scheduler
+   */
+  public List<PendingWithdrawal> pollDue(long nowMillis) {
+    return timingWheel.advance(nowMillis);
+  }
+
+  /**
+   * @return number of withdrawals waiting for a status check
+   */
+  public int size() {
+    return timingWheel.size();
+  }
+
+  private void schedule(PendingWithdrawal pendingWithdrawal, long nowMillis) {
+    timingWheel.schedule(pendingWithdrawal, nowMillis + backoff.delayMillis(pendingWithdrawal.attempt()));
+  }
+}
@@ -0,0 +1,77 @@
+package com.yucel.withdrawal.service.poller;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.metrics.Counter;
+import com.yucel.withdrawal.service.external.AsyncExternalWithdrawalService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Asks the provider for the statuses of the withdrawals whose check is due, in batches of a fixed size
+ * with one provider round trip each. A withdrawal missing from the answer is unknown to the provider, it is FAILED.
+ * A batch the provider could not be asked for is checked again later, its outcome is unknown.
+ *
+ * Not thread safe, it is meant to be confined to the operations verticle context.
+ */
+public class WithdrawalStatusPoller {
+
+  private final WithdrawalStatusPollScheduler scheduler;
+  private final AsyncExternalWithdrawalService externalWithdrawalService;
+  private final int batchSize;
+  private final BiConsumer<PendingWithdrawal, WithdrawalStatus> statusConsumer;
+  private final Counter deferredStatusPolls;
+  private final LongSupplier clock;
+
+  /**
+   * @param batchSize maximum number of withdrawals in a provider call
+   * @param statusConsumer receives the status of each checked withdrawal, it reschedules the ones still processing
+   * @param deferredStatusPolls counts the status checks deferred because the provider could not be asked
+   * @param clock current time in milliseconds, of the same clock as the scheduler
+   */
+  public WithdrawalStatusPoller(WithdrawalStatusPollScheduler scheduler, AsyncExternalWithdrawalService externalWithdrawalService, int batchSize,
+                                BiConsumer<PendingWithdrawal, WithdrawalStatus> statusConsumer, Counter deferredStatusPolls, LongSupplier clock) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batch size must be positive");
+    }
+    this.scheduler = scheduler;
+    this.externalWithdrawalService = externalWithdrawalService;
+    this.batchSize = batchSize;
+    this.statusConsumer = statusConsumer;
+    this.deferredStatusPolls = deferredStatusPolls;
+    this.clock = clock;
+  }
+
+  /**
+   * Sends the status checks due now, the statuses are handed to the consumer when the provider answers
+   */
+  public void poll() {
+    List<PendingWithdrawal> dueWithdrawals = scheduler.pollDue(clock.getAsLong());
+    for (int batchStart = 0; batchStart < dueWithdrawals.size(); batchStart += batchSize) {
+      List<PendingWithdrawal> batch = dueWithdrawals.subList(batchStart, Math.min(batchStart + batchSize, dueWithdrawals.size()));
+      List<UUID> withdrawalIds = new ArrayList<>(batch.size());
+      for (PendingWithdrawal pendingWithdrawal : batch) {
+        withdrawalIds.add(pendingWithdrawal.withdrawalTransaction().id());
+      }
+
+      externalWithdrawalService.getRequestStates(withdrawalIds).onComplete(statusesResult -> {
+        if (statusesResult.failed()) {
+          // the outcome is unknown, failing and refunding could pay out twice, so the withdrawals are checked later
+          deferredStatusPolls.add(batch.size());
+          long now = clock.getAsLong();
+          for (PendingWithdrawal pendingWithdrawal : batch) {
+            scheduler.reschedule(pendingWithdrawal, now);
+          }
+          return;
+        }
+        for (PendingWithdrawal pendingWithdrawal : batch) {
+          // a withdrawal unknown to the provider fails the withdrawal
+          statusConsumer.accept(pendingWithdrawal, statusesResult.result().getOrDefault(pendingWithdrawal.withdrawalTransaction().id(), WithdrawalStatus.FAILED));
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.yucel.withdrawal.service.trace;
+
+import com.yucel.withdrawal.domain.model.TransactionChainTracer;
+import com.yucel.withdrawal.domain.model.TransactionChainTracer.Stage;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalTrace;
+import com.yucel.withdrawal.metrics.LatencyHistogram;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the traces of the running withdrawals until their final status. Finished traces are recorded in histograms of
+ * the time between consecutive stages, and the slowest ones are kept as samples.
+ *
+ * Not thread safe, it is meant to be confined to the operations verticle context.
+ */
+public class WithdrawalTraceRecorder {
+
+  private static final Stage[] STAGES = Stage.values();
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Map<UUID, TransactionChainTracer> openTraces = new HashMap<>();
+  private final Deque<WithdrawalTrace> slowTraces = new ArrayDeque<>();
+  private final long slowTraceThresholdNanos;
+  private final int slowTraceSampleSize;
+  private final Map<Stage, LatencyHistogram> internalStageDurations = new EnumMap<>(Stage.class);
+  private final Map<Stage, LatencyHistogram> externalStageDurations = new EnumMap<>(Stage.class);
+
+  /**
+   * @param slowTraceThresholdMillis traces taking longer from receiving to the final status are kept as samples
+   * @param slowTraceSampleSize number of the latest slow traces kept
+   */
+  public WithdrawalTraceRecorder(MetricsRegistry metricsRegistry, long slowTraceThresholdMillis, int slowTraceSampleSize) {
+    this.slowTraceThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowTraceThresholdMillis);
+    this.slowTraceSampleSize = slowTraceSampleSize;
+    for (Stage stage : STAGES) {
+      if (stage != Stage.RECEIVED && stage != Stage.EXTERNAL_REQUESTED) {
+        internalStageDurations.put(stage, stageHistogram(metricsRegistry, "internal", stage));
+      }
+      if (stage != Stage.RECEIVED && stage != Stage.BALANCE_CREDITED) {
+        externalStageDurations.put(stage, stageHistogram(metricsRegistry, "external", stage));
+      }
+    }
+  }
+
+  private static LatencyHistogram stageHistogram(MetricsRegistry metricsRegistry, String kind, Stage stage) {
+    return metricsRegistry.histogram("withdrawal_stage_duration_seconds", "time from the previous stage of a withdrawal to the stage",
+      "kind", kind, "stage", stage.name());
+  }
+
+  /**
+   * Starts following the withdrawal until {@link #finish} is called with its final status
+   */
+  public void open(UUID withdrawalId, TransactionChainTracer tracer) {
+    openTraces.put(withdrawalId, tracer);
+  }
+
+  /**
+   * Marks the final status of the withdrawal, ignored for withdrawals not followed, e.g. ones requeued after a restart
+   */
+  public void finish(UUID withdrawalId, WithdrawalStatus status) {
+    TransactionChainTracer tracer = openTraces.remove(withdrawalId);
+    if (tracer == null) {
+      return;
+    }
+    tracer.mark(Stage.TERMINAL);
+    Map<Stage, LatencyHistogram> stageDurations = tracer.isExternal() ? externalStageDurations : internalStageDurations;
+    long previousNanos = tracer.nanosAt(Stage.RECEIVED);
+    for (Stage stage : STAGES) {
+      if (stage != Stage.RECEIVED && tracer.hasReached(stage)) {
+        stageDurations.get(stage).record(tracer.nanosAt(stage) - previousNanos);
+        previousNanos = tracer.nanosAt(stage);
+      }
+    }
+
+    if (tracer.nanosAt(Stage.TERMINAL) - tracer.nanosAt(Stage.RECEIVED) >= slowTraceThresholdNanos && slowTraceSampleSize > 0) {
+      if (slowTraces.size() == slowTraceSampleSize) {
+        slowTraces.removeFirst();
+      }
+      slowTraces.addLast(toTrace(withdrawalId, status, tracer));
+    }
+  }
+
+  /**
+   * @return the latest slow traces, newest first
+   */
+  public List<WithdrawalTrace> slowTraces() {
+    List<WithdrawalTrace> traces = new ArrayList<>(slowTraces.size());
+    slowTraces.descendingIterator().forEachRemaining(traces::add);
+    return traces;
+  }
+
+  /**
+   * @return number of withdrawals whose final status is not known yet
+   */
+  public int openTraces() {
+    return openTraces.size();
+  }
+
+  private static WithdrawalTrace toTrace(UUID withdrawalId, WithdrawalStatus status, TransactionChainTracer tracer) {
+    long receivedNanos = tracer.nanosAt(Stage.RECEIVED);
+    Map<Stage, Double> stageMillis = new EnumMap<>(Stage.class);
+    for (Stage stage : STAGES) {
+      if (tracer.hasReached(stage)) {
+        stageMillis.put(stage, (tracer.nanosAt(stage) - receivedNanos) / NANOS_PER_MILLI);
+      }
+    }
+    return new WithdrawalTrace(withdrawalId, tracer.isExternal(), status, stageMillis.get(Stage.TERMINAL), stageMillis);
+  }
+}
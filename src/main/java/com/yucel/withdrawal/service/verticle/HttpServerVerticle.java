@@ -1,29 +1,90 @@
 package com.yucel.withdrawal.service.verticle;
 
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
 import com.yucel.withdrawal.domain.model.AccountRequest;
+import com.yucel.withdrawal.domain.model.AccountSnapshot;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
 import com.yucel.withdrawal.domain.model.ErrorMessage;
 import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.WithdrawalBatch;
+import com.yucel.withdrawal.domain.model.WithdrawalBatchItem;
+import com.yucel.withdrawal.domain.model.WithdrawalBatchResult;
+import com.yucel.withdrawal.domain.model.WithdrawalBatchResults;
 import com.yucel.withdrawal.domain.model.WithdrawalRequest;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import com.yucel.withdrawal.mapper.ResponseJsonWriter;
+import com.yucel.withdrawal.metrics.Counter;
+import com.yucel.withdrawal.metrics.LatencyHistogram;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import com.yucel.withdrawal.service.admission.AdmissionController;
+import com.yucel.withdrawal.service.admission.AdmissionRejectedException;
+import com.yucel.withdrawal.service.poller.HashedTimingWheel;
+import com.yucel.withdrawal.service.verticle.subscription.WithdrawalStatusEventStream;
+import com.yucel.withdrawal.service.verticle.subscription.WithdrawalStatusSubscriptions;
+import com.yucel.withdrawal.service.verticle.subscription.WithdrawalStatusWaiter;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import static com.yucel.withdrawal.service.verticle.util.VerticleConfigUtil.*;
 import static com.yucel.withdrawal.service.verticle.util.VerticleConstantUtil.*;
 
 public class HttpServerVerticle extends AbstractVerticle {
 
   private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
   public static final String CONTENT_TYPE_KEY = "content-type";
+  public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+  public static final String NEXT_CURSOR_KEY = "X-Next-Cursor";
+  public static final String RETRY_AFTER_KEY = "Retry-After";
+  /**
+   * resolution of the timeouts of the long polled status requests
+   */
+  public static final long STATUS_WAIT_TICK_MILLIS = 100L;
+
+  private int maxWithdrawalBatchSize;
+  private int maxPageSize;
+  private WithdrawalStatusSubscriptions statusSubscriptions;
+  private HashedTimingWheel<WithdrawalStatusWaiter> statusWaiterTimeouts;
+  private long maxStatusWaitMillis;
+  private MetricsRegistry metricsRegistry;
+  private AdmissionController admissionController;
+  private final Map<String, EventBusAddressMetrics> eventBusMetricsByAddress = new HashMap<>();
+
+  /**
+   * @param latency time until the reply or the failure arrives
+   * @param failures requests failed by the consumer, timed out or without a consumer
+   */
+  private record EventBusAddressMetrics(LatencyHistogram latency, Counter failures) {
+  }
 
   /**
    * Registers routes for withdrawal and account operations.
@@ -37,16 +98,38 @@ public class HttpServerVerticle extends AbstractVerticle {
   @Override
   public void start(Promise<Void> startPromise) throws Exception {
 
+    maxWithdrawalBatchSize = config().getInteger(MAX_WITHDRAWAL_BATCH_SIZE, DEFAULT_MAX_WITHDRAWAL_BATCH_SIZE);
+    maxPageSize = config().getInteger(MAX_PAGE_SIZE, DEFAULT_MAX_PAGE_SIZE);
+    metricsRegistry = MetricsRegistry.shared(vertx);
+    admissionController = AdmissionController.shared(vertx, config());
+    statusSubscriptions = new WithdrawalStatusSubscriptions();
+    vertx.eventBus().consumer(WITHDRAWAL_STATUS_CHANGED_ADDRESS)
+      .handler(message -> statusSubscriptions.publish((WithdrawalStatusResponse) message.body()));
+    maxStatusWaitMillis = config().getLong(MAX_STATUS_WAIT_MILLIS, DEFAULT_MAX_STATUS_WAIT_MILLIS);
+    // one revolution covers the longest wait, a single periodic timer times out all parked requests
+    statusWaiterTimeouts = new HashedTimingWheel<>(STATUS_WAIT_TICK_MILLIS,
+      (int) Math.min(1 << 20, maxStatusWaitMillis / STATUS_WAIT_TICK_MILLIS + 1), currentTimeMillis());
+    vertx.setPeriodic(STATUS_WAIT_TICK_MILLIS, timerId -> {
+      for (WithdrawalStatusWaiter waiter : statusWaiterTimeouts.advance(currentTimeMillis())) {
+        waiter.timeout();
+      }
+    });
+
     Router router = Router.router(vertx);
     router.route().handler(BodyHandler.create());
-    router.get("/withdrawals/:withdrawalId/status").handler(this::handleWithdrawalStatusRequest);
-    router.get("/withdrawals/:withdrawalId").handler(this::handleGetWithdrawalByIdRequest);
-    router.post("/withdrawals").handler(this::handleCreateWithdrawalRequest);
-    router.get("/withdrawals").handler(this::handleGetAllWithdrawalRequest);
-    router.get("/accounts").handler(this::handleGetAllAccountsRequest);
-    router.post("/accounts").handler(this::handleCreateAccountRequest);
-    router.patch("/accounts/:address/balance").handler(this::handleUpdateBalance);
-    router.get("/accounts/:address").handler(this::handleGetAccountByAddress);
+    route(router, HttpMethod.GET, "/withdrawals/:withdrawalId/status/events", this::handleWithdrawalStatusEventsRequest);
+    route(router, HttpMethod.GET, "/withdrawals/:withdrawalId/status", this::handleWithdrawalStatusRequest);
+    route(router, HttpMethod.GET, "/withdrawals/:withdrawalId", this::handleGetWithdrawalByIdRequest);
+    route(router, HttpMethod.POST, "/withdrawals/batch", this::handleCreateWithdrawalBatchRequest);
+    route(router, HttpMethod.POST, "/withdrawals", this::handleCreateWithdrawalRequest);
+    route(router, HttpMethod.GET, "/withdrawals", this::handleGetAllWithdrawalRequest);
+    route(router, HttpMethod.GET, "/accounts", this::handleGetAllAccountsRequest);
+    route(router, HttpMethod.POST, "/accounts", this::handleCreateAccountRequest);
+    route(router, HttpMethod.PATCH, "/accounts/:address/balance", this::handleUpdateBalance);
+    route(router, HttpMethod.GET, "/accounts/:address", this::handleGetAccountByAddress);
+    route(router, HttpMethod.GET, "/accounts/:address/withdrawals", this::handleGetAccountWithdrawalsRequest);
+    route(router, HttpMethod.GET, "/traces/slow", this::handleGetSlowWithdrawalTracesRequest);
+    router.get("/metrics").handler(this::handleMetricsRequest);
 
 
     vertx.createHttpServer().requestHandler(router).listen(8888, http -> {
@@ -59,12 +142,101 @@ public class HttpServerVerticle extends AbstractVerticle {
     });
   }
 
+  /**
+   * Registers the route with its request counter and latency histogram. The latency is recorded when the response ends,
+   * for the event streams that is when the stream is closed.
+   */
+  private void route(Router router, HttpMethod method, String path, Handler<RoutingContext> handler) {
+    LatencyHistogram latency = metricsRegistry.histogram("http_server_request_duration_seconds", "latency of the http requests",
+      "method", method.name(), "route", path);
+    // counters by status class, so counting needs no lookup
+    Counter[] requestsByStatusClass = new Counter[6];
+    for (int statusClass = 1; statusClass < requestsByStatusClass.length; statusClass++) {
+      requestsByStatusClass[statusClass] = metricsRegistry.counter("http_server_requests_total", "number of http requests",
+        "method", method.name(), "route", path, "status", statusClass + "xx");
+    }
+
+    router.route(method, path)
+      .handler(routingContext -> {
+        long startNanos = System.nanoTime();
+        routingContext.addEndHandler(ended -> {
+          latency.recordSince(startNanos);
+          int statusClass = routingContext.response().getStatusCode() / 100;
+          requestsByStatusClass[statusClass >= 1 && statusClass <= 5 ? statusClass : 5].increment();
+        });
+        routingContext.next();
+      })
+      .handler(handler);
+  }
+
+  private void handleGetSlowWithdrawalTracesRequest(RoutingContext routingContext) {
+    request(GET_SLOW_WITHDRAWAL_TRACES_REQUEST_ADDRESS, new JsonObject())
+      .onComplete(messageAsyncResult -> handleResponseWithBody(routingContext, messageAsyncResult));
+  }
+
+  private void handleMetricsRequest(RoutingContext routingContext) {
+    routingContext.response().putHeader(CONTENT_TYPE_KEY, MetricsRegistry.CONTENT_TYPE).end(metricsRegistry.scrape());
+  }
+
+  private Future<Message<Object>> request(String address, Object body) {
+    return request(address, body, new DeliveryOptions());
+  }
+
+  /**
+   * Sends the request to the operations verticle and records the latency of the address.
+   * Fails with 503 without sending when too many requests wait for the reply of the address already.
+   * Rejections, these and the 429 of the operations verticle, fail with an {@link AdmissionRejectedException}.
+   */
+  private Future<Message<Object>> request(String address, Object body, DeliveryOptions deliveryOptions) {
+    if (!admissionController.tryAcquireRequest(address)) {
+      return Future.failedFuture(new AdmissionRejectedException(HttpResponseStatus.SERVICE_UNAVAILABLE.code(),
+        "too many requests in progress, retry later", admissionController.requestRetryAfterSeconds(address, currentTimeMillis())));
+    }
+    return send(address, body, deliveryOptions)
+      .onComplete(reply -> admissionController.releaseRequest(address, currentTimeMillis()));
+  }
+
+  /**
+   * Sends the request to the operations verticle without the admission check and records the latency of the address
+   */
+  private Future<Message<Object>> send(String address, Object body, DeliveryOptions deliveryOptions) {
+    EventBusAddressMetrics addressMetrics = eventBusMetricsByAddress.computeIfAbsent(address, ignored -> new EventBusAddressMetrics(
+      metricsRegistry.histogram("eventbus_request_duration_seconds", "latency of the event bus requests until the reply", "address", address),
+      metricsRegistry.counter("eventbus_request_failures_total", "event bus requests answered with a failure", "address", address)));
+    long startNanos = System.nanoTime();
+    return vertx.eventBus().<Object>request(address, body, deliveryOptions)
+      .onComplete(reply -> {
+        addressMetrics.latency().recordSince(startNanos);
+        if (reply.failed()) {
+          addressMetrics.failures().increment();
+        }
+      })
+      .recover(throwable -> Future.failedFuture(withRetryAfter(throwable)));
+  }
+
+  /**
+   * The operations verticle rejects external withdrawals over its limit with 429, the retry after is its drain time
+   */
+  private Throwable withRetryAfter(Throwable throwable) {
+    if (throwable instanceof ReplyException cause && cause.failureCode() == HttpResponseStatus.TOO_MANY_REQUESTS.code()) {
+      return new AdmissionRejectedException(cause.failureCode(), cause.getMessage(),
+        admissionController.externalWithdrawalRetryAfterSeconds(currentTimeMillis()));
+    }
+    return throwable;
+  }
+
+  private static void putRetryAfter(HttpServerResponse response, Throwable cause) {
+    if (cause instanceof AdmissionRejectedException rejected) {
+      response.putHeader(RETRY_AFTER_KEY, Long.toString(rejected.retryAfterSeconds()));
+    }
+  }
+
   private void handleGetAccountByAddress(RoutingContext routingContext) {
     final String addressField = "address";
     String address = routingContext.request().getParam(addressField);
     TransferAddress transferAddress = new TransferAddress(address);
 
-    vertx.eventBus().request(GET_ACCOUNT_BY_ADDRESS_REQUEST_ADDRESS, JsonObject.mapFrom(transferAddress))
+    request(GET_ACCOUNT_BY_ADDRESS_REQUEST_ADDRESS, transferAddress)
       .onComplete(messageAsyncResult -> {
         handleResponseWithBody(routingContext, messageAsyncResult);
       })
@@ -83,7 +255,7 @@ public class HttpServerVerticle extends AbstractVerticle {
         .setStatusCode(errorMessage.get().httpCode()).end(JsonObject.mapFrom(errorMessage.get()).toString());
     } else {
 
-      vertx.eventBus().request(CREATE_ACCOUNT_REQUEST_ADDRESS, accountRequestJson)
+      request(CREATE_ACCOUNT_REQUEST_ADDRESS, accountRequest)
         .onComplete(messageAsyncResult -> {
           handleResponseWithEmptyBody(routingContext, messageAsyncResult);
         })
@@ -99,26 +271,28 @@ public class HttpServerVerticle extends AbstractVerticle {
       ReplyException cause = (ReplyException) messageAsyncResult.cause();
       JsonObject jsonObject = new JsonObject();
       jsonObject.put("message", cause.getMessage());
+      putRetryAfter(routingContext.response(), cause);
       routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
         .setStatusCode(cause.failureCode()).end(jsonObject.toString());
     }
   }
 
   private void handleGetAllAccountsRequest(RoutingContext routingContext) {
+    handleListRequest(routingContext, GET_ALL_ACCOUNTS_REQUEST_ADDRESS, new JsonObject());
+  }
 
-    vertx.eventBus().request(GET_ALL_ACCOUNTS_REQUEST_ADDRESS, new JsonObject())
-      .onComplete(messageAsyncResult -> {
-        handleResponseWithBody(routingContext, messageAsyncResult);
-      })
-      .onFailure(this::handleServerError);
+  private void handleGetAccountWithdrawalsRequest(RoutingContext routingContext) {
+    JsonObject filter = new JsonObject().put("address", routingContext.pathParam("address"));
+    handleListRequest(routingContext, GET_ACCOUNT_WITHDRAWALS_REQUEST_ADDRESS, filter);
   }
 
   private void handleUpdateBalance(RoutingContext routingContext) {
     String address = routingContext.pathParam("address");
     JsonObject body = routingContext.body().asJsonObject();
     body.put("address", address);
+    AccountRequest accountRequest = body.mapTo(AccountRequest.class);
 
-    vertx.eventBus().request(UPDATE_ACCOUNT_BALANCE_REQUEST_ADDRESS, body)
+    request(UPDATE_ACCOUNT_BALANCE_REQUEST_ADDRESS, accountRequest)
       .onComplete(messageAsyncResult -> {
         handleResponseWithBody(routingContext, messageAsyncResult);
       })
@@ -130,7 +304,7 @@ public class HttpServerVerticle extends AbstractVerticle {
     JsonObject json = new JsonObject();
     json.put(transactionIdField, transactionId);
 
-    vertx.eventBus().request(GET_WITHDRAWAL_BY_ID_REQUEST_ADDRESS, json)
+    request(GET_WITHDRAWAL_BY_ID_REQUEST_ADDRESS, json)
       .onComplete(messageAsyncResult -> {
         handleResponseWithBody(routingContext, messageAsyncResult);
       })
@@ -138,41 +312,161 @@ public class HttpServerVerticle extends AbstractVerticle {
   }
 
   private void handleGetAllWithdrawalRequest(RoutingContext routingContext) {
+    JsonObject filter = new JsonObject();
+    String status = routingContext.request().getParam("status");
+    if (status != null) {
+      if (Arrays.stream(WithdrawalStatus.values()).noneMatch(value -> value.name().equals(status))) {
+        respondWithError(routingContext, new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "status must be one of %s".formatted(Arrays.toString(WithdrawalStatus.values()))));
+        return;
+      }
+      filter.put("status", status);
+    }
+    handleListRequest(routingContext, GET_ALL_WITHDRAWALS_REQUEST_ADDRESS, filter);
+  }
+
+  /**
+   * With a limit a single page is returned, the cursor of the following page is in the X-Next-Cursor header.
+   * Without a limit every page is streamed into one json array.
+   * @param filter fields added to every page request
+   */
+  private void handleListRequest(RoutingContext routingContext, String address, JsonObject filter) {
+    String limitParam = routingContext.request().getParam("limit");
+    String cursor = routingContext.request().getParam("cursor");
+    if (limitParam == null) {
+      routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE).setChunked(true);
+      streamPages(routingContext, address, filter, cursor, false);
+      return;
+    }
 
-    vertx.eventBus().request(GET_ALL_WITHDRAWALS_REQUEST_ADDRESS, new JsonObject())
+    int limit;
+    try {
+      limit = Integer.parseInt(limitParam);
+    } catch (NumberFormatException e) {
+      limit = 0;
+    }
+    if (limit < 1 || limit > maxPageSize) {
+      respondWithError(routingContext, new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "limit must be between 1 and %d".formatted(maxPageSize)));
+      return;
+    }
+
+    request(address, pageRequest(filter, cursor, limit))
       .onComplete(messageAsyncResult -> {
+        if (messageAsyncResult.succeeded()) {
+          String nextCursor = messageAsyncResult.result().headers().get(NEXT_CURSOR_HEADER);
+          if (nextCursor != null) {
+            routingContext.response().putHeader(NEXT_CURSOR_KEY, nextCursor);
+          }
+        }
         handleResponseWithBody(routingContext, messageAsyncResult);
       })
       .onFailure(this::handleServerError);
+  }
 
+  /**
+   * Requests the next page only once the response has room for it, so a slow client holds at most one page in memory.
+   * Only the first page passes admission: once the 200 is sent a rejection could only break the stream.
+   * @param itemsWritten whether an item was written already, the next one is preceded by a comma
+   */
+  private void streamPages(RoutingContext routingContext, String address, JsonObject filter, String cursor, boolean itemsWritten) {
+    HttpServerResponse response = routingContext.response();
+    JsonObject pageRequest = pageRequest(filter, cursor, maxPageSize);
+    Future<Message<Object>> pageReply = response.headWritten()
+      ? send(address, pageRequest, new DeliveryOptions())
+      : request(address, pageRequest);
+    pageReply
+      .onComplete(messageAsyncResult -> {
+        if (response.closed()) {
+          return;
+        }
+        if (messageAsyncResult.failed()) {
+          if (response.headWritten()) {
+            // the status is already sent, the broken array is all the client can be told
+            response.reset();
+          } else {
+            response.setChunked(false);
+            handleResponseWithBody(routingContext, messageAsyncResult);
+          }
+          return;
+        }
+
+        String page = (String) messageAsyncResult.result().body();
+        // the page is a json array, its items are appended to the one streamed array
+        String items = page.substring(1, page.length() - 1);
+        if (!response.headWritten()) {
+          response.setStatusCode(HttpResponseStatus.OK.code()).write("[");
+        }
+        boolean written = itemsWritten;
+        if (!items.isEmpty()) {
+          response.write(written ? "," + items : items);
+          written = true;
+        }
+
+        String nextCursor = messageAsyncResult.result().headers().get(NEXT_CURSOR_HEADER);
+        if (nextCursor == null) {
+          response.end("]");
+        } else if (response.writeQueueFull()) {
+          boolean pageWritten = written;
+          response.drainHandler(drained -> streamPages(routingContext, address, filter, nextCursor, pageWritten));
+        } else {
+          streamPages(routingContext, address, filter, nextCursor, written);
+        }
+      })
+      .onFailure(this::handleServerError);
   }
 
+  private static JsonObject pageRequest(JsonObject filter, String cursor, int limit) {
+    return filter.copy().put("cursor", cursor).put("limit", limit);
+  }
+
+  /**
+   * Replies are either json already encoded by the operations verticle or records encoded here, exactly once.
+   * The single resource responses skip the object mapper, see {@link ResponseJsonWriter}
+   */
   private static void handleResponseWithBody(RoutingContext routingContext, AsyncResult<Message<Object>> messageAsyncResult) {
     if(messageAsyncResult.succeeded()) {
+      Object body = messageAsyncResult.result().body();
       routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
-        .setStatusCode(HttpResponseStatus.OK.code()).end(messageAsyncResult.result().body().toString());
+        .setStatusCode(HttpResponseStatus.OK.code()).end(encodeResponseBody(body));
     } else {
       ReplyException cause = (ReplyException) messageAsyncResult.cause();
       JsonObject jsonObject = new JsonObject();
       jsonObject.put("message", cause.getMessage());
+      putRetryAfter(routingContext.response(), cause);
       routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
         .setStatusCode(cause.failureCode()).end(jsonObject.toString());
     }
   }
 
+  private static Buffer encodeResponseBody(Object body) {
+    return switch (body) {
+      case String json -> Buffer.buffer(json);
+      case WithdrawalTransaction withdrawalTransaction -> ResponseJsonWriter.write(withdrawalTransaction);
+      case WithdrawalStatusResponse withdrawalStatusResponse -> ResponseJsonWriter.write(withdrawalStatusResponse);
+      case AccountSnapshot accountSnapshot -> ResponseJsonWriter.write(accountSnapshot);
+      default -> Json.encodeToBuffer(body);
+    };
+  }
+
   private void handleCreateWithdrawalRequest(RoutingContext routingContext) {
+    long receivedNanos = System.nanoTime();
     JsonObject withdrawalRequestJson = routingContext.body().asJsonObject();
 
     WithdrawalRequest withdrawalRequest = withdrawalRequestJson.mapTo(WithdrawalRequest.class);
+    String idempotencyKey = routingContext.request().getHeader(IDEMPOTENCY_KEY_HEADER);
 
-    Optional<ErrorMessage> errorMessage = validateWithdrawalRequest(withdrawalRequest);
+    Optional<ErrorMessage> errorMessage = validateWithdrawalRequest(withdrawalRequest)
+      .or(() -> validateIdempotencyKey(idempotencyKey));
 
     if(errorMessage.isPresent()) {
       routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
         .setStatusCode(errorMessage.get().httpCode()).end(JsonObject.mapFrom(errorMessage.get()).toString());
     } else {
 
-      vertx.eventBus().request(CREATE_WITHDRAWAL_REQUEST_ADDRESS, withdrawalRequestJson)
+      DeliveryOptions deliveryOptions = new DeliveryOptions().addHeader(RECEIVED_NANOS_HEADER, Long.toString(receivedNanos));
+      if (idempotencyKey != null) {
+        deliveryOptions.addHeader(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+      }
+      request(CREATE_WITHDRAWAL_REQUEST_ADDRESS, withdrawalRequest, deliveryOptions)
         .onComplete(messageAsyncResult -> {
           handleResponseWithEmptyBody(routingContext, messageAsyncResult);
         })
@@ -180,17 +474,229 @@ public class HttpServerVerticle extends AbstractVerticle {
     }
   }
 
+  /**
+   * Accepts a json array or newline delimited json of withdrawal requests. Invalid requests are answered right away,
+   * the valid ones are sent to the operations verticle in a single message.
+   * Responds with a result per request, in the order of the requests.
+   */
+  private void handleCreateWithdrawalBatchRequest(RoutingContext routingContext) {
+    long receivedNanos = System.nanoTime();
+    List<Object> items;
+    try {
+      items = parseWithdrawalBatch(routingContext);
+    } catch (DecodeException e) {
+      respondWithError(routingContext, new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "batch must be a json array or newline delimited json"));
+      return;
+    }
+    if (items.size() > maxWithdrawalBatchSize) {
+      respondWithError(routingContext, new ErrorMessage(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code(), "batch cannot have more than %d withdrawals".formatted(maxWithdrawalBatchSize)));
+      return;
+    }
+
+    WithdrawalBatchResult[] results = new WithdrawalBatchResult[items.size()];
+    List<WithdrawalBatchItem> validItems = new ArrayList<>(items.size());
+    for (int index = 0; index < items.size(); index++) {
+      Optional<ErrorMessage> errorMessage;
+      WithdrawalRequest withdrawalRequest = null;
+      if (!(items.get(index) instanceof JsonObject itemJson)) {
+        errorMessage = Optional.of(new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "withdrawal request must be a json object"));
+      } else {
+        try {
+          withdrawalRequest = itemJson.mapTo(WithdrawalRequest.class);
+          errorMessage = validateWithdrawalRequest(withdrawalRequest);
+        } catch (IllegalArgumentException | DecodeException e) {
+          errorMessage = Optional.of(new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "withdrawal request cannot be parsed"));
+        }
+      }
+
+      if (errorMessage.isPresent()) {
+        results[index] = new WithdrawalBatchResult(index, errorMessage.get().httpCode(), null, errorMessage.get().message());
+      } else {
+        validItems.add(new WithdrawalBatchItem(index, withdrawalRequest));
+      }
+    }
+    if (validItems.isEmpty()) {
+      respondWithBatchResults(routingContext, results);
+      return;
+    }
+
+    request(CREATE_WITHDRAWAL_BATCH_REQUEST_ADDRESS, new WithdrawalBatch(validItems),
+      new DeliveryOptions().addHeader(RECEIVED_NANOS_HEADER, Long.toString(receivedNanos)))
+      .onComplete(messageAsyncResult -> {
+        if (messageAsyncResult.succeeded()) {
+          WithdrawalBatchResults createdResults = (WithdrawalBatchResults) messageAsyncResult.result().body();
+          for (WithdrawalBatchResult result : createdResults.results()) {
+            results[result.index()] = result;
+          }
+          respondWithBatchResults(routingContext, results);
+        } else {
+          ReplyException cause = (ReplyException) messageAsyncResult.cause();
+          putRetryAfter(routingContext.response(), cause);
+          respondWithError(routingContext, new ErrorMessage(cause.failureCode(), cause.getMessage()));
+        }
+      })
+      .onFailure(this::handleServerError);
+  }
+
+  /**
+   * @return the parsed items, null for a line of newline delimited json which is not a json object
+   * @throws DecodeException if a json array body cannot be parsed
+   */
+  private static List<Object> parseWithdrawalBatch(RoutingContext routingContext) {
+    String contentType = routingContext.request().getHeader(CONTENT_TYPE_KEY);
+    if (contentType == null || !contentType.startsWith(NDJSON_CONTENT_TYPE)) {
+      JsonArray array = routingContext.body().asJsonArray();
+      if (array == null) {
+        throw new DecodeException("empty body");
+      }
+      List<Object> items = new ArrayList<>(array.size());
+      for (int i = 0; i < array.size(); i++) {
+        items.add(array.getValue(i));
+      }
+      return items;
+    }
+
+    List<Object> items = new ArrayList<>();
+    for (String line : routingContext.body().asString().split("\n")) {
+      if (line.isBlank()) {
+        continue;
+      }
+      try {
+        items.add(new JsonObject(line));
+      } catch (DecodeException e) {
+        items.add(null);
+      }
+    }
+    return items;
+  }
+
+  private static void respondWithBatchResults(RoutingContext routingContext, WithdrawalBatchResult[] results) {
+    routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
+      .setStatusCode(HttpResponseStatus.OK.code()).end(Json.encode(results));
+  }
+
+  private static void respondWithError(RoutingContext routingContext, ErrorMessage errorMessage) {
+    routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
+      .setStatusCode(errorMessage.httpCode()).end(JsonObject.mapFrom(errorMessage).toString());
+  }
+
+  /**
+   * With waitFor or timeout the request is parked until the status is one of waitFor, final, or the timeout passes.
+   * Without them the current status is answered right away.
+   */
   private void handleWithdrawalStatusRequest(RoutingContext routingContext) {
     final String withdrawalIdField = "withdrawalId";
     String transactionId = routingContext.request().getParam(withdrawalIdField);
+    String waitFor = routingContext.request().getParam("waitFor");
+    String timeout = routingContext.request().getParam("timeout");
     JsonObject json = new JsonObject();
     json.put(withdrawalIdField, transactionId);
 
-    vertx.eventBus().request(GET_WITHDRAWAL_STATUS_ADDRESS, json)
+    if (waitFor == null && timeout == null) {
+      request(GET_WITHDRAWAL_STATUS_ADDRESS, json)
+        .onComplete(messageAsyncResult -> {
+          handleResponseWithBody(routingContext, messageAsyncResult);
+        })
+        .onFailure(this::handleServerError);
+      return;
+    }
+
+    UUID uuid = parseWithdrawalId(transactionId);
+    Set<WithdrawalStatus> awaitedStatuses = parseAwaitedStatuses(waitFor);
+    long timeoutMillis = parseStatusWaitMillis(timeout);
+    if (uuid == null || awaitedStatuses == null || timeoutMillis < 1) {
+      respondWithError(routingContext, new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(),
+        "withdrawal id must be a uuid, waitFor a comma separated list of %s and timeout between 1 and %d milliseconds"
+          .formatted(Arrays.toString(WithdrawalStatus.values()), maxStatusWaitMillis)));
+      return;
+    }
+
+    // subscribed before the current status is read, so a transition in between is not missed
+    WithdrawalStatusWaiter waiter = statusSubscriptions.await(uuid, awaitedStatuses, status ->
+      routingContext.response().putHeader(CONTENT_TYPE_KEY, JSON_CONTENT_TYPE)
+        .setStatusCode(HttpResponseStatus.OK.code()).end(ResponseJsonWriter.write(new WithdrawalStatusResponse(uuid, status))));
+    routingContext.response().closeHandler(closed -> waiter.cancel());
+    request(GET_WITHDRAWAL_STATUS_ADDRESS, json)
+      .onComplete(messageAsyncResult -> {
+        if (messageAsyncResult.failed()) {
+          waiter.cancel();
+          handleResponseWithBody(routingContext, messageAsyncResult);
+        } else if (waiter.park(((WithdrawalStatusResponse) messageAsyncResult.result().body()).status())) {
+          // answered waiters stay in the wheel until their timeout and are skipped then
+          statusWaiterTimeouts.schedule(waiter, currentTimeMillis() + timeoutMillis);
+        }
+      });
+  }
+
+  private static UUID parseWithdrawalId(String withdrawalId) {
+    try {
+      return UUID.fromString(withdrawalId);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the final statuses if not given, null if invalid
+   */
+  private static Set<WithdrawalStatus> parseAwaitedStatuses(String waitFor) {
+    if (waitFor == null) {
+      return EnumSet.of(WithdrawalStatus.COMPLETED, WithdrawalStatus.FAILED);
+    }
+    try {
+      Set<WithdrawalStatus> awaitedStatuses = EnumSet.noneOf(WithdrawalStatus.class);
+      for (String status : waitFor.split(",")) {
+        awaitedStatuses.add(WithdrawalStatus.valueOf(status.trim()));
+      }
+      return awaitedStatuses;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the max wait if not given, -1 if invalid
+   */
+  private long parseStatusWaitMillis(String timeout) {
+    if (timeout == null) {
+      return maxStatusWaitMillis;
+    }
+    try {
+      long timeoutMillis = Long.parseLong(timeout);
+      return timeoutMillis > maxStatusWaitMillis ? -1 : timeoutMillis;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  /**
+   * Streams the current status of the withdrawal and its later transitions as server-sent events,
+   * the stream ends with the final status
+   */
+  private void handleWithdrawalStatusEventsRequest(RoutingContext routingContext) {
+    final String withdrawalIdField = "withdrawalId";
+    String withdrawalId = routingContext.request().getParam(withdrawalIdField);
+    UUID uuid = parseWithdrawalId(withdrawalId);
+    if (uuid == null) {
+      respondWithError(routingContext, new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "invalid withdrawal id: %s".formatted(withdrawalId)));
+      return;
+    }
+
+    // subscribed before the current status is read, so a transition in between is not missed
+    WithdrawalStatusEventStream eventStream = statusSubscriptions.subscribe(uuid, routingContext.response());
+    request(GET_WITHDRAWAL_STATUS_ADDRESS, new JsonObject().put(withdrawalIdField, withdrawalId))
       .onComplete(messageAsyncResult -> {
-        handleResponseWithBody(routingContext, messageAsyncResult);
-      })
-      .onFailure(this::handleServerError);
+        if (messageAsyncResult.succeeded()) {
+          eventStream.start(((WithdrawalStatusResponse) messageAsyncResult.result().body()).status());
+        } else {
+          eventStream.cancel();
+          handleResponseWithBody(routingContext, messageAsyncResult);
+        }
+      });
   }
 
   private Optional<ErrorMessage> validateWithdrawalRequest(WithdrawalRequest withdrawalRequest) {
@@ -201,6 +707,18 @@ public class HttpServerVerticle extends AbstractVerticle {
     if(withdrawalRequest.amount().compareTo(BigDecimal.ZERO) < 1) {
       return Optional.of(new ErrorMessage(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "amount must be more than zero"));
     }
+    if(!CurrencyUnit.DEFAULT.isRepresentable(withdrawalRequest.amount())) {
+      return Optional.of(new ErrorMessage(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "amount cannot have more than %d fraction digits".formatted(CurrencyUnit.DEFAULT.scale())));
+    }
+
+    return Optional.empty();
+  }
+
+  private static Optional<ErrorMessage> validateIdempotencyKey(String idempotencyKey) {
+
+    if(idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+      return Optional.of(new ErrorMessage(HttpResponseStatus.BAD_REQUEST.code(), "%s must have 1 to %d characters".formatted(IDEMPOTENCY_KEY_HEADER, MAX_IDEMPOTENCY_KEY_LENGTH)));
+    }
 
     return Optional.empty();
   }
@@ -213,6 +731,9 @@ public class HttpServerVerticle extends AbstractVerticle {
     if(accountRequest.balance().compareTo(BigDecimal.ZERO) < 1) {
       return Optional.of(new ErrorMessage(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "balance must be more than zero"));
     }
+    if(!CurrencyUnit.DEFAULT.isRepresentable(accountRequest.balance())) {
+      return Optional.of(new ErrorMessage(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "balance cannot have more than %d fraction digits".formatted(CurrencyUnit.DEFAULT.scale())));
+    }
 
     return Optional.empty();
   }
@@ -4,117 +4,404 @@ import com.yucel.withdrawal.domain.entity.Account;
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
 import com.yucel.withdrawal.domain.model.*;
 import com.yucel.withdrawal.mapper.WithdrawalRequestMapper;
+import com.yucel.withdrawal.metrics.Gauge;
+import com.yucel.withdrawal.metrics.LatencyHistogram;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import com.yucel.withdrawal.repository.AccountRepository;
+import com.yucel.withdrawal.repository.ColumnarWithdrawalRepository;
 import com.yucel.withdrawal.repository.InMemoryAccountRepository;
 import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.repository.OffHeapAccountRepository;
+import com.yucel.withdrawal.repository.WithdrawalRepository;
+import com.yucel.withdrawal.repository.cold.ColdWithdrawalStore;
+import com.yucel.withdrawal.repository.journal.JournaledRepositories;
 import com.yucel.withdrawal.service.AccountService;
 import com.yucel.withdrawal.service.NeverlessAccountService;
 import com.yucel.withdrawal.service.NeverlessWithdrawalStoreService;
 import com.yucel.withdrawal.service.WithdrawalStoreService;
-import com.yucel.withdrawal.service.external.ExternalWithdrawalService;
+import com.yucel.withdrawal.service.admission.AdmissionController;
+import com.yucel.withdrawal.service.external.AsyncExternalWithdrawalService;
+import com.yucel.withdrawal.service.external.BoundedAsyncExternalWithdrawalService;
+import com.yucel.withdrawal.service.external.ExternalCallPolicy;
+import com.yucel.withdrawal.service.external.ExternalServiceUnavailableException;
 import com.yucel.withdrawal.service.external.ExternalWithdrawalServiceWrapper;
+import com.yucel.withdrawal.service.external.MeteredAsyncExternalWithdrawalService;
+import com.yucel.withdrawal.service.external.ResilientAsyncExternalWithdrawalService;
+import com.yucel.withdrawal.service.idempotency.IdempotencyCache;
+import com.yucel.withdrawal.service.poller.ExponentialBackoff;
+import com.yucel.withdrawal.service.poller.PendingWithdrawal;
+import com.yucel.withdrawal.service.poller.WithdrawalStatusPollScheduler;
+import com.yucel.withdrawal.service.poller.WithdrawalStatusPoller;
+import com.yucel.withdrawal.service.trace.WithdrawalTraceRecorder;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import static com.yucel.withdrawal.service.verticle.util.VerticleConfigUtil.*;
 import static com.yucel.withdrawal.service.verticle.util.VerticleConstantUtil.*;
 
 public class WithdrawalAndAccountOperationsVerticle extends AbstractVerticle {
 
-  public static final long STATUS_CHECK_INTERVAL = 1000L;
-
   private WithdrawalRequestMapper withdrawalRequestMapper;
   private AccountService accountService;
   private WithdrawalStoreService withdrawalStoreService;
-  private ExternalWithdrawalService externalWithdrawalService;
-  private ConcurrentLinkedQueue<WithdrawalTransaction> statusAwaitingWithdrawals;
+  private AsyncExternalWithdrawalService externalWithdrawalService;
+  private WithdrawalStatusPollScheduler statusAwaitingWithdrawals;
+  private WithdrawalStatusPoller statusPoller;
+  private int maxAccountAddressBytes;
+  private JournaledRepositories journaledRepositories;
+  private WorkerExecutor snapshotExecutor;
+  private InMemoryWithdrawalRepository tieredWithdrawalRepository;
+  private ColdWithdrawalStore coldWithdrawalStore;
+  private WorkerExecutor coldTierExecutor;
+  private IdempotencyCache<WithdrawalIdempotencyKey, IdempotentWithdrawal> idempotentWithdrawals;
+  private LatencyHistogram statusPollTickDuration;
+  private Gauge statusPollBacklog;
+  private Gauge accountCount;
+  private Gauge withdrawalCount;
+  private Gauge hotWithdrawalCount;
+  private Gauge coldWithdrawalCount;
+  private WithdrawalTraceRecorder withdrawalTraces;
+  private AdmissionController admissionController;
+
+  private record WithdrawalIdempotencyKey(String accountAddress, String idempotencyKey) {
+  }
+
+  /**
+   * @param request the first request with the key, a repeated key is only accepted for the same withdrawal
+   * @param result outcome of the first request once it is durable
+   */
+  private record IdempotentWithdrawal(WithdrawalRequest request, Future<WithdrawalTransaction> result) {
+
+    boolean isSameRequest(WithdrawalRequest other) {
+      return request.toAccountAddress().equals(other.toAccountAddress()) && request.amount().compareTo(other.amount()) == 0;
+    }
+  }
 
   @Override
   public void start(Promise<Void> startPromise) throws Exception {
     withdrawalRequestMapper = new WithdrawalRequestMapper();
-    accountService = new NeverlessAccountService(new InMemoryAccountRepository());
-    withdrawalStoreService = new NeverlessWithdrawalStoreService(new InMemoryWithdrawalRepository());
-    externalWithdrawalService = new ExternalWithdrawalServiceWrapper();
-    statusAwaitingWithdrawals = new ConcurrentLinkedQueue<>();
+    maxAccountAddressBytes = config().getBoolean(OFF_HEAP_ACCOUNTS, false)
+      ? config().getInteger(MAX_ACCOUNT_ADDRESS_BYTES, OffHeapAccountRepository.DEFAULT_MAX_ADDRESS_BYTES)
+      : Integer.MAX_VALUE;
+    Set<String> hotAccountAddresses = config().getJsonArray(HOT_ACCOUNT_ADDRESSES, new JsonArray()).stream()
+      .map(String.class::cast)
+      .collect(Collectors.toSet());
+    MetricsRegistry metricsRegistry = MetricsRegistry.shared(vertx);
+    // every attempt of a retried call is metered and takes its own call permit
+    externalWithdrawalService = new ResilientAsyncExternalWithdrawalService(vertx,
+      new MeteredAsyncExternalWithdrawalService(new BoundedAsyncExternalWithdrawalService(vertx,
+        new ExternalWithdrawalServiceWrapper(), config().getInteger(EXTERNAL_MAX_IN_FLIGHT_CALLS, DEFAULT_EXTERNAL_MAX_IN_FLIGHT_CALLS)),
+        metricsRegistry),
+      externalCallPolicies(), metricsRegistry);
+    long statusPollTickMillis = config().getLong(STATUS_POLL_TICK_MILLIS, DEFAULT_STATUS_POLL_TICK_MILLIS);
+    ExponentialBackoff statusPollBackoff = new ExponentialBackoff(
+      config().getLong(STATUS_POLL_INITIAL_DELAY_MILLIS, DEFAULT_STATUS_POLL_INITIAL_DELAY_MILLIS),
+      config().getDouble(STATUS_POLL_BACKOFF_MULTIPLIER, DEFAULT_STATUS_POLL_BACKOFF_MULTIPLIER),
+      config().getLong(STATUS_POLL_MAX_DELAY_MILLIS, DEFAULT_STATUS_POLL_MAX_DELAY_MILLIS));
+    statusAwaitingWithdrawals = new WithdrawalStatusPollScheduler(statusPollTickMillis, statusPollBackoff, currentTimeMillis());
+    idempotentWithdrawals = new IdempotencyCache<>(config().getInteger(IDEMPOTENCY_CACHE_SIZE, DEFAULT_IDEMPOTENCY_CACHE_SIZE),
+      config().getLong(IDEMPOTENCY_KEY_TTL_MILLIS, DEFAULT_IDEMPOTENCY_KEY_TTL_MILLIS));
+    statusPollTickDuration = metricsRegistry.histogram("withdrawal_status_poll_tick_duration_seconds", "time a status poll tick takes to dispatch the due status checks");
+    statusPoller = new WithdrawalStatusPoller(statusAwaitingWithdrawals, externalWithdrawalService,
+      Math.max(1, config().getInteger(STATUS_POLL_BATCH_SIZE, DEFAULT_STATUS_POLL_BATCH_SIZE)), this::handleWithdrawalStatusUpdate,
+      metricsRegistry.counter("withdrawal_status_polls_deferred_total", "status checks deferred because the provider could not be asked"),
+      WithdrawalAndAccountOperationsVerticle::currentTimeMillis);
+    statusPollBacklog = metricsRegistry.gauge("withdrawal_status_poll_backlog", "external withdrawals waiting for a status check");
+    accountCount = metricsRegistry.gauge("accounts", "number of accounts");
+    withdrawalCount = metricsRegistry.gauge("withdrawals", "number of withdrawals");
+    hotWithdrawalCount = metricsRegistry.gauge("withdrawal_tier_size", "withdrawals in the tier, a withdrawal being moved counts in both", "tier", "hot");
+    coldWithdrawalCount = metricsRegistry.gauge("withdrawal_tier_size", "withdrawals in the tier, a withdrawal being moved counts in both", "tier", "cold");
+    withdrawalTraces = new WithdrawalTraceRecorder(metricsRegistry,
+      config().getLong(SLOW_TRACE_THRESHOLD_MILLIS, DEFAULT_SLOW_TRACE_THRESHOLD_MILLIS),
+      config().getInteger(SLOW_TRACE_SAMPLE_SIZE, DEFAULT_SLOW_TRACE_SAMPLE_SIZE));
+    admissionController = AdmissionController.shared(vertx, config());
+
+    openRepositories(hotAccountAddresses).onComplete(opened -> {
+      if (opened.failed()) {
+        startPromise.fail(opened.cause());
+        return;
+      }
+      recoverProcessingWithdrawals();
+      registerConsumers(statusPollTickMillis);
+      startPromise.complete();
+    });
+  }
+
+  private Map<String, ExternalCallPolicy> externalCallPolicies() {
+    JsonObject policies = config().getJsonObject(EXTERNAL_CALL_POLICIES, new JsonObject());
+    Map<String, ExternalCallPolicy> policiesByOperation = new HashMap<>();
+    for (String operation : policies.fieldNames()) {
+      policiesByOperation.put(operation, ExternalCallPolicy.fromJson(policies.getJsonObject(operation)));
+    }
+    return policiesByOperation;
+  }
+
+  @Override
+  public void stop(Promise<Void> stopPromise) {
+    Future<Void> coldTierClosed = coldWithdrawalStore == null ? Future.succeededFuture() : coldTierExecutor.close()
+      .compose(closed -> vertx.<Void>executeBlocking(() -> {
+        coldWithdrawalStore.close();
+        return null;
+      }));
+    if (journaledRepositories == null) {
+      coldTierClosed.onComplete(stopPromise);
+      return;
+    }
+    coldTierClosed.compose(closed -> snapshotExecutor.close())
+      .compose(closed -> vertx.<Void>executeBlocking(() -> {
+        journaledRepositories.close();
+        return null;
+      }))
+      .onComplete(stopPromise);
+  }
+
+  /**
+   * Without a journal directory the repositories are purely in-memory, otherwise the journal is replayed
+   * into them off the event loop and every change is appended to it. With a cold tier directory old final withdrawals
+   * are moved out of memory, which the columnar withdrawals do not support.
+   */
+  private Future<Void> openRepositories(Set<String> hotAccountAddresses) {
+    String coldTierDirectory = config().getString(COLD_TIER_DIRECTORY);
+    if (config().getBoolean(COLUMNAR_WITHDRAWALS, false)) {
+      return coldTierDirectory == null
+        ? openRepositories(hotAccountAddresses, new ColumnarWithdrawalRepository())
+        : Future.failedFuture(new IllegalArgumentException("%s cannot be combined with %s".formatted(COLD_TIER_DIRECTORY, COLUMNAR_WITHDRAWALS)));
+    }
+    if (coldTierDirectory == null) {
+      return openRepositories(hotAccountAddresses, new InMemoryWithdrawalRepository());
+    }
+    return vertx.executeBlocking(() -> ColdWithdrawalStore.open(Path.of(coldTierDirectory)))
+      .compose(coldStore -> {
+        coldWithdrawalStore = coldStore;
+        tieredWithdrawalRepository = new InMemoryWithdrawalRepository(coldStore);
+        return openRepositories(hotAccountAddresses, tieredWithdrawalRepository);
+      })
+      .onSuccess(opened -> scheduleColdTierMigration());
+  }
+
+  private Future<Void> openRepositories(Set<String> hotAccountAddresses, WithdrawalRepository withdrawalRepository) {
+    AccountRepository accountRepository = config().getBoolean(OFF_HEAP_ACCOUNTS, false)
+      ? new OffHeapAccountRepository(hotAccountAddresses, config().getInteger(INITIAL_ACCOUNT_CAPACITY, DEFAULT_INITIAL_ACCOUNT_CAPACITY), maxAccountAddressBytes)
+      : new InMemoryAccountRepository(hotAccountAddresses);
+    String journalDirectory = config().getString(JOURNAL_DIRECTORY);
+    if (journalDirectory == null) {
+      accountService = new NeverlessAccountService(accountRepository);
+      withdrawalStoreService = new NeverlessWithdrawalStoreService(withdrawalRepository);
+      return Future.succeededFuture();
+    }
+
+    long segmentBytes = config().getLong(JOURNAL_SEGMENT_BYTES, DEFAULT_JOURNAL_SEGMENT_BYTES);
+    return vertx.executeBlocking(() -> JournaledRepositories.open(Path.of(journalDirectory), segmentBytes, accountRepository, withdrawalRepository))
+      .map(repositories -> {
+        journaledRepositories = repositories;
+        accountService = new NeverlessAccountService(repositories.accountRepository());
+        withdrawalStoreService = new NeverlessWithdrawalStoreService(repositories.withdrawalRepository());
+        scheduleSnapshots();
+        return null;
+      });
+  }
+
+  /**
+   * Snapshots are built on a single dedicated worker, so a long snapshot neither blocks the event loop
+   * nor holds one of the shared worker threads, and two snapshots never run at once
+   */
+  private void scheduleSnapshots() {
+    snapshotExecutor = vertx.createSharedWorkerExecutor("withdrawal-journal-snapshot", 1, Long.MAX_VALUE);
+    int partitions = Runtime.getRuntime().availableProcessors();
+    vertx.setPeriodic(config().getLong(SNAPSHOT_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_INTERVAL_MILLIS), timerId ->
+      snapshotExecutor.executeBlocking(() -> journaledRepositories.snapshot(partitions))
+        .onFailure(throwable -> System.out.println("journal snapshot failed: " + throwable.getMessage())));
+  }
+
+  /**
+   * Old final withdrawals are moved on a single dedicated worker like the snapshots, their segments are written
+   * and merged off the event loop
+   */
+  private void scheduleColdTierMigration() {
+    coldTierExecutor = vertx.createSharedWorkerExecutor("withdrawal-cold-tier", 1, Long.MAX_VALUE);
+    long minAgeMillis = config().getLong(COLD_TIER_MIN_AGE_MILLIS, DEFAULT_COLD_TIER_MIN_AGE_MILLIS);
+    vertx.setPeriodic(config().getLong(COLD_TIER_MIGRATION_INTERVAL_MILLIS, DEFAULT_COLD_TIER_MIGRATION_INTERVAL_MILLIS), timerId ->
+      coldTierExecutor.executeBlocking(() -> tieredWithdrawalRepository.migrateToColdStore(currentTimeMillis() - minAgeMillis))
+        .onFailure(throwable -> System.out.println("cold tier migration failed: " + throwable.getMessage())));
+  }
+
+  /**
+   * Withdrawals still PROCESSING after a restart: external ones lost their place in the status poller and are checked again.
+   * The balance changes of an internal withdrawal are journaled in one record with its final status, so one still
+   * PROCESSING had none of them applied, it is reversed by failing it.
+   * They are paged through the status index, the final withdrawals, hot or cold, are never read.
+   */
+  private void recoverProcessingWithdrawals() {
+    long now = currentTimeMillis();
+    int pageSize = config().getInteger(MAX_PAGE_SIZE, DEFAULT_MAX_PAGE_SIZE);
+    String cursor = null;
+    do {
+      Page<WithdrawalTransaction> page = withdrawalStoreService.getWithdrawalPageByStatus(WithdrawalStatus.PROCESSING, cursor, pageSize);
+      for (WithdrawalTransaction withdrawalTransaction : page.items()) {
+        if (withdrawalTransaction.external()) {
+          statusAwaitingWithdrawals.schedule(withdrawalTransaction, now);
+          admissionController.acquireExternalWithdrawal();
+        } else {
+          System.out.println("internal withdrawal %s was interrupted, it is failed".formatted(withdrawalTransaction.id()));
+          withdrawalStoreService.saveWithdrawal(withdrawalTransaction.changeStatus(WithdrawalStatus.FAILED));
+        }
+      }
+      cursor = page.nextCursor();
+    } while (cursor != null);
+  }
 
+  private void registerConsumers(long statusPollTickMillis) {
     vertx.eventBus().consumer(GET_WITHDRAWAL_STATUS_ADDRESS).handler(this::handleGetWithdrawalStatus);
     vertx.eventBus().consumer(CREATE_WITHDRAWAL_REQUEST_ADDRESS).handler(this::handleCreateWithdrawalRequest);
+    vertx.eventBus().consumer(CREATE_WITHDRAWAL_BATCH_REQUEST_ADDRESS).handler(this::handleCreateWithdrawalBatchRequest);
     vertx.eventBus().consumer(GET_WITHDRAWAL_BY_ID_REQUEST_ADDRESS).handler(this::handleGetWithdrawalByIdRequest);
     vertx.eventBus().consumer(GET_ALL_WITHDRAWALS_REQUEST_ADDRESS).handler(this::handleGetAllWithdrawalsRequest);
     vertx.eventBus().consumer(GET_ALL_ACCOUNTS_REQUEST_ADDRESS).handler(this::handleGetAllAccountsRequest);
     vertx.eventBus().consumer(CREATE_ACCOUNT_REQUEST_ADDRESS).handler(this::handleCreateAccountRequest);
     vertx.eventBus().consumer(UPDATE_ACCOUNT_BALANCE_REQUEST_ADDRESS).handler(this::handleUpdateAccountBalanceRequest);
     vertx.eventBus().consumer(GET_ACCOUNT_BY_ADDRESS_REQUEST_ADDRESS).handler(this::handleGetAccountByAddressRequest);
+    vertx.eventBus().consumer(GET_ACCOUNT_WITHDRAWALS_REQUEST_ADDRESS).handler(this::handleGetAccountWithdrawalsRequest);
+    vertx.eventBus().consumer(GET_SLOW_WITHDRAWAL_TRACES_REQUEST_ADDRESS).handler(message -> message.reply(Json.encode(withdrawalTraces.slowTraces())));
 
 
-    vertx.setPeriodic(STATUS_CHECK_INTERVAL, timerId -> handleWithdrawalStatusUpdates());
+    vertx.setPeriodic(statusPollTickMillis, timerId -> {
+      handleWithdrawalStatusUpdates();
+      updateGauges();
+    });
+  }
 
-    startPromise.complete();
+  /**
+   * The gauges are set on the poll tick, the structures they measure are confined to this context
+   */
+  private void updateGauges() {
+    statusPollBacklog.set(statusAwaitingWithdrawals.size());
+    accountCount.set(accountService.countAccounts());
+    withdrawalCount.set(withdrawalStoreService.countWithdrawals());
+    if (tieredWithdrawalRepository != null) {
+      hotWithdrawalCount.set(tieredWithdrawalRepository.hotCount());
+      coldWithdrawalCount.set(coldWithdrawalStore.count());
+    }
   }
 
   /**
-   * This method handles periodic status checks. If the withdrawal COMPLETED updates the state,
-   * if it failed or we get an error it marks it as FAILED
-   * and returns the amount back to the balance
+   * Completes once every change made so far is durable. Concurrent requests waiting here share one fsync of the journal.
    */
-  private void handleWithdrawalStatusUpdates() {
-    statusAwaitingWithdrawals.removeIf(withdrawalTransaction -> {
-      WithdrawalStatus status = null;
-      boolean withdrawalDoesNotExist = false;
-      boolean unknownExternalServiceError = false;
-      try {
-        status = externalWithdrawalService.getRequestState(withdrawalTransaction.id());
-      } catch (IllegalArgumentException argumentException) {
-        withdrawalDoesNotExist = true;
-      } catch (Exception e) {
-        unknownExternalServiceError = true;
+  private Future<Void> changesDurable() {
+    return Future.all(
+        Future.fromCompletionStage(accountService.flush(), context),
+        Future.fromCompletionStage(withdrawalStoreService.flush(), context))
+      .mapEmpty();
+  }
+
+  private void replyWhenDurable(Message<Object> message, Object reply) {
+    changesDurable().onComplete(durable -> {
+      if (durable.succeeded()) {
+        message.reply(reply);
+      } else {
+        message.fail(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), durable.cause().getMessage());
       }
+    });
+  }
 
-      if (WithdrawalStatus.COMPLETED.equals(status)) {
+  /**
+   * This method handles periodic status checks. Only the withdrawals whose next check is due are visited,
+   * their statuses are requested from the provider in batches without blocking the event loop.
+   * A batch the provider could not be asked for, after the retries or with an open circuit, is checked again later.
+   */
+  private void handleWithdrawalStatusUpdates() {
+    long startNanos = System.nanoTime();
+    statusPoller.poll();
+    statusPollTickDuration.recordSince(startNanos);
+  }
 
-        withdrawalStoreService.saveWithdrawal(withdrawalTransaction.changeStatus(status));
-        return true;
-      } else if (WithdrawalStatus.FAILED.equals(status) || withdrawalDoesNotExist || unknownExternalServiceError) {
-        // fail and correct balance
-        withdrawalStoreService.saveWithdrawal(withdrawalTransaction.changeStatus(WithdrawalStatus.FAILED));
-        accountService.depositToAccount(withdrawalTransaction.fromAccountAddress().address(), withdrawalTransaction.amount().amount());
-        return true;
-      } else {
-        return false;
+  /**
+   * If the withdrawal COMPLETED updates the state,
+   * if it FAILED it marks it as FAILED
+   * and returns the amount back to the balance,
+   * if it is still processing the next check is scheduled with a longer delay
+   */
+  private void handleWithdrawalStatusUpdate(PendingWithdrawal pendingWithdrawal, WithdrawalStatus status) {
+    WithdrawalTransaction withdrawalTransaction = pendingWithdrawal.withdrawalTransaction();
+
+    if (WithdrawalStatus.COMPLETED.equals(status)) {
+
+      saveStatusChange(withdrawalTransaction.changeStatus(status));
+      admissionController.releaseExternalWithdrawal(currentTimeMillis());
+    } else if (WithdrawalStatus.FAILED.equals(status)) {
+      // fail and correct balance, journaled as one record
+      atomically(() -> {
+        saveStatusChange(withdrawalTransaction.changeStatus(WithdrawalStatus.FAILED));
+        return accountService.depositToAccount(withdrawalTransaction.fromAccountAddress().address(), withdrawalTransaction.amount().amount());
+      });
+      admissionController.releaseExternalWithdrawal(currentTimeMillis());
+    } else {
+      statusAwaitingWithdrawals.reschedule(pendingWithdrawal, currentTimeMillis());
+    }
+  }
+
+  /**
+   * Saves the withdrawal with its new status and publishes the change to the status subscribers once it is durable.
+   * A final status finishes the trace of the withdrawal.
+   */
+  private void saveStatusChange(WithdrawalTransaction changedWithdrawal) {
+    withdrawalStoreService.saveWithdrawal(changedWithdrawal);
+    WithdrawalStatusResponse statusChange = new WithdrawalStatusResponse(changedWithdrawal.id(), changedWithdrawal.status());
+    changesDurable().onSuccess(durable -> {
+      if (statusChange.status().isFinal()) {
+        withdrawalTraces.finish(statusChange.withdrawalId(), statusChange.status());
       }
+      vertx.eventBus().publish(WITHDRAWAL_STATUS_CHANGED_ADDRESS, statusChange);
     });
   }
 
+  private static long currentTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
   private void handleGetAccountByAddressRequest(Message<Object> message) {
-    JsonObject messageJson = (JsonObject) message.body();
-    TransferAddress transferAddress = messageJson.mapTo(TransferAddress.class);
+    TransferAddress transferAddress = (TransferAddress) message.body();
 
     Optional<Account> accountByAddress = accountService.getAccountByAddress(transferAddress.address());
 
     if (accountByAddress.isPresent()) {
-      message.reply(JsonObject.mapFrom(accountByAddress.get()));
+      message.reply(AccountSnapshot.of(accountByAddress.get()));
     } else {
       message.fail(HttpResponseStatus.NOT_FOUND.code(), "account with address: %s does not exist".formatted(transferAddress.address()));
     }
   }
 
   private void handleUpdateAccountBalanceRequest(Message<Object> message) {
-    JsonObject messageJson = (JsonObject) message.body();
-    AccountRequest accountRequest = messageJson.mapTo(AccountRequest.class);
+    AccountRequest accountRequest = (AccountRequest) message.body();
 
     boolean isValid = validateUpdateAccountRequest(message, accountRequest);
 
     if (isValid) {
-      Account account = accountService.depositToAccount(accountRequest.address(), accountRequest.balance());
-      message.reply(JsonObject.mapFrom(account));
+      Account account = accountService.depositToAccount(accountRequest.address(), CurrencyUnit.DEFAULT.toMinorUnits(accountRequest.balance()));
+      replyWhenDurable(message, AccountSnapshot.of(account));
     }
   }
 
@@ -123,22 +410,30 @@ public class WithdrawalAndAccountOperationsVerticle extends AbstractVerticle {
     if (!accountExists) {
       message.fail(HttpResponseStatus.NOT_FOUND.code(), "account with address: %s not found".formatted(accountRequest.address()));
       return false;
-    } else if (accountRequest.balance().compareTo(BigDecimal.ZERO) < 1) {
+    } else if (accountRequest.balance().signum() < 1) {
       message.fail(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "update balance amount cannot be negative or zero");
       return false;
+    } else if (!CurrencyUnit.DEFAULT.isRepresentable(accountRequest.balance())) {
+      message.fail(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "update balance amount cannot have more than %d fraction digits".formatted(CurrencyUnit.DEFAULT.scale()));
+      return false;
     }
     return true;
   }
 
   private void handleCreateAccountRequest(Message<Object> message) {
-    JsonObject messageJson = (JsonObject) message.body();
-    Account account = messageJson.mapTo(Account.class);
+    AccountRequest accountRequest = (AccountRequest) message.body();
+    Account account = new Account(accountRequest.address(), CurrencyUnit.DEFAULT.toMinorUnits(accountRequest.balance()));
+    // checked before the account is journaled, the off-heap repository reserves a fixed size per address
+    if (accountRequest.address().getBytes(StandardCharsets.UTF_8).length > maxAccountAddressBytes) {
+      message.fail(HttpResponseStatus.BAD_REQUEST.code(), "account address cannot be longer than %d bytes".formatted(maxAccountAddressBytes));
+      return;
+    }
 
     boolean hasFailed = failIfAccountAlreadyExists(message, account);
 
     if (!hasFailed) {
       accountService.createAccount(account);
-      message.reply("account created");
+      replyWhenDurable(message, "account created");
     }
   }
 
@@ -153,17 +448,55 @@ public class WithdrawalAndAccountOperationsVerticle extends AbstractVerticle {
   }
 
   private void handleGetAllAccountsRequest(Message<Object> message) {
-    List<Account> allAccounts = accountService.getAllAccounts();
-    String encoded = Json.encode(allAccounts);
+    JsonObject pageRequest = (JsonObject) message.body();
 
-    message.reply(encoded);
+    try {
+      replyPage(message, accountService.getAccountPage(pageRequest.getString("cursor"), pageRequest.getInteger("limit")));
+    } catch (IllegalArgumentException e) {
+      message.fail(HttpResponseStatus.BAD_REQUEST.code(), e.getMessage());
+    }
   }
 
   private void handleGetAllWithdrawalsRequest(Message<Object> message) {
+    JsonObject pageRequest = (JsonObject) message.body();
+
+    String status = pageRequest.getString("status");
+    String cursor = pageRequest.getString("cursor");
+    int limit = pageRequest.getInteger("limit");
+
+    try {
+      replyPage(message, status == null
+        ? withdrawalStoreService.getWithdrawalPage(cursor, limit)
+        : withdrawalStoreService.getWithdrawalPageByStatus(WithdrawalStatus.valueOf(status), cursor, limit));
+    } catch (IllegalArgumentException e) {
+      message.fail(HttpResponseStatus.BAD_REQUEST.code(), e.getMessage());
+    }
+  }
 
-    List<WithdrawalTransaction> allWithdrawals = withdrawalStoreService.getAllWithdrawals();
-    String encoded = Json.encode(allWithdrawals);
-    message.reply(encoded);
+  private void handleGetAccountWithdrawalsRequest(Message<Object> message) {
+    JsonObject pageRequest = (JsonObject) message.body();
+    String address = pageRequest.getString("address");
+
+    if (!accountService.checkIfAccountExists(address)) {
+      message.fail(HttpResponseStatus.NOT_FOUND.code(), "account with address: %s does not exist".formatted(address));
+      return;
+    }
+    try {
+      replyPage(message, withdrawalStoreService.getWithdrawalPageByAccountAddress(address, pageRequest.getString("cursor"), pageRequest.getInteger("limit")));
+    } catch (IllegalArgumentException e) {
+      message.fail(HttpResponseStatus.BAD_REQUEST.code(), e.getMessage());
+    }
+  }
+
+  /**
+   * Replies the items as a json array, the cursor of the following page travels in a delivery header
+   */
+  private static void replyPage(Message<Object> message, Page<?> page) {
+    DeliveryOptions deliveryOptions = new DeliveryOptions();
+    if (page.nextCursor() != null) {
+      deliveryOptions.addHeader(NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+    message.reply(Json.encode(page.items()), deliveryOptions);
   }
 
   private void handleGetWithdrawalByIdRequest(Message<Object> message) {
@@ -177,92 +510,259 @@ public class WithdrawalAndAccountOperationsVerticle extends AbstractVerticle {
       } else {
 
         Optional<WithdrawalTransaction> withdrawalTransaction = withdrawalStoreService.getWithdrawalTransactionById(uuid);
-        withdrawalTransaction.ifPresent(transaction -> message.reply(JsonObject.mapFrom(transaction)));
+        withdrawalTransaction.ifPresent(message::reply);
       }
     } catch (Exception e) {
       message.fail(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), e.getMessage());
     }
   }
 
+  /**
+   * A request carrying an idempotency key already seen for the account is answered with the result of the first one,
+   * waiting for it if it is still running, without running the withdrawal again. Server errors and rejections are not kept,
+   * a retry with the key runs the withdrawal.
+   */
   private void handleCreateWithdrawalRequest(Message<Object> message) {
 
-    JsonObject messageJson = (JsonObject) message.body();
-    WithdrawalRequest withdrawalRequest = messageJson.mapTo(WithdrawalRequest.class);
+    WithdrawalRequest withdrawalRequest = (WithdrawalRequest) message.body();
+    long receivedNanos = receivedNanos(message);
+    String idempotencyKey = message.headers().get(IDEMPOTENCY_KEY_HEADER);
+    if (idempotencyKey == null) {
+      createDurableWithdrawal(withdrawalRequest, receivedNanos).onComplete(withdrawalResult -> replyWithdrawalResult(message, withdrawalResult));
+      return;
+    }
 
-    WithdrawalTransaction withdrawalTransaction = withdrawalRequestMapper.mapToWithdrawalTransaction(withdrawalRequest);
+    WithdrawalIdempotencyKey key = new WithdrawalIdempotencyKey(withdrawalRequest.fromAccountAddress(), idempotencyKey);
+    Promise<WithdrawalTransaction> withdrawalPromise = Promise.promise();
+    IdempotentWithdrawal withdrawal = new IdempotentWithdrawal(withdrawalRequest, withdrawalPromise.future());
+    IdempotentWithdrawal firstWithdrawal = idempotentWithdrawals.putIfAbsent(key, withdrawal, currentTimeMillis());
+    if (firstWithdrawal != null) {
+      if (!firstWithdrawal.isSameRequest(withdrawalRequest)) {
+        message.fail(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), "idempotency key %s was used for a different withdrawal".formatted(idempotencyKey));
+        return;
+      }
+      firstWithdrawal.result().onComplete(withdrawalResult -> replyWithdrawalResult(message, withdrawalResult));
+      return;
+    }
 
-    String fromAccountAddress = withdrawalRequest.fromAccountAddress();
-    if (!accountService.checkIfAccountExists(fromAccountAddress)) {
+    createDurableWithdrawal(withdrawalRequest, receivedNanos).onComplete(withdrawalResult -> {
+      if (withdrawalResult.failed() && isRetryable(toReplyException(withdrawalResult.cause()))) {
+        idempotentWithdrawals.remove(key, withdrawal);
+      }
+      withdrawalPromise.handle(withdrawalResult);
+      replyWithdrawalResult(message, withdrawalResult);
+    });
+  }
+
+  /**
+   * failures are rolled back, the rollback has to be durable before replying too
+   */
+  private Future<WithdrawalTransaction> createDurableWithdrawal(WithdrawalRequest withdrawalRequest, long receivedNanos) {
+    return createWithdrawal(withdrawalRequest, receivedNanos)
+      .transform(withdrawalResult -> changesDurable().compose(durable -> withdrawalResult.succeeded()
+        ? Future.succeededFuture(withdrawalResult.result())
+        : Future.<WithdrawalTransaction>failedFuture(withdrawalResult.cause())));
+  }
 
-      message.fail(HttpResponseStatus.NOT_FOUND.code(), "account with address %s not found".formatted(fromAccountAddress));
+  private static void replyWithdrawalResult(Message<Object> message, AsyncResult<WithdrawalTransaction> withdrawalResult) {
+    if (withdrawalResult.succeeded()) {
+      message.reply("withdrawal succeeded");
     } else {
-      // if the recipient is not in our accounts we will use external service
-      String toAccountAddress = withdrawalRequest.toAccountAddress();
-      if (!accountService.checkIfAccountExists(toAccountAddress)) {
-        // handle external
-        TransactionChainTracer transactionChainTracer = new TransactionChainTracer();
+      ReplyException failure = toReplyException(withdrawalResult.cause());
+      message.fail(failure.failureCode(), failure.getMessage());
+    }
+  }
 
-        try {
-          externalWithdrawalOperations(withdrawalTransaction, transactionChainTracer, withdrawalRequest);
-          message.reply("withdrawal succeeded");
-        } catch (IllegalStateException stateException) {
+  /**
+   * Runs every withdrawal of the batch and replies with their results once all of them are durable,
+   * so the whole batch costs a single journal flush
+   */
+  private void handleCreateWithdrawalBatchRequest(Message<Object> message) {
+    WithdrawalBatch withdrawalBatch = (WithdrawalBatch) message.body();
+    long receivedNanos = receivedNanos(message);
+    List<Future<WithdrawalBatchResult>> results = new ArrayList<>(withdrawalBatch.items().size());
+    for (WithdrawalBatchItem item : withdrawalBatch.items()) {
+      results.add(createWithdrawal(item.request(), receivedNanos)
+        .map(withdrawal -> new WithdrawalBatchResult(item.index(), HttpResponseStatus.CREATED.code(), withdrawal.id(), null))
+        .otherwise(throwable -> {
+          ReplyException failure = toReplyException(throwable);
+          return new WithdrawalBatchResult(item.index(), failure.failureCode(), null, failure.getMessage());
+        }));
+    }
 
-          message.fail(HttpResponseStatus.CONFLICT.code(), stateException.getMessage());
-        } catch (IllegalArgumentException exception) {
+    Future.all(results).compose(allCompleted -> changesDurable()).onComplete(durable -> {
+      if (durable.succeeded()) {
+        message.reply(new WithdrawalBatchResults(results.stream().map(Future::result).toList()));
+      } else {
+        message.fail(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), durable.cause().getMessage());
+      }
+    });
+  }
 
-          message.fail(HttpResponseStatus.UNPROCESSABLE_ENTITY.code(), exception.getMessage());
-        } catch (Exception e) {
+  /**
+   * Runs the internal or external withdrawal chain and rolls back what was done if the chain breaks.
+   * An external withdrawal over the limit of pending ones is rejected with 429.
+   * @param withdrawalRequest validated request
+   * @param receivedNanos {@link System#nanoTime()} the request arrived at the http server, the trace starts there
+   * @return the withdrawal, or a ReplyException carrying the http status on failure
+   */
+  private Future<WithdrawalTransaction> createWithdrawal(WithdrawalRequest withdrawalRequest, long receivedNanos) {
+    String fromAccountAddress = withdrawalRequest.fromAccountAddress();
+    if (!accountService.checkIfAccountExists(fromAccountAddress)) {
 
-          message.fail(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), e.getMessage());
-        } finally {
+      return Future.failedFuture(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, HttpResponseStatus.NOT_FOUND.code(), "account with address %s not found".formatted(fromAccountAddress)));
+    }
 
-          rollbackStatesAndFailIfChainIsBroken(transactionChainTracer, withdrawalTransaction, withdrawalRequest);
-        }
-      } else {
-        // handle internal
-        TransactionChainTracer transactionChainTracer = new TransactionChainTracer();
-
-        try {
-          internalWithdrawOperations(withdrawalTransaction, transactionChainTracer, withdrawalRequest);
-          message.reply("withdrawal succeeded");
-        } catch (Exception e) {
-          message.fail(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), e.getMessage());
-        } finally {
-          rollbackStatesAndFailIfChainIsBroken(transactionChainTracer, withdrawalTransaction, withdrawalRequest);
-        }
-      }
+    // if the recipient is not in our accounts we will use external service
+    boolean external = !accountService.checkIfAccountExists(withdrawalRequest.toAccountAddress());
+    WithdrawalTransaction withdrawalTransaction = withdrawalRequestMapper.mapToWithdrawalTransaction(withdrawalRequest, external);
+    // rejected before anything is changed, the backlog of the status poller stays bounded
+    if (external && !admissionController.tryAcquireExternalWithdrawal()) {
+      return Future.failedFuture(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, HttpResponseStatus.TOO_MANY_REQUESTS.code(),
+        "too many external withdrawals in progress, retry later"));
     }
+    TransactionChainTracer transactionChainTracer = new TransactionChainTracer(external, receivedNanos);
+    transactionChainTracer.mark(TransactionChainTracer.Stage.VALIDATED);
+    withdrawalTraces.open(withdrawalTransaction.id(), transactionChainTracer);
+    Future<WithdrawalTransaction> withdrawalChain;
+    try {
+      withdrawalChain = external
+        ? externalWithdrawalOperations(withdrawalTransaction, transactionChainTracer)
+        : internalWithdrawOperations(withdrawalTransaction, transactionChainTracer);
+    } catch (RuntimeException rollbackFailure) {
+      // only a failing rollback escapes the chains, e.g. once the journal is closed
+      withdrawalChain = Future.failedFuture(rollbackFailure);
+    }
+
+    // the chains roll back what they did themselves, in the same journal record as the changes
+    return withdrawalChain.recover(throwable -> {
+      if (external) {
+        admissionController.releaseExternalWithdrawal(currentTimeMillis());
+      }
+      return Future.failedFuture(toReplyException(throwable));
+    });
+  }
+
+  /**
+   * @return when the request arrived at the http server, or now if it was sent without the header
+   */
+  private static long receivedNanos(Message<Object> message) {
+    String receivedNanos = message.headers().get(RECEIVED_NANOS_HEADER);
+    return receivedNanos == null ? System.nanoTime() : Long.parseLong(receivedNanos);
+  }
+
+  private static boolean isRetryable(ReplyException failure) {
+    return failure.failureCode() >= HttpResponseStatus.INTERNAL_SERVER_ERROR.code()
+      || failure.failureCode() == HttpResponseStatus.TOO_MANY_REQUESTS.code();
   }
 
-  private void rollbackStatesAndFailIfChainIsBroken(TransactionChainTracer transactionChainTracer, WithdrawalTransaction withdrawalTransaction, WithdrawalRequest withdrawalRequest) {
-    if (!transactionChainTracer.isWithdrawalPersisted()) {
-      withdrawalStoreService.saveWithdrawal(withdrawalTransaction.changeStatus(WithdrawalStatus.FAILED));
+  private static ReplyException toReplyException(Throwable throwable) {
+    if (throwable instanceof ReplyException replyException) {
+      return replyException;
     }
-    if (!transactionChainTracer.isBalanceCorrected()) {
-      accountService.depositToAccount(withdrawalRequest.fromAccountAddress(), withdrawalRequest.amount());
+    int failureCode;
+    if (throwable instanceof ExternalServiceUnavailableException) {
+      failureCode = HttpResponseStatus.SERVICE_UNAVAILABLE.code();
+    } else if (throwable instanceof IllegalStateException) {
+      failureCode = HttpResponseStatus.CONFLICT.code();
+    } else if (throwable instanceof IllegalArgumentException) {
+      failureCode = HttpResponseStatus.UNPROCESSABLE_ENTITY.code();
+    } else {
+      failureCode = HttpResponseStatus.INTERNAL_SERVER_ERROR.code();
     }
+    return new ReplyException(ReplyFailure.RECIPIENT_FAILURE, failureCode, throwable.getMessage());
   }
 
-  private void internalWithdrawOperations(WithdrawalTransaction withdrawalTransaction, TransactionChainTracer transactionChainTracer, WithdrawalRequest withdrawalRequest) {
-    withdrawalStoreService.saveWithdrawal(withdrawalTransaction);
-    transactionChainTracer.setWithdrawalPersisted(true);
+  /**
+   * Marks the broken withdrawal as FAILED and pays the amount back if it was debited but did not reach its destination.
+   * Both are journaled as one record.
+   */
+  private void rollbackStatesAndFailIfChainIsBroken(TransactionChainTracer transactionChainTracer, WithdrawalTransaction withdrawalTransaction) {
+    atomically(() -> {
+      saveStatusChange(withdrawalTransaction.changeStatus(WithdrawalStatus.FAILED));
+      if (transactionChainTracer.isBalanceDebited() && !transactionChainTracer.isBalanceCorrected()) {
+        accountService.depositToAccount(withdrawalTransaction.fromAccountAddress().address(), withdrawalTransaction.amount().amount());
+      }
+      return null;
+    });
+  }
 
-    accountService.withdrawFromAccount(withdrawalRequest.fromAccountAddress(), withdrawalRequest.amount());
-    accountService.depositToAccount(withdrawalRequest.toAccountAddress(), withdrawalRequest.amount());
-    transactionChainTracer.setBalanceCorrected(true);
+  /**
+   * Runs the operation, with journaled repositories its changes are written as one record replayed whole or not at all
+   */
+  private <T> T atomically(Supplier<T> operation) {
+    return journaledRepositories == null ? operation.get() : journaledRepositories.atomically(operation);
+  }
 
-    withdrawalStoreService.saveWithdrawal(withdrawalTransaction.changeStatus(WithdrawalStatus.COMPLETED));
+  /**
+   * The transfer, or its rollback if it breaks, is journaled as one record so a crash never leaves it half applied
+   */
+  private Future<WithdrawalTransaction> internalWithdrawOperations(WithdrawalTransaction withdrawalTransaction, TransactionChainTracer transactionChainTracer) {
+    return atomically(() -> {
+      try {
+        withdrawalStoreService.saveWithdrawal(withdrawalTransaction);
+        transactionChainTracer.mark(TransactionChainTracer.Stage.PERSISTED);
+
+        accountService.withdrawFromAccount(withdrawalTransaction.fromAccountAddress().address(), withdrawalTransaction.amount().amount());
+        transactionChainTracer.mark(TransactionChainTracer.Stage.BALANCE_DEBITED);
+        accountService.depositToAccount(withdrawalTransaction.toAccountAddress().address(), withdrawalTransaction.amount().amount());
+        transactionChainTracer.mark(TransactionChainTracer.Stage.BALANCE_CREDITED);
+
+        WithdrawalTransaction completedWithdrawal = withdrawalTransaction.changeStatus(WithdrawalStatus.COMPLETED);
+        saveStatusChange(completedWithdrawal);
+        return Future.succeededFuture(completedWithdrawal);
+      } catch (Exception e) {
+        rollbackStatesAndFailIfChainIsBroken(transactionChainTracer, withdrawalTransaction);
+        return Future.failedFuture(e);
+      }
+    });
   }
 
-  private void externalWithdrawalOperations(WithdrawalTransaction withdrawalTransaction, TransactionChainTracer transactionChainTracer, WithdrawalRequest withdrawalRequest) {
-    externalWithdrawalService.requestExternalWithdrawal(withdrawalTransaction.id(), withdrawalTransaction.toAccountAddress().address(), withdrawalTransaction.amount().amount());
-    withdrawalStoreService.saveWithdrawal(withdrawalTransaction);
-    transactionChainTracer.setWithdrawalPersisted(true);
+  /**
+   * The amount is debited before the provider is called, so an insufficient balance never reaches the provider.
+   * Only a withdrawal the provider refused is rolled back. If the outcome of the request is unknown the provider
+   * may have accepted it, so the withdrawal stays PROCESSING and the status poller settles it: a withdrawal
+   * the provider does not know is failed and refunded there. The withdrawal is journaled in one record with its debit,
+   * or with its rollback if the debit fails.
+   */
+  private Future<WithdrawalTransaction> externalWithdrawalOperations(WithdrawalTransaction withdrawalTransaction, TransactionChainTracer transactionChainTracer) {
+    Future<WithdrawalTransaction> debited = atomically(() -> {
+      try {
+        withdrawalStoreService.saveWithdrawal(withdrawalTransaction);
+        transactionChainTracer.mark(TransactionChainTracer.Stage.PERSISTED);
+
+        accountService.withdrawFromAccount(withdrawalTransaction.fromAccountAddress().address(), withdrawalTransaction.amount().amount());
+        transactionChainTracer.mark(TransactionChainTracer.Stage.BALANCE_DEBITED);
+        return Future.succeededFuture(withdrawalTransaction);
+      } catch (Exception e) {
+        rollbackStatesAndFailIfChainIsBroken(transactionChainTracer, withdrawalTransaction);
+        return Future.failedFuture(e);
+      }
+    });
 
-    accountService.withdrawFromAccount(withdrawalRequest.fromAccountAddress(), withdrawalRequest.amount());
-    transactionChainTracer.setBalanceCorrected(true);
+    return debited.compose(persisted -> externalWithdrawalService.requestExternalWithdrawal(withdrawalTransaction.id(), withdrawalTransaction.toAccountAddress().address(), withdrawalTransaction.amount().amount())
+      .transform(requested -> {
+        if (requested.failed() && isNotPaidOut(requested.cause())) {
+          rollbackStatesAndFailIfChainIsBroken(transactionChainTracer, withdrawalTransaction);
+          return Future.failedFuture(requested.cause());
+        }
+        if (requested.succeeded()) {
+          transactionChainTracer.mark(TransactionChainTracer.Stage.EXTERNAL_REQUESTED);
+        } else {
+          System.out.println("outcome of external withdrawal %s is unknown, it is settled by the status poller: %s".formatted(withdrawalTransaction.id(), requested.cause().getMessage()));
+        }
+        statusAwaitingWithdrawals.schedule(withdrawalTransaction, currentTimeMillis());
+        return Future.succeededFuture(withdrawalTransaction);
+      }));
+  }
 
-    statusAwaitingWithdrawals.add(withdrawalTransaction);
+  /**
+   * @return whether the failed withdrawal request is known not to be paid out:
+   * the provider answered it with a refusal, or it was rejected without reaching the provider
+   */
+  private static boolean isNotPaidOut(Throwable throwable) {
+    return throwable instanceof IllegalArgumentException || throwable instanceof IllegalStateException
+      || throwable instanceof ExternalServiceUnavailableException;
   }
 
   private void handleGetWithdrawalStatus(Message<Object> message) {
@@ -279,7 +779,7 @@ public class WithdrawalAndAccountOperationsVerticle extends AbstractVerticle {
         Optional<WithdrawalStatus> withdrawalStatusById = withdrawalStoreService.getWithdrawalStatusById(uuid);
         if (withdrawalStatusById.isPresent()) {
           WithdrawalStatusResponse withdrawalStatusResponse = new WithdrawalStatusResponse(uuid, withdrawalStatusById.get());
-          message.reply(JsonObject.mapFrom(withdrawalStatusResponse));
+          message.reply(withdrawalStatusResponse);
         }
 
       }
@@ -0,0 +1,56 @@
+package com.yucel.withdrawal.service.verticle.codec;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.Json;
+
+/**
+ * Passes immutable records between verticles by reference. Jackson only runs if a message leaves the JVM.
+ *
+ * @param <T> an immutable type
+ */
+public class LocalRecordCodec<T> implements MessageCodec<T, T> {
+
+  private final Class<T> type;
+
+  private LocalRecordCodec(Class<T> type) {
+    this.type = type;
+  }
+
+  /**
+   * Makes the codec the default one for the type, so it is sent without delivery options
+   */
+  public static <T extends Record> void register(EventBus eventBus, Class<T> type) {
+    eventBus.registerDefaultCodec(type, new LocalRecordCodec<>(type));
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, T record) {
+    Buffer encoded = Json.encodeToBuffer(record);
+    buffer.appendInt(encoded.length());
+    buffer.appendBuffer(encoded);
+  }
+
+  @Override
+  public T decodeFromWire(int position, Buffer buffer) {
+    int length = buffer.getInt(position);
+    int start = position + Integer.BYTES;
+    return Json.decodeValue(buffer.slice(start, start + length), type);
+  }
+
+  @Override
+  public T transform(T record) {
+    return record;
+  }
+
+  @Override
+  public String name() {
+    return "local-" + type.getName();
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+}
@@ -0,0 +1,107 @@
+package com.yucel.withdrawal.service.verticle.subscription;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import com.yucel.withdrawal.mapper.ResponseJsonWriter;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Server-sent events of the status transitions of one withdrawal, the last one being its final status.
+ *
+ * The buffer of a connection is bounded: once its write queue is full only the newest status waits for it to drain,
+ * a slow client skips the statuses superseded in the meantime.
+ */
+public class WithdrawalStatusEventStream implements WithdrawalStatusListener {
+
+  public static final String EVENT_STREAM_CONTENT_TYPE = "text/event-stream";
+  /**
+   * a status event is about a hundred bytes, a client a few events behind is slow
+   */
+  public static final int WRITE_QUEUE_MAX_BYTES = 1024;
+
+  private static final byte[] EVENT_PREFIX = "event: status\ndata: ".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+  private final UUID withdrawalId;
+  private final HttpServerResponse response;
+  private final WithdrawalStatusSubscriptions subscriptions;
+  private boolean started;
+  private boolean closed;
+  private WithdrawalStatus writtenStatus;
+  private WithdrawalStatus pendingStatus;
+
+  WithdrawalStatusEventStream(UUID withdrawalId, HttpServerResponse response, WithdrawalStatusSubscriptions subscriptions) {
+    this.withdrawalId = withdrawalId;
+    this.response = response;
+    this.subscriptions = subscriptions;
+    response.setWriteQueueMaxSize(WRITE_QUEUE_MAX_BYTES);
+    response.closeHandler(ignored -> close());
+    response.drainHandler(ignored -> writePending());
+  }
+
+  /**
+   * Sends the response headers and the current status, followed by the changes offered meanwhile
+   * @param currentStatus status read after the stream was subscribed
+   */
+  public void start(WithdrawalStatus currentStatus) {
+    if (closed) {
+      return;
+    }
+    started = true;
+    response.setChunked(true)
+      .putHeader("content-type", EVENT_STREAM_CONTENT_TYPE)
+      .putHeader("cache-control", "no-cache")
+      .setStatusCode(HttpResponseStatus.OK.code());
+    offer(currentStatus);
+    writePending();
+  }
+
+  /**
+   * Unsubscribes without touching the response, e.g. when an error is responded instead
+   */
+  public void cancel() {
+    close();
+  }
+
+  @Override
+  public void offer(WithdrawalStatus status) {
+    if (closed || !WithdrawalStatusListener.isNewer(status, pendingStatus != null ? pendingStatus : writtenStatus)) {
+      return;
+    }
+    pendingStatus = status;
+    writePending();
+  }
+
+  @Override
+  public UUID withdrawalId() {
+    return withdrawalId;
+  }
+
+  private void writePending() {
+    if (!started || closed || pendingStatus == null || response.writeQueueFull()) {
+      return;
+    }
+    writtenStatus = pendingStatus;
+    pendingStatus = null;
+    response.write(Buffer.buffer(128)
+      .appendBytes(EVENT_PREFIX)
+      .appendBuffer(ResponseJsonWriter.write(new WithdrawalStatusResponse(withdrawalId, writtenStatus)))
+      .appendBytes(EVENT_SUFFIX));
+    if (writtenStatus.isFinal()) {
+      response.end();
+      close();
+    }
+  }
+
+  private void close() {
+    if (!closed) {
+      closed = true;
+      subscriptions.unsubscribe(this);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.yucel.withdrawal.service.verticle.subscription;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+
+import java.util.UUID;
+
+/**
+ * Follows the status changes of one withdrawal
+ */
+interface WithdrawalStatusListener {
+
+  UUID withdrawalId();
+
+  /**
+   * Offered statuses may arrive out of order or repeated, a listener only acts on newer ones
+   */
+  void offer(WithdrawalStatus status);
+
+  /**
+   * Statuses only move forward, from PROCESSING to a final one
+   * @param status offered status
+   * @param knownStatus newest status known, null if none
+   */
+  static boolean isNewer(WithdrawalStatus status, WithdrawalStatus knownStatus) {
+    return knownStatus == null || (!knownStatus.isFinal() && status.isFinal());
+  }
+}
@@ -0,0 +1,82 @@
+package com.yucel.withdrawal.service.verticle.subscription;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Open status event streams and parked status requests by withdrawal id.
+ *
+ * Not thread safe, it is meant to be confined to the http server verticle context.
+ */
+public class WithdrawalStatusSubscriptions {
+
+  private final Map<UUID, List<WithdrawalStatusListener>> listenersByWithdrawalId = new HashMap<>();
+  private int size;
+
+  /**
+   * Status changes published from now on are passed to the stream, they are written once it is started
+   * @param withdrawalId withdrawal to follow
+   * @param response response of the subscription request
+   * @return the stream, closed when the client disconnects or the withdrawal reaches a final status
+   */
+  public WithdrawalStatusEventStream subscribe(UUID withdrawalId, HttpServerResponse response) {
+    return add(new WithdrawalStatusEventStream(withdrawalId, response, this));
+  }
+
+  /**
+   * Status changes published from now on are passed to the waiter, it answers once one of them is awaited or final
+   * @param withdrawalId withdrawal to wait for
+   * @param awaitedStatuses statuses answering the waiter
+   * @param responder answers the parked request with a status, called once
+   * @return the waiter, to be parked with the current status
+   */
+  public WithdrawalStatusWaiter await(UUID withdrawalId, Set<WithdrawalStatus> awaitedStatuses, Consumer<WithdrawalStatus> responder) {
+    return add(new WithdrawalStatusWaiter(withdrawalId, awaitedStatuses, responder, this));
+  }
+
+  /**
+   * Passes the status change to every listener of the withdrawal
+   */
+  public void publish(WithdrawalStatusResponse statusChange) {
+    List<WithdrawalStatusListener> listeners = listenersByWithdrawalId.get(statusChange.withdrawalId());
+    if (listeners == null) {
+      return;
+    }
+    // listeners reaching a final status unsubscribe while being offered the change
+    for (WithdrawalStatusListener listener : List.copyOf(listeners)) {
+      listener.offer(statusChange.status());
+    }
+  }
+
+  /**
+   * @return number of open streams and parked requests
+   */
+  public int size() {
+    return size;
+  }
+
+  private <T extends WithdrawalStatusListener> T add(T listener) {
+    listenersByWithdrawalId.computeIfAbsent(listener.withdrawalId(), ignored -> new ArrayList<>(1)).add(listener);
+    size++;
+    return listener;
+  }
+
+  void unsubscribe(WithdrawalStatusListener listener) {
+    List<WithdrawalStatusListener> listeners = listenersByWithdrawalId.get(listener.withdrawalId());
+    if (listeners != null && listeners.remove(listener)) {
+      size--;
+      if (listeners.isEmpty()) {
+        listenersByWithdrawalId.remove(listener.withdrawalId());
+      }
+    }
+  }
+}
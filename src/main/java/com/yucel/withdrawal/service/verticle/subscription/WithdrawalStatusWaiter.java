@@ -0,0 +1,85 @@
+package com.yucel.withdrawal.service.verticle.subscription;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * A parked long poll of a withdrawal status. It holds no thread, only this object until an awaited or a final status
+ * is offered, or it times out.
+ */
+public class WithdrawalStatusWaiter implements WithdrawalStatusListener {
+
+  private final UUID withdrawalId;
+  private final Set<WithdrawalStatus> awaitedStatuses;
+  private final Consumer<WithdrawalStatus> responder;
+  private final WithdrawalStatusSubscriptions subscriptions;
+  private WithdrawalStatus knownStatus;
+  private boolean done;
+
+  WithdrawalStatusWaiter(UUID withdrawalId, Set<WithdrawalStatus> awaitedStatuses, Consumer<WithdrawalStatus> responder,
+                         WithdrawalStatusSubscriptions subscriptions) {
+    this.withdrawalId = withdrawalId;
+    this.awaitedStatuses = awaitedStatuses;
+    this.responder = responder;
+    this.subscriptions = subscriptions;
+  }
+
+  /**
+   * @param currentStatus status read after the waiter was subscribed
+   * @return whether the waiter keeps waiting, false if it is answered already
+   */
+  public boolean park(WithdrawalStatus currentStatus) {
+    offer(currentStatus);
+    return !done;
+  }
+
+  /**
+   * Answers with the newest status known
+   */
+  public void timeout() {
+    if (!done && knownStatus != null) {
+      respond(knownStatus);
+    }
+  }
+
+  /**
+   * Unsubscribes without answering, e.g. when the client is gone or an error is responded instead
+   */
+  public void cancel() {
+    if (!done) {
+      done = true;
+      subscriptions.unsubscribe(this);
+    }
+  }
+
+  public boolean isDone() {
+    return done;
+  }
+
+  /**
+   * A final status which is not awaited answers the waiter as well, nothing else can come after it
+   */
+  @Override
+  public void offer(WithdrawalStatus status) {
+    if (done || !WithdrawalStatusListener.isNewer(status, knownStatus)) {
+      return;
+    }
+    knownStatus = status;
+    if (awaitedStatuses.contains(status) || status.isFinal()) {
+      respond(status);
+    }
+  }
+
+  @Override
+  public UUID withdrawalId() {
+    return withdrawalId;
+  }
+
+  private void respond(WithdrawalStatus status) {
+    cancel();
+    responder.accept(status);
+  }
+}
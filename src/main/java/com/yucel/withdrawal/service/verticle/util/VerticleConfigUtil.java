@@ -0,0 +1,156 @@
+package com.yucel.withdrawal.service.verticle.util;
+
+/**
+ * Keys of the verticle configuration, given with {@code -conf} and passed down by the MainVerticle
+ */
+public class VerticleConfigUtil {
+  /**
+   * json array of account addresses receiving a large share of deposits
+   */
+  public static final String HOT_ACCOUNT_ADDRESSES = "hotAccountAddresses";
+  /**
+   * keeps the accounts in direct memory, see {@link com.yucel.withdrawal.repository.OffHeapAccountRepository}
+   */
+  public static final String OFF_HEAP_ACCOUNTS = "offHeapAccounts";
+  /**
+   * number of accounts the off-heap account index is sized for up front
+   */
+  public static final String INITIAL_ACCOUNT_CAPACITY = "initialAccountCapacity";
+  public static final int DEFAULT_INITIAL_ACCOUNT_CAPACITY = 1024;
+  /**
+   * length of the longest UTF-8 encoded account address of the off-heap accounts
+   */
+  public static final String MAX_ACCOUNT_ADDRESS_BYTES = "maxAccountAddressBytes";
+
+  /**
+   * resolution of the external withdrawal status poller
+   */
+  public static final String STATUS_POLL_TICK_MILLIS = "statusPollTickMillis";
+  public static final long DEFAULT_STATUS_POLL_TICK_MILLIS = 100L;
+  /**
+   * delay before the first status check of an external withdrawal
+   */
+  public static final String STATUS_POLL_INITIAL_DELAY_MILLIS = "statusPollInitialDelayMillis";
+  public static final long DEFAULT_STATUS_POLL_INITIAL_DELAY_MILLIS = 1000L;
+  /**
+   * growth of the delay between status checks of the same withdrawal
+   */
+  public static final String STATUS_POLL_BACKOFF_MULTIPLIER = "statusPollBackoffMultiplier";
+  public static final double DEFAULT_STATUS_POLL_BACKOFF_MULTIPLIER = 1.5;
+  /**
+   * upper bound of the delay between status checks of the same withdrawal
+   */
+  public static final String STATUS_POLL_MAX_DELAY_MILLIS = "statusPollMaxDelayMillis";
+  public static final long DEFAULT_STATUS_POLL_MAX_DELAY_MILLIS = 5000L;
+  /**
+   * maximum number of withdrawals whose statuses are requested from the provider in one call
+   */
+  public static final String STATUS_POLL_BATCH_SIZE = "statusPollBatchSize";
+  public static final int DEFAULT_STATUS_POLL_BATCH_SIZE = 100;
+
+  /**
+   * maximum number of external withdrawal provider calls running at the same time
+   */
+  public static final String EXTERNAL_MAX_IN_FLIGHT_CALLS = "externalMaxInFlightCalls";
+  public static final int DEFAULT_EXTERNAL_MAX_IN_FLIGHT_CALLS = 16;
+  /**
+   * json object of the retry and circuit breaker policies of the provider operations by operation name,
+   * the operations not in it and the fields not given take the defaults
+   */
+  public static final String EXTERNAL_CALL_POLICIES = "externalCallPolicies";
+
+  /**
+   * directory of the write-ahead journal, repositories are purely in-memory when it is not set
+   */
+  public static final String JOURNAL_DIRECTORY = "journalDirectory";
+  /**
+   * size after which a journal segment is sealed, only sealed segments are folded into snapshots
+   */
+  public static final String JOURNAL_SEGMENT_BYTES = "journalSegmentBytes";
+  public static final long DEFAULT_JOURNAL_SEGMENT_BYTES = 64L * 1024 * 1024;
+  /**
+   * period of folding the sealed journal segments into a snapshot
+   */
+  public static final String SNAPSHOT_INTERVAL_MILLIS = "snapshotIntervalMillis";
+  public static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 60_000L;
+
+  /**
+   * keeps the withdrawals in columns, see {@link com.yucel.withdrawal.repository.ColumnarWithdrawalRepository}
+   */
+  public static final String COLUMNAR_WITHDRAWALS = "columnarWithdrawals";
+
+  /**
+   * directory of the cold tier segments, all withdrawals are kept in memory when it is not set
+   */
+  public static final String COLD_TIER_DIRECTORY = "coldTierDirectory";
+  /**
+   * time a withdrawal stays in memory after reaching its final status before it is moved to the cold tier
+   */
+  public static final String COLD_TIER_MIN_AGE_MILLIS = "coldTierMinAgeMillis";
+  public static final long DEFAULT_COLD_TIER_MIN_AGE_MILLIS = 10 * 60_000L;
+  /**
+   * period of moving the withdrawals old enough to the cold tier
+   */
+  public static final String COLD_TIER_MIGRATION_INTERVAL_MILLIS = "coldTierMigrationIntervalMillis";
+  public static final long DEFAULT_COLD_TIER_MIGRATION_INTERVAL_MILLIS = 60_000L;
+
+  /**
+   * maximum number of withdrawal requests accepted in one batch
+   */
+  public static final String MAX_WITHDRAWAL_BATCH_SIZE = "maxWithdrawalBatchSize";
+  public static final int DEFAULT_MAX_WITHDRAWAL_BATCH_SIZE = 10_000;
+
+  /**
+   * upper bound of the limit of a list request, also the page size the unlimited list responses are streamed in
+   */
+  public static final String MAX_PAGE_SIZE = "maxPageSize";
+  public static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+
+  /**
+   * maximum number of withdrawal results kept for repeated requests with the same idempotency key
+   */
+  public static final String IDEMPOTENCY_CACHE_SIZE = "idempotencyCacheSize";
+  public static final int DEFAULT_IDEMPOTENCY_CACHE_SIZE = 100_000;
+  /**
+   * time a withdrawal result is kept for repeated requests with the same idempotency key
+   */
+  public static final String IDEMPOTENCY_KEY_TTL_MILLIS = "idempotencyKeyTtlMillis";
+  public static final long DEFAULT_IDEMPOTENCY_KEY_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+  /**
+   * upper bound and default of the timeout of a long polled withdrawal status request
+   */
+  public static final String MAX_STATUS_WAIT_MILLIS = "maxStatusWaitMillis";
+  public static final long DEFAULT_MAX_STATUS_WAIT_MILLIS = 60_000L;
+
+  /**
+   * withdrawals taking longer from receiving the request to the final status are kept as slow trace samples
+   */
+  public static final String SLOW_TRACE_THRESHOLD_MILLIS = "slowTraceThresholdMillis";
+  public static final long DEFAULT_SLOW_TRACE_THRESHOLD_MILLIS = 1000L;
+  /**
+   * number of the latest slow traces kept
+   */
+  public static final String SLOW_TRACE_SAMPLE_SIZE = "slowTraceSampleSize";
+  public static final int DEFAULT_SLOW_TRACE_SAMPLE_SIZE = 100;
+
+  /**
+   * maximum number of external withdrawals requested from the provider and not final yet, more are rejected with 429
+   */
+  public static final String MAX_PENDING_EXTERNAL_WITHDRAWALS = "maxPendingExternalWithdrawals";
+  public static final int DEFAULT_MAX_PENDING_EXTERNAL_WITHDRAWALS = 100_000;
+  /**
+   * maximum number of event bus requests of the http server waiting for the reply of an address, more are rejected with 503
+   */
+  public static final String MAX_EVENT_BUS_IN_FLIGHT_REQUESTS = "maxEventBusInFlightRequests";
+  public static final int DEFAULT_MAX_EVENT_BUS_IN_FLIGHT_REQUESTS = 10_000;
+  /**
+   * json object of the limits overriding maxEventBusInFlightRequests by event bus address
+   */
+  public static final String EVENT_BUS_IN_FLIGHT_LIMITS = "eventBusInFlightLimits";
+  /**
+   * upper bound of the Retry-After of a rejected request, answered when nothing drained recently
+   */
+  public static final String MAX_RETRY_AFTER_SECONDS = "maxRetryAfterSeconds";
+  public static final long DEFAULT_MAX_RETRY_AFTER_SECONDS = 60L;
+}
@@ -3,10 +3,30 @@ package com.yucel.withdrawal.service.verticle.util;
 public class VerticleConstantUtil {
   public static final String GET_WITHDRAWAL_STATUS_ADDRESS = "get.withdrawal.status";
   public static final String CREATE_WITHDRAWAL_REQUEST_ADDRESS = "create.withdrawal.request";
+  public static final String CREATE_WITHDRAWAL_BATCH_REQUEST_ADDRESS = "create.withdrawal.batch.request";
   public static final String GET_WITHDRAWAL_BY_ID_REQUEST_ADDRESS = "get.withdrawal.by.id.request";
   public static final String GET_ALL_WITHDRAWALS_REQUEST_ADDRESS = "get.all.withdrawals.request";
   public static final String GET_ALL_ACCOUNTS_REQUEST_ADDRESS = "get.all.accounts.request";
   public static final String CREATE_ACCOUNT_REQUEST_ADDRESS = "create.account.request";
   public static final String UPDATE_ACCOUNT_BALANCE_REQUEST_ADDRESS = "update.account.balance.request";
   public static final String GET_ACCOUNT_BY_ADDRESS_REQUEST_ADDRESS = "get.account.by.address.request";
+  public static final String GET_ACCOUNT_WITHDRAWALS_REQUEST_ADDRESS = "get.account.withdrawals.request";
+  public static final String GET_SLOW_WITHDRAWAL_TRACES_REQUEST_ADDRESS = "get.slow.withdrawal.traces.request";
+  /**
+   * published once a withdrawal status change is durable, with a WithdrawalStatusResponse body
+   */
+  public static final String WITHDRAWAL_STATUS_CHANGED_ADDRESS = "withdrawal.status.changed";
+  /**
+   * delivery header of a page reply carrying the cursor of the following page
+   */
+  public static final String NEXT_CURSOR_HEADER = "nextCursor";
+  /**
+   * http request header of a withdrawal, passed on as a delivery header. Retries with the same key get the first result.
+   */
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+  /**
+   * delivery header of a withdrawal request carrying the {@link System#nanoTime()} it arrived at the http server
+   */
+  public static final String RECEIVED_NANOS_HEADER = "receivedNanos";
 }
@@ -0,0 +1,52 @@
+package com.yucel.withdrawal.mapper;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.AccountSnapshot;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import io.vertx.core.json.Json;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseJsonWriterTest {
+
+  public static final List<Long> AMOUNTS = List.of(0L, 1L, 10L, 100L, 1050L, 100000L, 123456789L, -1L, -1050L,
+    Long.MAX_VALUE, Long.MIN_VALUE);
+  public static final List<String> ADDRESSES = List.of("DE123", "", "quote\"back\\slash", "line\nbreak\ttab\r\b\f",
+    "\u0000\u001f control", "ümlaut €uro 😀");
+
+  @Test
+  void givenWithdrawals_whenWritten_thenSameAsObjectMapper() {
+    for (long amount : AMOUNTS) {
+      for (String address : ADDRESSES) {
+        for (WithdrawalStatus status : WithdrawalStatus.values()) {
+          for (boolean external : List.of(false, true)) {
+            WithdrawalTransaction withdrawalTransaction = new WithdrawalTransaction(UUID.randomUUID(),
+              new TransferAddress(address), new TransferAddress(address + "2"), new TransferAmount(amount), status, external);
+            assertEquals(Json.encode(withdrawalTransaction), ResponseJsonWriter.write(withdrawalTransaction).toString());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void givenStatusResponsesAndAccounts_whenWritten_thenSameAsObjectMapper() {
+    for (WithdrawalStatus status : WithdrawalStatus.values()) {
+      WithdrawalStatusResponse withdrawalStatusResponse = new WithdrawalStatusResponse(new UUID(0L, -1L), status);
+      assertEquals(Json.encode(withdrawalStatusResponse), ResponseJsonWriter.write(withdrawalStatusResponse).toString());
+    }
+    for (long balance : AMOUNTS) {
+      for (String address : ADDRESSES) {
+        AccountSnapshot accountSnapshot = new AccountSnapshot(address, balance);
+        assertEquals(Json.encode(accountSnapshot), ResponseJsonWriter.write(accountSnapshot).toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.yucel.withdrawal.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+  @Test
+  void givenSameNameAndLabels_whenRegisteredTwice_thenSameMetricReturned() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    Counter counter = metricsRegistry.counter("requests_total", "requests", "route", "/accounts");
+
+    assertSame(counter, metricsRegistry.counter("requests_total", "requests", "route", "/accounts"));
+    assertNotSame(counter, metricsRegistry.counter("requests_total", "requests", "route", "/withdrawals"));
+    assertThrows(IllegalArgumentException.class, () -> metricsRegistry.gauge("requests_total", "requests"));
+  }
+
+  @Test
+  void givenRecordedLatencies_whenScraped_thenCumulativeBucketsSumAndCountWritten() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    LatencyHistogram histogram = metricsRegistry.histogram("request_duration_seconds", "request latency", "route", "/accounts");
+
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+    histogram.record(TimeUnit.SECONDS.toNanos(20));
+
+    String scrape = metricsRegistry.scrape();
+    assertTrue(scrape.contains("# TYPE request_duration_seconds histogram\n"));
+    assertTrue(scrape.contains("request_duration_seconds_bucket{route=\"/accounts\",le=\"0.0001\"} 1\n"));
+    assertTrue(scrape.contains("request_duration_seconds_bucket{route=\"/accounts\",le=\"0.0025\"} 2\n"));
+    assertTrue(scrape.contains("request_duration_seconds_bucket{route=\"/accounts\",le=\"10\"} 2\n"));
+    assertTrue(scrape.contains("request_duration_seconds_bucket{route=\"/accounts\",le=\"+Inf\"} 3\n"));
+    assertTrue(scrape.contains("request_duration_seconds_sum{route=\"/accounts\"} 20.00205\n"));
+    assertTrue(scrape.contains("request_duration_seconds_count{route=\"/accounts\"} 3\n"));
+  }
+
+  @Test
+  void givenLabelValueWithQuotes_whenScraped_thenEscaped() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    metricsRegistry.gauge("backlog", "backlog", "name", "a\"b\\c").set(7);
+
+    assertEquals("# HELP backlog backlog\n# TYPE backlog gauge\nbacklog{name=\"a\\\"b\\\\c\"} 7\n", metricsRegistry.scrape());
+  }
+}
@@ -0,0 +1,84 @@
+package com.yucel.withdrawal.repository;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarWithdrawalRepositoryTest {
+
+  public static final String ADDRESS_1 = "DE123";
+  public static final String ADDRESS_2 = "DE124";
+  public static final String EXTERNAL_ADDRESS = "DE1234";
+
+  @Test
+  void givenManyWithdrawals_whenColumnsAndIndexesGrow_thenEveryWithdrawalIsFoundAndPagedInIdOrder() {
+    WithdrawalRepository withdrawalRepository = new ColumnarWithdrawalRepository();
+    List<WithdrawalTransaction> withdrawals = new ArrayList<>();
+    for (int i = 0; i < 40_000; i++) {
+      WithdrawalTransaction withdrawal = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress("DE%d".formatted(i % 7)),
+        new TransferAddress(EXTERNAL_ADDRESS), new TransferAmount(i), WithdrawalStatus.PROCESSING, true);
+      withdrawals.add(withdrawal);
+      assertNull(withdrawalRepository.save(withdrawal));
+    }
+
+    assertEquals(40_000, withdrawalRepository.count());
+    for (WithdrawalTransaction withdrawal : withdrawals) {
+      assertEquals(Optional.of(withdrawal), withdrawalRepository.get(withdrawal.id()));
+    }
+    assertFalse(withdrawalRepository.checkIfWithdrawalTransactionExists(UUID.randomUUID()));
+
+    withdrawals.sort(Comparator.comparing(WithdrawalTransaction::id));
+    assertEquals(withdrawals, pageThrough(afterId -> withdrawalRepository.getPage(afterId, 999)));
+    assertEquals(withdrawals.stream().filter(withdrawal -> withdrawal.fromAccountAddress().address().equals("DE3")).toList(),
+      pageThrough(afterId -> withdrawalRepository.getPageByAccountAddress("DE3", afterId, 999)));
+    assertEquals(withdrawals, pageThrough(afterId -> withdrawalRepository.getPageByAccountAddress(EXTERNAL_ADDRESS, afterId, 999)));
+    assertTrue(withdrawalRepository.getPageByAccountAddress("unknown", null, 10).isEmpty());
+  }
+
+  @Test
+  void givenStatusChanges_whenGetPageByStatus_thenWithdrawalsMoveInPlace() {
+    WithdrawalRepository withdrawalRepository = new ColumnarWithdrawalRepository();
+    List<WithdrawalTransaction> completed = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      WithdrawalTransaction withdrawal = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(ADDRESS_1),
+        new TransferAddress(ADDRESS_2), new TransferAmount(100L), WithdrawalStatus.PROCESSING, i % 4 < 2);
+      withdrawalRepository.save(withdrawal);
+      // every other one completes, the rest stay processing
+      if (i % 2 == 0) {
+        WithdrawalTransaction completedWithdrawal = withdrawal.changeStatus(WithdrawalStatus.COMPLETED);
+        assertEquals(withdrawal, withdrawalRepository.save(completedWithdrawal));
+        completed.add(completedWithdrawal);
+      }
+    }
+
+    completed.sort(Comparator.comparing(WithdrawalTransaction::id));
+    assertEquals(completed, pageThrough(afterId -> withdrawalRepository.getPageByStatus(WithdrawalStatus.COMPLETED, afterId, 100)));
+    List<WithdrawalTransaction> processing = pageThrough(afterId -> withdrawalRepository.getPageByStatus(WithdrawalStatus.PROCESSING, afterId, 100));
+    assertEquals(2_500, processing.size());
+    assertTrue(processing.stream().allMatch(withdrawal -> withdrawal.status() == WithdrawalStatus.PROCESSING));
+    assertTrue(withdrawalRepository.getPageByStatus(WithdrawalStatus.FAILED, null, 10).isEmpty());
+    assertEquals(5_000, withdrawalRepository.count());
+  }
+
+  private static List<WithdrawalTransaction> pageThrough(Function<UUID, List<WithdrawalTransaction>> pages) {
+    List<WithdrawalTransaction> all = new ArrayList<>();
+    List<WithdrawalTransaction> page;
+    UUID afterId = null;
+    while (!(page = pages.apply(afterId)).isEmpty()) {
+      all.addAll(page);
+      afterId = page.get(page.size() - 1).id();
+    }
+    return all;
+  }
+}
@@ -0,0 +1,138 @@
+package com.yucel.withdrawal.repository;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.HotAccount;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAccountRepositoryTest {
+
+  public static final String ADDRESS = "DE123";
+  public static final int THREADS = 8;
+  public static final int OPERATIONS_PER_THREAD = 10_000;
+
+  @Test
+  void givenConcurrentWithdrawals_whenBalanceRunsOut_thenNeverGoesNegative() throws Exception {
+    AccountRepository accountRepository = new InMemoryAccountRepository();
+    final long initialBalance = 5_000L;
+    accountRepository.save(new Account(ADDRESS, initialBalance));
+
+    List<Long> succeeded = runConcurrently(() -> {
+      long count = 0;
+      for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+        try {
+          accountRepository.withdraw(ADDRESS, 1L);
+          count++;
+        } catch (IllegalArgumentException insufficientBalance) {
+          // expected once the balance is used up
+        }
+      }
+      return count;
+    });
+
+    assertEquals(initialBalance, succeeded.stream().mapToLong(Long::longValue).sum());
+    assertEquals(0L, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+  }
+
+  @Test
+  void givenConcurrentDepositsAndWithdrawals_whenFinished_thenBalanceIsConsistent() throws Exception {
+    AccountRepository accountRepository = new InMemoryAccountRepository();
+    accountRepository.save(new Account(ADDRESS, 0L));
+
+    runConcurrently(() -> {
+      for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+        accountRepository.deposit(ADDRESS, 3L);
+        accountRepository.withdraw(ADDRESS, 1L);
+      }
+      return 0L;
+    });
+
+    assertEquals(2L * THREADS * OPERATIONS_PER_THREAD, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+  }
+
+  @Test
+  void givenHotAccount_whenWithdrawCoveredOnlyByPendingDeposits_thenSuccess() {
+    AccountRepository accountRepository = new InMemoryAccountRepository(Set.of(ADDRESS));
+    accountRepository.save(new Account(ADDRESS, 0L));
+
+    accountRepository.deposit(ADDRESS, 10L);
+    accountRepository.deposit(ADDRESS, 5L);
+
+    assertEquals(15L, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+    accountRepository.withdraw(ADDRESS, 15L);
+    assertEquals(0L, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+    assertThrows(IllegalArgumentException.class, () -> accountRepository.withdraw(ADDRESS, 1L));
+  }
+
+  @Test
+  void givenHotAccount_whenConcurrentDepositsAndWithdrawals_thenBalanceIsConsistent() throws Exception {
+    AccountRepository accountRepository = new InMemoryAccountRepository(Set.of(ADDRESS));
+    accountRepository.save(new Account(ADDRESS, 0L));
+
+    List<Long> withdrawn = runConcurrently(() -> {
+      long count = 0;
+      for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+        accountRepository.deposit(ADDRESS, 1L);
+        try {
+          accountRepository.withdraw(ADDRESS, 2L);
+          count += 2;
+        } catch (IllegalArgumentException insufficientBalance) {
+          // expected while deposits are still accumulating
+        }
+      }
+      return count;
+    });
+
+    long balance = accountRepository.get(ADDRESS).orElseThrow().getBalance();
+    assertTrue(balance >= 0);
+    assertEquals((long) THREADS * OPERATIONS_PER_THREAD, balance + withdrawn.stream().mapToLong(Long::longValue).sum());
+  }
+
+  @Test
+  void givenHotAccount_whenDepositExceedsMaxBalance_thenRejectedAndAccountStillUsable() {
+    AccountRepository accountRepository = new InMemoryAccountRepository(Set.of(ADDRESS));
+    accountRepository.save(new Account(ADDRESS, HotAccount.MAX_BALANCE - 10L));
+
+    accountRepository.deposit(ADDRESS, 5L);
+    assertThrows(ArithmeticException.class, () -> accountRepository.deposit(ADDRESS, 6L));
+    assertThrows(ArithmeticException.class, () -> accountRepository.deposit(ADDRESS, Long.MAX_VALUE));
+
+    assertEquals(HotAccount.MAX_BALANCE - 5L, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+    accountRepository.withdraw(ADDRESS, HotAccount.MAX_BALANCE - 5L);
+    assertEquals(0L, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+  }
+
+  @Test
+  void givenMissingAccount_whenDeposit_thenIllegalState() {
+    AccountRepository accountRepository = new InMemoryAccountRepository();
+
+    assertThrows(IllegalStateException.class, () -> accountRepository.deposit(ADDRESS, 1L));
+    assertThrows(IllegalStateException.class, () -> accountRepository.withdraw(ADDRESS, 1L));
+  }
+
+  private static List<Long> runConcurrently(Callable<Long> task) throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executorService.submit(task));
+      }
+      List<Long> results = new ArrayList<>();
+      for (Future<Long> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+}
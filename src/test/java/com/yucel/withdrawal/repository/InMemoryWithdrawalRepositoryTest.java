@@ -0,0 +1,88 @@
+package com.yucel.withdrawal.repository;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.cold.ColdWithdrawalStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryWithdrawalRepositoryTest {
+
+  public static final String ADDRESS_1 = "DE123";
+  public static final String ADDRESS_2 = "DE124";
+  public static final String EXTERNAL_ADDRESS = "DE1234";
+
+  @Test
+  void givenStatusChange_whenGetPageByStatus_thenWithdrawalMovesToTheNewStatus() {
+    WithdrawalRepository withdrawalRepository = new InMemoryWithdrawalRepository();
+    WithdrawalTransaction withdrawal = withdrawal(ADDRESS_1, EXTERNAL_ADDRESS);
+    withdrawalRepository.save(withdrawal);
+
+    assertEquals(List.of(withdrawal), withdrawalRepository.getPageByStatus(WithdrawalStatus.PROCESSING, null, 10));
+
+    WithdrawalTransaction completed = withdrawal.changeStatus(WithdrawalStatus.COMPLETED);
+    withdrawalRepository.save(completed);
+
+    assertTrue(withdrawalRepository.getPageByStatus(WithdrawalStatus.PROCESSING, null, 10).isEmpty());
+    assertEquals(List.of(completed), withdrawalRepository.getPageByStatus(WithdrawalStatus.COMPLETED, null, 10));
+  }
+
+  @Test
+  void givenWithdrawals_whenGetPageByAccountAddress_thenSentAndReceivedOnesInIdOrder() {
+    WithdrawalRepository withdrawalRepository = new InMemoryWithdrawalRepository();
+    WithdrawalTransaction sent = withdrawal(ADDRESS_1, ADDRESS_2);
+    WithdrawalTransaction received = withdrawal(ADDRESS_2, ADDRESS_1);
+    WithdrawalTransaction unrelated = withdrawal(ADDRESS_2, EXTERNAL_ADDRESS);
+    List.of(sent, received, unrelated).forEach(withdrawalRepository::save);
+
+    List<WithdrawalTransaction> expected = new ArrayList<>(List.of(sent, received));
+    expected.sort((first, second) -> first.id().compareTo(second.id()));
+
+    assertEquals(expected, withdrawalRepository.getPageByAccountAddress(ADDRESS_1, null, 10));
+    assertEquals(expected.subList(1, 2), withdrawalRepository.getPageByAccountAddress(ADDRESS_1, expected.get(0).id(), 10));
+    assertTrue(withdrawalRepository.getPageByAccountAddress("unknown", null, 10).isEmpty());
+  }
+
+  @Test
+  void givenColdStore_whenFinalWithdrawalsAreMigrated_thenReadsFallThroughToIt(@TempDir Path directory) throws Exception {
+    try (ColdWithdrawalStore coldStore = ColdWithdrawalStore.open(directory)) {
+      InMemoryWithdrawalRepository withdrawalRepository = new InMemoryWithdrawalRepository(coldStore);
+      WithdrawalTransaction processing = withdrawal(ADDRESS_1, EXTERNAL_ADDRESS);
+      WithdrawalTransaction completed = withdrawal(ADDRESS_1, ADDRESS_2).changeStatus(WithdrawalStatus.COMPLETED);
+      List.of(processing, completed).forEach(withdrawalRepository::save);
+
+      assertEquals(0, withdrawalRepository.migrateToColdStore(Long.MIN_VALUE));
+      assertEquals(1, withdrawalRepository.migrateToColdStore(Long.MAX_VALUE));
+
+      assertEquals(1, withdrawalRepository.hotCount());
+      assertEquals(2, withdrawalRepository.count());
+      assertEquals(Optional.of(completed), withdrawalRepository.get(completed.id()));
+      assertTrue(withdrawalRepository.checkIfWithdrawalTransactionExists(completed.id()));
+      assertEquals(List.of(completed), withdrawalRepository.getPageByStatus(WithdrawalStatus.COMPLETED, null, 10));
+      assertEquals(2, withdrawalRepository.getPageByAccountAddress(ADDRESS_1, null, 10).size());
+      assertEquals(2, withdrawalRepository.getAll().size());
+
+      WithdrawalTransaction failed = processing.changeStatus(WithdrawalStatus.FAILED);
+      assertEquals(processing, withdrawalRepository.save(failed));
+      assertEquals(1, withdrawalRepository.migrateToColdStore(Long.MAX_VALUE));
+      assertEquals(0, withdrawalRepository.hotCount());
+      assertEquals(List.of(failed), withdrawalRepository.getPageByStatus(WithdrawalStatus.FAILED, null, 10));
+      assertTrue(withdrawalRepository.getPageByStatus(WithdrawalStatus.PROCESSING, null, 10).isEmpty());
+    }
+  }
+
+  private static WithdrawalTransaction withdrawal(String fromAddress, String toAddress) {
+    return new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(fromAddress), new TransferAddress(toAddress),
+      new TransferAmount(100L), WithdrawalStatus.PROCESSING, false);
+  }
+}
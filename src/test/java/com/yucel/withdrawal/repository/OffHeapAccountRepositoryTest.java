@@ -0,0 +1,112 @@
+package com.yucel.withdrawal.repository;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.HotAccount;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapAccountRepositoryTest {
+
+  public static final String ADDRESS = "DE123";
+  public static final int THREADS = 8;
+  public static final int OPERATIONS_PER_THREAD = 10_000;
+
+  @Test
+  void givenManyAccounts_whenIndexAndSortedSlotsGrow_thenEveryAccountIsFoundAndPagedInAddressOrder() {
+    OffHeapAccountRepository accountRepository = new OffHeapAccountRepository(Set.of(), 8, 24);
+    List<String> addresses = new ArrayList<>();
+    // saved out of order, with non-ascii addresses compared after decoding
+    for (int i = 0; i < 5_000; i++) {
+      String address = (i % 100 == 0 ? "DÉ" : "DE") + "%08d".formatted((i * 7919) % 5_000);
+      addresses.add(address);
+      assertNull(accountRepository.save(new Account(address, i)));
+    }
+
+    assertEquals(5_000, accountRepository.count());
+    for (int i = 0; i < addresses.size(); i++) {
+      assertEquals(i, accountRepository.get(addresses.get(i)).orElseThrow().getBalance());
+    }
+    assertTrue(accountRepository.get("DE99999999").isEmpty());
+
+    List<String> paged = new ArrayList<>();
+    String after = null;
+    List<Account> page;
+    while (!(page = accountRepository.getPage(after, 333)).isEmpty()) {
+      page.forEach(account -> paged.add(account.getAddress()));
+      after = page.get(page.size() - 1).getAddress();
+    }
+    assertEquals(addresses.stream().sorted().toList(), paged);
+    assertEquals(5_000, accountRepository.getAll().size());
+  }
+
+  @Test
+  void givenSavedAccount_whenSavedAgain_thenBalanceIsReplacedAndPreviousReturned() {
+    AccountRepository accountRepository = new OffHeapAccountRepository();
+    accountRepository.save(new Account(ADDRESS, 10L));
+
+    assertEquals(10L, accountRepository.save(new Account(ADDRESS, 20L)).getBalance());
+    assertEquals(20L, accountRepository.get(ADDRESS).orElseThrow().getBalance());
+    assertEquals(1, accountRepository.count());
+    assertThrows(IllegalArgumentException.class, () -> accountRepository.save(new Account("DE".repeat(20), 0L)));
+    assertThrows(IllegalStateException.class, () -> accountRepository.deposit("unknown", 1L));
+  }
+
+  @Test
+  void givenConcurrentDepositsAndWithdrawals_whenFinished_thenBalanceIsConsistent() throws Exception {
+    AccountRepository accountRepository = new OffHeapAccountRepository();
+    accountRepository.save(new Account(ADDRESS, 0L));
+    AtomicLong withdrawn = new AtomicLong();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            accountRepository.deposit(ADDRESS, 1L);
+            try {
+              accountRepository.withdraw(ADDRESS, 2L);
+              withdrawn.addAndGet(2L);
+            } catch (IllegalArgumentException insufficientBalance) {
+              // expected while the balance is low
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    long balance = accountRepository.get(ADDRESS).orElseThrow().getBalance();
+    assertTrue(balance >= 0);
+    assertEquals((long) THREADS * OPERATIONS_PER_THREAD, balance + withdrawn.get());
+  }
+
+  @Test
+  void givenHotAccount_whenDepositedAndPaged_thenStripedAccountIsReturned() {
+    AccountRepository accountRepository = new OffHeapAccountRepository(Set.of(ADDRESS), 16, 16);
+    accountRepository.save(new Account(ADDRESS, 0L));
+    accountRepository.save(new Account("DE122", 7L));
+
+    accountRepository.deposit(ADDRESS, 10L);
+    accountRepository.withdraw(ADDRESS, 4L);
+
+    assertInstanceOf(HotAccount.class, accountRepository.get(ADDRESS).orElseThrow());
+    List<Account> page = accountRepository.getPage(null, 10);
+    assertEquals(List.of("DE122", ADDRESS), page.stream().map(Account::getAddress).toList());
+    assertEquals(6L, page.get(1).getBalance());
+    assertEquals(2, accountRepository.count());
+  }
+}
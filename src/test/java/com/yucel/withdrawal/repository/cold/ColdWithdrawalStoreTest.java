@@ -0,0 +1,86 @@
+package com.yucel.withdrawal.repository.cold;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdWithdrawalStoreTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void givenSegmentsOfManyBlocks_whenGet_thenEveryWithdrawalIsFoundAndUnknownIdsAreNot() throws Exception {
+    try (ColdWithdrawalStore store = ColdWithdrawalStore.open(directory)) {
+      List<WithdrawalTransaction> withdrawals = new ArrayList<>();
+      for (int i = 0; i < ColdSegment.BLOCK_WITHDRAWALS * 3 + 5; i++) {
+        withdrawals.add(withdrawal(UUID.randomUUID(), WithdrawalStatus.COMPLETED));
+      }
+      store.append(withdrawals);
+
+      for (WithdrawalTransaction withdrawal : withdrawals) {
+        assertEquals(Optional.of(withdrawal), store.get(withdrawal.id()));
+      }
+      assertEquals(Optional.empty(), store.get(UUID.randomUUID()));
+      assertEquals(Optional.empty(), store.get(new UUID(Long.MIN_VALUE, Long.MIN_VALUE)));
+    }
+  }
+
+  @Test
+  void givenAppendsOfTheSameIds_whenMerged_thenTheNewestVersionWinsAndSegmentsAreDeleted() throws Exception {
+    try (ColdWithdrawalStore store = ColdWithdrawalStore.open(directory)) {
+      Map<UUID, WithdrawalTransaction> latest = new HashMap<>();
+      List<UUID> ids = Stream.generate(UUID::randomUUID).limit(300).toList();
+      for (int append = 0; append < 6; append++) {
+        WithdrawalStatus status = append % 2 == 0 ? WithdrawalStatus.COMPLETED : WithdrawalStatus.FAILED;
+        List<WithdrawalTransaction> withdrawals = new ArrayList<>();
+        for (UUID id : ids.subList(append * 40, append * 40 + 60)) {
+          WithdrawalTransaction withdrawal = withdrawal(id, status);
+          withdrawals.add(withdrawal);
+          latest.put(id, withdrawal);
+        }
+        store.append(withdrawals);
+      }
+
+      for (WithdrawalTransaction withdrawal : latest.values()) {
+        assertEquals(Optional.of(withdrawal), store.get(withdrawal.id()));
+      }
+      Map<UUID, WithdrawalTransaction> visited = new HashMap<>();
+      store.forEach(withdrawal -> assertNull(visited.put(withdrawal.id(), withdrawal)));
+      assertEquals(latest, visited);
+      try (Stream<Path> files = Files.list(directory)) {
+        assertTrue(files.count() < 6);
+      }
+    }
+  }
+
+  @Test
+  void givenSegmentsOfAPreviousRun_whenOpened_thenTheyAreDeleted() throws Exception {
+    try (ColdWithdrawalStore store = ColdWithdrawalStore.open(directory)) {
+      store.append(List.of(withdrawal(UUID.randomUUID(), WithdrawalStatus.COMPLETED)));
+    }
+    try (ColdWithdrawalStore store = ColdWithdrawalStore.open(directory); Stream<Path> files = Files.list(directory)) {
+      assertEquals(0, store.count());
+      assertEquals(0, files.count());
+    }
+  }
+
+  private static WithdrawalTransaction withdrawal(UUID id, WithdrawalStatus status) {
+    return new WithdrawalTransaction(id, new TransferAddress("DE123"), new TransferAddress("DE1234"), new TransferAmount(100L), status, true);
+  }
+}
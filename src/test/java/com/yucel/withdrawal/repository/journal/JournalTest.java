@@ -0,0 +1,257 @@
+package com.yucel.withdrawal.repository.journal;
+
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.repository.InMemoryAccountRepository;
+import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.repository.cold.ColdWithdrawalStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+  public static final String FROM_ADDRESS = "DE123";
+  public static final String TO_ADDRESS = "DE456";
+  public static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+  @TempDir
+  Path journalDirectory;
+
+  @Test
+  void givenJournaledChanges_whenReopened_thenRepositoriesAreRecovered() throws Exception {
+    WithdrawalTransaction withdrawalTransaction = processingWithdrawal();
+
+    try (JournaledRepositories repositories = openRepositories(SEGMENT_BYTES)) {
+      transfer(repositories, withdrawalTransaction);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+    }
+
+    try (JournaledRepositories recovered = openRepositories(SEGMENT_BYTES)) {
+      assertTransferred(recovered, withdrawalTransaction);
+    }
+  }
+
+  @Test
+  void givenSealedSegments_whenSnapshotted_thenRecoveredFromSnapshotAndTail() throws Exception {
+    WithdrawalTransaction withdrawalTransaction = processingWithdrawal();
+    WithdrawalTransaction tailWithdrawal = processingWithdrawal();
+
+    // tiny segments, every record seals its segment
+    try (JournaledRepositories repositories = openRepositories(1L)) {
+      transfer(repositories, withdrawalTransaction);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+      assertTrue(repositories.snapshot(4));
+      assertFalse(repositories.snapshot(4));
+
+      repositories.withdrawalRepository().save(tailWithdrawal);
+      repositories.accountRepository().withdraw(FROM_ADDRESS, 100L);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+    }
+    assertEquals(Journal.segments(journalDirectory).get(0), JournalSnapshot.latest(journalDirectory) + 1);
+
+    try (JournaledRepositories recovered = openRepositories(SEGMENT_BYTES)) {
+      assertEquals(650L, recovered.accountRepository().get(FROM_ADDRESS).orElseThrow().getBalance());
+      assertEquals(250L, recovered.accountRepository().get(TO_ADDRESS).orElseThrow().getBalance());
+      assertEquals(WithdrawalStatus.COMPLETED, recovered.withdrawalRepository().get(withdrawalTransaction.id()).orElseThrow().status());
+      assertEquals(WithdrawalStatus.PROCESSING, recovered.withdrawalRepository().get(tailWithdrawal.id()).orElseThrow().status());
+    }
+  }
+
+  @Test
+  void givenPreviousSnapshot_whenSnapshottedAgain_thenOlderWithdrawalsAreCarriedOverAndReopenedIntoColdStore() throws Exception {
+    WithdrawalTransaction completedWithdrawal = processingWithdrawal();
+    WithdrawalTransaction laterCompletedWithdrawal = processingWithdrawal();
+    WithdrawalTransaction processingWithdrawal = processingWithdrawal();
+
+    try (JournaledRepositories repositories = openRepositories(1L)) {
+      transfer(repositories, completedWithdrawal);
+      repositories.withdrawalRepository().save(laterCompletedWithdrawal);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+      assertTrue(repositories.snapshot(4));
+
+      repositories.withdrawalRepository().save(laterCompletedWithdrawal.changeStatus(WithdrawalStatus.COMPLETED));
+      repositories.withdrawalRepository().save(processingWithdrawal);
+      // a stale PROCESSING record never overwrites the status in the previous snapshot
+      repositories.withdrawalRepository().save(completedWithdrawal);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+      assertTrue(repositories.snapshot(4));
+    }
+
+    try (ColdWithdrawalStore coldStore = ColdWithdrawalStore.open(journalDirectory.resolve("cold"))) {
+      InMemoryWithdrawalRepository withdrawals = new InMemoryWithdrawalRepository(coldStore);
+      try (JournaledRepositories recovered = JournaledRepositories.open(journalDirectory, SEGMENT_BYTES, new InMemoryAccountRepository(), withdrawals)) {
+        assertTransferred(recovered, completedWithdrawal);
+        assertEquals(WithdrawalStatus.COMPLETED, recovered.withdrawalRepository().get(laterCompletedWithdrawal.id()).orElseThrow().status());
+        assertEquals(WithdrawalStatus.PROCESSING, recovered.withdrawalRepository().get(processingWithdrawal.id()).orElseThrow().status());
+        assertEquals(1, withdrawals.hotCount());
+        assertEquals(2, coldStore.count());
+        assertEquals(3, withdrawals.count());
+        assertEquals(2, withdrawals.getPageByStatus(WithdrawalStatus.COMPLETED, null, 10).size());
+      }
+    }
+  }
+
+  @Test
+  void givenJournaledWithdrawalFromHotAccount_whenReopened_thenSecondWithdrawalIsRefused() throws Exception {
+    try (JournaledRepositories repositories = openHotRepositories()) {
+      repositories.accountRepository().save(new Account(FROM_ADDRESS, 100L));
+      repositories.accountRepository().withdraw(FROM_ADDRESS, 100L);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+    }
+
+    try (JournaledRepositories recovered = openHotRepositories()) {
+      // the withdrawal is replayed as a negative deposit
+      assertThrows(IllegalArgumentException.class, () -> recovered.accountRepository().withdraw(FROM_ADDRESS, 100L));
+      assertEquals(0L, recovered.accountRepository().get(FROM_ADDRESS).orElseThrow().getBalance());
+    }
+  }
+
+  @Test
+  void givenConcurrentFlushes_whenCompleted_thenEveryRecordIsDurable() throws Exception {
+    int records = 1_000;
+    try (Journal journal = Journal.open(journalDirectory, SEGMENT_BYTES, 1L, record -> fail("new journal should be empty"))) {
+      List<CompletableFuture<Void>> flushes = new ArrayList<>();
+      for (int i = 0; i < records; i++) {
+        journal.append(new JournalRecord.BalanceChanged(FROM_ADDRESS, i));
+        flushes.add(journal.flush());
+      }
+      CompletableFuture.allOf(flushes.toArray(CompletableFuture[]::new)).join();
+    }
+
+    List<JournalRecord> replayed = new ArrayList<>();
+    Journal.replayComplete(Journal.segmentFile(journalDirectory, 1L), replayed::add);
+    assertEquals(records, replayed.size());
+    assertEquals(new JournalRecord.BalanceChanged(FROM_ADDRESS, records - 1), replayed.get(records - 1));
+  }
+
+  @Test
+  void givenAtomicTransferWithTornTail_whenReopened_thenNoneOfItIsReplayed() throws Exception {
+    WithdrawalTransaction withdrawalTransaction = processingWithdrawal();
+
+    try (JournaledRepositories repositories = openRepositories(SEGMENT_BYTES)) {
+      repositories.accountRepository().save(new Account(FROM_ADDRESS, 1_000L));
+      repositories.accountRepository().save(new Account(TO_ADDRESS, 0L));
+      CompletableFuture<Void> flushedInGroup = repositories.atomically(() -> {
+        repositories.withdrawalRepository().save(withdrawalTransaction);
+        repositories.accountRepository().withdraw(FROM_ADDRESS, 250L);
+        repositories.accountRepository().deposit(TO_ADDRESS, 250L);
+        repositories.withdrawalRepository().save(withdrawalTransaction.changeStatus(WithdrawalStatus.COMPLETED));
+        return repositories.journal().flush();
+      });
+      flushedInGroup.join();
+    }
+
+    List<JournalRecord> written = new ArrayList<>();
+    Journal.replayComplete(Journal.segmentFile(journalDirectory, 1L), written::add);
+    assertEquals(3, written.size());
+    assertEquals(4, ((JournalRecord.Group) written.get(2)).records().size());
+
+    // a crash while the group was written
+    try (FileChannel channel = FileChannel.open(Journal.segmentFile(journalDirectory, 1L), StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+    try (JournaledRepositories recovered = openRepositories(SEGMENT_BYTES)) {
+      assertEquals(1_000L, recovered.accountRepository().get(FROM_ADDRESS).orElseThrow().getBalance());
+      assertEquals(0L, recovered.accountRepository().get(TO_ADDRESS).orElseThrow().getBalance());
+      assertTrue(recovered.withdrawalRepository().get(withdrawalTransaction.id()).isEmpty());
+    }
+  }
+
+  @Test
+  void givenFlushesRacingClose_whenClosed_thenEveryFlushCompletes() throws Exception {
+    Journal journal = Journal.open(journalDirectory, SEGMENT_BYTES, 1L, record -> fail("new journal should be empty"));
+    List<CompletableFuture<Void>> flushes = new CopyOnWriteArrayList<>();
+    Thread flusher = new Thread(() -> {
+      for (int i = 0; i < 10_000; i++) {
+        try {
+          journal.append(new JournalRecord.BalanceChanged(FROM_ADDRESS, i));
+        } catch (IllegalStateException closed) {
+          // appending after close is rejected, the flush below still has to complete
+        }
+        flushes.add(journal.flush());
+      }
+    });
+    flusher.start();
+    while (flushes.size() < 100) {
+      Thread.onSpinWait();
+    }
+    journal.close();
+    flusher.join();
+
+    CompletableFuture<Void> all = CompletableFuture.allOf(flushes.stream()
+      .map(flush -> flush.handle((completed, failure) -> null))
+      .toArray(CompletableFuture[]::new));
+    all.get(5, TimeUnit.SECONDS);
+    assertTrue(flushes.get(flushes.size() - 1).isCompletedExceptionally());
+  }
+
+  @Test
+  void givenTornTail_whenReopened_thenValidRecordsAreKeptAndAppendingContinues() throws Exception {
+    try (Journal journal = Journal.open(journalDirectory, SEGMENT_BYTES, 1L, record -> {
+    })) {
+      journal.append(new JournalRecord.AccountSaved(FROM_ADDRESS, 100L));
+      journal.append(new JournalRecord.BalanceChanged(FROM_ADDRESS, 50L));
+      journal.flush().join();
+    }
+    try (FileChannel channel = FileChannel.open(Journal.segmentFile(journalDirectory, 1L), StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    List<JournalRecord> replayed = new ArrayList<>();
+    try (Journal journal = Journal.open(journalDirectory, SEGMENT_BYTES, 1L, replayed::add)) {
+      journal.append(new JournalRecord.BalanceChanged(FROM_ADDRESS, 7L));
+      journal.flush().join();
+    }
+    assertEquals(List.of(new JournalRecord.AccountSaved(FROM_ADDRESS, 100L)), replayed);
+
+    replayed.clear();
+    try (Journal journal = Journal.open(journalDirectory, SEGMENT_BYTES, 1L, replayed::add)) {
+      assertEquals(2L, journal.lastSealedSegment());
+    }
+    assertEquals(List.of(new JournalRecord.AccountSaved(FROM_ADDRESS, 100L), new JournalRecord.BalanceChanged(FROM_ADDRESS, 7L)), replayed);
+  }
+
+  private JournaledRepositories openRepositories(long segmentBytes) throws Exception {
+    return JournaledRepositories.open(journalDirectory, segmentBytes, new InMemoryAccountRepository(), new InMemoryWithdrawalRepository());
+  }
+
+  private JournaledRepositories openHotRepositories() throws Exception {
+    return JournaledRepositories.open(journalDirectory, SEGMENT_BYTES, new InMemoryAccountRepository(Set.of(FROM_ADDRESS)), new InMemoryWithdrawalRepository());
+  }
+
+  private static WithdrawalTransaction processingWithdrawal() {
+    return new WithdrawalTransaction(UUID.randomUUID(),
+      new TransferAddress(FROM_ADDRESS), new TransferAddress(TO_ADDRESS), new TransferAmount(250L), WithdrawalStatus.PROCESSING, false);
+  }
+
+  private static void transfer(JournaledRepositories repositories, WithdrawalTransaction withdrawalTransaction) {
+    repositories.accountRepository().save(new Account(FROM_ADDRESS, 1_000L));
+    repositories.accountRepository().save(new Account(TO_ADDRESS, 0L));
+    repositories.withdrawalRepository().save(withdrawalTransaction);
+    repositories.accountRepository().withdraw(FROM_ADDRESS, 250L);
+    repositories.accountRepository().deposit(TO_ADDRESS, 250L);
+    repositories.withdrawalRepository().save(withdrawalTransaction.changeStatus(WithdrawalStatus.COMPLETED));
+  }
+
+  private static void assertTransferred(JournaledRepositories repositories, WithdrawalTransaction withdrawalTransaction) {
+    assertEquals(750L, repositories.accountRepository().get(FROM_ADDRESS).orElseThrow().getBalance());
+    assertEquals(250L, repositories.accountRepository().get(TO_ADDRESS).orElseThrow().getBalance());
+    assertEquals(WithdrawalStatus.COMPLETED, repositories.withdrawalRepository().get(withdrawalTransaction.id()).orElseThrow().status());
+  }
+}
@@ -0,0 +1,62 @@
+package com.yucel.withdrawal.service.admission;
+
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+  public static final String ADDRESS = "create.withdrawal.request";
+  public static final long MAX_RETRY_AFTER_SECONDS = 60L;
+  public static final long NOW_MILLIS = 100_000L;
+
+  @Test
+  void givenPendingExternalWithdrawalsAtLimit_whenAcquired_thenRejectedUntilOneIsFinal() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    AdmissionController admissionController = new AdmissionController(metricsRegistry, 2, 100, Map.of(), MAX_RETRY_AFTER_SECONDS);
+
+    assertTrue(admissionController.tryAcquireExternalWithdrawal());
+    admissionController.acquireExternalWithdrawal();
+    assertFalse(admissionController.tryAcquireExternalWithdrawal());
+
+    admissionController.releaseExternalWithdrawal(NOW_MILLIS);
+    assertTrue(admissionController.tryAcquireExternalWithdrawal());
+
+    String scrape = metricsRegistry.scrape();
+    assertTrue(scrape.contains("admission_rejections_total{queue=\"external_withdrawals\"} 1\n"));
+    assertTrue(scrape.contains("external_withdrawals_pending 2\n"));
+  }
+
+  @Test
+  void givenRecentDrainRate_whenRequestRejected_thenRetryAfterIsTheTimeToDrainOne() {
+    AdmissionController admissionController = new AdmissionController(new MetricsRegistry(), 100, 100, Map.of(ADDRESS, 4), MAX_RETRY_AFTER_SECONDS);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(admissionController.tryAcquireRequest(ADDRESS));
+    }
+    admissionController.releaseRequest(ADDRESS, NOW_MILLIS);
+    admissionController.releaseRequest(ADDRESS, NOW_MILLIS + 500);
+    assertTrue(admissionController.tryAcquireRequest(ADDRESS));
+    assertTrue(admissionController.tryAcquireRequest(ADDRESS));
+
+    assertFalse(admissionController.tryAcquireRequest(ADDRESS));
+    // 2 drained in the 10 seconds window, one more takes 5 seconds
+    assertEquals(5, admissionController.requestRetryAfterSeconds(ADDRESS, NOW_MILLIS + 1999));
+    // the drained ones leave the window
+    assertEquals(MAX_RETRY_AFTER_SECONDS, admissionController.requestRetryAfterSeconds(ADDRESS, NOW_MILLIS + 10_000));
+  }
+
+  @Test
+  void givenNothingDrained_whenOtherAddressFull_thenItsOwnLimitApplies() {
+    AdmissionController admissionController = new AdmissionController(new MetricsRegistry(), 100, 1, Map.of(ADDRESS, 2), MAX_RETRY_AFTER_SECONDS);
+
+    assertTrue(admissionController.tryAcquireRequest("other"));
+    assertFalse(admissionController.tryAcquireRequest("other"));
+    assertEquals(MAX_RETRY_AFTER_SECONDS, admissionController.requestRetryAfterSeconds("other", NOW_MILLIS));
+
+    assertTrue(admissionController.tryAcquireRequest(ADDRESS));
+    assertTrue(admissionController.tryAcquireRequest(ADDRESS));
+  }
+}
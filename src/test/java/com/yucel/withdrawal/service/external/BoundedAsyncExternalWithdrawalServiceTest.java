@@ -0,0 +1,116 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class BoundedAsyncExternalWithdrawalServiceTest {
+
+  public static final String ADDRESS = "DE1234";
+
+  /**
+   * Blocks every withdrawal request until released and fails the requests of the given ids
+   */
+  private static class BlockingExternalWithdrawalService implements ExternalWithdrawalService {
+
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final Set<UUID> failingIds;
+
+    BlockingExternalWithdrawalService(Set<UUID> failingIds) {
+      this.failingIds = failingIds;
+    }
+
+    @Override
+    public void requestExternalWithdrawal(UUID id, String address, long amount) {
+      started.incrementAndGet();
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        released.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+      if (failingIds.contains(id)) {
+        throw new RuntimeException("connection reset");
+      }
+    }
+
+    @Override
+    public WithdrawalStatus getRequestState(UUID id) {
+      return WithdrawalStatus.PROCESSING;
+    }
+
+    @Override
+    public Map<UUID, WithdrawalStatus> getRequestStates(Collection<UUID> ids) {
+      return Map.of();
+    }
+  }
+
+  @Test
+  void givenMoreCallsThanPermits_whenProviderBlocks_thenOnlyPermittedCallsRunAndTheRestWait(Vertx vertx, VertxTestContext testContext) throws Exception {
+    BlockingExternalWithdrawalService provider = new BlockingExternalWithdrawalService(Set.of());
+    BoundedAsyncExternalWithdrawalService service = new BoundedAsyncExternalWithdrawalService(vertx, provider, 2);
+
+    List<Future<Void>> calls = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      calls.add(service.requestExternalWithdrawal(UUID.randomUUID(), ADDRESS, 100L));
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (provider.started.get() < 2 && System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    // give a call let through by mistake the time to start
+    Thread.sleep(100L);
+    assertEquals(2, provider.started.get());
+    assertEquals(2, service.inFlightCalls());
+
+    provider.released.countDown();
+    Future.all(calls).onComplete(testContext.succeeding(completed -> testContext.verify(() -> {
+      assertEquals(5, provider.started.get());
+      assertEquals(2, provider.maxRunning.get());
+      assertEquals(0, service.inFlightCalls());
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void givenFailingCall_whenItCompletes_thenPermitIsReleasedToTheWaitingCall(Vertx vertx, VertxTestContext testContext) {
+    UUID failingId = UUID.randomUUID();
+    BlockingExternalWithdrawalService provider = new BlockingExternalWithdrawalService(Set.of(failingId));
+    provider.released.countDown();
+    BoundedAsyncExternalWithdrawalService service = new BoundedAsyncExternalWithdrawalService(vertx, provider, 1);
+
+    Future<Void> failing = service.requestExternalWithdrawal(failingId, ADDRESS, 100L);
+    Future<Void> waiting = service.requestExternalWithdrawal(UUID.randomUUID(), ADDRESS, 100L);
+
+    failing.onComplete(testContext.failing(failure -> testContext.verify(() -> assertEquals("connection reset", failure.getMessage()))));
+    waiting.onComplete(testContext.succeeding(succeeded -> testContext.verify(() -> {
+      assertTrue(failing.failed());
+      assertEquals(2, provider.started.get());
+      assertEquals(1, provider.maxRunning.get());
+      assertEquals(0, service.inFlightCalls());
+      testContext.completeNow();
+    })));
+  }
+}
@@ -0,0 +1,58 @@
+package com.yucel.withdrawal.service.external;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+  public static final long OPEN_MILLIS = 1000L;
+
+  @Test
+  void givenConsecutiveFailures_whenThresholdReached_thenOpenUntilProbeSucceeds() {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(2, OPEN_MILLIS);
+
+    assertTrue(circuitBreaker.tryAcquire(0L));
+    circuitBreaker.onFailure(0L);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    circuitBreaker.onFailure(10L);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    assertFalse(circuitBreaker.tryAcquire(1009L));
+
+    // a single probe is let through once the open time passed
+    assertTrue(circuitBreaker.tryAcquire(1010L));
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+    assertFalse(circuitBreaker.tryAcquire(1010L));
+
+    circuitBreaker.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    assertTrue(circuitBreaker.tryAcquire(1011L));
+  }
+
+  @Test
+  void givenHalfOpenCircuit_whenProbeFails_thenOpenAgain() {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, OPEN_MILLIS);
+    circuitBreaker.onFailure(0L);
+
+    assertTrue(circuitBreaker.tryAcquire(OPEN_MILLIS));
+    circuitBreaker.onFailure(OPEN_MILLIS);
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    assertFalse(circuitBreaker.tryAcquire(2 * OPEN_MILLIS - 1));
+    // late failures of calls made before opening do not extend the open time
+    circuitBreaker.onFailure(2 * OPEN_MILLIS - 1);
+    assertTrue(circuitBreaker.tryAcquire(2 * OPEN_MILLIS));
+  }
+
+  @Test
+  void givenPreviousDelay_whenNextDelayDrawn_thenBetweenBaseAndThreeTimesPreviousCapped() {
+    DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(10L, 100L);
+
+    for (int i = 0; i < 1000; i++) {
+      long firstDelay = backoff.nextDelayMillis(10L);
+      assertTrue(firstDelay >= 10L && firstDelay <= 30L);
+      long cappedDelay = backoff.nextDelayMillis(90L);
+      assertTrue(cappedDelay >= 10L && cappedDelay <= 100L);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class ResilientAsyncExternalWithdrawalServiceTest {
+
+  public static final UUID WITHDRAWAL_ID = UUID.randomUUID();
+  public static final String OPERATION = "getRequestStates";
+
+  /**
+   * Answers the status calls with the queued outcomes in order
+   */
+  private static class ScriptedExternalWithdrawalService implements AsyncExternalWithdrawalService {
+
+    private final Queue<Future<Map<UUID, WithdrawalStatus>>> outcomes;
+    private int calls;
+
+    ScriptedExternalWithdrawalService(List<Future<Map<UUID, WithdrawalStatus>>> outcomes) {
+      this.outcomes = new ArrayDeque<>(outcomes);
+    }
+
+    @Override
+    public Future<Void> requestExternalWithdrawal(UUID id, String address, long amount) {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<WithdrawalStatus> getRequestState(UUID id) {
+      return Future.succeededFuture(WithdrawalStatus.PROCESSING);
+    }
+
+    @Override
+    public Future<Map<UUID, WithdrawalStatus>> getRequestStates(Collection<UUID> ids) {
+      calls++;
+      return outcomes.poll();
+    }
+  }
+
+  @Test
+  void givenTransientFailures_whenGetRequestStates_thenRetriedUntilAnswered(Vertx vertx, VertxTestContext testContext) {
+    ScriptedExternalWithdrawalService delegate = new ScriptedExternalWithdrawalService(List.of(
+      Future.failedFuture(new RuntimeException("connection reset")),
+      Future.failedFuture(new RuntimeException("connection reset")),
+      Future.succeededFuture(Map.of(WITHDRAWAL_ID, WithdrawalStatus.COMPLETED))));
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    ResilientAsyncExternalWithdrawalService service = new ResilientAsyncExternalWithdrawalService(vertx, delegate,
+      Map.of(OPERATION, new ExternalCallPolicy(2, 1L, 5L, 5, 1000L)), metricsRegistry);
+
+    service.getRequestStates(List.of(WITHDRAWAL_ID)).onComplete(testContext.succeeding(statuses -> testContext.verify(() -> {
+      assertEquals(WithdrawalStatus.COMPLETED, statuses.get(WITHDRAWAL_ID));
+      assertEquals(3, delegate.calls);
+      assertTrue(metricsRegistry.scrape().contains("external_withdrawal_call_retries_total{operation=\"getRequestStates\"} 2\n"));
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void givenFailingProvider_whenCircuitOpens_thenCallsRejectedWithoutReachingIt(Vertx vertx, VertxTestContext testContext) {
+    ScriptedExternalWithdrawalService delegate = new ScriptedExternalWithdrawalService(List.of(
+      Future.failedFuture(new RuntimeException("timeout")),
+      Future.failedFuture(new RuntimeException("timeout"))));
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    ResilientAsyncExternalWithdrawalService service = new ResilientAsyncExternalWithdrawalService(vertx, delegate,
+      Map.of(OPERATION, new ExternalCallPolicy(5, 1L, 5L, 2, 60_000L)), metricsRegistry);
+
+    service.getRequestStates(List.of(WITHDRAWAL_ID))
+      .recover(firstFailure -> {
+        testContext.verify(() -> assertEquals("timeout", firstFailure.getMessage()));
+        return service.getRequestStates(List.of(WITHDRAWAL_ID));
+      })
+      .onComplete(testContext.failing(rejected -> testContext.verify(() -> {
+        assertInstanceOf(ExternalServiceUnavailableException.class, rejected);
+        // the retry failing into the threshold opened the circuit, nothing was retried after that
+        assertEquals(2, delegate.calls);
+        String scrape = metricsRegistry.scrape();
+        assertTrue(scrape.contains("external_withdrawal_circuit_state{operation=\"getRequestStates\"} 1\n"));
+        assertTrue(scrape.contains("external_withdrawal_circuit_rejections_total{operation=\"getRequestStates\"} 1\n"));
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenRetryPending_whenCircuitOpensMeanwhile_thenRetryFailsWithTheOutcomeUnknownError(Vertx vertx, VertxTestContext testContext) {
+    ScriptedExternalWithdrawalService delegate = new ScriptedExternalWithdrawalService(List.of(
+      Future.failedFuture(new RuntimeException("timeout of the first call")),
+      Future.failedFuture(new RuntimeException("timeout of the second call"))));
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    ResilientAsyncExternalWithdrawalService service = new ResilientAsyncExternalWithdrawalService(vertx, delegate,
+      Map.of(OPERATION, new ExternalCallPolicy(5, 1L, 5L, 2, 60_000L)), metricsRegistry);
+
+    // on one context the retry timer of the first call cannot fire before the second call opened the circuit
+    vertx.runOnContext(started -> {
+      Future<Map<UUID, WithdrawalStatus>> retried = service.getRequestStates(List.of(WITHDRAWAL_ID));
+      Future<Map<UUID, WithdrawalStatus>> opening = service.getRequestStates(List.of(WITHDRAWAL_ID));
+
+      retried.onComplete(testContext.failing(failure -> testContext.verify(() -> {
+        assertFalse(failure instanceof ExternalServiceUnavailableException);
+        assertEquals("timeout of the first call", failure.getMessage());
+        assertEquals("timeout of the second call", opening.cause().getMessage());
+        assertEquals(2, delegate.calls);
+        assertTrue(metricsRegistry.scrape().contains("external_withdrawal_circuit_rejections_total{operation=\"getRequestStates\"} 1\n"));
+        testContext.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  void givenProviderAnswer_whenUnknownWithdrawal_thenNotRetried(Vertx vertx, VertxTestContext testContext) {
+    ScriptedExternalWithdrawalService delegate = new ScriptedExternalWithdrawalService(List.of(
+      Future.failedFuture(new IllegalArgumentException("unknown withdrawal"))));
+    ResilientAsyncExternalWithdrawalService service = new ResilientAsyncExternalWithdrawalService(vertx, delegate, Map.of(), new MetricsRegistry());
+
+    service.getRequestStates(List.of(WITHDRAWAL_ID)).onComplete(testContext.failing(failure -> testContext.verify(() -> {
+      assertInstanceOf(IllegalArgumentException.class, failure);
+      assertEquals(1, delegate.calls);
+      testContext.completeNow();
+    })));
+  }
+}
@@ -0,0 +1,40 @@
+package com.yucel.withdrawal.service.external;
+
+import com.yucel.withdrawal.service.external.model.Amount;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WithdrawalServiceStubTest {
+
+  public static final WithdrawalService.Address ADDRESS = new WithdrawalService.Address("DE1234");
+  public static final Amount AMOUNT = new Amount(100L, 2);
+
+  @Test
+  void givenRequestedWithdrawals_whenGetRequestStates_thenKnownIdsAnsweredAndUnknownLeftOut() {
+    WithdrawalServiceStub withdrawalService = new WithdrawalServiceStub();
+    WithdrawalService.WithdrawalId first = new WithdrawalService.WithdrawalId(UUID.randomUUID());
+    WithdrawalService.WithdrawalId second = new WithdrawalService.WithdrawalId(UUID.randomUUID());
+    WithdrawalService.WithdrawalId unknown = new WithdrawalService.WithdrawalId(UUID.randomUUID());
+    withdrawalService.requestWithdrawal(first, ADDRESS, AMOUNT);
+    withdrawalService.requestWithdrawal(second, ADDRESS, AMOUNT);
+
+    Map<WithdrawalService.WithdrawalId, WithdrawalService.WithdrawalState> states = withdrawalService.getRequestStates(List.of(first, unknown, second));
+
+    // a requested withdrawal is finalised a second at the earliest
+    assertEquals(Map.of(first, WithdrawalService.WithdrawalState.PROCESSING, second, WithdrawalService.WithdrawalState.PROCESSING), states);
+    assertEquals(states.get(first), withdrawalService.getRequestState(first));
+    assertThrows(IllegalArgumentException.class, () -> withdrawalService.getRequestState(unknown));
+  }
+
+  @Test
+  void givenNoRequests_whenGetRequestStates_thenEmpty() {
+    WithdrawalServiceStub withdrawalService = new WithdrawalServiceStub();
+
+    assertTrue(withdrawalService.getRequestStates(List.of(new WithdrawalService.WithdrawalId(UUID.randomUUID()))).isEmpty());
+  }
+}
@@ -0,0 +1,50 @@
+package com.yucel.withdrawal.service.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+  public static final long TIME_TO_LIVE_MILLIS = 1000L;
+
+  @Test
+  void givenKeptValue_whenPutAgain_thenFirstValueReturnedUntilExpired() {
+    IdempotencyCache<String, String> idempotencyCache = new IdempotencyCache<>(10, TIME_TO_LIVE_MILLIS);
+
+    assertNull(idempotencyCache.putIfAbsent("key", "first", 0L));
+    assertEquals("first", idempotencyCache.putIfAbsent("key", "second", 999L));
+    assertEquals("first", idempotencyCache.get("key", 999L));
+
+    assertNull(idempotencyCache.get("key", 1000L));
+    assertNull(idempotencyCache.putIfAbsent("key", "second", 1000L));
+    assertEquals("second", idempotencyCache.get("key", 1000L));
+    assertEquals(1, idempotencyCache.size());
+  }
+
+  @Test
+  void givenFullCache_whenPut_thenOldestValueEvicted() {
+    IdempotencyCache<Integer, String> idempotencyCache = new IdempotencyCache<>(3, TIME_TO_LIVE_MILLIS);
+    for (int i = 0; i < 5; i++) {
+      idempotencyCache.putIfAbsent(i, "value" + i, i);
+    }
+
+    assertEquals(3, idempotencyCache.size());
+    assertNull(idempotencyCache.get(0, 5L));
+    assertNull(idempotencyCache.get(1, 5L));
+    assertEquals("value4", idempotencyCache.get(4, 5L));
+  }
+
+  @Test
+  void givenRemovedValue_whenPut_thenNewValueKeptAndStaleEntryDoesNotEvictIt() {
+    IdempotencyCache<String, String> idempotencyCache = new IdempotencyCache<>(10, TIME_TO_LIVE_MILLIS);
+    idempotencyCache.putIfAbsent("key", "failed", 0L);
+    idempotencyCache.remove("key", "failed");
+
+    assertNull(idempotencyCache.putIfAbsent("key", "retried", 500L));
+    // the entry of the removed value expires first, it must leave the retried one alone
+    assertEquals("retried", idempotencyCache.get("key", 1200L));
+    idempotencyCache.putIfAbsent("other", "value", 1200L);
+    assertEquals("retried", idempotencyCache.get("key", 1200L));
+  }
+}
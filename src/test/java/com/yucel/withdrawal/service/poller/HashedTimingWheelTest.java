@@ -0,0 +1,55 @@
+package com.yucel.withdrawal.service.poller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+  public static final long TICK_MILLIS = 100L;
+
+  @Test
+  void givenScheduledItems_whenAdvance_thenOnlyDueItemsReturned() {
+    HashedTimingWheel<String> timingWheel = new HashedTimingWheel<>(TICK_MILLIS, 16, 0L);
+    timingWheel.schedule("first", 250L);
+    timingWheel.schedule("second", 900L);
+
+    assertEquals(List.of(), timingWheel.advance(200L));
+    assertEquals(List.of("first"), timingWheel.advance(300L));
+    assertEquals(1, timingWheel.size());
+    assertEquals(List.of("second"), timingWheel.advance(950L));
+    assertEquals(0, timingWheel.size());
+  }
+
+  @Test
+  void givenDeadlineBeyondOneRevolution_whenAdvancePastBucket_thenKeptForItsRound() {
+    HashedTimingWheel<String> timingWheel = new HashedTimingWheel<>(TICK_MILLIS, 4, 0L);
+    timingWheel.schedule("later", 1000L);
+
+    assertEquals(List.of(), timingWheel.advance(600L));
+    assertEquals(List.of(), timingWheel.advance(900L));
+    assertEquals(List.of("later"), timingWheel.advance(1000L));
+  }
+
+  @Test
+  void givenLongPause_whenAdvance_thenAllOverdueItemsReturned() {
+    HashedTimingWheel<Integer> timingWheel = new HashedTimingWheel<>(TICK_MILLIS, 8, 0L);
+    for (int i = 1; i <= 20; i++) {
+      timingWheel.schedule(i, i * TICK_MILLIS);
+    }
+
+    assertEquals(20, timingWheel.advance(10_000L).size());
+    assertEquals(0, timingWheel.size());
+  }
+
+  @Test
+  void givenPastDeadline_whenSchedule_thenDueOnNextTick() {
+    HashedTimingWheel<String> timingWheel = new HashedTimingWheel<>(TICK_MILLIS, 8, 0L);
+    timingWheel.advance(500L);
+    timingWheel.schedule("overdue", 100L);
+
+    assertEquals(List.of("overdue"), timingWheel.advance(600L));
+  }
+}
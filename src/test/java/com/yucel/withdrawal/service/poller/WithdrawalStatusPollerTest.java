@@ -0,0 +1,129 @@
+package com.yucel.withdrawal.service.poller;
+
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.metrics.Counter;
+import com.yucel.withdrawal.service.external.AsyncExternalWithdrawalService;
+import io.vertx.core.Future;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WithdrawalStatusPollerTest {
+
+  public static final long TICK_MILLIS = 100L;
+  public static final long INITIAL_DELAY_MILLIS = 1000L;
+
+  /**
+   * Answers each batch status call with the given function and keeps the ids of the batches
+   */
+  private static class RecordingExternalWithdrawalService implements AsyncExternalWithdrawalService {
+
+    private final Function<Collection<UUID>, Future<Map<UUID, WithdrawalStatus>>> answer;
+    private final List<List<UUID>> batches = new ArrayList<>();
+
+    RecordingExternalWithdrawalService(Function<Collection<UUID>, Future<Map<UUID, WithdrawalStatus>>> answer) {
+      this.answer = answer;
+    }
+
+    @Override
+    public Future<Void> requestExternalWithdrawal(UUID id, String address, long amount) {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<WithdrawalStatus> getRequestState(UUID id) {
+      return Future.failedFuture(new UnsupportedOperationException("statuses are polled in batches"));
+    }
+
+    @Override
+    public Future<Map<UUID, WithdrawalStatus>> getRequestStates(Collection<UUID> ids) {
+      batches.add(List.copyOf(ids));
+      return answer.apply(ids);
+    }
+  }
+
+  private long nowMillis;
+  private final WithdrawalStatusPollScheduler scheduler = new WithdrawalStatusPollScheduler(TICK_MILLIS,
+    new ExponentialBackoff(INITIAL_DELAY_MILLIS, 2.0, 10_000L), 0L);
+  private final Map<UUID, WithdrawalStatus> handledStatuses = new HashMap<>();
+  private final Counter deferredStatusPolls = new Counter();
+
+  @Test
+  void givenMoreDueWithdrawalsThanBatchSize_whenPoll_thenOneProviderCallPerBatch() {
+    RecordingExternalWithdrawalService provider = new RecordingExternalWithdrawalService(ids -> {
+      Map<UUID, WithdrawalStatus> statuses = new HashMap<>();
+      ids.forEach(id -> statuses.put(id, WithdrawalStatus.COMPLETED));
+      return Future.succeededFuture(statuses);
+    });
+    List<UUID> ids = scheduleWithdrawals(5);
+
+    pollDue(provider, 2);
+
+    assertEquals(List.of(2, 2, 1), provider.batches.stream().map(List::size).toList());
+    assertEquals(ids, provider.batches.stream().flatMap(List::stream).sorted().toList());
+    assertEquals(5, handledStatuses.size());
+    assertTrue(handledStatuses.values().stream().allMatch(WithdrawalStatus.COMPLETED::equals));
+  }
+
+  @Test
+  void givenIdMissingFromProviderAnswer_whenPoll_thenWithdrawalIsFailed() {
+    List<UUID> ids = scheduleWithdrawals(3);
+    UUID unknownId = ids.get(1);
+    RecordingExternalWithdrawalService provider = new RecordingExternalWithdrawalService(requestedIds -> {
+      Map<UUID, WithdrawalStatus> statuses = new HashMap<>();
+      requestedIds.stream().filter(id -> !id.equals(unknownId)).forEach(id -> statuses.put(id, WithdrawalStatus.PROCESSING));
+      return Future.succeededFuture(statuses);
+    });
+
+    pollDue(provider, 10);
+
+    assertEquals(1, provider.batches.size());
+    assertEquals(WithdrawalStatus.FAILED, handledStatuses.get(unknownId));
+    assertEquals(WithdrawalStatus.PROCESSING, handledStatuses.get(ids.get(0)));
+    assertEquals(WithdrawalStatus.PROCESSING, handledStatuses.get(ids.get(2)));
+  }
+
+  @Test
+  void givenProviderCallFails_whenPoll_thenBatchIsDeferredWithoutStatuses() {
+    RecordingExternalWithdrawalService provider = new RecordingExternalWithdrawalService(ids -> Future.failedFuture(new RuntimeException("timeout")));
+    scheduleWithdrawals(3);
+
+    pollDue(provider, 2);
+
+    assertEquals(2, provider.batches.size());
+    assertTrue(handledStatuses.isEmpty());
+    assertEquals(3L, deferredStatusPolls.count());
+    assertEquals(3, scheduler.size());
+  }
+
+  private List<UUID> scheduleWithdrawals(int count) {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      WithdrawalTransaction withdrawalTransaction = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress("DE123"),
+        new TransferAddress("DE1234"), new TransferAmount(100L), WithdrawalStatus.PROCESSING, true);
+      scheduler.schedule(withdrawalTransaction, nowMillis);
+      ids.add(withdrawalTransaction.id());
+    }
+    ids.sort(null);
+    return ids;
+  }
+
+  private void pollDue(AsyncExternalWithdrawalService provider, int batchSize) {
+    WithdrawalStatusPoller poller = new WithdrawalStatusPoller(scheduler, provider, batchSize,
+      (pendingWithdrawal, status) -> handledStatuses.put(pendingWithdrawal.withdrawalTransaction().id(), status),
+      deferredStatusPolls, () -> nowMillis);
+    nowMillis += INITIAL_DELAY_MILLIS + TICK_MILLIS;
+    poller.poll();
+  }
+}
@@ -0,0 +1,72 @@
+package com.yucel.withdrawal.service.trace;
+
+import com.yucel.withdrawal.domain.model.TransactionChainTracer;
+import com.yucel.withdrawal.domain.model.TransactionChainTracer.Stage;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalTrace;
+import com.yucel.withdrawal.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WithdrawalTraceRecorderTest {
+
+  @Test
+  void givenFinishedExternalWithdrawal_whenRecorded_thenEachReachedStageMeasuredFromThePreviousOne() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    WithdrawalTraceRecorder recorder = new WithdrawalTraceRecorder(metricsRegistry, 0, 10);
+    UUID withdrawalId = UUID.randomUUID();
+    long receivedNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(500);
+    TransactionChainTracer tracer = new TransactionChainTracer(true, receivedNanos);
+    tracer.mark(Stage.VALIDATED, receivedNanos + TimeUnit.MILLISECONDS.toNanos(1));
+    tracer.mark(Stage.PERSISTED, receivedNanos + TimeUnit.MILLISECONDS.toNanos(2));
+    tracer.mark(Stage.BALANCE_DEBITED, receivedNanos + TimeUnit.MILLISECONDS.toNanos(3));
+    tracer.mark(Stage.EXTERNAL_REQUESTED, receivedNanos + TimeUnit.MILLISECONDS.toNanos(100));
+
+    recorder.open(withdrawalId, tracer);
+    assertEquals(1, recorder.openTraces());
+    recorder.finish(withdrawalId, WithdrawalStatus.COMPLETED);
+
+    assertEquals(0, recorder.openTraces());
+    List<WithdrawalTrace> slowTraces = recorder.slowTraces();
+    assertEquals(1, slowTraces.size());
+    WithdrawalTrace trace = slowTraces.getFirst();
+    assertEquals(withdrawalId, trace.withdrawalId());
+    assertTrue(trace.external());
+    assertEquals(Set.of(Stage.RECEIVED, Stage.VALIDATED, Stage.PERSISTED, Stage.BALANCE_DEBITED, Stage.EXTERNAL_REQUESTED, Stage.TERMINAL),
+      trace.stageMillis().keySet());
+    assertEquals(100.0, trace.stageMillis().get(Stage.EXTERNAL_REQUESTED));
+    assertTrue(trace.totalMillis() >= 500);
+
+    String scrape = metricsRegistry.scrape();
+    // 97ms from debiting to the provider accepting
+    assertTrue(scrape.contains("withdrawal_stage_duration_seconds_bucket{kind=\"external\",stage=\"EXTERNAL_REQUESTED\",le=\"0.05\"} 0\n"));
+    assertTrue(scrape.contains("withdrawal_stage_duration_seconds_bucket{kind=\"external\",stage=\"EXTERNAL_REQUESTED\",le=\"0.1\"} 1\n"));
+    assertFalse(scrape.contains("kind=\"external\",stage=\"BALANCE_CREDITED\""));
+  }
+
+  @Test
+  void givenFastAndSlowWithdrawals_whenFinished_thenOnlyLatestSlowOnesSampled() {
+    WithdrawalTraceRecorder recorder = new WithdrawalTraceRecorder(new MetricsRegistry(), 1000, 2);
+    UUID fastWithdrawalId = UUID.randomUUID();
+    recorder.open(fastWithdrawalId, new TransactionChainTracer(false, System.nanoTime()));
+    recorder.finish(fastWithdrawalId, WithdrawalStatus.COMPLETED);
+    assertEquals(List.of(), recorder.slowTraces());
+
+    List<UUID> slowWithdrawalIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    for (UUID slowWithdrawalId : slowWithdrawalIds) {
+      recorder.open(slowWithdrawalId, new TransactionChainTracer(false, System.nanoTime() - TimeUnit.SECONDS.toNanos(2)));
+      recorder.finish(slowWithdrawalId, WithdrawalStatus.FAILED);
+    }
+    // unknown withdrawals, e.g. requeued after a restart, are ignored
+    recorder.finish(UUID.randomUUID(), WithdrawalStatus.COMPLETED);
+
+    assertEquals(List.of(slowWithdrawalIds.get(2), slowWithdrawalIds.get(1)),
+      recorder.slowTraces().stream().map(WithdrawalTrace::withdrawalId).toList());
+  }
+}
@@ -6,9 +6,12 @@ import com.yucel.withdrawal.domain.model.UpdateBalanceRequest;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpClientResponse;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.AfterEach;
@@ -17,9 +20,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(VertxExtension.class)
@@ -157,6 +163,69 @@ class AccountIntegrationTest {
 
   }
 
+  @Test
+  void givenAccounts_whenGetAccountsWithLimit_thenPagesFollowTheCursor(Vertx vertx, VertxTestContext testContext) {
+    HttpClient client = vertx.createHttpClient();
+    List<String> addresses = List.of("DE1", "DE2", "DE3");
+
+    Future.all(addresses.stream()
+        .map(address -> client.request(HttpMethod.POST, PORT, HOST, ACCOUNTS_PATH)
+          .compose(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON).send(Json.encode(new AccountRequest(address, BigDecimal.TEN)))))
+        .toList())
+      .compose(created -> client.request(HttpMethod.GET, PORT, HOST, ACCOUNTS_PATH + "?limit=2"))
+      .compose(HttpClientRequest::send)
+      .compose(firstPage -> firstPage.body().compose(buffer -> {
+        String nextCursor = firstPage.getHeader("X-Next-Cursor");
+        testContext.verify(() -> {
+          assertEquals(List.of("DE1", "DE2"), addressesOf(buffer.toString()));
+          assertNotNull(nextCursor);
+        });
+        return client.request(HttpMethod.GET, PORT, HOST, ACCOUNTS_PATH + "?limit=2&cursor=" + nextCursor);
+      }))
+      .compose(HttpClientRequest::send)
+      .onComplete(testContext.succeeding(secondPage -> secondPage.body().onComplete(testContext.succeeding(buffer -> testContext.verify(() -> {
+        assertEquals(List.of("DE3"), addressesOf(buffer.toString()));
+        assertNull(secondPage.getHeader("X-Next-Cursor"));
+        testContext.completeNow();
+      })))));
+  }
+
+  @Test
+  void givenCreatedAccount_whenMetricsScraped_thenRouteAndEventBusMetricsExposed(Vertx vertx, VertxTestContext testContext) {
+    HttpClient client = vertx.createHttpClient();
+
+    client.request(HttpMethod.POST, PORT, HOST, ACCOUNTS_PATH)
+      .compose(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON).send(Json.encode(new AccountRequest("DE123", BigDecimal.TEN))))
+      .compose(created -> client.request(HttpMethod.GET, PORT, HOST, "/metrics"))
+      .compose(req -> req.send().compose(HttpClientResponse::body))
+      .onComplete(testContext.succeeding(buffer -> testContext.verify(() -> {
+        String metrics = buffer.toString();
+        assertTrue(metrics.contains("http_server_requests_total{method=\"POST\",route=\"/accounts\",status=\"2xx\"} 1\n"));
+        assertTrue(metrics.contains("http_server_request_duration_seconds_count{method=\"POST\",route=\"/accounts\"} 1\n"));
+        assertTrue(metrics.contains("eventbus_request_duration_seconds_count{address=\"create.account.request\"} 1\n"));
+        assertTrue(metrics.contains("# TYPE withdrawal_status_poll_backlog gauge\n"));
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenInvalidLimit_whenGetAccounts_thenBadRequest(Vertx vertx, VertxTestContext testContext) {
+    HttpClient client = vertx.createHttpClient();
+
+    client.request(HttpMethod.GET, PORT, HOST, ACCOUNTS_PATH + "?limit=0")
+      .compose(HttpClientRequest::send)
+      .onComplete(testContext.succeeding(response -> testContext.verify(() -> {
+        assertEquals(400, response.statusCode());
+        testContext.completeNow();
+      })));
+  }
+
+  private static List<String> addressesOf(String accounts) {
+    return new JsonArray(accounts).stream()
+      .map(account -> ((JsonObject) account).getString("address"))
+      .toList();
+  }
+
   void createAccount(HttpClient httpClient, AccountRequest accountRequest) {
     httpClient.request(HttpMethod.POST, PORT, HOST, ACCOUNTS_PATH)
       .flatMap(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON)
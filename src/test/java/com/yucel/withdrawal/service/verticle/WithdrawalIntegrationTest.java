@@ -6,6 +6,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yucel.withdrawal.MainVerticle;
 import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
 import com.yucel.withdrawal.domain.model.AccountRequest;
+import com.yucel.withdrawal.domain.model.CurrencyUnit;
+import com.yucel.withdrawal.domain.model.WithdrawalBatchResult;
 import com.yucel.withdrawal.domain.model.WithdrawalRequest;
 import com.yucel.withdrawal.domain.model.WithdrawalStatus;
 import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
@@ -139,7 +141,7 @@ public class WithdrawalIntegrationTest {
 
           assertEquals(withdrawalTransaction.fromAccountAddress().address(), ADDRESS_1);
           assertEquals(withdrawalTransaction.status(), WithdrawalStatus.PROCESSING);
-          assertEquals(withdrawalTransaction.amount().amount(), transferAmount);
+          assertEquals(withdrawalTransaction.amount().amount(), CurrencyUnit.DEFAULT.toMinorUnits(transferAmount));
           testContext.completeNow();
 
         }))));
@@ -248,6 +250,153 @@ public class WithdrawalIntegrationTest {
 
   }
 
+  @Test
+  void givenInsufficientBalance_whenInternalWithdraw_thenUnprocessableAndBalanceUnchanged(Vertx vertx, VertxTestContext testContext) {
+    final HttpClient client = vertx.createHttpClient();
+    final BigDecimal initialBalance = BigDecimal.TEN;
+
+    createAccounts(client);
+    WithdrawalRequest withdrawalRequest = new WithdrawalRequest(ADDRESS_1, ADDRESS_2, initialBalance.add(BigDecimal.ONE));
+    client.request(HttpMethod.POST, PORT, HOST, WITHDRAWAL_PATH)
+      .flatMap(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON)
+        .send(Json.encode(withdrawalRequest))
+        .onSuccess(
+          response -> testContext.verify(() -> assertEquals(response.statusCode(), 422))
+        )
+      )
+      .flatMap(httpClientResponse -> client.request(HttpMethod.GET, PORT, HOST, ACCOUNTS_PATH + "/%s".formatted(ADDRESS_1))
+        .compose(req -> req.send().compose(HttpClientResponse::body)))
+      .onComplete(testContext.succeeding(buffer -> testContext.verify(() -> {
+        AccountRequest account = Json.decodeValue(buffer, AccountRequest.class);
+
+        assertEquals(account.balance(), initialBalance);
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenMixedBatch_whenCreateWithdrawalBatch_thenResultPerRequestInOrder(Vertx vertx, VertxTestContext testContext) {
+    final HttpClient client = vertx.createHttpClient();
+
+    createAccounts(client);
+    List<WithdrawalRequest> withdrawalRequests = List.of(
+      new WithdrawalRequest(ADDRESS_1, ADDRESS_2, BigDecimal.ONE),
+      new WithdrawalRequest(ADDRESS_1, ADDRESS_2, BigDecimal.ZERO),
+      new WithdrawalRequest(ADDRESS_1, EXTERNAL_ADDRESS, BigDecimal.valueOf(100)));
+    client.request(HttpMethod.POST, PORT, HOST, WITHDRAWAL_PATH + "/batch")
+      .compose(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON)
+        .send(Json.encode(withdrawalRequests))
+        .compose(response -> {
+          testContext.verify(() -> assertEquals(200, response.statusCode()));
+          return response.body();
+        }))
+      .onComplete(testContext.succeeding(buffer -> testContext.verify(() -> {
+        List<WithdrawalBatchResult> results = MAPPER.readValue(buffer.toString(), new TypeReference<List<WithdrawalBatchResult>>() {
+        });
+
+        assertEquals(3, results.size());
+        assertEquals(201, results.get(0).httpCode());
+        assertNotNull(results.get(0).withdrawalId());
+        assertEquals(422, results.get(1).httpCode());
+        assertNull(results.get(1).withdrawalId());
+        assertEquals(422, results.get(2).httpCode());
+        for (int i = 0; i < results.size(); i++) {
+          assertEquals(i, results.get(i).index());
+        }
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenRepeatedIdempotencyKey_whenInternalWithdraw_thenWithdrawnOnce(Vertx vertx, VertxTestContext testContext) {
+    final HttpClient client = vertx.createHttpClient();
+    final BigDecimal transferAmount = BigDecimal.ONE;
+    final BigDecimal initialBalance = BigDecimal.TEN;
+
+    createAccounts(client);
+    WithdrawalRequest withdrawalRequest = new WithdrawalRequest(ADDRESS_1, ADDRESS_2, transferAmount);
+    WithdrawalRequest differentRequest = new WithdrawalRequest(ADDRESS_1, ADDRESS_2, BigDecimal.TWO);
+    sendWithdrawal(client, withdrawalRequest, "retry-1")
+      .compose(first -> sendWithdrawal(client, withdrawalRequest, "retry-1").map(second -> List.of(first, second)))
+      .compose(statusCodes -> sendWithdrawal(client, differentRequest, "retry-1").map(third -> {
+        testContext.verify(() -> assertEquals(List.of(201, 201, 422), List.of(statusCodes.get(0), statusCodes.get(1), third)));
+        return third;
+      }))
+      .compose(statusCodes -> client.request(HttpMethod.GET, PORT, HOST, ACCOUNTS_PATH + "/%s".formatted(ADDRESS_1))
+        .compose(req -> req.send().compose(HttpClientResponse::body)))
+      .onComplete(testContext.succeeding(buffer -> testContext.verify(() -> {
+        AccountRequest account = Json.decodeValue(buffer, AccountRequest.class);
+
+        assertEquals(account.balance(), initialBalance.subtract(transferAmount));
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenExternalWithdrawal_whenSubscribedToStatusEvents_thenProcessingThenFinalStatusPushed(Vertx vertx, VertxTestContext testContext) {
+    final HttpClient client = vertx.createHttpClient();
+
+    createAccounts(client);
+    List<WithdrawalRequest> withdrawalRequests = List.of(new WithdrawalRequest(ADDRESS_1, EXTERNAL_ADDRESS, BigDecimal.ONE));
+    client.request(HttpMethod.POST, PORT, HOST, WITHDRAWAL_PATH + "/batch")
+      .compose(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON)
+        .send(Json.encode(withdrawalRequests))
+        .compose(HttpClientResponse::body))
+      .map(buffer -> Json.decodeValue(buffer.getString(1, buffer.length() - 1), WithdrawalBatchResult.class).withdrawalId())
+      .compose(uuid -> client.request(HttpMethod.GET, PORT, HOST, WITHDRAWAL_PATH + "/%s/status/events".formatted(uuid))
+        .compose(req -> req.send().compose(response -> {
+          testContext.verify(() -> assertEquals("text/event-stream", response.getHeader(CONTENT_TYPE_KEY)));
+          return response.body();
+        })))
+      .onComplete(testContext.succeeding(buffer -> testContext.verify(() -> {
+        List<WithdrawalStatus> statuses = buffer.toString().lines()
+          .filter(line -> line.startsWith("data: "))
+          .map(line -> Json.decodeValue(line.substring("data: ".length()), WithdrawalStatusResponse.class).status())
+          .toList();
+
+        assertEquals(2, statuses.size());
+        assertEquals(WithdrawalStatus.PROCESSING, statuses.get(0));
+        assertNotEquals(WithdrawalStatus.PROCESSING, statuses.get(1));
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenProcessingWithdrawal_whenLongPolledStatusTimesOut_thenCurrentStatusReturned(Vertx vertx, VertxTestContext testContext) {
+    final HttpClient client = vertx.createHttpClient();
+
+    createAccounts(client);
+    List<WithdrawalRequest> withdrawalRequests = List.of(new WithdrawalRequest(ADDRESS_1, EXTERNAL_ADDRESS, BigDecimal.ONE));
+    client.request(HttpMethod.POST, PORT, HOST, WITHDRAWAL_PATH + "/batch")
+      .compose(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON)
+        .send(Json.encode(withdrawalRequests))
+        .compose(HttpClientResponse::body))
+      .map(buffer -> Json.decodeValue(buffer.getString(1, buffer.length() - 1), WithdrawalBatchResult.class).withdrawalId())
+      .compose(uuid -> client.request(HttpMethod.GET, PORT, HOST, WITHDRAWAL_PATH + "/%s/status?waitFor=COMPLETED,FAILED&timeout=200".formatted(uuid))
+        .compose(req -> req.send().compose(response -> {
+          testContext.verify(() -> assertEquals(200, response.statusCode()));
+          return response.body();
+        }))
+        .map(buffer -> Json.decodeValue(buffer, WithdrawalStatusResponse.class)))
+      .compose(statusResponse -> {
+        testContext.verify(() -> assertEquals(WithdrawalStatus.PROCESSING, statusResponse.status()));
+        return client.request(HttpMethod.GET, PORT, HOST, WITHDRAWAL_PATH + "/%s/status?waitFor=DONE".formatted(statusResponse.withdrawalId()))
+          .compose(req -> req.send());
+      })
+      .onComplete(testContext.succeeding(response -> testContext.verify(() -> {
+        assertEquals(400, response.statusCode());
+        testContext.completeNow();
+      })));
+  }
+
+  private Future<Integer> sendWithdrawal(HttpClient client, WithdrawalRequest withdrawalRequest, String idempotencyKey) {
+    return client.request(HttpMethod.POST, PORT, HOST, WITHDRAWAL_PATH)
+      .compose(req -> req.putHeader(CONTENT_TYPE_KEY, CONTENT_TYPE_JSON)
+        .putHeader("Idempotency-Key", idempotencyKey)
+        .send(Json.encode(withdrawalRequest)))
+      .map(HttpClientResponse::statusCode);
+  }
+
   void createAccounts(HttpClient client) {
     final AccountRequest testAccount1 = new AccountRequest(ADDRESS_1, BigDecimal.TEN);
     final AccountRequest testAccount2 = new AccountRequest(ADDRESS_2, BigDecimal.TEN);
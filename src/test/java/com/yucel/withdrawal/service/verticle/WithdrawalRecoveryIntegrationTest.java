@@ -0,0 +1,160 @@
+package com.yucel.withdrawal.service.verticle;
+
+import com.yucel.withdrawal.MainVerticle;
+import com.yucel.withdrawal.domain.entity.Account;
+import com.yucel.withdrawal.domain.entity.WithdrawalTransaction;
+import com.yucel.withdrawal.domain.model.AccountRequest;
+import com.yucel.withdrawal.domain.model.TransferAddress;
+import com.yucel.withdrawal.domain.model.TransferAmount;
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import com.yucel.withdrawal.repository.InMemoryAccountRepository;
+import com.yucel.withdrawal.repository.InMemoryWithdrawalRepository;
+import com.yucel.withdrawal.repository.journal.JournaledRepositories;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+public class WithdrawalRecoveryIntegrationTest {
+
+  public static final int PORT = 8888;
+  public static final String HOST = "localhost";
+  public static final String ADDRESS = "DE123";
+  public static final String ADDRESS_2 = "DE124";
+  public static final String EXTERNAL_ADDRESS = "DE1234";
+  public static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+  @TempDir
+  Path journalDirectory;
+
+  @Test
+  void givenJournaledExternalWithdrawalUnknownToProvider_whenRestarted_thenFailedAndRefunded(Vertx vertx, VertxTestContext testContext) throws Exception {
+    // the withdrawal was debited and saved, but the process stopped before the provider was asked
+    WithdrawalTransaction withdrawalTransaction = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(ADDRESS),
+      new TransferAddress(EXTERNAL_ADDRESS), new TransferAmount(100L), WithdrawalStatus.PROCESSING, true);
+    try (JournaledRepositories repositories = JournaledRepositories.open(journalDirectory, SEGMENT_BYTES,
+      new InMemoryAccountRepository(), new InMemoryWithdrawalRepository())) {
+      repositories.accountRepository().save(new Account(ADDRESS, 1_000L));
+      repositories.withdrawalRepository().save(withdrawalTransaction);
+      repositories.accountRepository().withdraw(ADDRESS, 100L);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+    }
+
+    HttpClient client = vertx.createHttpClient();
+    deploy(vertx)
+      .compose(deploymentId -> getStatus(client, withdrawalTransaction.id(), "FAILED"))
+      .compose(statusResponse -> {
+        testContext.verify(() -> assertEquals(WithdrawalStatus.FAILED, statusResponse.status()));
+        return getBalance(client, ADDRESS);
+      })
+      .onComplete(testContext.succeeding(balance -> testContext.verify(() -> {
+        assertEquals(0, BigDecimal.TEN.compareTo(balance));
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenJournaledInternalWithdrawalStillProcessing_whenRestarted_thenFailedWithBalancesUnchanged(Vertx vertx, VertxTestContext testContext) throws Exception {
+    // the recipient is one of our accounts, its balance changes are never journaled without the final status
+    WithdrawalTransaction withdrawalTransaction = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(ADDRESS),
+      new TransferAddress(ADDRESS_2), new TransferAmount(100L), WithdrawalStatus.PROCESSING, false);
+    try (JournaledRepositories repositories = JournaledRepositories.open(journalDirectory, SEGMENT_BYTES,
+      new InMemoryAccountRepository(), new InMemoryWithdrawalRepository())) {
+      repositories.accountRepository().save(new Account(ADDRESS, 1_000L));
+      repositories.accountRepository().save(new Account(ADDRESS_2, 1_000L));
+      repositories.withdrawalRepository().save(withdrawalTransaction);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+    }
+
+    HttpClient client = vertx.createHttpClient();
+    deploy(vertx)
+      .compose(deploymentId -> getStatus(client, withdrawalTransaction.id(), "FAILED"))
+      .compose(statusResponse -> {
+        testContext.verify(() -> assertEquals(WithdrawalStatus.FAILED, statusResponse.status()));
+        return Future.all(getBalance(client, ADDRESS), getBalance(client, ADDRESS_2));
+      })
+      .onComplete(testContext.succeeding(balances -> testContext.verify(() -> {
+        assertEquals(0, BigDecimal.TEN.compareTo(balances.resultAt(0)));
+        assertEquals(0, BigDecimal.TEN.compareTo(balances.resultAt(1)));
+        testContext.completeNow();
+      })));
+  }
+
+  @Test
+  void givenMoreProcessingWithdrawalsThanPageSize_whenRestarted_thenEveryOneIsRecovered(Vertx vertx, VertxTestContext testContext) throws Exception {
+    WithdrawalTransaction completed = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(ADDRESS),
+      new TransferAddress(ADDRESS_2), new TransferAmount(100L), WithdrawalStatus.COMPLETED, false);
+    WithdrawalTransaction first = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(ADDRESS),
+      new TransferAddress(ADDRESS_2), new TransferAmount(100L), WithdrawalStatus.PROCESSING, false);
+    WithdrawalTransaction second = new WithdrawalTransaction(UUID.randomUUID(), new TransferAddress(ADDRESS),
+      new TransferAddress(ADDRESS_2), new TransferAmount(100L), WithdrawalStatus.PROCESSING, false);
+    try (JournaledRepositories repositories = JournaledRepositories.open(journalDirectory, SEGMENT_BYTES,
+      new InMemoryAccountRepository(), new InMemoryWithdrawalRepository())) {
+      repositories.accountRepository().save(new Account(ADDRESS, 1_000L));
+      repositories.accountRepository().save(new Account(ADDRESS_2, 1_000L));
+      repositories.withdrawalRepository().save(completed);
+      repositories.withdrawalRepository().save(first);
+      repositories.withdrawalRepository().save(second);
+      repositories.accountRepository().flush().toCompletableFuture().join();
+    }
+
+    HttpClient client = vertx.createHttpClient();
+    // one withdrawal per page
+    deploy(vertx, 1)
+      .compose(deploymentId -> Future.all(getStatus(client, first.id(), "FAILED"), getStatus(client, second.id(), "FAILED"),
+        getStatus(client, completed.id(), "COMPLETED")))
+      .onComplete(testContext.succeeding(statuses -> testContext.verify(() -> {
+        assertEquals(WithdrawalStatus.FAILED, statuses.<WithdrawalStatusResponse>resultAt(0).status());
+        assertEquals(WithdrawalStatus.FAILED, statuses.<WithdrawalStatusResponse>resultAt(1).status());
+        assertEquals(WithdrawalStatus.COMPLETED, statuses.<WithdrawalStatusResponse>resultAt(2).status());
+        testContext.completeNow();
+      })));
+  }
+
+  private Future<String> deploy(Vertx vertx) {
+    return deploy(vertx, 1000);
+  }
+
+  private Future<String> deploy(Vertx vertx, int maxPageSize) {
+    JsonObject config = new JsonObject()
+      .put("journalDirectory", journalDirectory.toString())
+      .put("statusPollInitialDelayMillis", 10L)
+      .put("maxPageSize", maxPageSize);
+    return vertx.deployVerticle(new MainVerticle(), new DeploymentOptions().setConfig(config));
+  }
+
+  private static Future<WithdrawalStatusResponse> getStatus(HttpClient client, UUID withdrawalId, String waitFor) {
+    return client.request(HttpMethod.GET, PORT, HOST, "/withdrawals/%s/status?waitFor=%s&timeout=5000".formatted(withdrawalId, waitFor))
+      .compose(req -> req.send().compose(HttpClientResponse::body))
+      .map(buffer -> Json.decodeValue(buffer, WithdrawalStatusResponse.class));
+  }
+
+  private static Future<BigDecimal> getBalance(HttpClient client, String address) {
+    return client.request(HttpMethod.GET, PORT, HOST, "/accounts/%s".formatted(address))
+      .compose(req -> req.send().compose(HttpClientResponse::body))
+      .map(buffer -> Json.decodeValue(buffer, AccountRequest.class).balance());
+  }
+
+  @AfterEach
+  void close(Vertx vertx, VertxTestContext testContext) {
+    vertx.close(voidAsyncResult -> testContext.completeNow());
+  }
+}
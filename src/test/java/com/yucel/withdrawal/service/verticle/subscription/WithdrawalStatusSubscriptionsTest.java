@@ -0,0 +1,62 @@
+package com.yucel.withdrawal.service.verticle.subscription;
+
+import com.yucel.withdrawal.domain.model.WithdrawalStatus;
+import com.yucel.withdrawal.domain.model.WithdrawalStatusResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WithdrawalStatusSubscriptionsTest {
+
+  public static final UUID WITHDRAWAL_ID = UUID.randomUUID();
+
+  @Test
+  void givenParkedWaiter_whenAwaitedStatusPublished_thenAnsweredOnceAndUnsubscribed() {
+    WithdrawalStatusSubscriptions subscriptions = new WithdrawalStatusSubscriptions();
+    List<WithdrawalStatus> answers = new ArrayList<>();
+    WithdrawalStatusWaiter waiter = subscriptions.await(WITHDRAWAL_ID, EnumSet.of(WithdrawalStatus.COMPLETED), answers::add);
+
+    assertTrue(waiter.park(WithdrawalStatus.PROCESSING));
+    subscriptions.publish(new WithdrawalStatusResponse(UUID.randomUUID(), WithdrawalStatus.COMPLETED));
+    assertEquals(List.of(), answers);
+
+    subscriptions.publish(new WithdrawalStatusResponse(WITHDRAWAL_ID, WithdrawalStatus.COMPLETED));
+    waiter.timeout();
+
+    assertEquals(List.of(WithdrawalStatus.COMPLETED), answers);
+    assertTrue(waiter.isDone());
+    assertEquals(0, subscriptions.size());
+  }
+
+  @Test
+  void givenTransitionBeforeCurrentStatusRead_whenParked_thenAnsweredWithTheTransition() {
+    WithdrawalStatusSubscriptions subscriptions = new WithdrawalStatusSubscriptions();
+    List<WithdrawalStatus> answers = new ArrayList<>();
+    WithdrawalStatusWaiter waiter = subscriptions.await(WITHDRAWAL_ID, EnumSet.of(WithdrawalStatus.COMPLETED), answers::add);
+
+    // a final status not awaited answers too, the withdrawal cannot reach the awaited one anymore
+    subscriptions.publish(new WithdrawalStatusResponse(WITHDRAWAL_ID, WithdrawalStatus.FAILED));
+
+    assertFalse(waiter.park(WithdrawalStatus.PROCESSING));
+    assertEquals(List.of(WithdrawalStatus.FAILED), answers);
+  }
+
+  @Test
+  void givenParkedWaiter_whenTimedOut_thenAnsweredWithKnownStatus() {
+    WithdrawalStatusSubscriptions subscriptions = new WithdrawalStatusSubscriptions();
+    List<WithdrawalStatus> answers = new ArrayList<>();
+    WithdrawalStatusWaiter waiter = subscriptions.await(WITHDRAWAL_ID, EnumSet.of(WithdrawalStatus.COMPLETED), answers::add);
+
+    waiter.park(WithdrawalStatus.PROCESSING);
+    waiter.timeout();
+    subscriptions.publish(new WithdrawalStatusResponse(WITHDRAWAL_ID, WithdrawalStatus.COMPLETED));
+
+    assertEquals(List.of(WithdrawalStatus.PROCESSING), answers);
+    assertEquals(0, subscriptions.size());
+  }
+}